@@ -0,0 +1,121 @@
+package tfb.status.hk2.extensions;
+
+import static org.glassfish.hk2.utilities.ServiceLocatorUtilities.createAndPopulateServiceLocator;
+import static tfb.status.benchmarklib.Benchmarks.runBenchmarks;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.hk2.api.ServiceLocator;
+import org.glassfish.hk2.api.messaging.MessageReceiver;
+import org.glassfish.hk2.api.messaging.SubscribeTo;
+import org.glassfish.hk2.api.messaging.Topic;
+import org.glassfish.hk2.utilities.ServiceLocatorUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the per-message overhead of {@link Topic#publish(Object)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TopicsBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    runBenchmarks(TopicsBenchmark.class);
+  }
+
+  private ServiceLocator locator;
+  private Topic<Integer> topic;
+  private Topic<String> perLookupTopic;
+  private int message;
+
+  @Setup
+  public void setup() {
+    locator = createAndPopulateServiceLocator();
+    ServiceLocatorUtilities.bind(locator, new TopicsModule());
+    ServiceLocatorUtilities.addClasses(
+        locator,
+        Topics.class,
+        Counter.class,
+        PerLookupDependency.class,
+        SubscriberService.class);
+
+    Topics topics = locator.getService(Topics.class);
+    topic = topics.integerTopic;
+    perLookupTopic = topics.stringTopic;
+  }
+
+  @TearDown
+  public void tearDown() {
+    locator.shutdown();
+  }
+
+  /**
+   * Publishes a message to a subscriber that has one injected {@link
+   * Singleton} parameter.
+   */
+  @Benchmark
+  public void publish() {
+    topic.publish(message++);
+  }
+
+  /**
+   * Publishes a message to a subscriber that has one injected parameter whose
+   * service handle must be closed after each message.
+   */
+  @Benchmark
+  public void publishWithPerLookupParameter() {
+    perLookupTopic.publish("hello");
+  }
+
+  public static final class Topics {
+    final Topic<Integer> integerTopic;
+    final Topic<String> stringTopic;
+
+    @Inject
+    public Topics(Topic<Integer> integerTopic, Topic<String> stringTopic) {
+      this.integerTopic = Objects.requireNonNull(integerTopic);
+      this.stringTopic = Objects.requireNonNull(stringTopic);
+    }
+  }
+
+  @Singleton
+  public static final class Counter {
+    private long count;
+
+    void increment() {
+      count++;
+    }
+  }
+
+  public static final class PerLookupDependency {}
+
+  @Singleton
+  @MessageReceiver({ Integer.class, String.class })
+  public static final class SubscriberService {
+    public void onInteger(@SubscribeTo Integer message, Counter counter) {
+      counter.increment();
+    }
+
+    public void onString(@SubscribeTo String message,
+                         PerLookupDependency dependency,
+                         Counter counter) {
+      counter.increment();
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package tfb.status.view;
+
+import static tfb.status.benchmarklib.Benchmarks.runBenchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.hk2.api.ServiceLocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tfb.status.service.FileStore;
+import tfb.status.testlib.TestServices;
+import tfb.status.view.Results.RawData;
+import tfb.status.view.Results.RequestsMatrix;
+import tfb.status.view.Results.SingleWrkExecution;
+import tfb.status.view.Results.TestType;
+
+/**
+ * Benchmarks for {@link Results#requests(TestType, String)} and {@link
+ * Results#requestsMatrix()}, using results with at least {@link
+ * #MIN_FRAMEWORKS} frameworks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ResultsBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    runBenchmarks(ResultsBenchmark.class);
+  }
+
+  private ServiceLocator locator;
+  private Results results;
+  private RequestsMatrix matrix;
+
+  @Setup
+  public void setup() throws IOException {
+    locator = TestServices.createServiceLocator();
+
+    FileStore fileStore = locator.getService(FileStore.class);
+    ObjectMapper objectMapper = locator.getService(ObjectMapper.class);
+
+    Path jsonFile =
+        fileStore.resultsDirectory()
+                 .resolve("results.2019-12-11-13-21-02-404.json");
+
+    Results original;
+    try (InputStream inputStream = Files.newInputStream(jsonFile)) {
+      original = objectMapper.readValue(inputStream, Results.class);
+    }
+
+    results = withCopiedFrameworks(original);
+    matrix = results.requestsMatrix();
+
+    if (results.frameworks().size() < MIN_FRAMEWORKS)
+      throw new AssertionError();
+
+    if (sumWithMultimap() != sumWithMatrix())
+      throw new AssertionError();
+  }
+
+  @TearDown
+  public void tearDown() {
+    locator.shutdown();
+  }
+
+  @Benchmark
+  public long sumWithMultimap() {
+    long sum = 0;
+    for (TestType testType : TestType.values())
+      for (String framework : results.frameworks())
+        sum += results.requests(testType, framework);
+
+    return sum;
+  }
+
+  @Benchmark
+  public long sumWithMatrix() {
+    long sum = 0;
+    for (TestType testType : TestType.values())
+      for (int i = 0; i < matrix.frameworks().size(); i++)
+        sum += matrix.requests(testType, i);
+
+    return sum;
+  }
+
+  @Benchmark
+  public RequestsMatrix buildMatrix() {
+    return RequestsMatrix.of(results);
+  }
+
+  /**
+   * Returns results containing copies of every framework in the provided
+   * results, under different names, so that there are at least {@link
+   * #MIN_FRAMEWORKS} frameworks.
+   */
+  private static Results withCopiedFrameworks(Results original) {
+    int copies =
+        (MIN_FRAMEWORKS + original.frameworks().size() - 1)
+            / original.frameworks().size();
+
+    var frameworks = ImmutableSet.<String>builder();
+    var rawData =
+        new EnumMap<TestType, ImmutableListMultimap<String, SingleWrkExecution>>(
+            TestType.class);
+
+    for (TestType testType : TestType.values()) {
+      var executions =
+          ImmutableListMultimap.<String, SingleWrkExecution>builder();
+
+      for (int copy = 0; copy < copies; copy++) {
+        String suffix = (copy == 0) ? "" : "-copy" + copy;
+        for (String framework : original.frameworks()) {
+          frameworks.add(framework + suffix);
+          executions.putAll(framework + suffix,
+                            original.rawData().get(testType, framework));
+        }
+      }
+
+      rawData.put(testType, executions.build());
+    }
+
+    return new Results(
+        /* uuid= */ original.uuid(),
+        /* name= */ original.name(),
+        /* environmentDescription= */ original.environmentDescription(),
+        /* startTime= */ original.startTime(),
+        /* completionTime= */ original.completionTime(),
+        /* duration= */ original.duration(),
+        /* frameworks= */ frameworks.build(),
+        /* completed= */ original.completed(),
+        /* succeeded= */ original.succeeded(),
+        /* failed= */ original.failed(),
+        /* rawData= */
+        new RawData(
+            /* json= */ rawData.get(TestType.JSON),
+            /* plaintext= */ rawData.get(TestType.PLAINTEXT),
+            /* db= */ rawData.get(TestType.DB),
+            /* query= */ rawData.get(TestType.QUERY),
+            /* update= */ rawData.get(TestType.UPDATE),
+            /* fortune= */ rawData.get(TestType.FORTUNE),
+            /* cachedQuery= */ rawData.get(TestType.CACHED_QUERY)),
+        /* queryIntervals= */ original.queryIntervals(),
+        /* concurrencyLevels= */ original.concurrencyLevels(),
+        /* git= */ original.git(),
+        /* testMetadata= */ original.testMetadata());
+  }
+
+  private static final int MIN_FRAMEWORKS = 2000;
+}
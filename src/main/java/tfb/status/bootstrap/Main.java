@@ -5,7 +5,11 @@ import static org.glassfish.hk2.utilities.ServiceLocatorUtilities.createAndPopul
 import org.glassfish.hk2.api.ServiceLocator;
 import org.glassfish.hk2.extras.provides.NoInstancesFilter;
 import org.glassfish.hk2.utilities.ServiceLocatorUtilities;
+import tfb.status.service.HomeResultsReader;
 import tfb.status.service.HttpServer;
+import tfb.status.service.ResultsSidecarStore;
+import tfb.status.service.TaskScheduler;
+import tfb.status.service.TimelineStore;
 
 /**
  * Provides the {@code main} method for starting this application.
@@ -46,5 +50,31 @@ public final class Main {
 
     HttpServer httpServer = locator.getService(HttpServer.class);
     httpServer.start();
+
+    // Read the results files in the background so that the first requests for
+    // the home page are fast.
+    HomeResultsReader homeResultsReader =
+        locator.getService(HomeResultsReader.class);
+
+    TaskScheduler taskScheduler = locator.getService(TaskScheduler.class);
+    taskScheduler.submit(
+        () -> {
+          homeResultsReader.warmUp();
+          return null;
+        });
+
+    // Write sidecars for results that were uploaded before sidecars existed,
+    // then build the timeline from those sidecars.
+    ResultsSidecarStore sidecarStore =
+        locator.getService(ResultsSidecarStore.class);
+
+    TimelineStore timelineStore = locator.getService(TimelineStore.class);
+
+    taskScheduler.submit(
+        () -> {
+          sidecarStore.backfill();
+          timelineStore.backfill();
+          return null;
+        });
   }
 }
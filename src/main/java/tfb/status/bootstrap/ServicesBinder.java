@@ -6,11 +6,14 @@ import org.glassfish.hk2.utilities.binding.AbstractBinder;
 import tfb.status.handler.AboutPageHandler;
 import tfb.status.handler.AssetsHandler;
 import tfb.status.handler.DetailPageHandler;
+import tfb.status.handler.DiffPageHandler;
 import tfb.status.handler.DownloadResultsHandler;
 import tfb.status.handler.HealthCheckHandler;
 import tfb.status.handler.HomePageHandler;
 import tfb.status.handler.HomeUpdatesHandler;
 import tfb.status.handler.LastSeenCommitHandler;
+import tfb.status.handler.PatchResultsHandler;
+import tfb.status.handler.ResumableUploadHandler;
 import tfb.status.handler.RobotsHandler;
 import tfb.status.handler.ShareDownloadHandler;
 import tfb.status.handler.SharePageHandler;
@@ -22,6 +25,7 @@ import tfb.status.hk2.extensions.TopicsModule;
 import tfb.status.service.ApplicationConfigFactory;
 import tfb.status.service.Authenticator;
 import tfb.status.service.ClockFactory;
+import tfb.status.service.DiffCache;
 import tfb.status.service.DiffGenerator;
 import tfb.status.service.EmailSender;
 import tfb.status.service.FileStore;
@@ -31,10 +35,15 @@ import tfb.status.service.HomeResultsReader;
 import tfb.status.service.HttpServer;
 import tfb.status.service.MustacheRenderer;
 import tfb.status.service.ObjectMapperFactory;
+import tfb.status.service.PrecompressedResultsStore;
+import tfb.status.service.ResultsIngester;
+import tfb.status.service.ResultsSidecarStore;
 import tfb.status.service.RunCompleteMailer;
 import tfb.status.service.RunProgressMonitor;
 import tfb.status.service.TaskScheduler;
 import tfb.status.service.TickerFactory;
+import tfb.status.service.TimelineStore;
+import tfb.status.service.UpdatedResultsCoalescer;
 
 /**
  * Registers all of this application's service classes.
@@ -69,21 +78,30 @@ public final class ServicesBinder extends AbstractBinder {
     addActiveDescriptor(Authenticator.class);
     addActiveDescriptor(MustacheRenderer.class);
     addActiveDescriptor(HomeResultsReader.class);
+    addActiveDescriptor(ResultsSidecarStore.class);
+    addActiveDescriptor(PrecompressedResultsStore.class);
+    addActiveDescriptor(ResultsIngester.class);
+    addActiveDescriptor(TimelineStore.class);
     addActiveDescriptor(EmailSender.class);
     addActiveDescriptor(DiffGenerator.class);
+    addActiveDescriptor(DiffCache.class);
     addActiveDescriptor(FileStore.class);
     addActiveDescriptor(RunProgressMonitor.class);
     addActiveDescriptor(RunCompleteMailer.class);
     addActiveDescriptor(TaskScheduler.class);
     addActiveDescriptor(HealthChecker.class);
+    addActiveDescriptor(UpdatedResultsCoalescer.class);
     addActiveDescriptor(HomePageHandler.class);
     addActiveDescriptor(HomeUpdatesHandler.class);
     addActiveDescriptor(UploadResultsHandler.class);
+    addActiveDescriptor(ResumableUploadHandler.class);
+    addActiveDescriptor(PatchResultsHandler.class);
     addActiveDescriptor(RobotsHandler.class);
     addActiveDescriptor(DownloadResultsHandler.class);
     addActiveDescriptor(UnzipResultsHandler.class);
     addActiveDescriptor(TimelinePageHandler.class);
     addActiveDescriptor(DetailPageHandler.class);
+    addActiveDescriptor(DiffPageHandler.class);
     addActiveDescriptor(AboutPageHandler.class);
     addActiveDescriptor(AssetsHandler.class);
     addActiveDescriptor(LastSeenCommitHandler.class);
@@ -21,6 +21,7 @@ import org.glassfish.hk2.extras.provides.Provides;
  * @param runCompleteMailer See {@link RunCompleteMailerConfig}.
  * @param share See {@link ShareConfig}.
  * @param healthCheck See {@link HealthCheckConfig}.
+ * @param updatedResults See {@link UpdatedResultsConfig}.
  * @param email The configuration for outbound emails, or {@code null} if
  *              outbound emails are disabled.  See {@link EmailConfig}.
  */
@@ -34,6 +35,7 @@ public record ApplicationConfig(@Provides HttpServerConfig http,
                                 @Provides RunCompleteMailerConfig runCompleteMailer,
                                 @Provides ShareConfig share,
                                 @Provides HealthCheckConfig healthCheck,
+                                @Provides UpdatedResultsConfig updatedResults,
                                 // This would inherit the @Singleton scope from
                                 // ApplicationConfig, but singletons must not be
                                 // null, so make this @PerLookup instead.
@@ -48,6 +50,7 @@ public record ApplicationConfig(@Provides HttpServerConfig http,
     Objects.requireNonNull(runCompleteMailer);
     Objects.requireNonNull(share);
     Objects.requireNonNull(healthCheck);
+    Objects.requireNonNull(updatedResults);
   }
 
   @JsonCreator
@@ -76,6 +79,9 @@ public record ApplicationConfig(@Provides HttpServerConfig http,
       @JsonProperty(value = "healthCheck", required = false)
       @Nullable HealthCheckConfig healthCheck,
 
+      @JsonProperty(value = "updatedResults", required = false)
+      @Nullable UpdatedResultsConfig updatedResults,
+
       @JsonProperty(value = "email", required = false)
       @Nullable EmailConfig email) {
 
@@ -120,11 +126,16 @@ public record ApplicationConfig(@Provides HttpServerConfig http,
             healthCheck,
             () -> HealthCheckConfig.defaultConfig()),
 
+        /* updatedResults= */
+        Objects.requireNonNullElseGet(
+            updatedResults,
+            () -> UpdatedResultsConfig.defaultConfig()),
+
         /* email= */
         email);
   }
 
   public static ApplicationConfig defaultConfig() {
-    return create(null, null, null, null, null, null, null, null, null);
+    return create(null, null, null, null, null, null, null, null, null, null);
   }
 }
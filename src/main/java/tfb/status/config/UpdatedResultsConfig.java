@@ -0,0 +1,41 @@
+package tfb.status.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.errorprone.annotations.Immutable;
+import jakarta.inject.Singleton;
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The configuration for the service that publishes events about uploaded
+ * results.
+ *
+ * @param debounceMillis The number of milliseconds to wait after results are
+ *        uploaded before announcing the update.  Further uploads of the same
+ *        results during that time are announced together, as a single event.
+ *        If this is zero or negative, every upload is announced
+ *        immediately.
+ */
+@Immutable
+@Singleton
+public record UpdatedResultsConfig(long debounceMillis) {
+
+  @JsonCreator
+  public static UpdatedResultsConfig create(
+      @JsonProperty(value = "debounceMillis", required = false)
+      @Nullable Long debounceMillis) {
+
+    return new UpdatedResultsConfig(
+        /* debounceMillis= */
+        Objects.requireNonNullElse(
+            debounceMillis,
+            DEFAULT_DEBOUNCE_MILLIS));
+  }
+
+  public static UpdatedResultsConfig defaultConfig() {
+    return create(null);
+  }
+
+  private static final long DEFAULT_DEBOUNCE_MILLIS = 2000;
+}
@@ -0,0 +1,62 @@
+package tfb.status.handler;
+
+import static io.undertow.util.StatusCodes.NOT_FOUND;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static tfb.status.undertow.extensions.RequestValues.pathParameter;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.util.Objects;
+import tfb.status.handler.routing.DisableCache;
+import tfb.status.handler.routing.Route;
+import tfb.status.service.DiffCache;
+
+/**
+ * Handles requests for the diff between two runs.
+ */
+@Singleton
+@Route(
+    method = "GET",
+    path = "/diff/{oldUuid:[\\w-]+}/{newUuid:[\\w-]+}",
+    produces = "text/html; charset=utf-8")
+@Route(
+    method = "GET",
+    path = "/diff/{oldUuid:[\\w-]+}/{newUuid:[\\w-]+}.json",
+    produces = "application/json")
+@DisableCache
+public final class DiffPageHandler implements HttpHandler {
+  private final DiffCache diffCache;
+
+  @Inject
+  public DiffPageHandler(DiffCache diffCache) {
+    this.diffCache = Objects.requireNonNull(diffCache);
+  }
+
+  @Override
+  public void handleRequest(HttpServerExchange exchange) throws IOException {
+    String oldUuid = pathParameter(exchange, "oldUuid").orElseThrow();
+    String newUuid = pathParameter(exchange, "newUuid").orElseThrow();
+
+    boolean isJson =
+        exchange.getAttachment(Route.MATCHED_ROUTE)
+                .produces()
+                .equals("application/json");
+
+    String diff =
+        diffCache.diff(
+            /* oldUuid= */ oldUuid,
+            /* newUuid= */ newUuid,
+            /* format= */
+            isJson ? DiffCache.Format.JSON : DiffCache.Format.HTML);
+
+    if (diff == null) {
+      exchange.setStatusCode(NOT_FOUND);
+      return;
+    }
+
+    exchange.getResponseSender().send(diff, UTF_8);
+  }
+}
@@ -1,40 +1,242 @@
 package tfb.status.handler;
 
 import static com.google.common.net.HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN;
+import static io.undertow.util.Headers.ACCEPT_RANGES;
+import static io.undertow.util.Headers.CONTENT_ENCODING;
+import static io.undertow.util.Headers.CONTENT_RANGE;
+import static io.undertow.util.Headers.CONTENT_TYPE;
+import static io.undertow.util.Headers.ETAG;
+import static io.undertow.util.Headers.IF_NONE_MATCH;
+import static io.undertow.util.Headers.IF_RANGE;
+import static io.undertow.util.Headers.LAST_MODIFIED;
+import static io.undertow.util.Headers.RANGE;
+import static io.undertow.util.Headers.VARY;
+import static io.undertow.util.Methods.HEAD;
+import static io.undertow.util.StatusCodes.NOT_FOUND;
+import static io.undertow.util.StatusCodes.NOT_MODIFIED;
+import static io.undertow.util.StatusCodes.REQUEST_RANGE_NOT_SATISFIABLE;
+import static java.nio.file.StandardOpenOption.READ;
+import static tfb.status.undertow.extensions.RequestValues.acceptsContentCoding;
+import static tfb.status.undertow.extensions.RequestValues.pathParameter;
 
+import com.google.common.io.ByteStreams;
+import com.google.common.io.MoreFiles;
+import io.undertow.io.IoCallback;
 import io.undertow.server.HttpHandler;
-import io.undertow.server.handlers.PathHandler;
-import io.undertow.server.handlers.resource.PathResourceManager;
-import io.undertow.server.handlers.resource.ResourceHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.ByteRange;
+import io.undertow.util.DateUtils;
+import io.undertow.util.ETag;
+import io.undertow.util.ETagUtils;
+import io.undertow.util.MimeMappings;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Date;
 import java.util.Objects;
-import org.glassfish.hk2.extras.provides.Provides;
 import tfb.status.handler.routing.Route;
 import tfb.status.handler.routing.SetHeader;
 import tfb.status.service.FileStore;
+import tfb.status.service.PrecompressedResultsStore;
+import tfb.status.util.FileUtils;
 
 /**
  * Handles requests to download full, raw, previously-uploaded results files.
+ *
+ * <p>Results.json files are sent gzip-compressed to clients that accept gzip,
+ * using the compressed copies kept by {@link PrecompressedResultsStore}.  Each
+ * response has a strong entity tag derived from the contents of the results
+ * file, and requests whose {@code If-None-Match} header matches that tag are
+ * answered with {@code 304 Not Modified}.  File contents are transferred
+ * directly from the file to the connection where the platform supports it.
+ *
+ * <p>Requests for a single byte range of a file are answered with {@code 206
+ * Partial Content}.  Ranges are always ranges of the uncompressed file.
+ * {@code HEAD} requests are answered with the headers of the {@code GET}
+ * response and no body.
+ *
+ * <p>Only results files can be downloaded.  Other files in the results
+ * directory, such as summaries, compressed copies, and partially-written
+ * uploads, are not found.
  */
-public final class DownloadResultsHandler {
-  private DownloadResultsHandler() {
-    throw new AssertionError("This class cannot be instantiated");
+@Singleton
+@Route(method = "GET", path = "/raw/{resultsFileName}")
+// This endpoint is used by the TFB website when rendering results by uuid.
+@SetHeader(name = ACCESS_CONTROL_ALLOW_ORIGIN, value = "*")
+public final class DownloadResultsHandler implements HttpHandler {
+  private final FileStore fileStore;
+  private final PrecompressedResultsStore precompressedStore;
+
+  @Inject
+  public DownloadResultsHandler(FileStore fileStore,
+                                PrecompressedResultsStore precompressedStore) {
+
+    this.fileStore = Objects.requireNonNull(fileStore);
+    this.precompressedStore = Objects.requireNonNull(precompressedStore);
   }
 
-  @Provides
-  @Singleton
-  @Route(method = "GET", path = "/raw/{resultsFileName}")
-  // This endpoint is used by the TFB website when rendering results by uuid.
-  @SetHeader(name = ACCESS_CONTROL_ALLOW_ORIGIN, value = "*")
-  public static HttpHandler downloadResultsHandler(FileStore fileStore) {
-    Objects.requireNonNull(fileStore);
-
-    var resourceManager = new PathResourceManager(fileStore.resultsDirectory());
-    var resourceHandler = new ResourceHandler(resourceManager);
-    resourceHandler.setWelcomeFiles();
-
-    // Trim the "/raw" prefix from the front of the request path, since that
-    // prefix would confuse the ResourceHandler.
-    return new PathHandler().addPrefixPath("/raw", resourceHandler);
+  @Override
+  public void handleRequest(HttpServerExchange exchange) throws IOException {
+    String resultsFileName =
+        pathParameter(exchange, "resultsFileName").orElseThrow();
+
+    Path resultsFile =
+        FileUtils.resolveChildPath(
+            /* directory= */ fileStore.resultsDirectory(),
+            /* fileName= */ resultsFileName);
+
+    if (resultsFile == null
+        || !resultsFile.getFileSystem()
+                       .getPathMatcher("glob:" + RESULTS_FILE_GLOB)
+                       .matches(resultsFile.getFileName())
+        || !Files.isRegularFile(resultsFile)) {
+      exchange.setStatusCode(NOT_FOUND);
+      return;
+    }
+
+    String contentHash = precompressedStore.contentHash(resultsFile);
+    if (contentHash == null) {
+      exchange.setStatusCode(NOT_FOUND);
+      return;
+    }
+
+    ByteRange range =
+        ByteRange.parse(exchange.getRequestHeaders().getFirst(RANGE));
+
+    if (range != null && range.getRanges() != 1)
+      // Multiple ranges would require a multipart response.  Send the whole
+      // file instead, as permitted.
+      range = null;
+
+    Path compressedFile =
+        (range == null && acceptsContentCoding(exchange, "gzip"))
+            ? precompressedStore.compressedFile(resultsFile)
+            : null;
+
+    FileChannel fileChannel;
+    try {
+      fileChannel =
+          FileChannel.open(
+              (compressedFile == null) ? resultsFile : compressedFile,
+              READ);
+    } catch (NoSuchFileException e) {
+      exchange.setStatusCode(NOT_FOUND);
+      return;
+    }
+
+    exchange.addExchangeCompleteListener(
+        (completedExchange, nextListener) -> {
+          try {
+            fileChannel.close();
+          } catch (IOException ignored) {
+            // There is nothing useful to do about this.
+          }
+          nextListener.proceed();
+        });
+
+    // The compressed and uncompressed representations are different byte
+    // sequences, so they must have different strong entity tags.
+    ETag etag =
+        new ETag(
+            /* weak= */ false,
+            /* tag= */ (compressedFile == null)
+                           ? contentHash
+                           : contentHash + "-gzip");
+
+    Date lastModified =
+        new Date(Files.getLastModifiedTime(resultsFile).toMillis());
+
+    if (precompressedStore.isCompressible(resultsFile))
+      exchange.getResponseHeaders().put(VARY, "Accept-Encoding");
+
+    exchange.getResponseHeaders().put(ACCEPT_RANGES, "bytes");
+
+    exchange.getResponseHeaders().put(ETAG, etag.toString());
+    exchange.getResponseHeaders().put(
+        LAST_MODIFIED,
+        DateUtils.toDateString(lastModified));
+
+    // If-None-Match takes precedence over If-Modified-Since.
+    boolean isModified =
+        exchange.getRequestHeaders().contains(IF_NONE_MATCH)
+            ? ETagUtils.handleIfNoneMatch(exchange, etag, /* allowWeak= */ true)
+            : DateUtils.handleIfModifiedSince(exchange, lastModified);
+
+    if (!isModified) {
+      exchange.setStatusCode(NOT_MODIFIED);
+      return;
+    }
+
+    String mimeType =
+        MimeMappings.DEFAULT.getMimeType(
+            MoreFiles.getFileExtension(resultsFile));
+
+    exchange.getResponseHeaders().put(
+        CONTENT_TYPE,
+        (mimeType == null) ? "application/octet-stream" : mimeType);
+
+    if (compressedFile != null)
+      exchange.getResponseHeaders().put(CONTENT_ENCODING, "gzip");
+
+    // This is null when the If-Range header doesn't match the file.
+    ByteRange.RangeResponseResult rangeResult =
+        (range == null)
+            ? null
+            : range.getResponseResult(
+                  /* resourceContentLength= */ fileChannel.size(),
+                  /* ifRange= */
+                  exchange.getRequestHeaders().getFirst(IF_RANGE),
+                  /* lastModified= */ lastModified,
+                  /* eTag= */ etag.getTag());
+
+    if (rangeResult == null) {
+      exchange.setResponseContentLength(fileChannel.size());
+
+      if (exchange.getRequestMethod().equals(HEAD))
+        return;
+
+      exchange.getResponseSender().transferFrom(
+          fileChannel,
+          IoCallback.END_EXCHANGE);
+      return;
+    }
+
+    exchange.setStatusCode(rangeResult.getStatusCode());
+    exchange.getResponseHeaders().put(
+        CONTENT_RANGE,
+        rangeResult.getContentRange());
+
+    if (rangeResult.getStatusCode() == REQUEST_RANGE_NOT_SATISFIABLE) {
+      exchange.getResponseHeaders().remove(CONTENT_TYPE);
+      return;
+    }
+
+    exchange.setResponseContentLength(rangeResult.getContentLength());
+
+    if (exchange.getRequestMethod().equals(HEAD))
+      return;
+
+    // Sender.transferFrom always sends the rest of the file, so copy the range
+    // through the output stream instead.
+    fileChannel.position(rangeResult.getStart());
+    try (OutputStream outputStream = exchange.getOutputStream()) {
+      ByteStreams.copy(
+          ByteStreams.limit(
+              Channels.newInputStream(fileChannel),
+              rangeResult.getContentLength()),
+          outputStream);
+    }
   }
+
+  /**
+   * Matches the names of results files, as opposed to the names of other files
+   * in the results directory.
+   */
+  private static final String RESULTS_FILE_GLOB = "*.{json,zip}";
 }
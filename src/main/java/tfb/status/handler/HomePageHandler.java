@@ -5,6 +5,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static tfb.status.undertow.extensions.RequestValues.queryParameterAsInt;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.math.IntMath;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import jakarta.inject.Inject;
@@ -44,8 +45,6 @@ public final class HomePageHandler implements HttpHandler {
 
   @Override
   public void handleRequest(HttpServerExchange exchange) throws IOException {
-    ImmutableList<ResultsView> results = homeResultsReader.results();
-
     int skip =
         queryParameterAsInt(
             /* exchange= */ exchange,
@@ -65,9 +64,16 @@ public final class HomePageHandler implements HttpHandler {
       return;
     }
 
+    // Ask for one extra result to find out whether there is a next page.
+    ImmutableList<ResultsView> results =
+        homeResultsReader.results(
+            /* skip= */ skip,
+            /* limit= */ IntMath.saturatedAdd(limit, 1));
+
+    boolean hasNext = results.size() > limit;
+
     ImmutableList<ResultsView> resultsOnThisPage =
-        results.subList(Math.min(results.size(), skip),
-                        Math.min(results.size(), skip + limit));
+        hasNext ? results.subList(0, limit) : results;
 
     String announcement = null;
 
@@ -87,7 +93,7 @@ public final class HomePageHandler implements HttpHandler {
             /* skip= */ skip,
             /* limit= */ limit,
             /* next= */ skip + limit,
-            /* hasNext= */ skip + limit < results.size(),
+            /* hasNext= */ hasNext,
             /* announcement= */ announcement);
 
     String html = mustacheRenderer.render("home.mustache", homePageView);
@@ -0,0 +1,109 @@
+package tfb.status.handler;
+
+import static io.undertow.util.StatusCodes.BAD_REQUEST;
+import static io.undertow.util.StatusCodes.NOT_FOUND;
+import static tfb.status.undertow.extensions.RequestValues.pathParameter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Objects;
+import org.glassfish.hk2.extras.provides.Provides;
+import tfb.status.handler.routing.DisableCache;
+import tfb.status.handler.routing.Route;
+import tfb.status.service.Authenticator;
+import tfb.status.service.FileStore;
+import tfb.status.service.HomeResultsReader;
+import tfb.status.service.ResultsIngester;
+import tfb.status.view.HomePageView.ResultsView;
+import tfb.status.view.Results;
+
+/**
+ * Handles requests to update a results.json file that was uploaded earlier
+ * with only the parts of the results that changed, such as the frameworks that
+ * completed their tests since the last update.  The request body is a JSON
+ * patch as described by {@code ResultsPatcher}, and the uuid of the results is
+ * part of the path.
+ *
+ * <p>A run uploads its full results.json file once using {@link
+ * UploadResultsHandler}, and then sends a patch as each framework completes,
+ * so that the size of each update is proportional to what changed rather than
+ * to the size of the run.
+ */
+@Singleton
+public final class PatchResultsHandler implements HttpHandler {
+  private final FileStore fileStore;
+  private final ObjectMapper objectMapper;
+  private final HomeResultsReader homeResultsReader;
+  private final ResultsIngester resultsIngester;
+
+  @Inject
+  public PatchResultsHandler(FileStore fileStore,
+                             ObjectMapper objectMapper,
+                             HomeResultsReader homeResultsReader,
+                             ResultsIngester resultsIngester) {
+
+    this.fileStore = Objects.requireNonNull(fileStore);
+    this.objectMapper = Objects.requireNonNull(objectMapper);
+    this.homeResultsReader = Objects.requireNonNull(homeResultsReader);
+    this.resultsIngester = Objects.requireNonNull(resultsIngester);
+  }
+
+  @Provides
+  @Singleton
+  @Route(
+      method = "PATCH",
+      path = "/upload/{uuid:[\\w-]+}",
+      consumes = "application/json")
+  @DisableCache
+  public HttpHandler patchResultsHandler(Authenticator authenticator) {
+    Objects.requireNonNull(authenticator);
+    return authenticator.newRequiredAuthHandler(this);
+  }
+
+  @Override
+  public void handleRequest(HttpServerExchange exchange) throws IOException {
+    String uuid = pathParameter(exchange, "uuid").orElseThrow();
+
+    ResultsView results = homeResultsReader.resultsByUuid(uuid);
+    if (results == null || results.jsonFileName() == null) {
+      exchange.setStatusCode(NOT_FOUND);
+      return;
+    }
+
+    JsonNode patch;
+    try (InputStream inputStream = exchange.getInputStream()) {
+      patch = objectMapper.readTree(inputStream);
+    } catch (JsonProcessingException e) {
+      exchange.setStatusCode(BAD_REQUEST);
+      return;
+    }
+
+    if (!(patch instanceof ObjectNode patchObject)) {
+      exchange.setStatusCode(BAD_REQUEST);
+      return;
+    }
+
+    // Don't let a patch move the results to a different uuid.
+    JsonNode patchUuid = patchObject.get("uuid");
+    if (patchUuid != null && !uuid.equals(patchUuid.asText())) {
+      exchange.setStatusCode(BAD_REQUEST);
+      return;
+    }
+
+    Path resultsFile =
+        fileStore.resultsDirectory().resolve(results.jsonFileName());
+
+    Results patchedResults = resultsIngester.patch(resultsFile, patchObject);
+    if (patchedResults == null)
+      exchange.setStatusCode(BAD_REQUEST);
+  }
+}
@@ -0,0 +1,524 @@
+package tfb.status.handler;
+
+import static io.undertow.util.Headers.CONTENT_RANGE;
+import static io.undertow.util.Headers.LOCATION;
+import static io.undertow.util.StatusCodes.BAD_REQUEST;
+import static io.undertow.util.StatusCodes.CONFLICT;
+import static io.undertow.util.StatusCodes.CREATED;
+import static io.undertow.util.StatusCodes.INTERNAL_SERVER_ERROR;
+import static io.undertow.util.StatusCodes.NOT_FOUND;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static tfb.status.undertow.extensions.RequestValues.pathParameter;
+import static tfb.status.undertow.extensions.RequestValues.queryParameter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.Striped;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.glassfish.hk2.extras.provides.Provides;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tfb.status.handler.routing.DisableCache;
+import tfb.status.handler.routing.NonBlocking;
+import tfb.status.handler.routing.Route;
+import tfb.status.service.Authenticator;
+import tfb.status.service.FileStore;
+import tfb.status.service.ResultsIngester;
+import tfb.status.util.FileUtils;
+import tfb.status.view.Results;
+import tfb.status.view.UploadSessionView;
+
+/**
+ * Handles requests to upload a results file in several pieces, so that an
+ * upload that is interrupted can be resumed where it left off rather than
+ * starting over.
+ *
+ * <p>The protocol is:
+ *
+ * <ol>
+ * <li>{@code POST /upload/sessions?format=zip} (or {@code format=json})
+ *     creates an upload session.  The response is {@code 201 Created} with a
+ *     JSON {@link UploadSessionView} whose {@link UploadSessionView#uploadUrl()}
+ *     is used in the following requests.
+ * <li>{@code PUT {uploadUrl}} with a {@code Content-Range: bytes
+ *     start-end/total} header appends that range of the file to the upload.
+ *     The start must equal the session's current {@link
+ *     UploadSessionView#offset()}, otherwise the response is {@code 409
+ *     Conflict} with the current state of the session.
+ * <li>{@code GET {uploadUrl}} returns the current state of the session, which
+ *     tells a client that lost its connection where to resume.
+ * <li>{@code POST {uploadUrl}/finalize} validates the complete file and adds
+ *     it to the results directory, exactly like a single {@code POST /upload}
+ *     request.  See {@link ResultsIngester}.
+ * </ol>
+ *
+ * <p>Partial files are kept in the {@linkplain FileStore#uploadsDirectory()
+ * uploads directory}.  The offset of a session is the size of its partial
+ * file.  Each range is appended to the partial file as it is received, without
+ * occupying a worker thread.  If the request fails, or if its body does not
+ * match its {@code Content-Range}, then the bytes appended by that request are
+ * discarded.  So the unit of resumption is one {@code PUT} request: a range
+ * that is interrupted must be sent again in full.  Only one range may be
+ * appended to a session at a time, and a range sent while another is still
+ * being received is rejected with {@code 409 Conflict}.  Sessions that are not
+ * modified for {@link #SESSION_EXPIRY} are deleted.
+ *
+ * <p>All requests require authentication.
+ */
+@Singleton
+public final class ResumableUploadHandler {
+  private final FileStore fileStore;
+  private final ResultsIngester resultsIngester;
+  private final ObjectMapper objectMapper;
+  private final Clock clock;
+  private final Striped<Lock> sessionLocks = Striped.lock(64);
+
+  // The ids of the sessions whose ranges are currently being received.  A
+  // session's partial file is only written while its id is in this set.
+  private final Set<String> activeAppends = ConcurrentHashMap.newKeySet();
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @Inject
+  public ResumableUploadHandler(FileStore fileStore,
+                                ResultsIngester resultsIngester,
+                                ObjectMapper objectMapper,
+                                Clock clock) {
+
+    this.fileStore = Objects.requireNonNull(fileStore);
+    this.resultsIngester = Objects.requireNonNull(resultsIngester);
+    this.objectMapper = Objects.requireNonNull(objectMapper);
+    this.clock = Objects.requireNonNull(clock);
+  }
+
+  @Provides
+  @Singleton
+  @Route(
+      method = "POST",
+      path = "/upload/sessions",
+      produces = "application/json")
+  @DisableCache
+  public HttpHandler createSessionHandler(Authenticator authenticator) {
+    Objects.requireNonNull(authenticator);
+    return authenticator.newRequiredAuthHandler(
+        exchange -> createSession(exchange));
+  }
+
+  @Provides
+  @Singleton
+  @Route(
+      method = "GET",
+      path = "/upload/sessions/{uploadId:[\\w-]+}",
+      produces = "application/json")
+  @DisableCache
+  public HttpHandler getSessionHandler(Authenticator authenticator) {
+    Objects.requireNonNull(authenticator);
+    return authenticator.newRequiredAuthHandler(
+        exchange -> getSession(exchange));
+  }
+
+  @Provides
+  @Singleton
+  @Route(
+      method = "PUT",
+      path = "/upload/sessions/{uploadId:[\\w-]+}",
+      produces = "application/json")
+  @DisableCache
+  @NonBlocking
+  public HttpHandler appendHandler(Authenticator authenticator) {
+    Objects.requireNonNull(authenticator);
+    return authenticator.newRequiredAuthHandler(exchange -> append(exchange));
+  }
+
+  @Provides
+  @Singleton
+  @Route(
+      method = "POST",
+      path = "/upload/sessions/{uploadId:[\\w-]+}/finalize")
+  @DisableCache
+  public HttpHandler finalizeHandler(Authenticator authenticator) {
+    Objects.requireNonNull(authenticator);
+    return authenticator.newRequiredAuthHandler(
+        exchange -> finalizeSession(exchange));
+  }
+
+  private void createSession(HttpServerExchange exchange) throws IOException {
+    String format =
+        Objects.requireNonNullElse(
+            queryParameter(exchange, "format"),
+            "zip");
+
+    if (!format.equals("json") && !format.equals("zip")) {
+      exchange.setStatusCode(BAD_REQUEST);
+      return;
+    }
+
+    deleteExpiredSessions();
+
+    String uploadId = UUID.randomUUID().toString();
+    Path partFile =
+        fileStore.uploadsDirectory().resolve(
+            uploadId + "." + format + PART_FILE_SUFFIX);
+
+    Files.createFile(partFile);
+
+    UploadSessionView session = sessionView(uploadId, partFile);
+    exchange.setStatusCode(CREATED);
+    exchange.getResponseHeaders().put(LOCATION, session.uploadUrl());
+    exchange.getResponseSender().send(
+        objectMapper.writeValueAsString(session),
+        UTF_8);
+  }
+
+  private void getSession(HttpServerExchange exchange) throws IOException {
+    String uploadId = pathParameter(exchange, "uploadId").orElseThrow();
+
+    Lock lock = sessionLocks.get(uploadId);
+    lock.lock();
+    try {
+      Path partFile = partFile(uploadId);
+      if (partFile == null) {
+        exchange.setStatusCode(NOT_FOUND);
+        return;
+      }
+
+      exchange.getResponseSender().send(
+          objectMapper.writeValueAsString(sessionView(uploadId, partFile)),
+          UTF_8);
+
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Appends a range of the file to its upload as the range is received.
+   */
+  private void append(HttpServerExchange exchange) throws IOException {
+    String uploadId = pathParameter(exchange, "uploadId").orElseThrow();
+
+    ContentRange range =
+        ContentRange.parse(
+            exchange.getRequestHeaders().getFirst(CONTENT_RANGE));
+
+    if (range == null) {
+      exchange.setStatusCode(BAD_REQUEST);
+      return;
+    }
+
+    Path partFile;
+    FileChannel channel;
+
+    Lock lock = sessionLocks.get(uploadId);
+    lock.lock();
+    try {
+      partFile = partFile(uploadId);
+      if (partFile == null) {
+        exchange.setStatusCode(NOT_FOUND);
+        return;
+      }
+
+      if (activeAppends.contains(uploadId)
+          || range.start() != Files.size(partFile)) {
+        exchange.setStatusCode(CONFLICT);
+        exchange.getResponseSender().send(
+            objectMapper.writeValueAsString(sessionView(uploadId, partFile)),
+            UTF_8);
+        return;
+      }
+
+      channel = FileChannel.open(partFile, WRITE, APPEND);
+      activeAppends.add(uploadId);
+    } finally {
+      lock.unlock();
+    }
+
+    var receiver = new RangeReceiver(uploadId, partFile, channel, range);
+
+    // Release the session no matter how the exchange ends.
+    exchange.addExchangeCompleteListener(
+        (completedExchange, nextListener) -> {
+          try {
+            receiver.finish(/* isComplete= */ false);
+          } catch (IOException e) {
+            logger.warn("Error discarding range of upload file {}",
+                        partFile, e);
+          } finally {
+            nextListener.proceed();
+          }
+        });
+
+    exchange.getRequestReceiver().receivePartialBytes(
+        (receivingExchange, bytes, last) -> receiver.onBytes(receivingExchange,
+                                                             bytes,
+                                                             last),
+        (receivingExchange, e) -> receiver.onError(receivingExchange, e));
+  }
+
+  /**
+   * The state of one range as it is being appended to the partial file of its
+   * upload.  The methods of this class are invoked on an I/O thread.
+   */
+  private final class RangeReceiver {
+    private final String uploadId;
+    private final Path partFile;
+    private final FileChannel channel;
+    private final ContentRange range;
+    private long received = 0;
+    private boolean isFinished = false;
+
+    RangeReceiver(String uploadId,
+                  Path partFile,
+                  FileChannel channel,
+                  ContentRange range) {
+
+      this.uploadId = Objects.requireNonNull(uploadId);
+      this.partFile = Objects.requireNonNull(partFile);
+      this.channel = Objects.requireNonNull(channel);
+      this.range = Objects.requireNonNull(range);
+    }
+
+    synchronized void onBytes(HttpServerExchange exchange,
+                              byte[] bytes,
+                              boolean last) {
+      boolean isComplete;
+      try {
+        // Bytes beyond the end of the range are counted but not written.
+        int length =
+            (int) Math.max(0, Math.min(bytes.length, range.size() - received));
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining())
+          channel.write(buffer);
+
+        received += bytes.length;
+
+        if (!last)
+          return;
+
+        isComplete = received == range.size();
+        finish(isComplete);
+      } catch (IOException e) {
+        onError(exchange, e);
+        return;
+      }
+
+      if (!isComplete) {
+        exchange.setStatusCode(BAD_REQUEST);
+        exchange.endExchange();
+        return;
+      }
+
+      try {
+        exchange.getResponseSender().send(
+            objectMapper.writeValueAsString(sessionView(uploadId, partFile)),
+            UTF_8);
+      } catch (IOException e) {
+        onError(exchange, e);
+      }
+    }
+
+    synchronized void onError(HttpServerExchange exchange, IOException e) {
+      try {
+        finish(/* isComplete= */ false);
+      } catch (IOException finishException) {
+        e.addSuppressed(finishException);
+      }
+
+      logger.warn("Error appending range to upload file {}", partFile, e);
+
+      if (!exchange.isResponseStarted())
+        exchange.setStatusCode(INTERNAL_SERVER_ERROR);
+
+      exchange.endExchange();
+    }
+
+    /**
+     * Discards the bytes appended by this range unless the range is complete,
+     * then allows other ranges to be appended to the upload.  This does
+     * nothing if it was called already.
+     */
+    synchronized void finish(boolean isComplete) throws IOException {
+      if (isFinished)
+        return;
+
+      isFinished = true;
+      try {
+        try {
+          if (!isComplete)
+            channel.truncate(range.start());
+        } finally {
+          channel.close();
+        }
+      } finally {
+        activeAppends.remove(uploadId);
+      }
+    }
+  }
+
+  private void finalizeSession(HttpServerExchange exchange)
+      throws IOException {
+
+    String uploadId = pathParameter(exchange, "uploadId").orElseThrow();
+
+    Lock lock = sessionLocks.get(uploadId);
+    lock.lock();
+    try {
+      Path partFile = partFile(uploadId);
+      if (partFile == null) {
+        exchange.setStatusCode(NOT_FOUND);
+        return;
+      }
+
+      if (activeAppends.contains(uploadId)) {
+        exchange.setStatusCode(CONFLICT);
+        return;
+      }
+
+      boolean isJson =
+          partFile.getFileName().toString().endsWith(
+              ".json" + PART_FILE_SUFFIX);
+
+      Results results = resultsIngester.ingest(partFile, isJson);
+      if (results == null) {
+        // The client cannot repair the file by sending more bytes.
+        Files.delete(partFile);
+        exchange.setStatusCode(BAD_REQUEST);
+      }
+
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the partial file of the upload having the specified id, or {@code
+   * null} if there is no such upload.
+   */
+  private @Nullable Path partFile(String uploadId) {
+    Objects.requireNonNull(uploadId);
+
+    for (String format : new String[] { "zip", "json" }) {
+      Path partFile =
+          FileUtils.resolveChildPath(
+              fileStore.uploadsDirectory(),
+              uploadId + "." + format + PART_FILE_SUFFIX);
+
+      if (partFile != null && Files.isRegularFile(partFile))
+        return partFile;
+    }
+
+    return null;
+  }
+
+  private static UploadSessionView sessionView(String uploadId, Path partFile)
+      throws IOException {
+
+    Objects.requireNonNull(uploadId);
+    Objects.requireNonNull(partFile);
+
+    String fileName = partFile.getFileName().toString();
+    String format =
+        fileName.substring(
+            uploadId.length() + 1,
+            fileName.length() - PART_FILE_SUFFIX.length());
+
+    return new UploadSessionView(
+        /* uploadId= */ uploadId,
+        /* uploadUrl= */ "/upload/sessions/" + uploadId,
+        /* format= */ format,
+        /* offset= */ Files.size(partFile));
+  }
+
+  /**
+   * A range of the file to be appended to an upload, as described by the
+   * {@code Content-Range} header of a request.
+   *
+   * @param start the position of the first byte of the range
+   * @param size the number of bytes in the range
+   */
+  private record ContentRange(long start, long size) {
+    /**
+     * Parses a {@code Content-Range} header, returning {@code null} if the
+     * header is missing, is malformed, or describes an empty range.
+     */
+    static @Nullable ContentRange parse(@Nullable String contentRange) {
+      if (contentRange == null)
+        return null;
+
+      Matcher matcher = CONTENT_RANGE_PATTERN.matcher(contentRange.trim());
+      if (!matcher.matches())
+        return null;
+
+      long start;
+      long end;
+      try {
+        start = Long.parseLong(matcher.group("start"));
+        end = Long.parseLong(matcher.group("end"));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+
+      if (end < start)
+        return null;
+
+      String total = matcher.group("total");
+      if (!total.equals("*")) {
+        try {
+          if (end >= Long.parseLong(total))
+            return null;
+        } catch (NumberFormatException e) {
+          return null;
+        }
+      }
+
+      return new ContentRange(start, end - start + 1);
+    }
+  }
+
+  private void deleteExpiredSessions() throws IOException {
+    Instant expiry = clock.instant().minus(SESSION_EXPIRY);
+
+    try (DirectoryStream<Path> files =
+             Files.newDirectoryStream(fileStore.uploadsDirectory())) {
+
+      for (Path file : files) {
+        if (Files.getLastModifiedTime(file).toInstant().isBefore(expiry)) {
+          logger.info("Deleting expired upload file {}", file);
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+  }
+
+  private static final String PART_FILE_SUFFIX = ".part";
+
+  private static final Pattern CONTENT_RANGE_PATTERN =
+      Pattern.compile(
+          "^bytes (?<start>\\d+)-(?<end>\\d+)/(?<total>\\d+|\\*)$");
+
+  /**
+   * How long an upload session is kept after it was last modified.
+   */
+  private static final Duration SESSION_EXPIRY = Duration.ofDays(7);
+}
@@ -8,13 +8,11 @@ import static io.undertow.util.StatusCodes.CREATED;
 import static io.undertow.util.StatusCodes.REQUEST_ENTITY_TOO_LARGE;
 import static io.undertow.util.StatusCodes.SERVICE_UNAVAILABLE;
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static java.nio.file.StandardOpenOption.CREATE_NEW;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.io.ByteStreams;
 import com.google.common.io.MoreFiles;
 import com.google.errorprone.annotations.Immutable;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
@@ -39,9 +37,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tfb.status.config.ShareConfig;
 import tfb.status.handler.routing.DisableCache;
+import tfb.status.handler.routing.NonBlocking;
 import tfb.status.handler.routing.Route;
 import tfb.status.service.EmailSender;
 import tfb.status.service.FileStore;
+import tfb.status.undertow.extensions.RequestBodyFileHandler;
+import tfb.status.undertow.extensions.RequestBodyFileHandler.ReceivedFile;
 import tfb.status.util.FileUtils;
 import tfb.status.view.Results;
 import tfb.status.view.ShareFailure;
@@ -71,6 +72,7 @@ import tfb.status.view.ShareSuccess;
     consumes = "application/json",
     produces = "application/json")
 @DisableCache
+@NonBlocking
 public final class ShareUploadHandler implements HttpHandler {
   private final Logger logger = LoggerFactory.getLogger(getClass());
   private final ShareConfig config;
@@ -78,6 +80,7 @@ public final class ShareUploadHandler implements HttpHandler {
   private final ObjectMapper objectMapper;
   private final Clock clock;
   private final EmailSender emailSender;
+  private final RequestBodyFileHandler bodyReceiver;
 
   @GuardedBy("emailTimeLock")
   private volatile @Nullable Instant previousEmailTime;
@@ -95,15 +98,41 @@ public final class ShareUploadHandler implements HttpHandler {
     this.objectMapper = Objects.requireNonNull(objectMapper);
     this.clock = Objects.requireNonNull(clock);
     this.emailSender = Objects.requireNonNull(emailSender);
+
+    this.bodyReceiver =
+        new RequestBodyFileHandler(
+            /* fileFactory= */
+            () -> Files.createTempFile(
+                /* prefix= */ "TFB_Share_Upload",
+                /* suffix= */ ".json"),
+            /* maxBytes= */ config.maxFileSizeInBytes(),
+            /* next= */ exchange -> handleReceivedFile(exchange));
   }
 
   @Override
   public void handleRequest(HttpServerExchange exchange) throws IOException {
-    ShareOutcome outcome = share(exchange.getInputStream());
+    // Reject the upload before receiving its body if the share directory is
+    // already full.
+    ShareFailure failure = checkCapacity();
+    if (failure != null) {
+      sendFailure(exchange, failure);
+      return;
+    }
+
+    bodyReceiver.handleRequest(exchange);
+  }
+
+  /**
+   * Handles the request once its body has been saved to a file.
+   */
+  private void handleReceivedFile(HttpServerExchange exchange)
+      throws IOException {
+
+    ShareOutcome outcome =
+        share(exchange.getAttachment(RequestBodyFileHandler.RECEIVED_FILE));
+
     if (outcome.failure != null) {
-      String json = objectMapper.writeValueAsString(outcome.failure);
-      exchange.setStatusCode(statusCodeForFailure(outcome.failure.kind()));
-      exchange.getResponseSender().send(json, UTF_8);
+      sendFailure(exchange, outcome.failure);
       return;
     }
 
@@ -114,21 +143,21 @@ public final class ShareUploadHandler implements HttpHandler {
     exchange.getResponseSender().send(json, UTF_8);
   }
 
+  private void sendFailure(HttpServerExchange exchange, ShareFailure failure)
+      throws IOException {
+
+    String json = objectMapper.writeValueAsString(failure);
+    exchange.setStatusCode(statusCodeForFailure(failure.kind()));
+    exchange.getResponseSender().send(json, UTF_8);
+  }
+
   /**
-   * Accepts a new results.json file to be shared.
-   *
-   * <p>This method first validates the size requirements: that the given file
-   * isn't too large, and that the share directory is not full.  This method
-   * then validates the contents of the file, ensuring that it de-serializes to
-   * a {@link Results} object successfully, and that it contains a non-empty
-   * {@link Results#testMetadata()}.
+   * Verifies that the share directory is not full.
    *
-   * @param resultsBytes the bytes of the results.json file to be shared
-   * @return an object describing the success or failure of the call
+   * @return a failure if the share directory is full, or {@code null} if new
+   *         files may be shared
    */
-  private ShareOutcome share(InputStream resultsBytes) throws IOException {
-    Objects.requireNonNull(resultsBytes);
-
+  private @Nullable ShareFailure checkCapacity() throws IOException {
     // We are only checking if the share directory is currently under its max
     // size, without the addition of the new file.  This reduces the complexity
     // and potentially wasted time of zipping the json file before checking if
@@ -144,88 +173,91 @@ public final class ShareUploadHandler implements HttpHandler {
           config.maxDirectorySizeInBytes(),
           shareDirectorySize);
 
-      return new ShareOutcome(
-          new ShareFailure(
-              ShareFailure.Kind.SHARE_DIRECTORY_FULL,
-              "Share uploads has reached max capacity."));
+      return new ShareFailure(
+          ShareFailure.Kind.SHARE_DIRECTORY_FULL,
+          "Share uploads has reached max capacity.");
     }
 
-    Path tempFile =
-        Files.createTempFile(
-            /* prefix= */ "TFB_Share_Upload",
-            /* suffix= */ ".json");
-
-    try {
-      InputStream limitedBytes =
-          ByteStreams.limit(
-              resultsBytes,
-              config.maxFileSizeInBytes() + 1);
-
-      long fileSize = Files.copy(limitedBytes, tempFile, REPLACE_EXISTING);
-
-      if (fileSize > config.maxFileSizeInBytes())
-        return new ShareOutcome(
-            new ShareFailure(
-                ShareFailure.Kind.FILE_TOO_LARGE,
-                "Share uploads cannot exceed "
-                    + config.maxFileSizeInBytes()
-                    + " bytes."));
-
-      Results results;
-      try (InputStream inputStream = Files.newInputStream(tempFile)) {
-        results = objectMapper.readValue(inputStream, Results.class);
-      } catch (JsonProcessingException e) {
-        logger.info("Exception processing json file {}", tempFile, e);
-        return new ShareOutcome(
-            new ShareFailure(
-                ShareFailure.Kind.INVALID_JSON,
-                "Invalid results JSON"));
-      }
-
-      if (results.testMetadata() == null || results.testMetadata().isEmpty())
-        return new ShareOutcome(
-            new ShareFailure(
-                ShareFailure.Kind.MISSING_TEST_METADATA,
-                "Results must contain non-empty test metadata"));
-
-      String shareId = UUID.randomUUID().toString();
-      String sharedFileName = shareId + ".json.gz";
-      Path sharedFile = fileStore.shareDirectory().resolve(sharedFileName);
-      MoreFiles.createParentDirectories(sharedFile);
+    return null;
+  }
 
-      try (OutputStream outputStream =
-               Files.newOutputStream(sharedFile, CREATE_NEW);
+  /**
+   * Accepts a new results.json file to be shared.
+   *
+   * <p>This method first validates that the given file isn't too large.  This
+   * method then validates the contents of the file, ensuring that it
+   * de-serializes to a {@link Results} object successfully, and that it
+   * contains a non-empty {@link Results#testMetadata()}.  The capacity of the
+   * share directory is {@linkplain #checkCapacity() checked} before the file
+   * is received.
+   *
+   * @param receivedFile the results.json file to be shared
+   * @return an object describing the success or failure of the call
+   */
+  private ShareOutcome share(ReceivedFile receivedFile) throws IOException {
+    Objects.requireNonNull(receivedFile);
 
-           GZIPOutputStream gzipOutputStream =
-               new GZIPOutputStream(outputStream)) {
+    if (receivedFile.isTruncated())
+      return new ShareOutcome(
+          new ShareFailure(
+              ShareFailure.Kind.FILE_TOO_LARGE,
+              "Share uploads cannot exceed "
+                  + config.maxFileSizeInBytes()
+                  + " bytes."));
+
+    Path tempFile = receivedFile.file();
+
+    Results results;
+    try (InputStream inputStream = Files.newInputStream(tempFile)) {
+      results = objectMapper.readValue(inputStream, Results.class);
+    } catch (JsonProcessingException e) {
+      logger.info("Exception processing json file {}", tempFile, e);
+      return new ShareOutcome(
+          new ShareFailure(
+              ShareFailure.Kind.INVALID_JSON,
+              "Invalid results JSON"));
+    }
 
-        Files.copy(tempFile, gzipOutputStream);
-      }
+    if (results.testMetadata() == null || results.testMetadata().isEmpty())
+      return new ShareOutcome(
+          new ShareFailure(
+              ShareFailure.Kind.MISSING_TEST_METADATA,
+              "Results must contain non-empty test metadata"));
 
-      String resultsUrl =
-          config.tfbStatusOrigin()
-              + "/share/download/"
-              + urlPathSegmentEscaper().escape(shareId + ".json");
+    String shareId = UUID.randomUUID().toString();
+    String sharedFileName = shareId + ".json.gz";
+    Path sharedFile = fileStore.shareDirectory().resolve(sharedFileName);
+    MoreFiles.createParentDirectories(sharedFile);
 
-      String visualizeResultsUrl =
-          config.tfbWebsiteOrigin()
-              + "/benchmarks/#"
-              + urlFragmentEscaper().escape("section=test&shareid=" + shareId);
+    try (OutputStream outputStream =
+             Files.newOutputStream(sharedFile, CREATE_NEW);
 
-      return new ShareOutcome(
-          new ShareSuccess(
-              /* shareId= */ shareId,
-              /* resultsUrl= */ resultsUrl,
-              /* visualizeResultsUrl= */ visualizeResultsUrl));
+         GZIPOutputStream gzipOutputStream =
+             new GZIPOutputStream(outputStream)) {
 
-    } finally {
-      Files.delete(tempFile);
+      Files.copy(tempFile, gzipOutputStream);
     }
+
+    String resultsUrl =
+        config.tfbStatusOrigin()
+            + "/share/download/"
+            + urlPathSegmentEscaper().escape(shareId + ".json");
+
+    String visualizeResultsUrl =
+        config.tfbWebsiteOrigin()
+            + "/benchmarks/#"
+            + urlFragmentEscaper().escape("section=test&shareid=" + shareId);
+
+    return new ShareOutcome(
+        new ShareSuccess(
+            /* shareId= */ shareId,
+            /* resultsUrl= */ resultsUrl,
+            /* visualizeResultsUrl= */ visualizeResultsUrl));
   }
 
   /**
    * An object indicating the success or failure of a call to {@link
-   * #share(InputStream)}.  If the call was a success, then {@link #success} is
+   * #share(ReceivedFile)}.  If the call was a success, then {@link #success} is
    * non-{@code null}.  Otherwise, {@link #failure} is non-{@code null}.
    */
   @Immutable
@@ -3,32 +3,21 @@ package tfb.status.handler;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.undertow.util.StatusCodes.NOT_FOUND;
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.util.Comparator.comparing;
 import static tfb.status.undertow.extensions.RequestValues.pathParameter;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.EnumSet;
-import java.util.HashSet;
 import java.util.Objects;
-import java.util.Set;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import tfb.status.handler.routing.DisableCache;
 import tfb.status.handler.routing.Route;
-import tfb.status.service.FileStore;
 import tfb.status.service.MustacheRenderer;
-import tfb.status.util.ZipFiles;
+import tfb.status.service.TimelineStore;
+import tfb.status.service.TimelineStore.Timeline;
 import tfb.status.view.Results;
 import tfb.status.view.TimelinePageView;
 import tfb.status.view.TimelinePageView.DataPointView;
@@ -45,19 +34,15 @@ import tfb.status.view.TimelinePageView.TestTypeOptionView;
     produces = "text/html; charset=utf-8")
 @DisableCache
 public final class TimelinePageHandler implements HttpHandler {
-  private final FileStore fileStore;
   private final MustacheRenderer mustacheRenderer;
-  private final ObjectMapper objectMapper;
-  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final TimelineStore timelineStore;
 
   @Inject
-  public TimelinePageHandler(FileStore fileStore,
-                             MustacheRenderer mustacheRenderer,
-                             ObjectMapper objectMapper) {
+  public TimelinePageHandler(MustacheRenderer mustacheRenderer,
+                             TimelineStore timelineStore) {
 
-    this.fileStore = Objects.requireNonNull(fileStore);
     this.mustacheRenderer = Objects.requireNonNull(mustacheRenderer);
-    this.objectMapper = Objects.requireNonNull(objectMapper);
+    this.timelineStore = Objects.requireNonNull(timelineStore);
   }
 
   @Override
@@ -75,80 +60,23 @@ public final class TimelinePageHandler implements HttpHandler {
       return;
     }
 
-    var allFrameworks = new HashSet<String>();
-
-    Set<Results.TestType> missingTestTypes =
-        EnumSet.allOf(Results.TestType.class);
-
-    var dataPoints = new ArrayList<DataPointView>();
-
-    try (DirectoryStream<Path> zipFiles =
-             Files.newDirectoryStream(fileStore.resultsDirectory(),
-                                      "*.zip")) {
-
-      for (Path zipFile : zipFiles) {
-        Results results;
-        try {
-          results =
-              ZipFiles.readZipEntry(
-                  /* zipFile= */
-                  zipFile,
-                  /* entryPath= */
-                  "results.json",
-                  /* entryReader= */
-                  inputStream ->
-                      objectMapper.readValue(inputStream, Results.class));
-
-        } catch (IOException e) {
-          logger.warn(
-              "Ignoring results.zip file {} whose results.json file "
-                  + "could not be parsed",
-              zipFile, e);
-          continue;
-        }
-
-        if (results == null) {
-          logger.warn(
-              "Ignoring results.zip file {} that did not contain a "
-                  + "results.json file",
-              zipFile);
-          continue;
-        }
-
-        if (results.startTime() == null)
-          // We could try to read the timestamp from somewhere else, but it's
-          // not worth the added complexity.
-          continue;
-
-        allFrameworks.addAll(results.frameworks());
-
-        missingTestTypes.removeIf(
-            testType ->
-                results.rps(
-                    /* testType= */ testType,
-                    /* framework= */ selectedFramework)
-                != 0);
-
-        double rps =
-            results.rps(
-                /* testType= */ selectedTestType,
-                /* framework= */ selectedFramework);
-
-        if (rps != 0) {
-          dataPoints.add(
-              new DataPointView(
-                  /* time= */ results.startTime(),
-                  /* rps= */ rps));
-        }
-      }
-    }
+    Timeline timeline =
+        timelineStore.timeline(selectedFramework, selectedTestType);
 
-    if (!allFrameworks.contains(selectedFramework)) {
+    if (timeline == null) {
       exchange.setStatusCode(NOT_FOUND);
       return;
     }
 
-    dataPoints.sort(comparing(dataPoint -> dataPoint.time()));
+    ImmutableList<DataPointView> dataPoints =
+        timeline.dataPoints()
+                .stream()
+                .map(
+                    dataPoint ->
+                        new DataPointView(
+                            /* time= */ dataPoint.startTime(),
+                            /* rps= */ dataPoint.rps()))
+                .collect(toImmutableList());
 
     ImmutableList<TestTypeOptionView> testTypeOptions =
         Arrays
@@ -158,14 +86,15 @@ public final class TimelinePageHandler implements HttpHandler {
                 testType ->
                     new TestTypeOptionView(
                         /* testType= */ testType.serialize(),
-                        /* isPresent= */ !missingTestTypes.contains(testType),
+                        /* isPresent= */
+                        timeline.presentTestTypes().contains(testType),
                         /* isSelected= */ testType == selectedTestType))
             .collect(toImmutableList());
 
     ImmutableList<FrameworkOptionView> frameworkOptions =
-        allFrameworks
+        timeline
+            .allFrameworks()
             .stream()
-            .sorted(String.CASE_INSENSITIVE_ORDER)
             .map(
                 framework ->
                     new FrameworkOptionView(
@@ -177,7 +106,7 @@ public final class TimelinePageHandler implements HttpHandler {
         new TimelinePageView(
             /* framework= */ selectedFramework,
             /* testType= */ selectedTestType.serialize(),
-            /* dataPoints= */ ImmutableList.copyOf(dataPoints),
+            /* dataPoints= */ dataPoints,
             /* testTypeOptions= */ testTypeOptions,
             /* frameworkOptions= */ frameworkOptions);
 
@@ -5,7 +5,6 @@ import static com.google.common.net.MediaType.ANY_TEXT_TYPE;
 import static com.google.common.net.MediaType.HTML_UTF_8;
 import static com.google.common.net.MediaType.PLAIN_TEXT_UTF_8;
 import static io.undertow.util.Headers.CONTENT_TYPE;
-import static io.undertow.util.StatusCodes.INTERNAL_SERVER_ERROR;
 import static io.undertow.util.StatusCodes.NOT_FOUND;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Comparator.comparing;
@@ -18,22 +17,24 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.io.MoreFiles;
 import com.google.common.net.MediaType;
 import com.google.common.primitives.Booleans;
+import io.undertow.io.BufferWritableOutputStream;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import org.checkerframework.checker.nullness.qual.Nullable;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import tfb.status.handler.routing.DisableCache;
 import tfb.status.handler.routing.Route;
 import tfb.status.handler.routing.SetHeader;
@@ -41,6 +42,8 @@ import tfb.status.service.FileStore;
 import tfb.status.service.MustacheRenderer;
 import tfb.status.util.FileUtils;
 import tfb.status.util.ZipFiles;
+import tfb.status.util.ZipFiles.ZipEntryInfo;
+import tfb.status.util.ZipFiles.ZipSession;
 import tfb.status.view.UnzippedDirectoryView;
 import tfb.status.view.UnzippedDirectoryView.FileView;
 
@@ -60,7 +63,6 @@ import tfb.status.view.UnzippedDirectoryView.FileView;
 public final class UnzipResultsHandler implements HttpHandler {
   private final FileStore fileStore;
   private final MustacheRenderer mustacheRenderer;
-  private final Logger logger = LoggerFactory.getLogger(getClass());
 
   @Inject
   public UnzipResultsHandler(FileStore fileStore,
@@ -87,122 +89,129 @@ public final class UnzipResultsHandler implements HttpHandler {
       return;
     }
 
-    ZipFiles.findZipEntry(
-        /* zipFile= */
-        zipFile,
-
-        /* entryPath= */
-        (entrySubPath == null) ? "" : entrySubPath,
-
-        /* ifPresent= */
-        (Path zipEntry) -> {
-
-          if (Files.isRegularFile(zipEntry)) {
-            MediaType mediaType = guessMediaType(zipEntry);
-
-            if (mediaType != null)
-              exchange.getResponseHeaders().put(CONTENT_TYPE,
-                                                mediaType.toString());
-
-            Files.copy(zipEntry, exchange.getOutputStream());
-          }
-
-          else if (Files.isDirectory(zipEntry)) {
-            var path = new ArrayList<String>();
-            path.add(zipFileName);
-
-            if (entrySubPath != null)
-              for (String part : Splitter.on('/').split(entrySubPath))
-                path.add(part);
-
-            var breadcrumbs = new ArrayList<FileView>();
-            for (int i = 1; i <= path.size(); i++) {
-              List<String> directoryPath = path.subList(0, i);
-              breadcrumbs.add(
-                  new FileView(
-                      /* fileName= */ directoryPath.getLast(),
-                      /* fullPath= */ Joiner.on('/').join(directoryPath),
-                      /* size= */ null,
-                      /* isDirectory= */ true,
-                      /* isSelected= */ i == path.size()));
-            }
-
-            var children = new ArrayList<FileView>();
-
-            for (Path file : MoreFiles.listFiles(zipEntry)) {
-              BasicFileAttributes attributes =
-                  Files.readAttributes(file, BasicFileAttributes.class);
-
-              String fullPath =
-                  zipFile.getFileName().toString()
-                      + "/"
-                      + Joiner.on('/').join(file);
-
-              String size =
-                  attributes.isRegularFile()
-                      ? fileSizeToString(attributes.size(), /* si= */ true)
-                      : null;
-
-              children.add(
-                  new FileView(
-                      /* fileName= */ file.getFileName().toString(),
-                      /* fullPath= */ fullPath,
-                      /* size= */ size,
-                      /* isDirectory= */ attributes.isDirectory(),
-                      /* isSelected= */ false));
-            }
-
-            Comparator<FileView> directoriesFirst =
-                comparing(file -> file.isDirectory(),
-                          Booleans.trueFirst());
-
-            Comparator<FileView> byFileName =
-                comparing(file -> file.fileName(),
-                          String.CASE_INSENSITIVE_ORDER);
-
-            children.sort(directoriesFirst.thenComparing(byFileName));
-
-            var unzippedDirectoryView =
-                new UnzippedDirectoryView(
-                    /* breadcrumbs= */ ImmutableList.copyOf(breadcrumbs),
-                    /* children= */ ImmutableList.copyOf(children));
-
-            String html =
-                mustacheRenderer.render("unzipped-directory.mustache",
-                                        unzippedDirectoryView);
-
-            exchange.getResponseHeaders().put(
-                CONTENT_TYPE,
-                HTML_UTF_8.toString());
-
-            exchange.getResponseSender().send(html, UTF_8);
-          }
-
-          else {
-            logger.warn(
-                "Cannot unzip a zip entry that is neither a file nor a "
-                    + "directory, zip file = {}, zip entry = {}",
-                zipFile,
-                zipEntry);
-
-            exchange.setStatusCode(INTERNAL_SERVER_ERROR);
-          }
-
-        },
-
-        /* ifAbsent= */
-        () -> exchange.setStatusCode(NOT_FOUND));
+    try (ZipSession zipSession = ZipFiles.openZipFile(zipFile)) {
+      // Look up the entry in the index of the zip file's central directory,
+      // so that the zip file is only read when we send the entry's contents.
+      ZipEntryInfo zipEntry =
+          zipSession.lookupEntry((entrySubPath == null) ? "" : entrySubPath);
+
+      if (zipEntry == null) {
+        exchange.setStatusCode(NOT_FOUND);
+        return;
+      }
+
+      if (!zipEntry.isDirectory()) {
+        MediaType mediaType = guessMediaType(zipEntry.fileName());
+
+        if (mediaType != null)
+          exchange.getResponseHeaders().put(CONTENT_TYPE,
+                                            mediaType.toString());
+
+        OutputStream outputStream = exchange.getOutputStream();
+
+        // Write the buffers directly when possible, to avoid copying large
+        // files through the heap.
+        if (outputStream instanceof BufferWritableOutputStream bufferStream) {
+          zipSession.transferEntry(
+              zipEntry,
+              buffer -> bufferStream.write(buffer));
+        } else {
+          WritableByteChannel channel = Channels.newChannel(outputStream);
+          zipSession.transferEntry(
+              zipEntry,
+              buffer -> {
+                while (buffer.hasRemaining())
+                  channel.write(buffer);
+              });
+        }
+      }
+
+      else {
+        var path = new ArrayList<String>();
+        path.add(zipFileName);
+
+        if (entrySubPath != null)
+          for (String part : Splitter.on('/').split(entrySubPath))
+            path.add(part);
+
+        var breadcrumbs = new ArrayList<FileView>();
+        for (int i = 1; i <= path.size(); i++) {
+          List<String> directoryPath = path.subList(0, i);
+          breadcrumbs.add(
+              new FileView(
+                  /* fileName= */ directoryPath.getLast(),
+                  /* fullPath= */ Joiner.on('/').join(directoryPath),
+                  /* size= */ null,
+                  /* isDirectory= */ true,
+                  /* isSelected= */ i == path.size()));
+        }
+
+        var children = new ArrayList<FileView>();
+
+        for (ZipEntryInfo child : zipSession.listDirectory(zipEntry)) {
+          String fullPath =
+              zipFile.getFileName().toString()
+                  + "/"
+                  + child.path();
+
+          String size =
+              child.isDirectory()
+                  ? null
+                  : fileSizeToString(child.size(), /* si= */ true);
+
+          children.add(
+              new FileView(
+                  /* fileName= */ child.fileName(),
+                  /* fullPath= */ fullPath,
+                  /* size= */ size,
+                  /* isDirectory= */ child.isDirectory(),
+                  /* isSelected= */ false));
+        }
+
+        Comparator<FileView> directoriesFirst =
+            comparing(file -> file.isDirectory(),
+                      Booleans.trueFirst());
+
+        Comparator<FileView> byFileName =
+            comparing(file -> file.fileName(),
+                      String.CASE_INSENSITIVE_ORDER);
+
+        children.sort(directoriesFirst.thenComparing(byFileName));
+
+        var unzippedDirectoryView =
+            new UnzippedDirectoryView(
+                /* breadcrumbs= */ ImmutableList.copyOf(breadcrumbs),
+                /* children= */ ImmutableList.copyOf(children));
+
+        String html =
+            mustacheRenderer.render("unzipped-directory.mustache",
+                                    unzippedDirectoryView);
+
+        exchange.getResponseHeaders().put(
+            CONTENT_TYPE,
+            HTML_UTF_8.toString());
+
+        exchange.getResponseSender().send(html, UTF_8);
+      }
+    }
   }
 
   /**
-   * Guesses the media type of the given file.  Returns {@code null} if there is
-   * not a good guess.
+   * Guesses the media type of a file from its name.  Returns {@code null} if
+   * there is not a good guess.
    *
-   * @throws IOException if an I/O error occurs while examining the file
+   * @throws IOException if an I/O error occurs while examining the file name
    */
-  private static @Nullable MediaType guessMediaType(Path file)
+  private static @Nullable MediaType guessMediaType(String fileName)
       throws IOException {
 
+    Path file;
+    try {
+      file = Path.of(fileName);
+    } catch (InvalidPathException e) {
+      return null;
+    }
+
     String extension = MoreFiles.getFileExtension(file);
 
     // TFB itself generates plaintext .log files.
@@ -1,37 +1,36 @@
 package tfb.status.handler;
 
 import static io.undertow.util.StatusCodes.BAD_REQUEST;
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static io.undertow.util.StatusCodes.REQUEST_ENTITY_TOO_LARGE;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Clock;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 import org.checkerframework.checker.nullness.qual.Nullable;
-import org.glassfish.hk2.api.messaging.Topic;
 import org.glassfish.hk2.extras.provides.Provides;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tfb.status.handler.routing.DisableCache;
+import tfb.status.handler.routing.NonBlocking;
 import tfb.status.handler.routing.Route;
 import tfb.status.service.Authenticator;
 import tfb.status.service.FileStore;
-import tfb.status.service.HomeResultsReader;
-import tfb.status.util.ZipFiles;
-import tfb.status.view.HomePageView.ResultsView;
+import tfb.status.service.ResultsIngester;
+import tfb.status.service.TaskScheduler;
+import tfb.status.undertow.extensions.BodyInputStream;
+import tfb.status.undertow.extensions.RequestBodyFileHandler;
+import tfb.status.undertow.extensions.RequestBodyFileHandler.ReceivedFile;
 import tfb.status.view.Results;
-import tfb.status.view.UpdatedResultsEvent;
 
 /**
  * Handles requests to upload a file containing results from a TFB run.  The
@@ -39,28 +38,65 @@ import tfb.status.view.UpdatedResultsEvent;
  * Content-Type} of the request must be {@code application/json}) or a zip
  * containing the full output of a run, including logs (in which case the {@code
  * Content-Type} must be {@code application/zip}).
+ *
+ * <p>The file is received without blocking a worker thread.  See {@link
+ * RequestBodyFileHandler}.  A results.json file is deserialized on another
+ * thread as it is received, through a {@link BodyInputStream} that holds a
+ * bounded number of bytes in memory, so it is validated without being read
+ * back from disk.  A zip file is validated once it has been received in full,
+ * by reading only its results.json entry.
+ *
+ * <p>Files larger than {@link #MAX_JSON_BYTES} or {@link #MAX_ZIP_BYTES} are
+ * rejected.  Large files may be uploaded in several requests instead.  See
+ * {@link ResumableUploadHandler}.
  */
 @Singleton
 public final class UploadResultsHandler implements HttpHandler {
-  private final FileStore fileStore;
-  private final ObjectMapper objectMapper;
-  private final Topic<UpdatedResultsEvent> updatedResultsTopic;
-  private final HomeResultsReader homeResultsReader;
-  private final Clock clock;
+  private final ResultsIngester resultsIngester;
+  private final RequestBodyFileHandler jsonReceiver;
+  private final RequestBodyFileHandler zipReceiver;
   private final Logger logger = LoggerFactory.getLogger(getClass());
 
   @Inject
   public UploadResultsHandler(FileStore fileStore,
+                              ResultsIngester resultsIngester,
                               ObjectMapper objectMapper,
-                              Topic<UpdatedResultsEvent> updatedResultsTopic,
-                              HomeResultsReader homeResultsReader,
-                              Clock clock) {
-
-    this.fileStore = Objects.requireNonNull(fileStore);
-    this.objectMapper = Objects.requireNonNull(objectMapper);
-    this.updatedResultsTopic = Objects.requireNonNull(updatedResultsTopic);
-    this.homeResultsReader = Objects.requireNonNull(homeResultsReader);
-    this.clock = Objects.requireNonNull(clock);
+                              TaskScheduler taskScheduler) {
+
+    Objects.requireNonNull(fileStore);
+    Objects.requireNonNull(objectMapper);
+    Objects.requireNonNull(taskScheduler);
+    this.resultsIngester = Objects.requireNonNull(resultsIngester);
+
+    // Create the temporary file in the results directory so that moving it to
+    // its permanent location is a rename rather than a copy.
+    RequestBodyFileHandler.FileFactory fileFactory =
+        () -> Files.createTempFile(
+            /* dir= */ fileStore.resultsDirectory(),
+            /* prefix= */ TEMP_FILE_PREFIX,
+            /* suffix= */ TEMP_FILE_SUFFIX);
+
+    this.jsonReceiver =
+        new RequestBodyFileHandler(
+            /* fileFactory= */ fileFactory,
+            /* observerFactory= */
+            exchange -> {
+              var body = new BodyInputStream(exchange, MAX_BUFFERED_JSON_BYTES);
+              exchange.putAttachment(
+                  PARSED_JSON,
+                  new ParsedJson(
+                      taskScheduler.submit(
+                          () -> parseJson(body, objectMapper))));
+              return body;
+            },
+            /* maxBytes= */ MAX_JSON_BYTES,
+            /* next= */ exchange -> handleReceivedFile(exchange));
+
+    this.zipReceiver =
+        new RequestBodyFileHandler(
+            /* fileFactory= */ fileFactory,
+            /* maxBytes= */ MAX_ZIP_BYTES,
+            /* next= */ exchange -> handleReceivedFile(exchange));
   }
 
   @Provides
@@ -68,6 +104,7 @@ public final class UploadResultsHandler implements HttpHandler {
   @Route(method = "POST", path = "/upload", consumes = "application/json")
   @Route(method = "POST", path = "/upload", consumes = "application/zip")
   @DisableCache
+  @NonBlocking
   public HttpHandler uploadResultsHandler(Authenticator authenticator) {
     Objects.requireNonNull(authenticator);
     return authenticator.newRequiredAuthHandler(this);
@@ -80,95 +117,113 @@ public final class UploadResultsHandler implements HttpHandler {
                 .consumes()
                 .equals("application/json");
 
-    String fileExtension = isJson ? "json" : "zip";
+    if (isJson)
+      jsonReceiver.handleRequest(exchange);
+    else
+      zipReceiver.handleRequest(exchange);
+  }
 
-    Path tempFile =
-        Files.createTempFile(
-            /* prefix= */ "TFB_Status_Upload",
-            /* suffix= */ "." + fileExtension);
+  /**
+   * Deserializes an uploaded results.json file as it is received.  This is run
+   * on a task scheduler thread rather than on the I/O thread that receives the
+   * file.
+   *
+   * @return the uploaded results, or {@code null} if the file is not valid
+   */
+  private @Nullable Results parseJson(BodyInputStream body,
+                                      ObjectMapper objectMapper) {
+    try (body) {
+      return objectMapper.readValue(body, Results.class);
+    } catch (IOException e) {
+      logger.warn("Error validating uploaded json file", e);
+      return null;
+    }
+  }
 
-    Files.copy(exchange.getInputStream(), tempFile, REPLACE_EXISTING);
+  /**
+   * Handles the request once its body has been saved to a file.
+   */
+  private void handleReceivedFile(HttpServerExchange exchange)
+      throws IOException {
 
-    Results results;
-    if (isJson) {
-      try (InputStream inputStream = Files.newInputStream(tempFile)) {
-        results = objectMapper.readValue(inputStream, Results.class);
-      } catch (IOException e) {
-        logger.warn("Error validating json file {}", tempFile, e);
-        results = null;
-      }
-    } else {
-      try {
-        results =
-            ZipFiles.readZipEntry(
-                tempFile,
-                "results.json",
-                inputStream ->
-                    objectMapper.readValue(inputStream, Results.class));
-      } catch (IOException e) {
-        logger.warn("Error validating zip file {}", tempFile, e);
-        results = null;
-      }
-    }
+    ReceivedFile receivedFile =
+        exchange.getAttachment(RequestBodyFileHandler.RECEIVED_FILE);
 
-    if (results == null) {
-      Files.delete(tempFile);
-      exchange.setStatusCode(BAD_REQUEST);
+    if (receivedFile.isTruncated()) {
+      exchange.setStatusCode(REQUEST_ENTITY_TOO_LARGE);
       return;
     }
 
-    String uuid = results.uuid();
-
-    Path permanentFile = destinationForIncomingFile(uuid, fileExtension);
+    Path tempFile = receivedFile.file();
 
-    MoreFiles.createParentDirectories(permanentFile);
+    ParsedJson parsedJson = exchange.getAttachment(PARSED_JSON);
 
-    Files.move(
-        /* source= */ tempFile,
-        /* target= */ permanentFile,
-        /* options...= */ REPLACE_EXISTING);
-
-    if (uuid != null)
-      updatedResultsTopic.publish(new UpdatedResultsEvent(uuid));
-  }
+    if (parsedJson == null) {
+      Results results = resultsIngester.ingest(tempFile, /* isJson= */ false);
+      if (results == null)
+        exchange.setStatusCode(BAD_REQUEST);
 
-  private Path newResultsFile(String fileExtension) {
-    Objects.requireNonNull(fileExtension);
+      return;
+    }
 
-    DateTimeFormatter formatter =
-        DateTimeFormatter.ofPattern(
-            "yyyy-MM-dd-HH-mm-ss-SSS", Locale.ROOT);
+    // The whole file has been received, so this waits for no more than the
+    // buffered remainder of the file to be deserialized.
+    Results results;
+    try {
+      results = Uninterruptibles.getUninterruptibly(parsedJson.results());
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    }
 
-    LocalDateTime now = LocalDateTime.now(clock);
-    String timestamp = formatter.format(now);
+    if (results == null) {
+      exchange.setStatusCode(BAD_REQUEST);
+      return;
+    }
 
-    return fileStore.resultsDirectory().resolve(
-        "results." + timestamp + "." + fileExtension);
+    resultsIngester.ingestJson(tempFile, results);
   }
 
-  private Path destinationForIncomingFile(@Nullable String uuid,
-                                          String fileExtension)
-      throws IOException {
-
-    Objects.requireNonNull(fileExtension);
-
-    if (uuid == null)
-      return newResultsFile(fileExtension);
-
-    ResultsView oldResults = homeResultsReader.resultsByUuid(uuid);
-    if (oldResults == null)
-      return newResultsFile(fileExtension);
-
-    if (oldResults.jsonFileName() != null
-        && oldResults.jsonFileName().endsWith("." + fileExtension))
-      return fileStore.resultsDirectory()
-                      .resolve(oldResults.jsonFileName());
-
-    if (oldResults.zipFileName() != null
-        && oldResults.zipFileName().endsWith("." + fileExtension))
-      return fileStore.resultsDirectory()
-                      .resolve(oldResults.zipFileName());
-
-    return newResultsFile(fileExtension);
+  /**
+   * The results that are being deserialized from an uploaded results.json
+   * file.
+   *
+   * @param results a future that completes with the results, or with {@code
+   *        null} if the file is not valid
+   */
+  private record ParsedJson(ListenableFuture<@Nullable Results> results) {
+
+    ParsedJson {
+      Objects.requireNonNull(results);
+    }
   }
+
+  /**
+   * The attachment containing the results that are being deserialized from an
+   * uploaded results.json file.
+   */
+  private static final AttachmentKey<ParsedJson> PARSED_JSON =
+      AttachmentKey.create(ParsedJson.class);
+
+  /**
+   * The maximum size of an uploaded results.json file in bytes.
+   */
+  private static final long MAX_JSON_BYTES = 500_000_000; // 500MB
+
+  /**
+   * The maximum size of an uploaded zip file in bytes.
+   */
+  private static final long MAX_ZIP_BYTES = 2_000_000_000; // 2GB
+
+  /**
+   * The maximum number of bytes of an uploaded results.json file that are held
+   * in memory while waiting to be deserialized.
+   */
+  private static final int MAX_BUFFERED_JSON_BYTES = 1024 * 1024;
+
+  /**
+   * The prefix and suffix of the names of temporary files for uploads in the
+   * results directory.  The suffix must not match the names of results files.
+   */
+  private static final String TEMP_FILE_PREFIX = "TFB_Status_Upload";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
 }
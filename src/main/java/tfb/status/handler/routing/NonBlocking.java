@@ -0,0 +1,36 @@
+package tfb.status.handler.routing;
+
+import io.undertow.server.HttpServerExchange;
+import jakarta.inject.Qualifier;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that an HTTP handler does not require requests to be {@linkplain
+ * HttpServerExchange#startBlocking() blocking}.  Requests are still dispatched
+ * to a worker thread before they reach the handler, but the handler may not
+ * use {@link HttpServerExchange#getInputStream()} or {@link
+ * HttpServerExchange#getOutputStream()} unless it puts the exchange in
+ * blocking mode itself.
+ *
+ * <p>This allows the handler to read the request body using the exchange's
+ * {@linkplain HttpServerExchange#getRequestReceiver() asynchronous receiver},
+ * which does not occupy the worker thread while the body is being received.
+ * Without this annotation, that receiver reads synchronously.
+ *
+ * <p>This annotation may only be applied to services that are annotated with at
+ * least one {@link Route}.
+ */
+@Qualifier
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({
+    ElementType.TYPE,
+    ElementType.METHOD,
+    ElementType.FIELD,
+    ElementType.PARAMETER
+})
+public @interface NonBlocking {}
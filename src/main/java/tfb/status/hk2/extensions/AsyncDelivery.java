@@ -0,0 +1,71 @@
+package tfb.status.hk2.extensions;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.Executor;
+import org.glassfish.hk2.api.messaging.SubscribeTo;
+import org.glassfish.hk2.api.messaging.Topic;
+
+/**
+ * Indicates that messages should be delivered to the annotated subscriber
+ * method asynchronously, so that {@link Topic#publish(Object)} does not wait
+ * for this subscriber to process the message.
+ *
+ * <p>This annotation may only be applied to methods having a parameter that is
+ * annotated with {@link SubscribeTo}.
+ *
+ * <p>Each asynchronous subscriber has its own bounded queue of pending
+ * messages.  Messages are delivered to the subscriber one at a time, in the
+ * order they were published, using the {@link Executor} service named {@link
+ * #EXECUTOR_NAME} in the service locator.  If there is no such service,
+ * messages are delivered synchronously.  Subscribers that share that executor
+ * should not block for long, and the executor should limit the number of
+ * deliveries that it runs at once.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface AsyncDelivery {
+  /**
+   * The maximum number of messages waiting to be delivered to this subscriber,
+   * not including the message that is currently being delivered.
+   */
+  int queueCapacity() default 64;
+
+  /**
+   * What to do with a newly-published message when this subscriber's queue is
+   * full.
+   */
+  Overflow overflow() default Overflow.DROP_OLDEST;
+
+  /**
+   * The name of the {@link Executor} service that runs asynchronous
+   * deliveries.
+   */
+  String EXECUTOR_NAME = "AsyncDelivery.executor";
+
+  /**
+   * A policy for handling messages that are published while a subscriber's
+   * queue is full.
+   */
+  enum Overflow {
+    /**
+     * Discard the oldest message in the queue and add the new message to the
+     * queue.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Discard the new message.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Block the publishing thread until there is room in the queue.
+     */
+    BLOCK
+  }
+}
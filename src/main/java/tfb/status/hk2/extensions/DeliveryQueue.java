@@ -0,0 +1,111 @@
+package tfb.status.hk2.extensions;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A bounded queue of pending message deliveries for one {@linkplain
+ * AsyncDelivery asynchronous} subscriber.  Deliveries are run on an {@link
+ * Executor}, one at a time, in the order they were added.
+ */
+final class DeliveryQueue {
+  private final Executor executor;
+  private final int capacity;
+  private final AsyncDelivery.Overflow overflow;
+
+  /*@GuardedBy("this")*/
+  private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+
+  // True while a task that runs the pending deliveries has been submitted to
+  // the executor and has not yet found the queue empty.
+  /*@GuardedBy("this")*/
+  private boolean draining = false;
+
+  DeliveryQueue(Executor executor,
+                int capacity,
+                AsyncDelivery.Overflow overflow) {
+
+    if (capacity < 1)
+      throw new IllegalArgumentException(
+          "The queue capacity must be positive, but it was " + capacity);
+
+    this.executor = Objects.requireNonNull(executor);
+    this.capacity = capacity;
+    this.overflow = Objects.requireNonNull(overflow);
+  }
+
+  /**
+   * Adds a delivery to this queue, applying the {@linkplain
+   * AsyncDelivery.Overflow overflow policy} if the queue is full.
+   *
+   * @param delivery the delivery, which must not throw exceptions
+   * @return {@code true} if a delivery was discarded because the queue was
+   *         full, whether that was the new delivery or the oldest pending
+   *         delivery
+   * @throws RejectedExecutionException if the executor rejects the task that
+   *         runs the pending deliveries
+   */
+  synchronized boolean add(Runnable delivery) {
+    Objects.requireNonNull(delivery);
+
+    boolean discarded = false;
+
+    if (pending.size() >= capacity) {
+      switch (overflow) {
+        case DROP_OLDEST:
+          pending.poll();
+          discarded = true;
+          break;
+
+        case DROP_NEWEST:
+          return true;
+
+        case BLOCK:
+          boolean interrupted = false;
+          while (pending.size() >= capacity) {
+            try {
+              wait();
+            } catch (InterruptedException e) {
+              interrupted = true;
+            }
+          }
+          if (interrupted)
+            Thread.currentThread().interrupt();
+          break;
+      }
+    }
+
+    pending.add(delivery);
+
+    if (!draining) {
+      draining = true;
+      try {
+        executor.execute(() -> drain());
+      } catch (RejectedExecutionException e) {
+        draining = false;
+        pending.remove(delivery);
+        throw e;
+      }
+    }
+
+    return discarded;
+  }
+
+  private void drain() {
+    while (true) {
+      Runnable next;
+      synchronized (this) {
+        next = pending.poll();
+        if (next == null) {
+          draining = false;
+          return;
+        }
+        // Wake publishers that are blocked waiting for room in the queue.
+        notifyAll();
+      }
+      next.run();
+    }
+  }
+}
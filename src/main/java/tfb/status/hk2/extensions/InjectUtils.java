@@ -100,17 +100,13 @@ final class InjectUtils {
     return activeDescriptor != null;
   }
 
-  static /*@Nullable*/ ServiceHandle<?> serviceHandleFromParameter(
-      Parameter parameter,
-      Type parentType,
+  static /*@Nullable*/ ServiceHandle<?> serviceHandleFromInjectee(
+      Injectee injectee,
       ServiceLocator locator) {
 
-    Objects.requireNonNull(parameter);
-    Objects.requireNonNull(parentType);
+    Objects.requireNonNull(injectee);
     Objects.requireNonNull(locator);
 
-    Injectee injectee = injecteeFromParameter(parameter, parentType);
-
     ActiveDescriptor<?> activeDescriptor =
         locator.getInjecteeDescriptor(injectee);
 
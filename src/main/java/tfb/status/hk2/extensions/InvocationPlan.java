@@ -0,0 +1,144 @@
+package tfb.status.hk2.extensions;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Objects;
+import org.glassfish.hk2.api.Injectee;
+import org.glassfish.hk2.api.PerLookup;
+import org.glassfish.hk2.api.ServiceHandle;
+import org.glassfish.hk2.api.ServiceLocator;
+
+/**
+ * The precomputed work for invoking a {@link Subscriber} method, so that
+ * delivering a message does not require any reflective lookups.
+ *
+ * <p>The plan holds an {@link Injectee} for each parameter of the method other
+ * than the message parameter, and a {@link MethodHandle} for the method that
+ * accepts its receiver and its arguments as an array.
+ */
+final class InvocationPlan {
+  private final int messageIndex;
+
+  // The injectee for each parameter, or null for the message parameter.
+  private final /*@Nullable*/ Injectee[] injectees;
+
+  // (Object receiver, Object[] arguments) -> Object
+  private final MethodHandle invoker;
+
+  private InvocationPlan(int messageIndex,
+                         /*@Nullable*/ Injectee[] injectees,
+                         MethodHandle invoker) {
+
+    this.messageIndex = messageIndex;
+    this.injectees = Objects.requireNonNull(injectees);
+    this.invoker = Objects.requireNonNull(invoker);
+  }
+
+  /**
+   * Creates the invocation plan for a subscriber method.
+   *
+   * @param method the subscriber method
+   * @param messageIndex the index of the message parameter
+   * @param serviceType the type of the service containing the method
+   * @throws IllegalAccessException if the method cannot be made accessible
+   */
+  static InvocationPlan create(Method method,
+                               int messageIndex,
+                               Type serviceType)
+      throws IllegalAccessException {
+
+    Objects.requireNonNull(method);
+    Objects.requireNonNull(serviceType);
+
+    Parameter[] parameters = method.getParameters();
+    Injectee[] injectees = new Injectee[parameters.length];
+    for (int i = 0; i < parameters.length; i++)
+      if (i != messageIndex)
+        injectees[i] =
+            InjectUtils.injecteeFromParameter(parameters[i], serviceType);
+
+    MethodHandle handle;
+    try {
+      handle = MethodHandles.lookup().unreflect(method);
+    } catch (IllegalAccessException e) {
+      method.setAccessible(true);
+      handle = MethodHandles.lookup().unreflect(method);
+    }
+
+    // Adapt the handle once so that every invocation has the same shape,
+    // whether or not the method is static.
+    if (Modifier.isStatic(method.getModifiers()))
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+
+    MethodHandle invoker =
+        handle.asType(MethodType.genericMethodType(parameters.length + 1))
+              .asSpreader(Object[].class, parameters.length);
+
+    return new InvocationPlan(messageIndex, injectees, invoker);
+  }
+
+  /**
+   * Returns the arguments for an invocation of the subscriber method.
+   *
+   * @param message the message, which is the argument for the message
+   *        parameter
+   * @param locator the service locator that provides the other arguments
+   * @param perLookupHandles the list to which service handles for {@link
+   *        PerLookup} services are added, which the caller must close once
+   *        the invocation is complete
+   * @throws org.glassfish.hk2.api.UnsatisfiedDependencyException if there is
+   *         no service for a parameter that is not optional
+   */
+  Object[] arguments(Object message,
+                     ServiceLocator locator,
+                     List<ServiceHandle<?>> perLookupHandles) {
+
+    Objects.requireNonNull(message);
+    Objects.requireNonNull(locator);
+    Objects.requireNonNull(perLookupHandles);
+
+    Object[] arguments = new Object[injectees.length];
+
+    for (int i = 0; i < injectees.length; i++) {
+      if (i == messageIndex) {
+        arguments[i] = message;
+        continue;
+      }
+
+      ServiceHandle<?> handle =
+          InjectUtils.serviceHandleFromInjectee(injectees[i], locator);
+
+      if (handle == null)
+        continue;
+
+      if (handle.getActiveDescriptor().getScopeAnnotation() == PerLookup.class)
+        perLookupHandles.add(handle);
+
+      arguments[i] = handle.getService();
+    }
+
+    return arguments;
+  }
+
+  /**
+   * Invokes the subscriber method.
+   *
+   * @param receiver the service on which the method is invoked, or {@code
+   *        null} if the method is static
+   * @param arguments the arguments, as returned by {@link #arguments(Object,
+   *        ServiceLocator, List)}
+   * @throws Throwable anything thrown by the subscriber method
+   */
+  void invoke(/*@Nullable*/ Object receiver, Object[] arguments)
+      throws Throwable {
+
+    Objects.requireNonNull(arguments);
+    Object ignored = (Object) invoker.invokeExact(receiver, arguments);
+  }
+}
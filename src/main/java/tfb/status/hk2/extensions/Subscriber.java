@@ -66,13 +66,26 @@ final class Subscriber {
    */
   final ActiveDescriptor<?> serviceDescriptor;
 
+  /**
+   * The {@link AsyncDelivery} annotation on the method, or {@code null} if
+   * messages are delivered to this subscriber synchronously.
+   */
+  final /*@Nullable*/ AsyncDelivery asyncDelivery;
+
+  /**
+   * The precomputed plan for invoking the method, so that delivering a message
+   * to this subscriber requires no reflective lookups.
+   */
+  final InvocationPlan plan;
+
   Subscriber(Method method,
              int parameterIndex,
              Type parameterType,
              Set<Annotation> qualifiers,
              /*@Nullable*/ Unqualified unqualified,
              Set<Type> permittedTypes,
-             ActiveDescriptor<?> serviceDescriptor) {
+             ActiveDescriptor<?> serviceDescriptor,
+             InvocationPlan plan) {
 
     this.method = Objects.requireNonNull(method);
     this.parameterIndex = parameterIndex;
@@ -81,6 +94,8 @@ final class Subscriber {
     this.unqualified = unqualified;
     this.permittedTypes = setCopyOf(Objects.requireNonNull(permittedTypes));
     this.serviceDescriptor = Objects.requireNonNull(serviceDescriptor);
+    this.asyncDelivery = method.getAnnotation(AsyncDelivery.class);
+    this.plan = Objects.requireNonNull(plan);
   }
 
   /**
@@ -1,6 +1,5 @@
 package tfb.status.hk2.extensions;
 
-import static tfb.status.hk2.extensions.CompatibleWithJava8.canAccess;
 import static tfb.status.hk2.extensions.CompatibleWithJava8.listOf;
 import static tfb.status.hk2.extensions.CompatibleWithJava8.setCopyOf;
 import static tfb.status.hk2.extensions.CompatibleWithJava8.toUnmodifiableList;
@@ -9,7 +8,6 @@ import static tfb.status.hk2.extensions.CompatibleWithJava8.toUnmodifiableSet;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
@@ -20,6 +18,8 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Stream;
 import org.glassfish.hk2.api.ActiveDescriptor;
 import org.glassfish.hk2.api.DynamicConfigurationListener;
@@ -41,7 +41,8 @@ import org.slf4j.LoggerFactory;
  *
  * <p>This is similar to the default topic distribution service provided in
  * {@code hk2-extras}, except this implementation will construct services in
- * order to deliver messages to them.
+ * order to deliver messages to them, and it supports {@linkplain AsyncDelivery
+ * asynchronous delivery}.
  */
 @Singleton
 final class TopicDistributionServiceImpl
@@ -50,6 +51,9 @@ final class TopicDistributionServiceImpl
   private final ServiceLocator locator;
   private final Set<ActiveDescriptor<?>> seen = ConcurrentHashMap.newKeySet();
 
+  private final ConcurrentHashMap<Subscriber, DeliveryQueue> deliveryQueues =
+      new ConcurrentHashMap<>();
+
   // TODO: Avoid using slf4j in this package.
   private final Logger logger = LoggerFactory.getLogger(getClass());
 
@@ -82,8 +86,100 @@ final class TopicDistributionServiceImpl
       return;
     }
 
-    for (Subscriber subscriber : subscribers)
+    for (Subscriber subscriber : subscribers) {
+      if (subscriber.asyncDelivery == null)
+        distributeMessageToSubscriber(topic, message, subscriber);
+      else
+        enqueueMessageForSubscriber(topic, message, subscriber);
+    }
+  }
+
+  private void enqueueMessageForSubscriber(Topic<?> topic,
+                                           Object message,
+                                           Subscriber subscriber) {
+    Objects.requireNonNull(topic);
+    Objects.requireNonNull(message);
+    Objects.requireNonNull(subscriber);
+
+    DeliveryQueue queue = getDeliveryQueue(subscriber);
+    if (queue == null) {
       distributeMessageToSubscriber(topic, message, subscriber);
+      return;
+    }
+
+    boolean discarded;
+    try {
+      discarded =
+          queue.add(
+              () -> {
+                try {
+                  distributeMessageToSubscriber(topic, message, subscriber);
+                } catch (RuntimeException e) {
+                  logger.error(
+                      "Error distributing message {} for topic of type {} "
+                          + "with qualifiers {} to subscriber {}",
+                      message,
+                      topic.getTopicType(),
+                      topic.getTopicQualifiers(),
+                      subscriber,
+                      e);
+                }
+              });
+    } catch (RejectedExecutionException e) {
+      logger.error(
+          "Ignoring message {} for topic of type {} with qualifiers {} "
+              + "because the executor rejected delivery to subscriber {}",
+          message,
+          topic.getTopicType(),
+          topic.getTopicQualifiers(),
+          subscriber,
+          e);
+      return;
+    }
+
+    if (discarded)
+      logger.warn(
+          "Discarded a message for subscriber {} because its queue of {} "
+              + "pending messages was full, overflow policy is {}",
+          subscriber,
+          subscriber.asyncDelivery.queueCapacity(),
+          subscriber.asyncDelivery.overflow());
+  }
+
+  /**
+   * Returns the delivery queue for the specified {@linkplain AsyncDelivery
+   * asynchronous} subscriber, or {@code null} if there is no {@link Executor}
+   * service named {@link AsyncDelivery#EXECUTOR_NAME}, in which case messages
+   * are delivered synchronously.
+   */
+  private /*@Nullable*/ DeliveryQueue getDeliveryQueue(Subscriber subscriber) {
+    Objects.requireNonNull(subscriber);
+
+    DeliveryQueue existing = deliveryQueues.get(subscriber);
+    if (existing != null)
+      return existing;
+
+    Executor executor =
+        locator.getService(Executor.class, AsyncDelivery.EXECUTOR_NAME);
+
+    if (executor == null) {
+      logger.warn(
+          "Delivering messages to subscriber {} synchronously because "
+              + "there is no {} service named {}",
+          subscriber,
+          Executor.class.getSimpleName(),
+          AsyncDelivery.EXECUTOR_NAME);
+      return null;
+    }
+
+    AsyncDelivery asyncDelivery =
+        Objects.requireNonNull(subscriber.asyncDelivery);
+
+    return deliveryQueues.computeIfAbsent(
+        subscriber,
+        key -> new DeliveryQueue(executor,
+                                 asyncDelivery.queueCapacity(),
+                                 asyncDelivery.overflow()));
   }
 
   private void distributeMessageToSubscriber(Topic<?> topic,
@@ -96,74 +192,33 @@ final class TopicDistributionServiceImpl
     List<ServiceHandle<?>> perLookupHandles = new ArrayList<>();
 
     try {
-      Parameter[] parameters = subscriber.method.getParameters();
-      Object[] arguments = new Object[parameters.length];
+      Object[] arguments =
+          subscriber.plan.arguments(message, locator, perLookupHandles);
 
-      for (int i = 0; i < parameters.length; i++) {
-        if (i == subscriber.parameterIndex)
-          arguments[i] = message;
+      Object service = null;
 
-        else {
-          ServiceHandle<?> parameterHandle =
-              InjectUtils.serviceHandleFromParameter(
-                  parameters[i],
-                  subscriber.serviceDescriptor.getImplementationType(),
-                  locator);
+      if (!Modifier.isStatic(subscriber.method.getModifiers())) {
+        ServiceHandle<?> serviceHandle =
+            locator.getServiceHandle(subscriber.serviceDescriptor);
 
-          if (parameterHandle == null)
-            arguments[i] = null;
+        if (subscriber.serviceDescriptor.getScopeAnnotation() == PerLookup.class)
+          perLookupHandles.add(serviceHandle);
 
-          else {
-            if (parameterHandle.getActiveDescriptor().getScopeAnnotation() == PerLookup.class)
-              perLookupHandles.add(parameterHandle);
-
-            arguments[i] = parameterHandle.getService();
-          }
-        }
-      }
-
-      if (Modifier.isStatic(subscriber.method.getModifiers())) {
-        if (!canAccess(subscriber.method, null))
-          subscriber.method.setAccessible(true);
-
-        try {
-          subscriber.method.invoke(null, arguments);
-        } catch (InvocationTargetException | IllegalAccessException e) {
+        service = serviceHandle.getService();
+        if (service == null) {
           logger.error(
-              "Error distributing message {} for topic of type {} "
-                  + "with qualifiers {} to subscriber {}",
-              message,
-              topic.getTopicType(),
-              topic.getTopicQualifiers(),
-              subscriber,
-              e);
+              "The method for subscriber {} is non-static, but its service "
+                  + "handle produced null instead of producing an instance "
+                  + "of the service, so there is no instance on which this "
+                  + "non-static method can be invoked",
+              subscriber);
+          return;
         }
-        return;
-      }
-
-      ServiceHandle<?> serviceHandle =
-          locator.getServiceHandle(subscriber.serviceDescriptor);
-
-      if (subscriber.serviceDescriptor.getScopeAnnotation() == PerLookup.class)
-        perLookupHandles.add(serviceHandle);
-
-      Object service = serviceHandle.getService();
-      if (service == null) {
-        logger.error(
-            "The method for subscriber {} is non-static, but its service "
-                + "handle produced null instead of producing an instance "
-                + "of the service, so there is no instance on which this "
-                + "non-static method can be invoked",
-            subscriber);
-        return;
       }
 
-      if (!canAccess(subscriber.method, service))
-        subscriber.method.setAccessible(true);
-
       try {
-        subscriber.method.invoke(service, arguments);
-      } catch (InvocationTargetException | IllegalAccessException e) {
+        subscriber.plan.invoke(service, arguments);
+      } catch (Throwable e) {
         logger.error(
             "Error distributing message {} for topic of type {} "
                 + "with qualifiers {} to subscriber {}",
@@ -338,6 +393,18 @@ final class TopicDistributionServiceImpl
 
     Unqualified unqualified = parameter.getAnnotation(Unqualified.class);
 
+    InvocationPlan plan;
+    try {
+      plan = InvocationPlan.create(method, parameterIndex, serviceType);
+    } catch (IllegalAccessException | SecurityException e) {
+      logger.warn(
+          "Subscriber method {} of service {} is not accessible",
+          method,
+          serviceType,
+          e);
+      return null;
+    }
+
     return new Subscriber(
         method,
         parameterIndex,
@@ -345,6 +412,7 @@ final class TopicDistributionServiceImpl
         qualifiers,
         unqualified,
         permittedTypes,
-        activeDescriptor);
+        activeDescriptor,
+        plan);
   }
 }
@@ -0,0 +1,261 @@
+package tfb.status.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.errorprone.annotations.Immutable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tfb.status.view.DiffView;
+import tfb.status.view.HomePageView.ResultsView;
+import tfb.status.view.Results.RequestsMatrix;
+import tfb.status.view.ResultsSidecar;
+
+/**
+ * Generates diffs between any two runs on demand, caching the rendered diffs.
+ *
+ * <p>Each run is read from the {@linkplain ResultsSidecarStore sidecar} of its
+ * results file, and the {@linkplain RequestsMatrix requests matrix} of each run
+ * is cached, so a diff of two runs that have not been diffed before does not
+ * need to parse either results file.  Rendered diffs are cached by the pair
+ * of results files, including the sizes and last modified times of those
+ * files, so a diff is recomputed when either run is updated.  Concurrent
+ * requests for the same diff wait for a single computation of that diff.
+ */
+@Singleton
+public final class DiffCache {
+  private final HomeResultsReader homeResultsReader;
+  private final FileStore fileStore;
+  private final ResultsSidecarStore sidecarStore;
+  private final DiffGenerator diffGenerator;
+  private final ObjectMapper objectMapper;
+  private final LoadingCache<FileKey, RequestsMatrix> matrixCache;
+  private final LoadingCache<DiffKey, String> diffCache;
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @Inject
+  public DiffCache(HomeResultsReader homeResultsReader,
+                   FileStore fileStore,
+                   ResultsSidecarStore sidecarStore,
+                   DiffGenerator diffGenerator,
+                   ObjectMapper objectMapper,
+                   TaskScheduler taskScheduler) {
+
+    this.homeResultsReader = Objects.requireNonNull(homeResultsReader);
+    this.fileStore = Objects.requireNonNull(fileStore);
+    this.sidecarStore = Objects.requireNonNull(sidecarStore);
+    this.diffGenerator = Objects.requireNonNull(diffGenerator);
+    this.objectMapper = Objects.requireNonNull(objectMapper);
+    Objects.requireNonNull(taskScheduler);
+
+    this.matrixCache =
+        Caffeine.newBuilder()
+                .maximumSize(MATRIX_CACHE_MAX_SIZE)
+                .executor(
+                    taskScheduler.boundedExecutor(
+                        Runtime.getRuntime().availableProcessors()))
+                .<FileKey, RequestsMatrix>buildAsync(key -> readMatrix(key))
+                .synchronous();
+
+    this.diffCache =
+        Caffeine.newBuilder()
+                .maximumSize(DIFF_CACHE_MAX_SIZE)
+                .executor(
+                    taskScheduler.boundedExecutor(
+                        Runtime.getRuntime().availableProcessors()))
+                .<DiffKey, String>buildAsync(key -> renderDiff(key))
+                .synchronous();
+  }
+
+  /**
+   * The formats in which diffs are rendered.
+   */
+  public enum Format {
+    /**
+     * An HTML document, as produced by {@link DiffGenerator#diff(
+     * RequestsMatrix, RequestsMatrix)}.
+     */
+    HTML,
+
+    /**
+     * A JSON serialization of the {@link DiffView}.
+     */
+    JSON
+  }
+
+  /**
+   * Returns the diff between the runs having the specified uuids.
+   *
+   * @param oldUuid the uuid of the old run
+   * @param newUuid the uuid of the new run
+   * @param format the format of the diff
+   * @return the diff, or {@code null} if either run is unknown or has no
+   *         readable results file
+   * @throws IOException if an I/O error occurs while finding the runs
+   */
+  public @Nullable String diff(String oldUuid, String newUuid, Format format)
+      throws IOException {
+
+    Objects.requireNonNull(oldUuid);
+    Objects.requireNonNull(newUuid);
+    Objects.requireNonNull(format);
+
+    Path oldFile = resultsFile(oldUuid);
+    if (oldFile == null)
+      return null;
+
+    Path newFile = resultsFile(newUuid);
+    if (newFile == null)
+      return null;
+
+    return diff(oldFile, newFile, format);
+  }
+
+  /**
+   * Returns the diff between the runs in the specified results files.
+   *
+   * @param oldResultsFile the results.json or results.zip file of the old run
+   * @param newResultsFile the results.json or results.zip file of the new run
+   * @param format the format of the diff
+   * @return the diff, or {@code null} if either results file does not exist
+   *         or cannot be read
+   * @throws IOException if an I/O error occurs while reading the attributes of
+   *         the results files
+   */
+  public @Nullable String diff(Path oldResultsFile,
+                               Path newResultsFile,
+                               Format format)
+      throws IOException {
+
+    Objects.requireNonNull(oldResultsFile);
+    Objects.requireNonNull(newResultsFile);
+    Objects.requireNonNull(format);
+
+    FileKey oldKey = fileKey(oldResultsFile);
+    if (oldKey == null)
+      return null;
+
+    FileKey newKey = fileKey(newResultsFile);
+    if (newKey == null)
+      return null;
+
+    return diffCache.get(new DiffKey(oldKey, newKey, format));
+  }
+
+  /**
+   * Returns the results file of the run having the specified uuid, preferring
+   * the results.zip file when the run has one, or {@code null} if there is no
+   * such run.
+   */
+  private @Nullable Path resultsFile(String uuid) throws IOException {
+    ResultsView results = homeResultsReader.resultsByUuid(uuid);
+    if (results == null)
+      return null;
+
+    String fileName =
+        (results.zipFileName() != null)
+            ? results.zipFileName()
+            : results.jsonFileName();
+
+    return (fileName == null)
+        ? null
+        : fileStore.resultsDirectory().resolve(fileName);
+  }
+
+  /**
+   * Returns a cache key for the specified results file, or {@code null} if the
+   * file does not exist.
+   */
+  private static @Nullable FileKey fileKey(Path file) throws IOException {
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+
+    return new FileKey(
+        /* file= */ file,
+        /* lastModifiedTime= */ attributes.lastModifiedTime(),
+        /* size= */ attributes.size());
+  }
+
+  private @Nullable RequestsMatrix readMatrix(FileKey key) {
+    Objects.requireNonNull(key);
+
+    ResultsSidecar sidecar;
+    try {
+      sidecar = sidecarStore.readOrWrite(key.file());
+    } catch (IOException e) {
+      logger.warn("Error reading results file {}", key.file(), e);
+      return null;
+    }
+
+    return (sidecar == null) ? null : sidecar.results().requestsMatrix();
+  }
+
+  private @Nullable String renderDiff(DiffKey key) {
+    Objects.requireNonNull(key);
+
+    RequestsMatrix oldMatrix = matrixCache.get(key.oldKey());
+    if (oldMatrix == null)
+      return null;
+
+    RequestsMatrix newMatrix = matrixCache.get(key.newKey());
+    if (newMatrix == null)
+      return null;
+
+    return switch (key.format()) {
+      case HTML -> diffGenerator.diff(oldMatrix, newMatrix);
+      case JSON -> {
+        DiffView diffView = diffGenerator.diffView(oldMatrix, newMatrix);
+        try {
+          yield objectMapper.writeValueAsString(diffView);
+        } catch (JsonProcessingException e) {
+          logger.warn(
+              "Error serializing diff of {} and {}",
+              key.oldKey().file(), key.newKey().file(), e);
+          yield null;
+        }
+      }
+    };
+  }
+
+  /**
+   * A cache key pointing to a results.json or results.zip file on disk.  When
+   * the file is modified, this cache key becomes unreachable.
+   */
+  @Immutable
+  private record FileKey(Path file, FileTime lastModifiedTime, long size) {
+    FileKey {
+      Objects.requireNonNull(file);
+      Objects.requireNonNull(lastModifiedTime);
+    }
+  }
+
+  /**
+   * A cache key for a rendered diff between two results files.
+   */
+  @Immutable
+  private record DiffKey(FileKey oldKey, FileKey newKey, Format format) {
+    DiffKey {
+      Objects.requireNonNull(oldKey);
+      Objects.requireNonNull(newKey);
+      Objects.requireNonNull(format);
+    }
+  }
+
+  private static final int MATRIX_CACHE_MAX_SIZE = 64;
+  private static final int DIFF_CACHE_MAX_SIZE = 64;
+}
@@ -1,20 +1,20 @@
 package tfb.status.service;
 
-import static java.util.Comparator.comparing;
+import static tfb.status.view.Results.RequestsMatrix.FRAMEWORK_ORDER;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Sets;
-import com.google.errorprone.annotations.Immutable;
+import com.google.common.primitives.ImmutableIntArray;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.text.NumberFormat;
-import java.util.ArrayList;
 import java.util.Locale;
 import java.util.Objects;
 import tfb.status.view.DiffView;
 import tfb.status.view.DiffView.DiffLineView;
 import tfb.status.view.DiffView.DiffSummaryView;
 import tfb.status.view.Results;
+import tfb.status.view.Results.RequestsMatrix;
+import tfb.status.view.Results.TestType;
 
 /**
  * Generates diffs between pairs of benchmark results.
@@ -40,27 +40,37 @@ public final class DiffGenerator {
     Objects.requireNonNull(oldResults);
     Objects.requireNonNull(newResults);
 
-    var lines = new ArrayList<DiffLine>();
-
-    for (String framework : Sets.union(oldResults.frameworks(),
-                                       newResults.frameworks())) {
-
-      for (Results.TestType testType : Results.TestType.values()) {
-        double oldRps = oldResults.rps(testType, framework);
-        double newRps = newResults.rps(testType, framework);
-        if (oldRps != 0d || newRps != 0d) {
-          lines.add(
-              new DiffLine(
-                  /* framework= */ framework,
-                  /* testType= */ testType,
-                  /* oldRps= */ oldRps,
-                  /* newRps= */ newRps));
-        }
-      }
-    }
+    return diff(oldResults.requestsMatrix(), newResults.requestsMatrix());
+  }
 
-    lines.sort(comparing(line -> line.framework,
-                         String.CASE_INSENSITIVE_ORDER));
+  /**
+   * Generates a diff in HTML format that compares the requests matrices of two
+   * sets of benchmark results.
+   *
+   * @param oldMatrix the requests matrix of the old benchmark results
+   * @param newMatrix the requests matrix of the new benchmark results
+   * @return an HTML document string
+   */
+  public String diff(RequestsMatrix oldMatrix, RequestsMatrix newMatrix) {
+    DiffView diffView = diffView(oldMatrix, newMatrix);
+    return mustacheRenderer.render("diff.mustache", diffView);
+  }
+
+  /**
+   * Generates a view of the diff between the requests matrices of two sets of
+   * benchmark results, which may be rendered as HTML or serialized as JSON.
+   *
+   * <p>The frameworks of the two matrices are merged in a single pass over
+   * their {@linkplain RequestsMatrix#sortedFrameworkIndexes() sorted indexes},
+   * which produces the lines of the diff already in order.
+   *
+   * @param oldMatrix the requests matrix of the old benchmark results
+   * @param newMatrix the requests matrix of the new benchmark results
+   * @return a view of the diff
+   */
+  public DiffView diffView(RequestsMatrix oldMatrix, RequestsMatrix newMatrix) {
+    Objects.requireNonNull(oldMatrix);
+    Objects.requireNonNull(newMatrix);
 
     int totalAdded = 0;
     int totalRemoved = 0;
@@ -68,28 +78,56 @@ public final class DiffGenerator {
     int totalBetter = 0;
     int totalWorse = 0;
 
-    for (DiffLine line : lines) {
-      if (line.oldRps == 0d)
-        totalAdded++;
-      else if (line.newRps == 0d)
-        totalRemoved++;
-
-      if (line.oldRps != 0d && line.newRps != 0d) {
-        double rpsChangeNumber = (line.newRps - line.oldRps) / line.oldRps;
-        if (Math.abs(rpsChangeNumber) < RPS_CHANGE_THRESHOLD)
-          totalSame++;
-        else if (rpsChangeNumber > 0d)
-          totalBetter++;
-        else
-          totalWorse++;
+    NumberFormat percentFormat = NumberFormat.getPercentInstance(Locale.ROOT);
+    NumberFormat integerFormat = NumberFormat.getIntegerInstance(Locale.ROOT);
+
+    var lineViews = new ImmutableList.Builder<DiffLineView>();
+
+    var cursor = new FrameworkCursor(oldMatrix, newMatrix);
+    while (cursor.next()) {
+      for (TestType testType : TEST_TYPES) {
+        double oldRps = cursor.oldRps(testType);
+        double newRps = cursor.newRps(testType);
+        if (oldRps == 0d && newRps == 0d)
+          continue;
+
+        String addedOrRemovedText;
+        String rpsChangeText;
+
+        if (oldRps == 0d) {
+          totalAdded++;
+          addedOrRemovedText = "ADDED";
+          rpsChangeText = "";
+        } else if (newRps == 0d) {
+          totalRemoved++;
+          addedOrRemovedText = "REMOVED";
+          rpsChangeText = "";
+        } else {
+          double rpsChangeNumber = (newRps - oldRps) / oldRps;
+          if (Math.abs(rpsChangeNumber) < RPS_CHANGE_THRESHOLD)
+            totalSame++;
+          else if (rpsChangeNumber > 0d)
+            totalBetter++;
+          else
+            totalWorse++;
+
+          addedOrRemovedText = "";
+          rpsChangeText = percentFormat.format(rpsChangeNumber);
+        }
+
+        lineViews.add(
+            new DiffLineView(
+                /* addedOrRemoved= */ addedOrRemovedText,
+                /* framework= */ cursor.framework(),
+                /* testType= */ testType.serialize(),
+                /* oldRps= */ integerFormat.format(oldRps),
+                /* newRps= */ integerFormat.format(newRps),
+                /* rpsChange= */ rpsChangeText));
       }
     }
 
     int totalBothRounds = totalSame + totalBetter + totalWorse;
 
-    NumberFormat percentFormat = NumberFormat.getPercentInstance(Locale.ROOT);
-    NumberFormat integerFormat = NumberFormat.getIntegerInstance(Locale.ROOT);
-
     var summaryView =
         new DiffSummaryView(
             /* totalAdded= */ integerFormat.format(totalAdded),
@@ -100,55 +138,85 @@ public final class DiffGenerator {
             /* totalWorse= */ integerFormat.format(totalWorse),
             /* rpsChangeThreshold= */ percentFormat.format(RPS_CHANGE_THRESHOLD));
 
-    var lineViews = new ImmutableList.Builder<DiffLineView>();
+    return new DiffView(
+        /* summary= */ summaryView,
+        /* lines= */ lineViews.build());
+  }
 
-    for (DiffLine line : lines) {
-      String addedOrRemovedText;
-      if (line.oldRps == 0d)
-        addedOrRemovedText = "ADDED";
-      else if (line.newRps == 0d)
-        addedOrRemovedText = "REMOVED";
+  /**
+   * Walks the union of the frameworks in two requests matrices in {@link
+   * RequestsMatrix#FRAMEWORK_ORDER}, by merging the sorted framework indexes
+   * of the two matrices.
+   */
+  private static final class FrameworkCursor {
+    private final RequestsMatrix oldMatrix;
+    private final RequestsMatrix newMatrix;
+    private final ImmutableIntArray oldIndexes;
+    private final ImmutableIntArray newIndexes;
+    private int oldPosition = 0;
+    private int newPosition = 0;
+
+    // The current framework and its index in each matrix, or -1 if it is not
+    // in that matrix.
+    private String framework = "";
+    private int oldIndex = -1;
+    private int newIndex = -1;
+
+    FrameworkCursor(RequestsMatrix oldMatrix, RequestsMatrix newMatrix) {
+      this.oldMatrix = Objects.requireNonNull(oldMatrix);
+      this.newMatrix = Objects.requireNonNull(newMatrix);
+      this.oldIndexes = oldMatrix.sortedFrameworkIndexes();
+      this.newIndexes = newMatrix.sortedFrameworkIndexes();
+    }
+
+    /**
+     * Advances to the next framework, returning {@code false} if there are no
+     * more frameworks.
+     */
+    boolean next() {
+      boolean hasOld = oldPosition < oldIndexes.length();
+      boolean hasNew = newPosition < newIndexes.length();
+
+      int comparison;
+      if (hasOld && hasNew)
+        comparison =
+            FRAMEWORK_ORDER.compare(
+                oldMatrix.frameworks().get(oldIndexes.get(oldPosition)),
+                newMatrix.frameworks().get(newIndexes.get(newPosition)));
+      else if (hasOld)
+        comparison = -1;
+      else if (hasNew)
+        comparison = 1;
       else
-        addedOrRemovedText = "";
-
-      String rpsChangeText;
-      if (line.oldRps == 0d || line.newRps == 0d) {
-        rpsChangeText = "";
-      } else {
-        double rpsChangeNumber = (line.newRps - line.oldRps) / line.oldRps;
-        rpsChangeText = percentFormat.format(rpsChangeNumber);
-      }
+        return false;
 
-      lineViews.add(
-          new DiffLineView(
-              /* addedOrRemoved= */ addedOrRemovedText,
-              /* framework= */ line.framework,
-              /* testType= */ line.testType.serialize(),
-              /* oldRps= */ integerFormat.format(line.oldRps),
-              /* newRps= */ integerFormat.format(line.newRps),
-              /* rpsChange= */ rpsChangeText));
-    }
+      oldIndex = (comparison <= 0) ? oldIndexes.get(oldPosition++) : -1;
+      newIndex = (comparison >= 0) ? newIndexes.get(newPosition++) : -1;
 
-    var outerView =
-        new DiffView(
-            /* summary= */ summaryView,
-            /* lines= */ lineViews.build());
+      framework =
+          (oldIndex != -1)
+              ? oldMatrix.frameworks().get(oldIndex)
+              : newMatrix.frameworks().get(newIndex);
 
-    return mustacheRenderer.render("diff.mustache", outerView);
-  }
+      return true;
+    }
 
-  @Immutable
-  private record DiffLine(String framework,
-                          Results.TestType testType,
-                          double oldRps,
-                          double newRps) {
+    String framework() {
+      return framework;
+    }
+
+    double oldRps(TestType testType) {
+      return (oldIndex == -1) ? 0d : oldMatrix.rps(testType, oldIndex);
+    }
 
-    DiffLine {
-      Objects.requireNonNull(framework);
-      Objects.requireNonNull(testType);
+    double newRps(TestType testType) {
+      return (newIndex == -1) ? 0d : newMatrix.rps(testType, newIndex);
     }
   }
 
+  private static final ImmutableList<TestType> TEST_TYPES =
+      ImmutableList.copyOf(TestType.values());
+
   // TODO: Make this threshold configurable.
   private static final double RPS_CHANGE_THRESHOLD = 0.25;
 }
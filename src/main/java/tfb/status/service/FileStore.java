@@ -21,6 +21,8 @@ public final class FileStore {
   private final Path resultsDirectory;
   private final Path accountsDirectory;
   private final Path shareDirectory;
+  private final Path cacheDirectory;
+  private final Path uploadsDirectory;
   private final Path announcementFile;
 
   /**
@@ -48,6 +50,12 @@ public final class FileStore {
     shareDirectory = root.resolve("share");
     createDirectoryIfNecessary(shareDirectory);
 
+    cacheDirectory = root.resolve("cache");
+    createDirectoryIfNecessary(cacheDirectory);
+
+    uploadsDirectory = root.resolve("uploads");
+    createDirectoryIfNecessary(uploadsDirectory);
+
     announcementFile = root.resolve("announcement.txt");
     createFileIfNecessary(announcementFile);
   }
@@ -90,6 +98,25 @@ public final class FileStore {
     return shareDirectory;
   }
 
+  /**
+   * The root directory for files that are derived from other files in this
+   * store, such as indexes of the uploaded results.  Files in this directory
+   * may be deleted at any time, in which case they will be regenerated as
+   * needed.
+   */
+  public Path cacheDirectory() {
+    return cacheDirectory;
+  }
+
+  /**
+   * The root directory for partially-uploaded results files, which are moved
+   * to the {@linkplain #resultsDirectory() results directory} once they are
+   * complete.
+   */
+  public Path uploadsDirectory() {
+    return uploadsDirectory;
+  }
+
   /**
    * The text file containing an announcement to be displayed on the home page.
    */
@@ -1,17 +1,27 @@
 package tfb.status.service;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
-import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.net.UrlEscapers.urlFragmentEscaper;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 import static java.util.Comparator.comparing;
 import static java.util.Comparator.reverseOrder;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.MultimapBuilder;
@@ -23,12 +33,19 @@ import com.google.errorprone.annotations.concurrent.GuardedBy;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 import java.text.NumberFormat;
 import java.time.Clock;
@@ -38,25 +55,34 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.glassfish.hk2.api.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tfb.status.util.ZipFiles;
+import tfb.status.util.ZipFiles.ZipSession;
 import tfb.status.view.HomePageView.ResultsView;
 import tfb.status.view.HomePageView.ResultsView.Failure;
 import tfb.status.view.Results;
+import tfb.status.view.ResultsSidecar;
 
 /**
  * Loads previously-uploaded results for display on the home page.
@@ -67,6 +93,7 @@ public final class HomeResultsReader implements PreDestroy {
   private final ObjectMapper objectMapper;
   private final Clock clock;
   private final TaskScheduler taskScheduler;
+  private final ResultsSidecarStore sidecarStore;
   private final Logger logger = LoggerFactory.getLogger(getClass());
 
   // This number should be greater than the total number of results files we'll
@@ -77,18 +104,67 @@ public final class HomeResultsReader implements PreDestroy {
   private @Nullable LoadingCache<FileKey, FileSummary> fileCache;
 
   @GuardedBy("this")
-  private @Nullable Future<?> purgeTask;
+  private @Nullable SummaryIndex summaryIndex;
+
+  // The results files currently in the results directory and their keys.  This
+  // is populated by listing the directory once and then kept up to date by
+  // watching the directory, by explicit calls to refresh(Path), and by a
+  // periodic full rescan.
+  private final ConcurrentHashMap<Path, FileKey> catalog =
+      new ConcurrentHashMap<>();
+
+  // The summaries of the files in the catalog, and those files grouped by the
+  // UUIDs in their summaries, allowing results to be found by UUID without
+  // reading every file.  Files that were added or modified recently might not
+  // have been indexed yet.
+  @GuardedBy("catalog")
+  private final Map<Path, FileSummary> indexedSummaries = new HashMap<>();
+
+  @GuardedBy("catalog")
+  private final SetMultimap<String, Path> filesByUuid =
+      MultimapBuilder.hashKeys().hashSetValues().build();
+
+  @GuardedBy("catalog")
+  private final Set<Path> unindexedFiles = new HashSet<>();
+
+  // The indexed results.zip files of completed runs, grouped by the
+  // environment, repository, and branch of each run and ordered by start time
+  // within each group, allowing the previous comparable run to be found
+  // without listing the results directory.
+  @GuardedBy("catalog")
+  private final Map<RunGroup, TreeSet<CompletedRun>> completedRuns =
+      new HashMap<>();
+
+  // All the results in the order they are displayed on the home page, or null
+  // if this list has not been built yet.  The changed files are the files whose
+  // entries in this list may be out of date.
+  @GuardedBy("catalog")
+  private @Nullable ImmutableList<ResultsEntry> sortedResults;
+
+  @GuardedBy("catalog")
+  private final Set<Path> changedFiles = new HashSet<>();
+
+  @GuardedBy("this")
+  private @Nullable WatchService watchService;
+
+  @GuardedBy("this")
+  private @Nullable Thread watchThread;
+
+  @GuardedBy("this")
+  private @Nullable Future<?> rescanTask;
 
   @Inject
   public HomeResultsReader(FileStore fileStore,
                            ObjectMapper objectMapper,
                            Clock clock,
-                           TaskScheduler taskScheduler) {
+                           TaskScheduler taskScheduler,
+                           ResultsSidecarStore sidecarStore) {
 
     this.fileStore = Objects.requireNonNull(fileStore);
     this.objectMapper = Objects.requireNonNull(objectMapper);
     this.clock = Objects.requireNonNull(clock);
     this.taskScheduler = Objects.requireNonNull(taskScheduler);
+    this.sidecarStore = Objects.requireNonNull(sidecarStore);
   }
 
   @Override
@@ -100,11 +176,38 @@ public final class HomeResultsReader implements PreDestroy {
    * Cleans up resources used by this service.
    */
   public synchronized void stop() {
-    Future<?> task = this.purgeTask;
-    if (task != null) {
-      task.cancel(true);
-      this.purgeTask = null;
+    Future<?> rescan = this.rescanTask;
+    if (rescan != null) {
+      rescan.cancel(true);
+      this.rescanTask = null;
     }
+
+    WatchService watcher = this.watchService;
+    if (watcher != null) {
+      try {
+        watcher.close();
+      } catch (IOException e) {
+        logger.warn("Error closing watch service", e);
+      }
+      this.watchService = null;
+    }
+
+    Thread watch = this.watchThread;
+    if (watch != null) {
+      // Closing the watch service stops the thread, but interrupt it in case
+      // it is busy refreshing the catalog.
+      watch.interrupt();
+      try {
+        watch.join(WATCH_THREAD_STOP_TIMEOUT.toMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      this.watchThread = null;
+    }
+
+    SummaryIndex index = this.summaryIndex;
+    if (index != null)
+      index.writeIfModified();
   }
 
   /**
@@ -115,27 +218,50 @@ public final class HomeResultsReader implements PreDestroy {
    * @throws IOException if an I/O error occurs while reading the results
    */
   public ImmutableList<ResultsView> results() throws IOException {
-    var noUuid = new ArrayList<FileSummary>();
-    var byUuid = new HashMap<String, List<FileSummary>>();
+    return results(/* skip= */ 0, /* limit= */ Integer.MAX_VALUE);
+  }
 
-    readAllFiles().forEach(
-        (FileSummary summary) -> {
-          if (summary.uuid() == null)
-            noUuid.add(summary);
-          else
-            byUuid.computeIfAbsent(summary.uuid(), uuid -> new ArrayList<>())
-                  .add(summary);
-        });
+  /**
+   * Returns a view of one page of the previously-uploaded results, suitable for
+   * rendering on the home page.  The results are in the same order as in
+   * {@link #results()}.
+   *
+   * @param skip the number of results to skip from the start of the list
+   * @param limit the maximum number of results to return
+   * @return a view of the results on the page, which is empty if {@code skip}
+   *         is greater than or equal to the total number of results
+   * @throws IllegalArgumentException if {@code skip} or {@code limit} is
+   *         negative
+   * @throws IOException if an I/O error occurs while reading the results
+   */
+  public ImmutableList<ResultsView> results(int skip, int limit)
+      throws IOException {
 
-    var results = new ArrayList<ResultsView>();
+    if (skip < 0)
+      throw new IllegalArgumentException("skip must not be negative");
 
-    for (FileSummary summary : noUuid)
-      results.add(newResultsView(List.of(summary)));
+    if (limit < 0)
+      throw new IllegalArgumentException("limit must not be negative");
 
-    for (List<FileSummary> summaries : byUuid.values())
-      results.add(newResultsView(summaries));
+    LoadingCache<FileKey, FileSummary> cache = getFileCache();
+    indexUnindexedFiles(cache);
 
-    return ImmutableList.sortedCopyOf(RESULTS_COMPARATOR, results);
+    ImmutableList<ResultsEntry> entries;
+    synchronized (catalog) {
+      entries = updateSortedResults();
+    }
+
+    int fromIndex = Math.min(entries.size(), skip);
+    int toIndex = fromIndex + Math.min(entries.size() - fromIndex, limit);
+
+    return entries.subList(fromIndex, toIndex)
+                  .stream()
+                  .map(
+                      entry ->
+                          entry.dependsOnClock()
+                              ? newResultsView(entry.summaries())
+                              : entry.view())
+                  .collect(toImmutableList());
   }
 
   /**
@@ -151,36 +277,139 @@ public final class HomeResultsReader implements PreDestroy {
   public @Nullable ResultsView resultsByUuid(String uuid) throws IOException {
     Objects.requireNonNull(uuid);
 
-    ImmutableList<FileSummary> summaries =
-        readAllFiles()
-            .filter(summary -> uuid.equals(summary.uuid()))
-            .collect(toImmutableList());
+    LoadingCache<FileKey, FileSummary> cache = getFileCache();
+    indexUnindexedFiles(cache);
+
+    // The watch service may not have reported recent changes to the results
+    // directory yet.  Check the directory for files that were added or
+    // removed, which only requires listing it, and check that the files we
+    // know of for this UUID are up to date.
+    Set<Path> listedFiles = listResultsDirectory();
+    Set<Path> filesToRefresh;
+    synchronized (catalog) {
+      filesToRefresh =
+          Sets.union(
+                  Sets.symmetricDifference(listedFiles, catalog.keySet()),
+                  filesByUuid.get(uuid))
+              .immutableCopy();
+    }
+
+    for (Path file : filesToRefresh)
+      refreshCatalogEntry(file, cache);
+
+    indexUnindexedFiles(cache);
+
+    ImmutableList<FileSummary> summaries;
+    synchronized (catalog) {
+      summaries =
+          filesByUuid.get(uuid)
+                     .stream()
+                     .map(file -> indexedSummaries.get(file))
+                     .collect(toImmutableList());
+    }
 
     return summaries.isEmpty()
         ? null
         : newResultsView(summaries);
   }
 
-  private Stream<FileSummary> readAllFiles() throws IOException {
-    Stream.Builder<FileKey> keys = Stream.builder();
+  /**
+   * Notifies this service that the specified file may have been created,
+   * modified, or deleted.  Files that are not results files in the {@linkplain
+   * FileStore#resultsDirectory() results directory} are ignored.
+   *
+   * <p>This service watches the results directory for changes, so calling this
+   * method is not required.  However, the watch may take some time to report
+   * changes, and callers that have just written a results file can use this
+   * method to make that file visible immediately.  The file is indexed before
+   * this method returns, which reads the summary of the file if it has not
+   * been read already.
+   *
+   * @param file the file that may have changed
+   * @throws IOException if an I/O error occurs while initializing this service
+   */
+  public void refresh(Path file) throws IOException {
+    Objects.requireNonNull(file);
+    LoadingCache<FileKey, FileSummary> cache = getFileCache();
+    refreshCatalogEntry(file, cache);
+    indexUnindexedFiles(cache, unindexedFile -> unindexedFile.equals(file));
+  }
 
-    try (DirectoryStream<Path> files =
-             Files.newDirectoryStream(fileStore.resultsDirectory(),
-                                      "*.{json,zip}")) {
+  /**
+   * Reads the summaries of all the results files that have not been read yet,
+   * in parallel, so that subsequent requests for results don't have to.  This
+   * is meant to be called once at startup.  Requests for results that arrive
+   * while this method is running will wait for the files being read by this
+   * method instead of reading those files again.
+   *
+   * @throws IOException if an I/O error occurs while reading the results
+   */
+  public void warmUp() throws IOException {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    LoadingCache<FileKey, FileSummary> cache = getFileCache();
+    indexUnindexedFiles(cache);
+    logger.info(
+        "Read summaries of {} results files in {}",
+        catalog.size(),
+        stopwatch);
+  }
 
-      for (Path file : files)
-        keys.add(new FileKey(file));
-    }
+  /**
+   * Returns the results.zip file of the most recent run that started before
+   * the run in the specified results.zip file, and that is comparable to that
+   * run, meaning that both runs have the same environment description, git
+   * repository, and git branch.
+   *
+   * @param zipFile the results.zip file of a run
+   * @return the results.zip file of the previous comparable run, or {@code
+   *         null} if there is no such run or if the specified file is not the
+   *         results.zip file of a run whose environment, repository, branch,
+   *         and start time are known
+   * @throws IOException if an I/O error occurs while reading the results
+   */
+  public @Nullable Path previousComparableZipFile(Path zipFile)
+      throws IOException {
 
-    LoadingCache<FileKey, FileSummary> cache = getFileCache();
+    Objects.requireNonNull(zipFile);
 
-    return keys.build()
-               .map(key -> cache.get(key))
-               .filter(summary -> summary != null);
+    // The watch service may not have reported this file yet.
+    LoadingCache<FileKey, FileSummary> cache = getFileCache();
+    refreshCatalogEntry(zipFile, cache);
+    indexUnindexedFiles(cache);
+
+    synchronized (catalog) {
+      FileSummary summary = indexedSummaries.get(zipFile);
+      if (summary == null)
+        return null;
+
+      RunGroup group = RunGroup.of(summary);
+      CompletedRun run = CompletedRun.of(summary);
+      if (group == null || run == null)
+        return null;
+
+      TreeSet<CompletedRun> runs = completedRuns.get(group);
+      if (runs == null)
+        return null;
+
+      CompletedRun previous = runs.lower(run);
+      return (previous == null)
+          ? null
+          : fileStore.resultsDirectory().resolve(previous.zipFileName());
+    }
   }
 
   private @Nullable FileSummary readFile(Path file) {
     Objects.requireNonNull(file);
+
+    ResultsSidecar sidecar = sidecarStore.read(file);
+    if (sidecar != null)
+      return summarizeResults(
+          /* results= */ sidecar.results(),
+          /* fileName= */ resultsFileName(file),
+          /* lastUpdated= */ sidecar.resultsFileLastModifiedTime(),
+          /* backupCommitId= */ sidecar.backupCommitId(),
+          /* hasTestMetadataFile= */ sidecar.hasTestMetadataFile());
+
     return switch (MoreFiles.getFileExtension(file)) {
       case "json" -> {
         try {
@@ -211,7 +440,7 @@ public final class HomeResultsReader implements PreDestroy {
 
     Results results;
     try (InputStream inputStream = Files.newInputStream(jsonFile)) {
-      results = objectMapper.readValue(inputStream, Results.class);
+      results = SummaryResultsParser.parse(objectMapper, inputStream);
     }
 
     // TODO: Avoid using the last modified time of the file on disk, which may
@@ -220,8 +449,7 @@ public final class HomeResultsReader implements PreDestroy {
     //       time instead.
     FileTime lastModifiedTime  = Files.getLastModifiedTime(jsonFile);
 
-    Path relativePath = fileStore.resultsDirectory().relativize(jsonFile);
-    String fileName = Joiner.on('/').join(relativePath);
+    String fileName = resultsFileName(jsonFile);
 
     return summarizeResults(
         /* results= */ results,
@@ -235,73 +463,83 @@ public final class HomeResultsReader implements PreDestroy {
   @Nullable FileSummary readZipFile(Path zipFile) throws IOException {
     Objects.requireNonNull(zipFile);
 
-    Results results =
-        ZipFiles.readZipEntry(
-            /* zipFile= */ zipFile,
-            /* entryPath= */ "results.json",
-            /* entryReader= */ inputStream ->
-                                   objectMapper.readValue(inputStream,
-                                                          Results.class));
-
-    if (results == null) {
-      logger.warn(
-          "results.zip file {} does not contain a results.json file",
-          zipFile);
-
-      // If the zip doesn't contain a results.json at all, then we have nothing
-      // useful to say to users about it, and we want to pretend it doesn't
-      // exist.
-      return null;
-    }
+    // Open the zip file once for all of the entries we might need, rather than
+    // reopening and rescanning it for each entry.
+    try (ZipSession zipSession = ZipFiles.openZipFile(zipFile)) {
+      Results results =
+          zipSession.readEntry(
+              /* entryPath= */ "results.json",
+              /* entryReader= */ inputStream ->
+                                     SummaryResultsParser.parse(objectMapper,
+                                                                inputStream));
+
+      if (results == null) {
+        logger.warn(
+            "results.zip file {} does not contain a results.json file",
+            zipFile);
+
+        // If the zip doesn't contain a results.json at all, then we have
+        // nothing useful to say to users about it, and we want to pretend it
+        // doesn't exist.
+        return null;
+      }
 
-    // TODO: Avoid using the last modified time of the file on disk, which may
-    //       change for reasons completely unrelated to the run itself, and use
-    //       something from the results.json file to give us a last modified
-    //       time instead.
-    FileTime lastModifiedTime = Files.getLastModifiedTime(zipFile);
+      // TODO: Avoid using the last modified time of the file on disk, which
+      //       may change for reasons completely unrelated to the run itself,
+      //       and use something from the results.json file to give us a last
+      //       modified time instead.
+      FileTime lastModifiedTime = Files.getLastModifiedTime(zipFile);
 
-    Path relativePath = fileStore.resultsDirectory().relativize(zipFile);
-    String fileName = Joiner.on('/').join(relativePath);
+      String fileName = resultsFileName(zipFile);
 
-    // If the results.json doesn't tell us the commit id, then search for a
-    // commit_id.txt file.  We used to capture the git commit id in its own file
-    // before we added it to results.json.
-    String backupCommitId;
-    if (results.git() != null)
-      backupCommitId = null;
-    else
-      backupCommitId =
-          ZipFiles.readZipEntry(
-              /* zipFile= */ zipFile,
-              /* entryPath= */ "commit_id.txt",
-              /* entryReader= */
-              inputStream -> {
-                try (var isr = new InputStreamReader(inputStream, UTF_8);
-                     var br = new BufferedReader(isr)) {
-                  return br.readLine();
-                }
-              });
-
-    // If the results.json doesn't contain the test metadata, then search for a
-    // test_metadata.json file.  We used to capture the test metadata in its own
-    // file before we added it to results.json.
-    boolean hasTestMetadataFile;
-    if (results.testMetadata() != null)
-      hasTestMetadataFile = false;
-    else
-      hasTestMetadataFile =
-          ZipFiles.readZipEntry(
-              /* zipFile= */ zipFile,
-              /* entryPath= */ "test_metadata.json",
-              /* entryReader= */ inputStream -> "not null")
-              != null;
+      // If the results.json doesn't tell us the commit id, then search for a
+      // commit_id.txt file.  We used to capture the git commit id in its own
+      // file before we added it to results.json.
+      String backupCommitId;
+      if (results.git() != null)
+        backupCommitId = null;
+      else
+        backupCommitId =
+            zipSession.readEntry(
+                /* entryPath= */ "commit_id.txt",
+                /* entryReader= */
+                inputStream -> {
+                  try (var isr = new InputStreamReader(inputStream, UTF_8);
+                       var br = new BufferedReader(isr)) {
+                    return br.readLine();
+                  }
+                });
+
+      // If the results.json doesn't contain the test metadata, then search for
+      // a test_metadata.json file.  We used to capture the test metadata in its
+      // own file before we added it to results.json.
+      boolean hasTestMetadataFile;
+      if (results.testMetadata() != null)
+        hasTestMetadataFile = false;
+      else
+        hasTestMetadataFile =
+            zipSession.readEntry(
+                /* entryPath= */ "test_metadata.json",
+                /* entryReader= */ inputStream -> "not null")
+                != null;
+
+      return summarizeResults(
+          /* results= */ results,
+          /* fileName= */ fileName,
+          /* lastUpdated= */ lastModifiedTime.toInstant(),
+          /* backupCommitId= */ backupCommitId,
+          /* hasTestMetadataFile= */ hasTestMetadataFile);
+    }
+  }
 
-    return summarizeResults(
-        /* results= */ results,
-        /* fileName= */ fileName,
-        /* lastUpdated= */ lastModifiedTime.toInstant(),
-        /* backupCommitId= */ backupCommitId,
-        /* hasTestMetadataFile= */ hasTestMetadataFile);
+  /**
+   * Returns the name of the specified results file relative to the {@linkplain
+   * FileStore#resultsDirectory() results directory}.
+   */
+  private String resultsFileName(Path file) {
+    Objects.requireNonNull(file);
+    Path relativePath = fileStore.resultsDirectory().relativize(file);
+    return Joiner.on('/').join(relativePath);
   }
 
   private FileSummary summarizeResults(Results results,
@@ -649,43 +887,555 @@ public final class HomeResultsReader implements PreDestroy {
   }
 
   /**
-   * Returns the lazy-initialized internal cache.
+   * Returns the lazy-initialized internal cache.  The first call to this
+   * method also populates the {@link #catalog} and starts watching the results
+   * directory for changes.
    */
-  private synchronized LoadingCache<FileKey, FileSummary> getFileCache() {
+  private synchronized LoadingCache<FileKey, FileSummary> getFileCache()
+      throws IOException {
+
     LoadingCache<FileKey, FileSummary> existing = this.fileCache;
     if (existing != null)
       return existing;
 
+    var index =
+        new SummaryIndex(
+            fileStore.cacheDirectory().resolve(SUMMARY_INDEX_FILE_NAME));
+
+    index.read();
+
+    // Load files asynchronously so that bulk loads read many files in
+    // parallel, and so that a request for a file that is already being read
+    // waits for that read to finish rather than starting another one.
     LoadingCache<FileKey, FileSummary> cache =
         Caffeine.newBuilder()
                 .maximumSize(FILE_CACHE_MAX_SIZE)
-                .build(key -> readFile(key.file));
+                .executor(
+                    taskScheduler.boundedExecutor(
+                        Runtime.getRuntime().availableProcessors()))
+                .<FileKey, FileSummary>buildAsync(
+                    key -> readFileUsingIndex(key, index))
+                .synchronous();
+
+    // Start watching before listing the directory so that no change is missed
+    // in between.
+    Path directory = fileStore.resultsDirectory();
+    WatchService watcher = directory.getFileSystem().newWatchService();
+    try {
+      directory.register(
+          watcher,
+          ENTRY_CREATE,
+          ENTRY_MODIFY,
+          ENTRY_DELETE);
+
+      rescan(cache, index);
+    } catch (IOException | RuntimeException e) {
+      try {
+        watcher.close();
+      } catch (IOException e2) {
+        e.addSuppressed(e2);
+      }
+      throw e;
+    }
 
-    this.purgeTask =
-        taskScheduler.repeat(
-            /* task= */ () -> purgeUnreachableCacheKeys(cache),
-            /* initialDelay= */ Duration.ofHours(1),
-            /* interval= */ Duration.ofHours(1));
+    // The watch blocks for as long as this service is running, so give it a
+    // thread of its own rather than occupying a thread of the task scheduler.
+    var watch =
+        new Thread(() -> watch(watcher, cache, index), WATCH_THREAD_NAME);
+    watch.setDaemon(true);
+    watch.start();
 
+    this.watchService = watcher;
+    this.watchThread = watch;
+
+    this.rescanTask =
+        taskScheduler.repeat(
+            /* task= */
+            () -> {
+              try {
+                rescan(cache, index);
+              } catch (IOException e) {
+                logger.warn("Error rescanning results directory", e);
+              }
+            },
+            /* initialDelay= */ CATALOG_RESCAN_INTERVAL,
+            /* interval= */ CATALOG_RESCAN_INTERVAL);
+
+    this.summaryIndex = index;
     this.fileCache = cache;
     return cache;
   }
 
   /**
-   * Trims the internal cache, removing entries that are "dead" because they
-   * have {@linkplain FileKey#isUnreachable() unreachable} keys.
+   * Processes events from the watch service until the watch service is closed,
+   * updating the {@link #catalog} to reflect each change.
+   */
+  private void watch(WatchService watcher,
+                     LoadingCache<FileKey, FileSummary> cache,
+                     SummaryIndex index) {
+
+    Objects.requireNonNull(watcher);
+    Objects.requireNonNull(cache);
+    Objects.requireNonNull(index);
+
+    while (true) {
+      WatchKey watchKey;
+      try {
+        watchKey = watcher.take();
+      } catch (ClosedWatchServiceException | InterruptedException ignored) {
+        return;
+      }
+
+      var directory = (Path) watchKey.watchable();
+
+      for (WatchEvent<?> event : watchKey.pollEvents()) {
+        if (event.kind() == OVERFLOW) {
+          try {
+            rescan(cache, index);
+          } catch (IOException e) {
+            logger.warn("Error rescanning results directory", e);
+          }
+        } else {
+          var fileName = (Path) event.context();
+          refreshCatalogEntry(directory.resolve(fileName), cache);
+        }
+      }
+
+      if (!watchKey.reset()) {
+        // The results directory is no longer accessible.  Rely on the periodic
+        // rescan from now on.
+        logger.warn(
+            "Stopped watching results directory {}",
+            directory);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Lists the results directory and brings the {@link #catalog} fully up to
+   * date, then discards cache and index entries for files that no longer
+   * exist or have been modified.  This is a safety net in case the watch
+   * service misses some change.
    */
-  private static void purgeUnreachableCacheKeys(
-      LoadingCache<FileKey, FileSummary> cache) {
+  private void rescan(LoadingCache<FileKey, FileSummary> cache,
+                      SummaryIndex index)
+      throws IOException {
+
+    Objects.requireNonNull(cache);
+    Objects.requireNonNull(index);
 
-    ImmutableSet<FileKey> unreachableKeys =
-        cache.asMap()
-             .keySet()
-             .stream()
-             .filter(key -> key.isUnreachable())
-             .collect(toImmutableSet());
+    Set<Path> listedFiles = listResultsDirectory();
 
-    cache.invalidateAll(unreachableKeys);
+    for (Path file : Sets.union(listedFiles, Set.copyOf(catalog.keySet())))
+      refreshCatalogEntry(file, cache);
+
+    cache.asMap()
+         .keySet()
+         .removeIf(key -> !key.equals(catalog.get(key.file)));
+
+    index.retainEntries(catalog.values());
+  }
+
+  /**
+   * Returns the results files that are currently in the results directory.
+   */
+  private Set<Path> listResultsDirectory() throws IOException {
+    var listedFiles = new HashSet<Path>();
+
+    try (DirectoryStream<Path> files =
+             Files.newDirectoryStream(fileStore.resultsDirectory(),
+                                      RESULTS_FILE_GLOB)) {
+
+      for (Path file : files)
+        listedFiles.add(file);
+    }
+
+    return listedFiles;
+  }
+
+  /**
+   * Updates the {@link #catalog} entry for the specified file to reflect the
+   * current state of that file on disk, and invalidates the cached summary of
+   * the file if the file has changed.
+   */
+  private void refreshCatalogEntry(Path file,
+                                   LoadingCache<FileKey, FileSummary> cache) {
+
+    Objects.requireNonNull(file);
+    Objects.requireNonNull(cache);
+
+    Path directory = fileStore.resultsDirectory();
+    if (!directory.equals(file.getParent())
+        || !directory.getFileSystem()
+                     .getPathMatcher("glob:" + RESULTS_FILE_GLOB)
+                     .matches(file.getFileName()))
+      return;
+
+    // Serialize updates so that a slow update with stale file attributes can't
+    // overwrite a faster update with current file attributes.
+    synchronized (catalog) {
+      FileKey newKey;
+      try {
+        newKey = new FileKey(file);
+      } catch (NoSuchFileException ignored) {
+        newKey = null;
+      } catch (IOException e) {
+        logger.warn("Error reading attributes of results file {}", file, e);
+        newKey = null;
+      }
+
+      FileKey oldKey =
+          (newKey == null)
+              ? catalog.remove(file)
+              : catalog.put(file, newKey);
+
+      if (Objects.equals(oldKey, newKey))
+        return;
+
+      if (oldKey != null)
+        cache.invalidate(oldKey);
+
+      // The UUID of the file may have changed, so forget the old summary until
+      // the new summary of the file is read.
+      FileSummary oldSummary = indexedSummaries.remove(file);
+      if (oldSummary != null && oldSummary.uuid() != null)
+        filesByUuid.remove(oldSummary.uuid(), file);
+
+      if (oldSummary != null)
+        removeCompletedRun(oldSummary);
+
+      changedFiles.add(file);
+
+      if (newKey == null)
+        unindexedFiles.remove(file);
+      else
+        unindexedFiles.add(file);
+    }
+  }
+
+  /**
+   * Reads the summaries of files that were added to the {@link #catalog} or
+   * modified since the last call to this method, and adds those files to the
+   * {@link #indexedSummaries} and {@link #filesByUuid} indexes.
+   */
+  private void indexUnindexedFiles(LoadingCache<FileKey, FileSummary> cache) {
+    indexUnindexedFiles(cache, file -> true);
+  }
+
+  /**
+   * Like {@link #indexUnindexedFiles(LoadingCache)}, but only indexes the
+   * unindexed files that match the specified filter.
+   */
+  private void indexUnindexedFiles(LoadingCache<FileKey, FileSummary> cache,
+                                   Predicate<Path> filter) {
+    Objects.requireNonNull(cache);
+    Objects.requireNonNull(filter);
+
+    var keys = new HashMap<Path, FileKey>();
+    synchronized (catalog) {
+      for (Path file : unindexedFiles) {
+        if (!filter.test(file))
+          continue;
+
+        FileKey key = catalog.get(file);
+        if (key != null)
+          keys.put(file, key);
+      }
+    }
+
+    if (keys.isEmpty())
+      return;
+
+    // Don't hold the lock while reading files, which may be slow.  When the
+    // cache is cold, this reads all the files in parallel.
+    Map<FileKey, FileSummary> summaries = cache.getAll(keys.values());
+
+    synchronized (catalog) {
+      keys.forEach(
+          (Path file, FileKey key) -> {
+            // If the file changed again while we were reading it, leave it for
+            // the next call to index.
+            if (!key.equals(catalog.get(file)) || !unindexedFiles.remove(file))
+              return;
+
+            FileSummary summary = summaries.get(key);
+            if (summary == null)
+              return;
+
+            indexedSummaries.put(file, summary);
+            if (summary.uuid() != null)
+              filesByUuid.put(summary.uuid(), file);
+
+            addCompletedRun(summary);
+
+            changedFiles.add(file);
+          });
+    }
+  }
+
+  /**
+   * Adds the run summarized by the specified file summary to the {@link
+   * #completedRuns} index, if that summary is of the results.zip file of a
+   * run whose group and start time are known.
+   */
+  @GuardedBy("catalog")
+  private void addCompletedRun(FileSummary summary) {
+    RunGroup group = RunGroup.of(summary);
+    CompletedRun run = CompletedRun.of(summary);
+    if (group != null && run != null)
+      completedRuns.computeIfAbsent(group, g -> new TreeSet<>()).add(run);
+  }
+
+  /**
+   * Removes the run summarized by the specified file summary from the {@link
+   * #completedRuns} index.
+   */
+  @GuardedBy("catalog")
+  private void removeCompletedRun(FileSummary summary) {
+    RunGroup group = RunGroup.of(summary);
+    CompletedRun run = CompletedRun.of(summary);
+    if (group == null || run == null)
+      return;
+
+    TreeSet<CompletedRun> runs = completedRuns.get(group);
+    if (runs != null && runs.remove(run) && runs.isEmpty())
+      completedRuns.remove(group);
+  }
+
+  /**
+   * Brings the {@link #sortedResults} list up to date with the {@link
+   * #indexedSummaries} and returns that list.  When only a few files have
+   * changed, the entries for those files are re-inserted into the previous
+   * list, which is cheaper than re-sorting all the results.
+   */
+  @GuardedBy("catalog")
+  private ImmutableList<ResultsEntry> updateSortedResults() {
+    ImmutableList<ResultsEntry> previous = this.sortedResults;
+    if (previous != null && changedFiles.isEmpty())
+      return previous;
+
+    ImmutableList<ResultsEntry> updated =
+        (previous == null || changedFiles.size() > INCREMENTAL_UPDATE_MAX_FILES)
+            ? sortAllResults()
+            : reinsertChangedResults(previous);
+
+    changedFiles.clear();
+    this.sortedResults = updated;
+    return updated;
+  }
+
+  @GuardedBy("catalog")
+  private ImmutableList<ResultsEntry> sortAllResults() {
+    var entries = new ArrayList<ResultsEntry>();
+
+    for (String uuid : filesByUuid.keySet())
+      entries.add(newResultsEntry(filesByUuid.get(uuid)));
+
+    indexedSummaries.forEach(
+        (Path file, FileSummary summary) -> {
+          if (summary.uuid() == null)
+            entries.add(newResultsEntry(Set.of(file)));
+        });
+
+    return ImmutableList.sortedCopyOf(RESULTS_ENTRY_COMPARATOR, entries);
+  }
+
+  @GuardedBy("catalog")
+  private ImmutableList<ResultsEntry> reinsertChangedResults(
+      ImmutableList<ResultsEntry> previous) {
+
+    Objects.requireNonNull(previous);
+
+    // Find every entry that needs to be rebuilt, including the entries whose
+    // files were deleted or now have a different UUID, and the entries that
+    // now have additional files.
+    var changedUuids = new HashSet<String>();
+    var changedFilesWithoutUuid = new HashSet<Path>();
+
+    for (ResultsEntry entry : previous)
+      if (entry.view().uuid() != null
+          && !Collections.disjoint(entry.files(), changedFiles))
+        changedUuids.add(entry.view().uuid());
+
+    for (Path file : changedFiles) {
+      FileSummary summary = indexedSummaries.get(file);
+      if (summary == null)
+        continue;
+
+      if (summary.uuid() == null)
+        changedFilesWithoutUuid.add(file);
+      else
+        changedUuids.add(summary.uuid());
+    }
+
+    var entries = new ArrayList<ResultsEntry>(previous.size() + 1);
+
+    for (ResultsEntry entry : previous)
+      if (Collections.disjoint(entry.files(), changedFiles)
+          && !changedUuids.contains(entry.view().uuid()))
+        entries.add(entry);
+
+    var newEntries = new ArrayList<ResultsEntry>();
+
+    for (String uuid : changedUuids) {
+      Set<Path> files = filesByUuid.get(uuid);
+      if (!files.isEmpty())
+        newEntries.add(newResultsEntry(files));
+    }
+
+    for (Path file : changedFilesWithoutUuid)
+      newEntries.add(newResultsEntry(Set.of(file)));
+
+    for (ResultsEntry entry : newEntries) {
+      int index =
+          Collections.binarySearch(entries, entry, RESULTS_ENTRY_COMPARATOR);
+
+      entries.add((index < 0) ? -(index + 1) : index, entry);
+    }
+
+    return ImmutableList.copyOf(entries);
+  }
+
+  @GuardedBy("catalog")
+  private ResultsEntry newResultsEntry(Set<Path> files) {
+    Objects.requireNonNull(files);
+
+    ImmutableList<FileSummary> summaries =
+        files.stream()
+             .map(file -> indexedSummaries.get(file))
+             .collect(toImmutableList());
+
+    // The view measures the elapsed time of runs that are in progress using
+    // the current time.  Whichever summary the view is based on, it's one of
+    // these summaries.
+    boolean dependsOnClock =
+        summaries.stream()
+                 .anyMatch(
+                     summary ->
+                         summary.startTime() != null
+                             && summary.completionTime() == null);
+
+    return new ResultsEntry(
+        /* files= */ ImmutableSet.copyOf(files),
+        /* summaries= */ summaries,
+        /* view= */ newResultsView(summaries),
+        /* dependsOnClock= */ dependsOnClock);
+  }
+
+  /**
+   * An entry in the {@link #sortedResults} list.
+   *
+   * @param files The results files having the same UUID, or a single results
+   *        file with no UUID.
+   * @param summaries The summaries of the files.
+   * @param view The view of the results.  This view must be rebuilt whenever
+   *        it is displayed if {@code dependsOnClock} is {@code true}.
+   * @param dependsOnClock {@code true} if the view includes durations measured
+   *        up to the current time, as it does for runs that are in progress.
+   */
+  @Immutable
+  private record ResultsEntry(ImmutableSet<Path> files,
+                              ImmutableList<FileSummary> summaries,
+                              ResultsView view,
+                              boolean dependsOnClock) {
+
+    ResultsEntry {
+      Objects.requireNonNull(files);
+      Objects.requireNonNull(summaries);
+      Objects.requireNonNull(view);
+    }
+  }
+
+  /**
+   * The key of a group of runs that are comparable to each other in the
+   * {@link #completedRuns} index.
+   */
+  @Immutable
+  private record RunGroup(String environmentDescription,
+                          String repositoryUrl,
+                          String branchName) {
+
+    RunGroup {
+      Objects.requireNonNull(environmentDescription);
+      Objects.requireNonNull(repositoryUrl);
+      Objects.requireNonNull(branchName);
+    }
+
+    /**
+     * Returns the group of the specified file summary, or {@code null} if the
+     * summary is not of a results.zip file or if the environment, repository,
+     * or branch of the run is unknown.
+     */
+    static @Nullable RunGroup of(FileSummary summary) {
+      if (!summary.fileName().endsWith(".zip")
+          || summary.environmentDescription() == null
+          || summary.repositoryUrl() == null
+          || summary.branchName() == null)
+        return null;
+
+      return new RunGroup(
+          /* environmentDescription= */ summary.environmentDescription(),
+          /* repositoryUrl= */ summary.repositoryUrl(),
+          /* branchName= */ summary.branchName());
+    }
+  }
+
+  /**
+   * An entry in the {@link #completedRuns} index, ordered by start time and
+   * then by file name.
+   */
+  @Immutable
+  private record CompletedRun(Instant startTime, String zipFileName)
+      implements Comparable<CompletedRun> {
+
+    CompletedRun {
+      Objects.requireNonNull(startTime);
+      Objects.requireNonNull(zipFileName);
+    }
+
+    /**
+     * Returns the entry for the specified file summary, or {@code null} if the
+     * start time of the run is unknown.
+     */
+    static @Nullable CompletedRun of(FileSummary summary) {
+      if (summary.startTime() == null)
+        return null;
+
+      return new CompletedRun(
+          /* startTime= */ summary.startTime(),
+          /* zipFileName= */ summary.fileName());
+    }
+
+    @Override
+    public int compareTo(CompletedRun that) {
+      return COMPARATOR.compare(this, that);
+    }
+
+    private static final Comparator<CompletedRun> COMPARATOR =
+        comparing(CompletedRun::startTime)
+            .thenComparing(CompletedRun::zipFileName);
+  }
+
+  /**
+   * Returns the summary of the specified file from the persistent index if
+   * the index has an up-to-date summary of that file, or otherwise reads the
+   * file and records its summary in the index.
+   */
+  private @Nullable FileSummary readFileUsingIndex(FileKey key,
+                                                   SummaryIndex index) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(index);
+
+    FileSummary summary = index.get(key);
+    if (summary != null)
+      return summary;
+
+    summary = readFile(key.file);
+    if (summary != null)
+      index.put(key, summary);
+
+    return summary;
   }
 
   /**
@@ -697,40 +1447,392 @@ public final class HomeResultsReader implements PreDestroy {
 
     // When the file is modified, this cache key becomes unreachable.
     final FileTime lastModifiedTime;
+    final long size;
 
     FileKey(Path file) throws IOException {
       this.file = Objects.requireNonNull(file);
-      this.lastModifiedTime = Files.getLastModifiedTime(file);
+
+      BasicFileAttributes attributes =
+          Files.readAttributes(file, BasicFileAttributes.class);
+
+      this.lastModifiedTime = attributes.lastModifiedTime();
+      this.size = attributes.size();
     }
 
     @Override
     public boolean equals(@Nullable Object object) {
       return object instanceof FileKey that
           && this.file.equals(that.file)
-          && this.lastModifiedTime.equals(that.lastModifiedTime);
+          && this.lastModifiedTime.equals(that.lastModifiedTime)
+          && this.size == that.size;
     }
 
     @Override
     public int hashCode() {
-      return file.hashCode() ^ lastModifiedTime.hashCode();
+      return file.hashCode()
+          ^ lastModifiedTime.hashCode()
+          ^ Long.hashCode(size);
+    }
+  }
+
+  /**
+   * A persistent index of file summaries, stored as a log file in the
+   * {@linkplain FileStore#cacheDirectory() cache directory}.  The index allows
+   * this service to avoid re-reading results files that have not changed since
+   * the last time this application was running.
+   *
+   * <p>Each entry in the index is keyed by the name, size, and last modified
+   * time of a results file.  An entry is only used when all three of those
+   * properties match the file on disk.
+   *
+   * <p>The log file has one JSON value per line.  The first line is an {@link
+   * IndexHeader}, and each following line is an {@link IndexRecord} that
+   * replaces or removes the entry for one results file.  Modifications to the
+   * index are appended to the log asynchronously, shortly after they occur,
+   * and again when this service is {@linkplain #stop() stopped}.  Once the log
+   * holds many more records than the index has entries, the log is compacted
+   * by rewriting it with one record per entry.
+   */
+  private final class SummaryIndex {
+    private final Path indexFile;
+    private final ConcurrentHashMap<String, IndexEntry> entries =
+        new ConcurrentHashMap<>();
+
+    // The modifications that have not been written to the log yet, in order.
+    // A record may be queued slightly out of order relative to the change in
+    // entries that it describes when two threads modify the entry for the
+    // same file at once.  That is harmless, because an entry is only ever used
+    // when it matches the file on disk.
+    private final ConcurrentLinkedQueue<IndexRecord> pendingRecords =
+        new ConcurrentLinkedQueue<>();
+
+    // Set when a write is scheduled but has not started yet.
+    private final AtomicBoolean isWriteScheduled = new AtomicBoolean(false);
+
+    // The number of records in the log file, or -1 if the log file is
+    // missing, unreadable, or possibly incomplete, in which case it must be
+    // rewritten in full rather than appended to.
+    @GuardedBy("this")
+    private long logRecordCount = -1;
+
+    SummaryIndex(Path indexFile) {
+      this.indexFile = Objects.requireNonNull(indexFile);
+    }
+
+    /**
+     * Returns the indexed summary of the file, or {@code null} if the index
+     * has no summary for the file or if the file has been modified since it
+     * was indexed.
+     */
+    @Nullable FileSummary get(FileKey key) {
+      Objects.requireNonNull(key);
+      IndexEntry entry = entries.get(resultsFileName(key.file));
+      return (entry != null && entry.matches(key))
+          ? entry.summary()
+          : null;
+    }
+
+    /**
+     * Records the summary of the file in this index.
+     */
+    void put(FileKey key, FileSummary summary) {
+      Objects.requireNonNull(key);
+      Objects.requireNonNull(summary);
+
+      var entry =
+          new IndexEntry(
+              /* fileName= */ resultsFileName(key.file),
+              /* size= */ key.size,
+              /* lastModifiedTime= */ key.lastModifiedTime.toInstant(),
+              /* summary= */ summary);
+
+      entries.put(entry.fileName(), entry);
+      pendingRecords.add(new IndexRecord(entry.fileName(), entry));
+      onModified();
+    }
+
+    /**
+     * Removes entries for files that have been modified or deleted since they
+     * were indexed.
+     *
+     * @param currentKeys the keys of all the results files currently on disk
+     */
+    void retainEntries(Collection<FileKey> currentKeys) {
+      Objects.requireNonNull(currentKeys);
+
+      var currentEntries = new HashMap<String, FileKey>();
+      for (FileKey key : currentKeys)
+        currentEntries.put(resultsFileName(key.file), key);
+
+      boolean removedAny = false;
+      for (IndexEntry entry : entries.values()) {
+        FileKey key = currentEntries.get(entry.fileName());
+        if ((key == null || !entry.matches(key))
+            && entries.remove(entry.fileName(), entry)) {
+          pendingRecords.add(new IndexRecord(entry.fileName(), null));
+          removedAny = true;
+        }
+      }
+
+      if (removedAny)
+        onModified();
+    }
+
+    private void onModified() {
+      if (isWriteScheduled.compareAndSet(false, true))
+        taskScheduler.schedule(
+            /* task= */
+            () -> {
+              isWriteScheduled.set(false);
+              writeIfModified();
+            },
+            /* delay= */ SUMMARY_INDEX_WRITE_DELAY);
+    }
+
+    /**
+     * Reads the index from disk, replacing any entries in memory.  If the
+     * index file is missing, unreadable, or from an incompatible version of
+     * this application, then the index is left empty.  If only the end of the
+     * index file is unreadable, which happens when this application stops in
+     * the middle of appending to it, then the entries before that point are
+     * kept.
+     */
+    synchronized void read() {
+      entries.clear();
+      pendingRecords.clear();
+      logRecordCount = -1;
+
+      if (!Files.isRegularFile(indexFile))
+        return;
+
+      long recordCount = 0;
+      boolean isComplete = true;
+
+      try (BufferedReader reader = Files.newBufferedReader(indexFile, UTF_8)) {
+        String headerLine = reader.readLine();
+        if (headerLine == null)
+          return;
+
+        IndexHeader header =
+            objectMapper.readValue(headerLine, IndexHeader.class);
+
+        if (header.version() != SUMMARY_INDEX_VERSION) {
+          logger.info(
+              "Ignoring summary index file {} with version {}, "
+                  + "expected version {}",
+              indexFile,
+              header.version(),
+              SUMMARY_INDEX_VERSION);
+          return;
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+          IndexRecord record;
+          try {
+            record = objectMapper.readValue(line, IndexRecord.class);
+          } catch (JsonProcessingException e) {
+            logger.warn(
+                "Ignoring the rest of summary index file {} "
+                    + "after an unreadable record",
+                indexFile,
+                e);
+            isComplete = false;
+            break;
+          }
+
+          IndexEntry entry = record.entry();
+          if (entry == null)
+            entries.remove(record.fileName());
+          else
+            entries.put(record.fileName(), entry);
+
+          recordCount++;
+        }
+      } catch (IOException e) {
+        logger.warn("Ignoring unreadable summary index file {}", indexFile, e);
+        entries.clear();
+        return;
+      }
+
+      if (isComplete)
+        logRecordCount = recordCount;
+
+      logger.info(
+          "Read {} entries from summary index file {}",
+          entries.size(),
+          indexFile);
     }
 
     /**
-     * Returns {@code true} if the file has been modified since this cache key
-     * was created, meaning this cache key is effectively unreachable.
+     * Writes the modifications to the index since it was last written to disk,
+     * if there are any.
      */
-    boolean isUnreachable() {
+    synchronized void writeIfModified() {
+      if (pendingRecords.isEmpty())
+        return;
+
+      var records = new ArrayList<IndexRecord>();
+      IndexRecord record;
+      while ((record = pendingRecords.poll()) != null)
+        records.add(record);
+
+      long compactionThreshold =
+          Math.max(SUMMARY_INDEX_MIN_COMPACTION_RECORDS,
+                   SUMMARY_INDEX_MAX_RECORDS_PER_ENTRY * entries.size());
+
       try {
-        return !lastModifiedTime.equals(Files.getLastModifiedTime(file));
-      } catch (IOException ignored) {
-        //
-        // This would happen if the file is deleted, for example.
-        //
-        // Since an exception here implies that constructing a new key for this
-        // file would also throw an exception, this key is unreachable.
-        //
-        return true;
+        if (logRecordCount == -1
+            || logRecordCount + records.size() > compactionThreshold)
+          rewriteLog();
+        else
+          appendToLog(records);
+      } catch (IOException e) {
+        // We don't know how much of the log was written, so rewrite it in full
+        // the next time.
+        logRecordCount = -1;
+        pendingRecords.addAll(records);
+        logger.warn("Error writing summary index file {}", indexFile, e);
+      }
+    }
+
+    @GuardedBy("this")
+    private void appendToLog(List<IndexRecord> records) throws IOException {
+      try (BufferedWriter writer =
+               Files.newBufferedWriter(indexFile, UTF_8, APPEND)) {
+
+        for (IndexRecord record : records) {
+          writer.write(objectMapper.writeValueAsString(record));
+          writer.newLine();
+        }
       }
+
+      logRecordCount += records.size();
+    }
+
+    /**
+     * Replaces the log with one containing a single record for each entry.
+     */
+    @GuardedBy("this")
+    private void rewriteLog() throws IOException {
+      ImmutableList<IndexEntry> snapshot =
+          ImmutableList.sortedCopyOf(
+              comparing(entry -> entry.fileName()),
+              entries.values());
+
+      Path tempFile =
+          Files.createTempFile(
+              /* dir= */ indexFile.getParent(),
+              /* prefix= */ indexFile.getFileName().toString(),
+              /* suffix= */ ".tmp");
+
+      try {
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+          writer.write(
+              objectMapper.writeValueAsString(
+                  new IndexHeader(SUMMARY_INDEX_VERSION)));
+          writer.newLine();
+
+          for (IndexEntry entry : snapshot) {
+            writer.write(
+                objectMapper.writeValueAsString(
+                    new IndexRecord(entry.fileName(), entry)));
+            writer.newLine();
+          }
+        }
+
+        // Replace the old log in one step so that a crash in the middle of
+        // writing never leaves a partially-written log behind.
+        Files.move(tempFile, indexFile, REPLACE_EXISTING, ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tempFile);
+      }
+
+      logRecordCount = snapshot.size();
+    }
+  }
+
+  /**
+   * The first line of the persistent {@link SummaryIndex} file.
+   *
+   * @param version The version of this application's file summary format that
+   *        was used to write this file.  Index files written with a different
+   *        version are ignored.
+   */
+  @Immutable
+  private record IndexHeader(
+
+      @JsonProperty(value = "version", required = true)
+      int version) {
+
+    @JsonCreator
+    IndexHeader {}
+  }
+
+  /**
+   * A line of the persistent {@link SummaryIndex} file after the first, which
+   * replaces or removes the entry for one results file.
+   *
+   * @param fileName The name of the results file relative to the results
+   *        directory.
+   * @param entry The new entry for the results file, or {@code null} if the
+   *        entry for that file was removed.
+   */
+  @Immutable
+  private record IndexRecord(
+
+      @JsonProperty(value = "fileName", required = true)
+      String fileName,
+
+      @JsonProperty(value = "entry", required = false)
+      @Nullable IndexEntry entry) {
+
+    @JsonCreator
+    IndexRecord {
+      Objects.requireNonNull(fileName);
+    }
+  }
+
+  /**
+   * An entry in the persistent {@link SummaryIndex}.
+   *
+   * @param fileName The name of the results file relative to the results
+   *        directory.
+   * @param size The size in bytes of the results file when it was indexed.
+   * @param lastModifiedTime The last modified time of the results file when it
+   *        was indexed.
+   * @param summary The summary of the results file.
+   */
+  @Immutable
+  private record IndexEntry(
+
+      @JsonProperty(value = "fileName", required = true)
+      String fileName,
+
+      @JsonProperty(value = "size", required = true)
+      long size,
+
+      @JsonProperty(value = "lastModifiedTime", required = true)
+      Instant lastModifiedTime,
+
+      @JsonProperty(value = "summary", required = true)
+      FileSummary summary) {
+
+    @JsonCreator
+    IndexEntry {
+      Objects.requireNonNull(fileName);
+      Objects.requireNonNull(lastModifiedTime);
+      Objects.requireNonNull(summary);
+    }
+
+    /**
+     * Returns {@code true} if this entry is an up-to-date summary of the file
+     * having the specified key.
+     */
+    boolean matches(FileKey key) {
+      Objects.requireNonNull(key);
+      return size == key.size
+          && lastModifiedTime.equals(key.lastModifiedTime.toInstant());
     }
   }
 
@@ -739,28 +1841,67 @@ public final class HomeResultsReader implements PreDestroy {
    */
   @Immutable
   @VisibleForTesting
-  record FileSummary(String fileName,
-                     @Nullable String uuid,
-                     @Nullable String commitId,
-                     @Nullable String repositoryUrl,
-                     @Nullable String branchName,
-                     @Nullable String name,
-                     @Nullable String environmentDescription,
-                     @Nullable Instant startTime,
-                     @Nullable Instant completionTime,
-                     Instant lastUpdated,
-                     int completedFrameworks,
-                     int frameworksWithCleanSetup,
-                     int frameworksWithSetupProblems,
-                     int totalFrameworks,
-                     int successfulTests,
-                     int failedTests,
-                     boolean hasTestMetadata,
-                     // TODO: Avoid sharing the Failure data type with
-                     //       HomePageView?
-                     ImmutableList<Failure> failures,
-                     @Nullable String lastCompletedFramework) {
+  record FileSummary(
+
+      @JsonProperty(value = "fileName", required = true)
+      String fileName,
+
+      @JsonProperty(value = "uuid", required = false)
+      @Nullable String uuid,
+
+      @JsonProperty(value = "commitId", required = false)
+      @Nullable String commitId,
 
+      @JsonProperty(value = "repositoryUrl", required = false)
+      @Nullable String repositoryUrl,
+
+      @JsonProperty(value = "branchName", required = false)
+      @Nullable String branchName,
+
+      @JsonProperty(value = "name", required = false)
+      @Nullable String name,
+
+      @JsonProperty(value = "environmentDescription", required = false)
+      @Nullable String environmentDescription,
+
+      @JsonProperty(value = "startTime", required = false)
+      @Nullable Instant startTime,
+
+      @JsonProperty(value = "completionTime", required = false)
+      @Nullable Instant completionTime,
+
+      @JsonProperty(value = "lastUpdated", required = true)
+      Instant lastUpdated,
+
+      @JsonProperty(value = "completedFrameworks", required = true)
+      int completedFrameworks,
+
+      @JsonProperty(value = "frameworksWithCleanSetup", required = true)
+      int frameworksWithCleanSetup,
+
+      @JsonProperty(value = "frameworksWithSetupProblems", required = true)
+      int frameworksWithSetupProblems,
+
+      @JsonProperty(value = "totalFrameworks", required = true)
+      int totalFrameworks,
+
+      @JsonProperty(value = "successfulTests", required = true)
+      int successfulTests,
+
+      @JsonProperty(value = "failedTests", required = true)
+      int failedTests,
+
+      @JsonProperty(value = "hasTestMetadata", required = true)
+      boolean hasTestMetadata,
+
+      // TODO: Avoid sharing the Failure data type with HomePageView?
+      @JsonProperty(value = "failures", required = true)
+      ImmutableList<Failure> failures,
+
+      @JsonProperty(value = "lastCompletedFramework", required = false)
+      @Nullable String lastCompletedFramework) {
+
+    @JsonCreator
     FileSummary {
       Objects.requireNonNull(fileName);
       Objects.requireNonNull(lastUpdated);
@@ -816,6 +1957,63 @@ public final class HomeResultsReader implements PreDestroy {
     }
   }
 
+  /**
+   * The name of the persistent {@link SummaryIndex} file within the {@linkplain
+   * FileStore#cacheDirectory() cache directory}.
+   */
+  @VisibleForTesting
+  static final String SUMMARY_INDEX_FILE_NAME = "home-results-index.jsonl";
+
+  /**
+   * The version of the persistent {@link SummaryIndex} file format.  Increment
+   * this number whenever {@link FileSummary} changes in a way that would make
+   * previously-indexed summaries incorrect.
+   */
+  private static final int SUMMARY_INDEX_VERSION = 3;
+
+  /**
+   * How long to wait after the {@link SummaryIndex} is modified before writing
+   * it to disk, allowing many modifications to be written at once.
+   */
+  private static final Duration SUMMARY_INDEX_WRITE_DELAY =
+      Duration.ofSeconds(10);
+
+  /**
+   * The {@link SummaryIndex} file is compacted once it holds more than this
+   * many records for each entry in the index, and more than {@link
+   * #SUMMARY_INDEX_MIN_COMPACTION_RECORDS} records in total.
+   */
+  private static final long SUMMARY_INDEX_MAX_RECORDS_PER_ENTRY = 2;
+
+  /**
+   * The {@link SummaryIndex} file is never compacted while it holds this many
+   * records or fewer, so that small indexes aren't rewritten over and over.
+   */
+  private static final long SUMMARY_INDEX_MIN_COMPACTION_RECORDS = 1000;
+
+  /**
+   * The glob matching the names of results files in the results directory.
+   */
+  private static final String RESULTS_FILE_GLOB = "*.{json,zip}";
+
+  /**
+   * How often to list the results directory in full, in case watching the
+   * directory for changes missed something.
+   */
+  private static final Duration CATALOG_RESCAN_INTERVAL = Duration.ofHours(1);
+
+  /**
+   * The name of the thread that watches the results directory for changes.
+   */
+  private static final String WATCH_THREAD_NAME = "home-results-watcher";
+
+  /**
+   * How long {@link #stop()} waits for the thread that watches the results
+   * directory to finish.
+   */
+  private static final Duration WATCH_THREAD_STOP_TIMEOUT =
+      Duration.ofSeconds(5);
+
   private static final DateTimeFormatter COMPLETED_TIMESTAMP_FORMATTER =
       DateTimeFormatter.ofPattern("yyyyMMddHHmmss", Locale.ROOT);
 
@@ -854,6 +2052,16 @@ public final class HomeResultsReader implements PreDestroy {
           },
           reverseOrder());
 
+  private static final Comparator<ResultsEntry> RESULTS_ENTRY_COMPARATOR =
+      comparing(entry -> entry.view(), RESULTS_COMPARATOR);
+
+  /**
+   * The maximum number of changed files for which the {@link #sortedResults}
+   * list is updated by re-inserting the changed entries.  When more files have
+   * changed, it is cheaper to sort all the results again.
+   */
+  private static final int INCREMENTAL_UPDATE_MAX_FILES = 32;
+
   private static final Pattern GITHUB_REPOSITORY_PATTERN =
       Pattern.compile("^(https|git)://github\\.com(?<path>/.*)\\.git$");
 }
@@ -43,6 +43,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tfb.status.config.HttpServerConfig;
 import tfb.status.handler.routing.DisableCache;
+import tfb.status.handler.routing.NonBlocking;
 import tfb.status.handler.routing.Route;
 import tfb.status.handler.routing.Routes;
 import tfb.status.handler.routing.SetHeader;
@@ -185,11 +186,12 @@ public final class HttpServer implements PreDestroy {
    * <ul>
    * <li>Incoming HTTP requests are logged.
    * <li>Exceptions thrown from other handlers are logged.
-   * <li>Incoming HTTP requests are {@linkplain
-   *     HttpServerExchange#startBlocking() blocking}.  Other handlers are
-   *     permitted to perform blocking operations such as {@link
-   *     HttpServerExchange#getInputStream()} and {@link
-   *     HttpServerExchange#getOutputStream()}.
+   * <li>Incoming HTTP requests are dispatched to worker threads and made
+   *     {@linkplain HttpServerExchange#startBlocking() blocking} once they
+   *     have been routed, unless their handler is annotated with {@link
+   *     NonBlocking}.  Other handlers are permitted to perform blocking
+   *     operations such as {@link HttpServerExchange#getInputStream()} and
+   *     {@link HttpServerExchange#getOutputStream()}.
    * <li>{@linkplain #shutdown() Shutdown} is handled gracefully.
    * </ul>
    */
@@ -207,7 +209,6 @@ public final class HttpServer implements PreDestroy {
       handler = shutdownHandler = new GracefulShutdownHandler(handler);
       handler = newAccessLoggingHandler(handler, logger);
       handler = new ExceptionLoggingHandler(handler, logger);
-      handler = new BlockingHandler(handler);
 
       delegateHandler = handler;
     }
@@ -257,6 +258,9 @@ public final class HttpServer implements PreDestroy {
    * instantiating each handler when a request matching that handler's {@link
    * Route} annotation is received.  Modifies outgoing responses according to
    * the handlers' {@link DisableCache} and {@link SetHeader} annotations.
+   * Dispatches requests to worker threads before invoking the handlers, making
+   * the requests blocking unless the handlers are annotated with {@link
+   * NonBlocking}.
    *
    * @throws InvalidRouteException if any of the discovered {@link Route}
    *         annotations are invalid
@@ -306,6 +310,7 @@ public final class HttpServer implements PreDestroy {
       var routes = new ArrayList<Route>();
       var setHeaders = new ArrayList<SetHeader>();
       DisableCache disableCache = null;
+      NonBlocking nonBlocking = null;
 
       for (Annotation annotation : typedDescriptor.getQualifierAnnotations()) {
         if (annotation.annotationType() == Route.class)
@@ -318,6 +323,8 @@ public final class HttpServer implements PreDestroy {
           setHeaders.addAll(Arrays.asList(((SetHeaders) annotation).value()));
         else if (annotation.annotationType() == DisableCache.class)
           disableCache = (DisableCache) annotation;
+        else if (annotation.annotationType() == NonBlocking.class)
+          nonBlocking = (NonBlocking) annotation;
       }
 
       if (routes.isEmpty())
@@ -347,6 +354,11 @@ public final class HttpServer implements PreDestroy {
                 /* header= */ setHeader.name(),
                 /* value= */ setHeader.value());
 
+      handler =
+          (nonBlocking == null)
+              ? new BlockingHandler(handler)
+              : new DispatchHandler(handler);
+
       for (Route route : routes)
         pathMap
             .computeIfAbsent(route.path(), path -> new HashMap<>())
@@ -495,6 +507,26 @@ public final class HttpServer implements PreDestroy {
     }
   }
 
+  /**
+   * An HTTP handler that dispatches requests to worker threads without making
+   * them blocking.  Similar to {@link BlockingHandler}.
+   */
+  private static final class DispatchHandler implements HttpHandler {
+    private final HttpHandler handler;
+
+    DispatchHandler(HttpHandler handler) {
+      this.handler = Objects.requireNonNull(handler);
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+      if (exchange.isInIoThread())
+        exchange.dispatch(handler);
+      else
+        handler.handleRequest(exchange);
+    }
+  }
+
   /**
    * An HTTP handler that logs all incoming requests and that delegates to a
    * caller-supplied HTTP handler.
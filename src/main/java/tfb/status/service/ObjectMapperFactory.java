@@ -3,6 +3,7 @@ package tfb.status.service;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import jakarta.inject.Singleton;
 import org.glassfish.hk2.extras.provides.Provides;
 
@@ -19,6 +20,7 @@ public final class ObjectMapperFactory {
   public static ObjectMapper objectMapper() {
     return new ObjectMapper()
         .registerModule(new GuavaModule())
+        .registerModule(new JavaTimeModule())
         .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
   }
 }
@@ -0,0 +1,262 @@
+package tfb.status.service;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.MoreFiles;
+import com.google.errorprone.annotations.Immutable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Keeps gzip-compressed copies of the results.json files in the {@linkplain
+ * FileStore#resultsDirectory() results directory}, so that downloads of those
+ * files can be sent compressed without compressing them for every request,
+ * and computes the content hashes that identify versions of results files in
+ * downloads.
+ *
+ * <p>The compressed copy of a results.json file is stored next to that file,
+ * with the same name plus a ".gz" suffix, and its last modified time is set to
+ * the last modified time of the results.json file.  A compressed copy whose
+ * last modified time differs from that of its results.json file is stale, and
+ * it is rewritten the next time it is requested.  Results.zip files are not
+ * compressed again.
+ */
+@Singleton
+public final class PrecompressedResultsStore {
+  private final Cache<FileKey, String> contentHashCache =
+      Caffeine.newBuilder()
+              .maximumSize(CONTENT_HASH_CACHE_MAX_SIZE)
+              .build();
+
+  @Inject
+  public PrecompressedResultsStore() {}
+
+  /**
+   * Returns {@code true} if the specified results file has a compressed copy,
+   * meaning that it is a results.json file.
+   */
+  public boolean isCompressible(Path resultsFile) {
+    Objects.requireNonNull(resultsFile);
+    return MoreFiles.getFileExtension(resultsFile).equals("json");
+  }
+
+  /**
+   * Writes the compressed copy of the specified results file, replacing any
+   * existing copy in one atomic step, and remembers the content hash of the
+   * results file.  This does nothing if the results file is not {@linkplain
+   * #isCompressible(Path) compressible}.
+   *
+   * <p>Downloads call this lazily through {@link #compressedFile(Path)}.
+   * Writers of results files should {@linkplain #invalidate(Path) invalidate}
+   * the compressed copy instead, so that a run that is updated many times is
+   * only compressed when it is downloaded.
+   *
+   * @param resultsFile the results file
+   * @throws IOException if an I/O error occurs while reading the results file
+   *         or writing the compressed copy
+   */
+  public void compress(Path resultsFile) throws IOException {
+    Objects.requireNonNull(resultsFile);
+
+    if (!isCompressible(resultsFile))
+      return;
+
+    // Read the attributes before the contents, so that the copy will be stale
+    // if the file is modified while we're reading it.
+    BasicFileAttributes attributes =
+        Files.readAttributes(resultsFile, BasicFileAttributes.class);
+
+    Path gzipFile = gzipFile(resultsFile);
+
+    Path tempFile =
+        Files.createTempFile(
+            /* dir= */ gzipFile.getParent(),
+            /* prefix= */ gzipFile.getFileName().toString(),
+            /* suffix= */ ".tmp");
+
+    HashCode hashCode;
+    try {
+      try (InputStream inputStream = Files.newInputStream(resultsFile);
+           var hashingInputStream =
+               new HashingInputStream(Hashing.sha256(), inputStream);
+           OutputStream outputStream = Files.newOutputStream(tempFile);
+           var gzipOutputStream = new GZIPOutputStream(outputStream)) {
+
+        hashingInputStream.transferTo(gzipOutputStream);
+        hashCode = hashingInputStream.hash();
+      }
+
+      Files.setLastModifiedTime(tempFile, attributes.lastModifiedTime());
+
+      // Replace the old copy in one step so that downloads never see a
+      // partially-written copy.
+      Files.move(tempFile, gzipFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+
+    contentHashCache.put(
+        new FileKey(
+            /* file= */ resultsFile,
+            /* lastModifiedTime= */ attributes.lastModifiedTime(),
+            /* size= */ attributes.size()),
+        encodeHash(hashCode));
+  }
+
+  /**
+   * Deletes the compressed copy of the specified results file, if it has one.
+   * This is meant to be called whenever a results.json file is written.  The
+   * copy is written again the next time it is {@linkplain
+   * #compressedFile(Path) requested}.
+   *
+   * @param resultsFile the results file
+   * @throws IOException if an I/O error occurs while deleting the compressed
+   *         copy
+   */
+  public void invalidate(Path resultsFile) throws IOException {
+    Objects.requireNonNull(resultsFile);
+
+    if (!isCompressible(resultsFile))
+      return;
+
+    // Downloads would notice that the copy is stale on their own, unless the
+    // results file was modified within the resolution of its last modified
+    // time.
+    Files.deleteIfExists(gzipFile(resultsFile));
+  }
+
+  /**
+   * Returns the up-to-date compressed copy of the specified results file,
+   * first {@linkplain #compress(Path) compressing} the results file if
+   * necessary.
+   *
+   * @param resultsFile the results file
+   * @return the compressed copy, or {@code null} if the results file does not
+   *         exist or is not {@linkplain #isCompressible(Path) compressible}
+   * @throws IOException if an I/O error occurs while reading the results file
+   *         or writing the compressed copy
+   */
+  public @Nullable Path compressedFile(Path resultsFile) throws IOException {
+    Objects.requireNonNull(resultsFile);
+
+    if (!isCompressible(resultsFile))
+      return null;
+
+    FileTime lastModifiedTime;
+    try {
+      lastModifiedTime = Files.getLastModifiedTime(resultsFile);
+    } catch (NoSuchFileException ignored) {
+      return null;
+    }
+
+    Path gzipFile = gzipFile(resultsFile);
+
+    try {
+      if (Files.getLastModifiedTime(gzipFile).equals(lastModifiedTime))
+        return gzipFile;
+    } catch (NoSuchFileException ignored) {
+      // Compress the file below.
+    }
+
+    try {
+      compress(resultsFile);
+    } catch (NoSuchFileException ignored) {
+      return null;
+    }
+
+    return gzipFile;
+  }
+
+  /**
+   * Returns the SHA-256 hash of the contents of the specified results file,
+   * encoded in unpadded base64url, which is suitable for use in a strong entity
+   * tag.  Hashes are cached by the size and last modified time of the file.
+   *
+   * @param resultsFile the results file
+   * @return the content hash, or {@code null} if the results file does not
+   *         exist
+   * @throws IOException if an I/O error occurs while reading the results file
+   */
+  public @Nullable String contentHash(Path resultsFile) throws IOException {
+    Objects.requireNonNull(resultsFile);
+
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(resultsFile, BasicFileAttributes.class);
+    } catch (NoSuchFileException ignored) {
+      return null;
+    }
+
+    var key =
+        new FileKey(
+            /* file= */ resultsFile,
+            /* lastModifiedTime= */ attributes.lastModifiedTime(),
+            /* size= */ attributes.size());
+
+    String contentHash = contentHashCache.getIfPresent(key);
+    if (contentHash != null)
+      return contentHash;
+
+    try {
+      contentHash =
+          encodeHash(
+              MoreFiles.asByteSource(resultsFile).hash(Hashing.sha256()));
+    } catch (NoSuchFileException ignored) {
+      return null;
+    }
+
+    contentHashCache.put(key, contentHash);
+    return contentHash;
+  }
+
+  /**
+   * Returns the path of the compressed copy of the specified results file.
+   */
+  private static Path gzipFile(Path resultsFile) {
+    return resultsFile.resolveSibling(
+        resultsFile.getFileName() + GZIP_FILE_SUFFIX);
+  }
+
+  private static String encodeHash(HashCode hashCode) {
+    return BaseEncoding.base64Url().omitPadding().encode(hashCode.asBytes());
+  }
+
+  /**
+   * A cache key pointing to a results file on disk.  When the file is
+   * modified, this cache key becomes unreachable.
+   */
+  @Immutable
+  private record FileKey(Path file, FileTime lastModifiedTime, long size) {
+    FileKey {
+      Objects.requireNonNull(file);
+      Objects.requireNonNull(lastModifiedTime);
+    }
+  }
+
+  /**
+   * The suffix appended to the name of a results file to produce the name of
+   * its compressed copy.  Compressed copies must not match the names of
+   * results files.
+   */
+  private static final String GZIP_FILE_SUFFIX = ".gz";
+
+  private static final int CONTENT_HASH_CACHE_MAX_SIZE = 1024;
+}
@@ -0,0 +1,360 @@
+package tfb.status.service;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.Striped;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tfb.status.util.ZipFiles;
+import tfb.status.view.HomePageView.ResultsView;
+import tfb.status.view.Results;
+import tfb.status.view.ResultsSidecar;
+import tfb.status.view.UpdatedResultsEvent;
+
+/**
+ * Adds uploaded results files to the results directory, and merges patches
+ * into results files that were uploaded earlier.
+ */
+@Singleton
+public final class ResultsIngester {
+  private final FileStore fileStore;
+  private final ObjectMapper objectMapper;
+  private final UpdatedResultsCoalescer updatedResultsCoalescer;
+  private final HomeResultsReader homeResultsReader;
+  private final ResultsSidecarStore sidecarStore;
+  private final TimelineStore timelineStore;
+  private final PrecompressedResultsStore precompressedStore;
+  private final Clock clock;
+  private final Striped<Lock> fileLocks = Striped.lock(64);
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @Inject
+  public ResultsIngester(FileStore fileStore,
+                         ObjectMapper objectMapper,
+                         UpdatedResultsCoalescer updatedResultsCoalescer,
+                         HomeResultsReader homeResultsReader,
+                         ResultsSidecarStore sidecarStore,
+                         TimelineStore timelineStore,
+                         PrecompressedResultsStore precompressedStore,
+                         Clock clock) {
+
+    this.fileStore = Objects.requireNonNull(fileStore);
+    this.objectMapper = Objects.requireNonNull(objectMapper);
+    this.updatedResultsCoalescer =
+        Objects.requireNonNull(updatedResultsCoalescer);
+    this.homeResultsReader = Objects.requireNonNull(homeResultsReader);
+    this.sidecarStore = Objects.requireNonNull(sidecarStore);
+    this.timelineStore = Objects.requireNonNull(timelineStore);
+    this.precompressedStore = Objects.requireNonNull(precompressedStore);
+    this.clock = Objects.requireNonNull(clock);
+  }
+
+  /**
+   * Validates an uploaded results file, and if it is valid, moves it into the
+   * results directory and announces the updated results.
+   *
+   * <p>If the uploaded results have the same uuid as existing results, the
+   * uploaded file replaces the existing file of the same kind.
+   *
+   * @param uploadedFile the uploaded file, which should be in the same file
+   *        store as the {@linkplain FileStore#resultsDirectory() results
+   *        directory} so that it can be moved by renaming it
+   * @param isJson {@code true} if the uploaded file is a results.json file,
+   *        {@code false} if it is a zip file containing results.json
+   * @return the uploaded results, or {@code null} if the uploaded file is not
+   *         valid, in which case the file is left where it is
+   * @throws IOException if an I/O error occurs while moving the file
+   */
+  public @Nullable Results ingest(Path uploadedFile, boolean isJson)
+      throws IOException {
+
+    Objects.requireNonNull(uploadedFile);
+
+    Results results;
+    if (isJson) {
+      try (InputStream inputStream = Files.newInputStream(uploadedFile)) {
+        results = objectMapper.readValue(inputStream, Results.class);
+      } catch (IOException e) {
+        logger.warn("Error validating json file {}", uploadedFile, e);
+        return null;
+      }
+    } else {
+      // This reads the central directory and the results.json entry, not the
+      // whole zip file.
+      try {
+        results =
+            ZipFiles.readZipEntry(
+                uploadedFile,
+                "results.json",
+                inputStream ->
+                    objectMapper.readValue(inputStream, Results.class));
+      } catch (IOException e) {
+        logger.warn("Error validating zip file {}", uploadedFile, e);
+        return null;
+      }
+      if (results == null)
+        return null;
+    }
+
+    moveIntoResultsDirectory(uploadedFile, results, isJson);
+    return results;
+  }
+
+  /**
+   * Moves an uploaded results.json file that has already been parsed into the
+   * results directory and announces the updated results.  Unlike {@link
+   * #ingest(Path, boolean)}, this method does not read the file.
+   *
+   * <p>If the uploaded results have the same uuid as existing results, the
+   * uploaded file replaces the existing results.json file.
+   *
+   * @param uploadedFile the uploaded results.json file, which should be in the
+   *        same file store as the {@linkplain FileStore#resultsDirectory()
+   *        results directory} so that it can be moved by renaming it
+   * @param results the results that were parsed from the uploaded file
+   * @throws IOException if an I/O error occurs while moving the file
+   */
+  public void ingestJson(Path uploadedFile, Results results)
+      throws IOException {
+
+    Objects.requireNonNull(uploadedFile);
+    Objects.requireNonNull(results);
+
+    moveIntoResultsDirectory(uploadedFile, results, /* isJson= */ true);
+  }
+
+  private void moveIntoResultsDirectory(Path uploadedFile,
+                                        Results results,
+                                        boolean isJson)
+      throws IOException {
+
+    String fileExtension = isJson ? "json" : "zip";
+    String uuid = results.uuid();
+
+    Path permanentFile = destinationForIncomingFile(uuid, fileExtension);
+
+    MoreFiles.createParentDirectories(permanentFile);
+
+    Lock lock = fileLocks.get(permanentFile);
+    lock.lock();
+    try {
+      moveReplacingExisting(uploadedFile, permanentFile);
+
+      // We've already parsed the results, so save a summary of them for the
+      // readers of this file.  The readers can parse the file themselves if
+      // this fails.
+      ResultsSidecar sidecar = writeSidecar(permanentFile, results);
+
+      // The timeline picks up the file on its own eventually if this fails.
+      if (sidecar != null && !isJson) {
+        try {
+          timelineStore.add(permanentFile, sidecar);
+        } catch (IOException e) {
+          logger.warn("Error adding results file {} to the timeline",
+                      permanentFile, e);
+        }
+      }
+
+      invalidateCompressedCopy(permanentFile);
+    } finally {
+      lock.unlock();
+    }
+
+    homeResultsReader.refresh(permanentFile);
+
+    if (uuid != null)
+      updatedResultsCoalescer.publish(new UpdatedResultsEvent(uuid));
+  }
+
+  /**
+   * Merges a patch into a results.json file in the results directory and
+   * announces the updated results.  See {@link ResultsPatcher} for how the
+   * patch is merged.
+   *
+   * <p>The patch is also merged into the summary of the file that was saved
+   * when the file was uploaded, so neither the summary nor the readers of the
+   * file need to parse the whole file again.  The file itself is rewritten in
+   * a single streaming pass and replaced in one atomic step.
+   *
+   * @param resultsFile the results.json file in the results directory
+   * @param patch the patch
+   * @return a summary of the patched results, or {@code null} if the file is
+   *         not a valid results file or if the patched results would not be
+   *         valid, in which case the file is left unchanged
+   * @throws IOException if an I/O error occurs while reading or writing the
+   *         file
+   */
+  public @Nullable Results patch(Path resultsFile, ObjectNode patch)
+      throws IOException {
+
+    Objects.requireNonNull(resultsFile);
+    Objects.requireNonNull(patch);
+
+    Results summary;
+
+    Lock lock = fileLocks.get(resultsFile);
+    lock.lock();
+    try {
+      ResultsSidecar oldSidecar = sidecarStore.readOrWrite(resultsFile);
+      if (oldSidecar == null)
+        return null;
+
+      // Validate the patch by applying it to the summary first, which is much
+      // smaller than the file.
+      try {
+        var patchedSummary = new ByteArrayOutputStream();
+
+        ResultsPatcher.merge(
+            /* objectMapper= */ objectMapper,
+            /* inputStream= */
+            new ByteArrayInputStream(
+                objectMapper.writeValueAsBytes(oldSidecar.results())),
+            /* patch= */ patch,
+            /* outputStream= */ patchedSummary);
+
+        summary =
+            objectMapper.readValue(patchedSummary.toByteArray(),
+                                   Results.class);
+      } catch (IOException e) {
+        logger.warn("Error validating patch for results file {}",
+                    resultsFile, e);
+        return null;
+      }
+
+      Path tempFile =
+          Files.createTempFile(
+              /* dir= */ resultsFile.getParent(),
+              /* prefix= */ PATCH_TEMP_FILE_PREFIX,
+              /* suffix= */ PATCH_TEMP_FILE_SUFFIX);
+
+      try {
+        try (InputStream inputStream = Files.newInputStream(resultsFile);
+             OutputStream outputStream = Files.newOutputStream(tempFile)) {
+          ResultsPatcher.merge(objectMapper, inputStream, patch, outputStream);
+        }
+
+        moveReplacingExisting(tempFile, resultsFile);
+      } finally {
+        Files.deleteIfExists(tempFile);
+      }
+
+      writeSidecar(resultsFile, summary);
+      invalidateCompressedCopy(resultsFile);
+    } finally {
+      lock.unlock();
+    }
+
+    homeResultsReader.refresh(resultsFile);
+
+    if (summary.uuid() != null)
+      updatedResultsCoalescer.publish(new UpdatedResultsEvent(summary.uuid()));
+
+    return summary;
+  }
+
+  private @Nullable ResultsSidecar writeSidecar(Path resultsFile,
+                                                Results results) {
+    try {
+      return sidecarStore.write(resultsFile, results);
+    } catch (IOException e) {
+      logger.warn("Error writing sidecar for results file {}",
+                  resultsFile, e);
+      return null;
+    }
+  }
+
+  private void invalidateCompressedCopy(Path resultsFile) {
+    // Downloads notice that the copy is stale on their own if this fails.
+    try {
+      precompressedStore.invalidate(resultsFile);
+    } catch (IOException e) {
+      logger.warn("Error deleting compressed copy of results file {}",
+                  resultsFile, e);
+    }
+  }
+
+  private static void moveReplacingExisting(Path source, Path target)
+      throws IOException {
+
+    try {
+      Files.move(
+          /* source= */ source,
+          /* target= */ target,
+          /* options...= */ ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(
+          /* source= */ source,
+          /* target= */ target,
+          /* options...= */ REPLACE_EXISTING);
+    }
+  }
+
+  private Path newResultsFile(String fileExtension) {
+    Objects.requireNonNull(fileExtension);
+
+    DateTimeFormatter formatter =
+        DateTimeFormatter.ofPattern(
+            "yyyy-MM-dd-HH-mm-ss-SSS", Locale.ROOT);
+
+    LocalDateTime now = LocalDateTime.now(clock);
+    String timestamp = formatter.format(now);
+
+    return fileStore.resultsDirectory().resolve(
+        "results." + timestamp + "." + fileExtension);
+  }
+
+  private Path destinationForIncomingFile(@Nullable String uuid,
+                                          String fileExtension)
+      throws IOException {
+
+    Objects.requireNonNull(fileExtension);
+
+    if (uuid == null)
+      return newResultsFile(fileExtension);
+
+    ResultsView oldResults = homeResultsReader.resultsByUuid(uuid);
+    if (oldResults == null)
+      return newResultsFile(fileExtension);
+
+    if (oldResults.jsonFileName() != null
+        && oldResults.jsonFileName().endsWith("." + fileExtension))
+      return fileStore.resultsDirectory()
+                      .resolve(oldResults.jsonFileName());
+
+    if (oldResults.zipFileName() != null
+        && oldResults.zipFileName().endsWith("." + fileExtension))
+      return fileStore.resultsDirectory()
+                      .resolve(oldResults.zipFileName());
+
+    return newResultsFile(fileExtension);
+  }
+
+  /**
+   * The prefix and suffix of the names of temporary files for patched results
+   * in the results directory.  The suffix must not match the names of results
+   * files.
+   */
+  private static final String PATCH_TEMP_FILE_PREFIX = "TFB_Status_Patch";
+  private static final String PATCH_TEMP_FILE_SUFFIX = ".tmp";
+}
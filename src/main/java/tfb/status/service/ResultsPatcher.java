@@ -0,0 +1,254 @@
+package tfb.status.service;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import tfb.status.view.Results;
+
+/**
+ * Merges patches into results.json files.
+ *
+ * <p>A patch is a JSON object in the same shape as a results.json file that
+ * contains only what changed since the file was last uploaded, which during a
+ * run is usually the frameworks that have just finished their tests.  The
+ * fields of the patch are merged into the file as follows:
+ *
+ * <ul>
+ * <li>The entries of {@code completed} are added to the {@code completed}
+ *     object of the file, replacing entries for the same frameworks.
+ * <li>The framework names in each array of {@code succeeded} and {@code
+ *     failed} are added to the array for the same test type in the file,
+ *     skipping names that are already there.
+ * <li>The entries of each object in {@code rawData} are added to the object
+ *     for the same key in the file, replacing entries for the same frameworks.
+ * <li>Every other field of the patch replaces the field of the same name in
+ *     the file.
+ * </ul>
+ *
+ * <p>Fields of the file that are not mentioned by the patch are copied as they
+ * are, including fields that {@link Results} does not define.  The file is
+ * copied in a single pass without holding it in memory.
+ */
+final class ResultsPatcher {
+  private ResultsPatcher() {
+    throw new AssertionError("This class cannot be instantiated");
+  }
+
+  /**
+   * Copies a results.json file from the specified input stream to the
+   * specified output stream, merging the specified patch into it.
+   *
+   * @param objectMapper the object mapper used to read and write JSON
+   * @param inputStream the contents of the results.json file
+   * @param patch the patch
+   * @param outputStream the stream to which the patched file is written
+   * @throws IOException if the file cannot be read or is malformed, or if an
+   *         I/O error occurs while writing the patched file
+   */
+  static void merge(ObjectMapper objectMapper,
+                    InputStream inputStream,
+                    ObjectNode patch,
+                    OutputStream outputStream)
+      throws IOException {
+
+    Objects.requireNonNull(objectMapper);
+    Objects.requireNonNull(inputStream);
+    Objects.requireNonNull(patch);
+    Objects.requireNonNull(outputStream);
+
+    try (JsonParser parser = objectMapper.createParser(inputStream);
+         JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+
+      expectToken(parser, parser.nextToken(), START_OBJECT);
+      mergeObject(parser, generator, patch, ResultsPatcher::mergeResultsField);
+    }
+  }
+
+  private static void mergeResultsField(JsonParser parser,
+                                        JsonGenerator generator,
+                                        String fieldName,
+                                        JsonNode patchValue)
+      throws IOException {
+
+    switch (fieldName) {
+      case "completed" ->
+          mergeObjectOrReplace(
+              parser,
+              generator,
+              patchValue,
+              (p, g, name, value) -> replace(p, g, value));
+
+      case "succeeded", "failed" ->
+          mergeObjectOrReplace(
+              parser,
+              generator,
+              patchValue,
+              (p, g, name, value) -> addToArrayOrReplace(p, g, value));
+
+      case "rawData" ->
+          mergeObjectOrReplace(
+              parser,
+              generator,
+              patchValue,
+              (p, g, name, value) ->
+                  mergeObjectOrReplace(
+                      p,
+                      g,
+                      value,
+                      (p2, g2, name2, value2) -> replace(p2, g2, value2)));
+
+      default -> replace(parser, generator, patchValue);
+    }
+  }
+
+  /**
+   * Merges the patch into the object at the current token of the parser if
+   * both are objects, otherwise replaces that value with the patch.
+   */
+  private static void mergeObjectOrReplace(JsonParser parser,
+                                           JsonGenerator generator,
+                                           JsonNode patchValue,
+                                           FieldMerger fieldMerger)
+      throws IOException {
+
+    if (parser.currentToken() == START_OBJECT
+        && patchValue instanceof ObjectNode patchObject)
+      mergeObject(parser, generator, patchObject, fieldMerger);
+    else
+      replace(parser, generator, patchValue);
+  }
+
+  /**
+   * Copies the object at the current token of the parser, using the field
+   * merger for the fields that also appear in the patch, and appending the
+   * fields that appear only in the patch.
+   */
+  private static void mergeObject(JsonParser parser,
+                                  JsonGenerator generator,
+                                  ObjectNode patch,
+                                  FieldMerger fieldMerger)
+      throws IOException {
+
+    Set<String> mergedFields = new HashSet<>();
+
+    generator.writeStartObject();
+
+    JsonToken token;
+    while ((token = parser.nextToken()) == FIELD_NAME) {
+      String fieldName = parser.currentName();
+      parser.nextToken();
+      generator.writeFieldName(fieldName);
+
+      JsonNode patchValue = patch.get(fieldName);
+      if (patchValue == null)
+        generator.copyCurrentStructure(parser);
+      else {
+        mergedFields.add(fieldName);
+        fieldMerger.merge(parser, generator, fieldName, patchValue);
+      }
+    }
+
+    expectToken(parser, token, JsonToken.END_OBJECT);
+
+    for (Iterator<Map.Entry<String, JsonNode>> iterator = patch.fields();
+         iterator.hasNext();) {
+
+      Map.Entry<String, JsonNode> field = iterator.next();
+      if (!mergedFields.contains(field.getKey())) {
+        generator.writeFieldName(field.getKey());
+        generator.writeTree(field.getValue());
+      }
+    }
+
+    generator.writeEndObject();
+  }
+
+  /**
+   * Copies the array at the current token of the parser, appending the
+   * elements of the patch that are not in that array, if both are arrays.
+   * Otherwise replaces that value with the patch.
+   */
+  private static void addToArrayOrReplace(JsonParser parser,
+                                          JsonGenerator generator,
+                                          JsonNode patchValue)
+      throws IOException {
+
+    if (parser.currentToken() != START_ARRAY || !patchValue.isArray()) {
+      replace(parser, generator, patchValue);
+      return;
+    }
+
+    Set<JsonNode> elements = new HashSet<>();
+
+    generator.writeStartArray();
+
+    while (parser.nextToken() != END_ARRAY) {
+      JsonNode element = parser.readValueAsTree();
+      elements.add(element);
+      generator.writeTree(element);
+    }
+
+    for (JsonNode element : patchValue)
+      if (elements.add(element))
+        generator.writeTree(element);
+
+    generator.writeEndArray();
+  }
+
+  /**
+   * Skips the value at the current token of the parser and writes the patch in
+   * its place.
+   */
+  private static void replace(JsonParser parser,
+                              JsonGenerator generator,
+                              JsonNode patchValue)
+      throws IOException {
+
+    parser.skipChildren();
+    generator.writeTree(patchValue);
+  }
+
+  private static void expectToken(JsonParser parser,
+                                  @Nullable JsonToken actual,
+                                  JsonToken expected)
+      throws MismatchedInputException {
+
+    if (actual != expected)
+      throw MismatchedInputException.from(
+          parser,
+          Results.class,
+          "Expected " + expected + " but found " + actual);
+  }
+
+  /**
+   * Merges the value of a field of a patch into the value of the same field in
+   * the file, where the parser is positioned at the start of the value in the
+   * file and the field name has already been written to the generator.
+   */
+  @FunctionalInterface
+  private interface FieldMerger {
+    void merge(JsonParser parser,
+               JsonGenerator generator,
+               String fieldName,
+               JsonNode patchValue)
+        throws IOException;
+  }
+}
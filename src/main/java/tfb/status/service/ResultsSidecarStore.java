@@ -0,0 +1,289 @@
+package tfb.status.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Stopwatch;
+import com.google.common.io.MoreFiles;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tfb.status.util.ZipFiles;
+import tfb.status.util.ZipFiles.ZipSession;
+import tfb.status.view.Results;
+import tfb.status.view.ResultsSidecar;
+
+/**
+ * Reads and writes {@link ResultsSidecar} files, which are compact summaries of
+ * results.json and results.zip files stored next to those files in the
+ * {@linkplain FileStore#resultsDirectory() results directory}.
+ *
+ * <p>Sidecars are written when results are uploaded, and they are {@linkplain
+ * #backfill() backfilled} for results that were uploaded before sidecars
+ * existed.  Readers of results files should use the sidecar when there is one,
+ * and otherwise fall back to parsing the results file itself.
+ */
+@Singleton
+public final class ResultsSidecarStore {
+  private final FileStore fileStore;
+  private final ObjectMapper objectMapper;
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  @Inject
+  public ResultsSidecarStore(FileStore fileStore, ObjectMapper objectMapper) {
+    this.fileStore = Objects.requireNonNull(fileStore);
+    this.objectMapper = Objects.requireNonNull(objectMapper);
+  }
+
+  /**
+   * Returns the sidecar of the specified results file, or {@code null} if the
+   * results file has no sidecar, if the sidecar is unreadable, or if the
+   * results file has been modified since the sidecar was written.
+   *
+   * @param resultsFile the results.json or results.zip file
+   * @return the up-to-date sidecar of the results file, or {@code null} if
+   *         there is none
+   */
+  public @Nullable ResultsSidecar read(Path resultsFile) {
+    Objects.requireNonNull(resultsFile);
+
+    Path sidecarFile = sidecarFile(resultsFile);
+
+    ResultsSidecar sidecar;
+    try (InputStream inputStream = Files.newInputStream(sidecarFile)) {
+      sidecar = objectMapper.readValue(inputStream, ResultsSidecar.class);
+    } catch (NoSuchFileException ignored) {
+      return null;
+    } catch (IOException e) {
+      logger.warn("Ignoring unreadable sidecar file {}", sidecarFile, e);
+      return null;
+    }
+
+    if (sidecar.version() != ResultsSidecar.CURRENT_VERSION)
+      return null;
+
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(resultsFile, BasicFileAttributes.class);
+    } catch (IOException ignored) {
+      return null;
+    }
+
+    if (attributes.size() != sidecar.resultsFileSize()
+        || !attributes.lastModifiedTime().toInstant().equals(
+               sidecar.resultsFileLastModifiedTime()))
+      return null;
+
+    return sidecar;
+  }
+
+  /**
+   * Writes the sidecar of the specified results file, replacing any existing
+   * sidecar in one atomic step.
+   *
+   * @param resultsFile the results.json or results.zip file
+   * @param results the results contained in that file, which have already been
+   *        parsed by the caller
+   * @return the sidecar that was written
+   * @throws IOException if an I/O error occurs while reading the results file
+   *         or while writing the sidecar
+   */
+  public ResultsSidecar write(Path resultsFile, Results results)
+      throws IOException {
+
+    Objects.requireNonNull(resultsFile);
+    Objects.requireNonNull(results);
+
+    BasicFileAttributes attributes =
+        Files.readAttributes(resultsFile, BasicFileAttributes.class);
+
+    return write(resultsFile, attributes, results);
+  }
+
+  private ResultsSidecar write(Path resultsFile,
+                               BasicFileAttributes attributes,
+                               Results results)
+      throws IOException {
+
+    String backupCommitId = null;
+    boolean hasTestMetadataFile = false;
+
+    // We used to capture the git commit id and the test metadata in their own
+    // files before we added them to results.json.
+    if (MoreFiles.getFileExtension(resultsFile).equals("zip")
+        && (results.git() == null || results.testMetadata() == null)) {
+
+      try (ZipSession zipSession = ZipFiles.openZipFile(resultsFile)) {
+        if (results.git() == null)
+          backupCommitId =
+              zipSession.readEntry(
+                  /* entryPath= */ "commit_id.txt",
+                  /* entryReader= */
+                  inputStream -> {
+                    try (var isr = new InputStreamReader(inputStream, UTF_8);
+                         var br = new BufferedReader(isr)) {
+                      return br.readLine();
+                    }
+                  });
+
+        if (results.testMetadata() == null)
+          hasTestMetadataFile =
+              zipSession.readEntry(
+                  /* entryPath= */ "test_metadata.json",
+                  /* entryReader= */ inputStream -> "not null")
+                  != null;
+      }
+    }
+
+    ResultsSidecar sidecar =
+        ResultsSidecar.create(
+            /* resultsFileSize= */ attributes.size(),
+            /* resultsFileLastModifiedTime= */
+            attributes.lastModifiedTime().toInstant(),
+            /* results= */ results,
+            /* backupCommitId= */ backupCommitId,
+            /* hasTestMetadataFile= */ hasTestMetadataFile);
+
+    Path sidecarFile = sidecarFile(resultsFile);
+
+    Path tempFile =
+        Files.createTempFile(
+            /* dir= */ sidecarFile.getParent(),
+            /* prefix= */ sidecarFile.getFileName().toString(),
+            /* suffix= */ ".tmp");
+
+    try {
+      try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+        objectMapper.writeValue(outputStream, sidecar);
+      }
+
+      // Replace the old sidecar in one step so that readers never see a
+      // partially-written sidecar.
+      Files.move(tempFile, sidecarFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+
+    return sidecar;
+  }
+
+  /**
+   * Writes sidecars for all the results files in the results directory that
+   * don't have up-to-date sidecars, such as files that were uploaded before
+   * sidecars existed.  Results files that cannot be parsed are skipped.
+   *
+   * @return the number of sidecars that were written
+   * @throws IOException if an I/O error occurs while listing the results
+   *         directory
+   */
+  public int backfill() throws IOException {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    int written = 0;
+
+    try (DirectoryStream<Path> files =
+             Files.newDirectoryStream(fileStore.resultsDirectory(),
+                                      RESULTS_FILE_GLOB)) {
+
+      for (Path file : files) {
+        if (read(file) != null)
+          continue;
+
+        try {
+          if (writeFromResultsFile(file) != null)
+            written++;
+        } catch (IOException e) {
+          logger.warn("Error writing sidecar for results file {}", file, e);
+        }
+      }
+    }
+
+    logger.info("Wrote {} sidecar files in {}", written, stopwatch);
+    return written;
+  }
+
+  /**
+   * Returns the up-to-date sidecar of the specified results file, first
+   * parsing the results file and writing its sidecar if necessary.
+   *
+   * @param resultsFile the results.json or results.zip file
+   * @return the up-to-date sidecar of the results file, or {@code null} if the
+   *         results file does not contain results
+   * @throws IOException if an I/O error occurs while reading the results file
+   *         or while writing the sidecar
+   */
+  public @Nullable ResultsSidecar readOrWrite(Path resultsFile)
+      throws IOException {
+
+    ResultsSidecar sidecar = read(resultsFile);
+    if (sidecar != null)
+      return sidecar;
+
+    return writeFromResultsFile(resultsFile);
+  }
+
+  private @Nullable ResultsSidecar writeFromResultsFile(Path resultsFile)
+      throws IOException {
+
+    // Read the attributes before the results, so that the sidecar will be
+    // ignored if the file is modified while we're reading it.
+    BasicFileAttributes attributes =
+        Files.readAttributes(resultsFile, BasicFileAttributes.class);
+
+    Results results = readResults(resultsFile);
+    if (results == null)
+      return null;
+
+    return write(resultsFile, attributes, results);
+  }
+
+  private @Nullable Results readResults(Path file) throws IOException {
+    if (MoreFiles.getFileExtension(file).equals("json")) {
+      try (InputStream inputStream = Files.newInputStream(file)) {
+        return SummaryResultsParser.parse(objectMapper, inputStream);
+      }
+    }
+
+    return ZipFiles.readZipEntry(
+        /* zipFile= */ file,
+        /* entryPath= */ "results.json",
+        /* entryReader= */ inputStream ->
+                               SummaryResultsParser.parse(objectMapper,
+                                                          inputStream));
+  }
+
+  /**
+   * Returns the path of the sidecar file for the specified results file.
+   */
+  static Path sidecarFile(Path resultsFile) {
+    Objects.requireNonNull(resultsFile);
+    return resultsFile.resolveSibling(
+        resultsFile.getFileName() + SIDECAR_FILE_SUFFIX);
+  }
+
+  /**
+   * The suffix appended to the name of a results file to produce the name of
+   * its sidecar file.  Sidecar files must not match the {@link
+   * #RESULTS_FILE_GLOB}.
+   */
+  private static final String SIDECAR_FILE_SUFFIX = ".summary";
+
+  /**
+   * The glob matching the names of results files in the results directory.
+   */
+  private static final String RESULTS_FILE_GLOB = "*.{json,zip}";
+}
@@ -4,7 +4,6 @@ import static com.google.common.net.MediaType.HTML_UTF_8;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.joining;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.CharSource;
@@ -14,10 +13,8 @@ import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import jakarta.mail.MessagingException;
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.FileTime;
 import java.time.Clock;
 import java.time.Instant;
 import java.util.Objects;
@@ -27,9 +24,11 @@ import org.glassfish.hk2.api.messaging.SubscribeTo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tfb.status.config.RunCompleteMailerConfig;
-import tfb.status.util.ZipFiles;
+import tfb.status.hk2.extensions.AsyncDelivery;
+import tfb.status.hk2.extensions.AsyncDelivery.Overflow;
 import tfb.status.view.HomePageView.ResultsView;
 import tfb.status.view.Results;
+import tfb.status.view.ResultsSidecar;
 import tfb.status.view.UpdatedResultsEvent;
 
 /**
@@ -41,8 +40,8 @@ public final class RunCompleteMailer {
   private final RunCompleteMailerConfig config;
   private final Clock clock;
   private final EmailSender emailSender;
-  private final ObjectMapper objectMapper;
-  private final DiffGenerator diffGenerator;
+  private final ResultsSidecarStore sidecarStore;
+  private final DiffCache diffCache;
   private final FileStore fileStore;
   private final HomeResultsReader homeResultsReader;
   private final Logger logger = LoggerFactory.getLogger(getClass());
@@ -51,20 +50,25 @@ public final class RunCompleteMailer {
   public RunCompleteMailer(RunCompleteMailerConfig config,
                            Clock clock,
                            EmailSender emailSender,
-                           ObjectMapper objectMapper,
-                           DiffGenerator diffGenerator,
+                           ResultsSidecarStore sidecarStore,
+                           DiffCache diffCache,
                            FileStore fileStore,
                            HomeResultsReader homeResultsReader) {
 
     this.config = Objects.requireNonNull(config);
     this.clock = Objects.requireNonNull(clock);
     this.emailSender = Objects.requireNonNull(emailSender);
-    this.objectMapper = Objects.requireNonNull(objectMapper);
-    this.diffGenerator = Objects.requireNonNull(diffGenerator);
+    this.sidecarStore = Objects.requireNonNull(sidecarStore);
+    this.diffCache = Objects.requireNonNull(diffCache);
     this.fileStore = Objects.requireNonNull(fileStore);
     this.homeResultsReader = Objects.requireNonNull(homeResultsReader);
   }
 
+  // Reading results and sending email can be slow, so don't make the uploader
+  // of the results wait for it.  Each event is small, so the queue is generous.
+  // Dropping an event could mean never sending the email for a completed run,
+  // so publishers wait for room instead.
+  @AsyncDelivery(queueCapacity = 256, overflow = Overflow.BLOCK)
   public void onUpdatedResults(@SubscribeTo UpdatedResultsEvent event)
       throws IOException {
 
@@ -126,14 +130,12 @@ public final class RunCompleteMailer {
   }
 
   private void definitelySendEmail(Path newZipFile) {
+    // Read both sets of results from their sidecars, which have one compact
+    // wrk execution per framework and test type and which are usually already
+    // written, rather than parsing both full results.json files.
     Results results;
     try {
-      results =
-          ZipFiles.readZipEntry(
-              newZipFile,
-              "results.json",
-              inputStream ->
-                  objectMapper.readValue(inputStream, Results.class));
+      results = readCompactResults(newZipFile);
     } catch (IOException e) {
       logger.warn(
           "Ignoring new zip file {} because of a JSON parse error",
@@ -147,19 +149,22 @@ public final class RunCompleteMailer {
       return;
     }
 
-    Path previousZipFile = findPreviousZipFile(newZipFile);
+    Path previousZipFile;
+    try {
+      previousZipFile = homeResultsReader.previousComparableZipFile(newZipFile);
+    } catch (IOException e) {
+      logger.warn(
+          "Error finding predecessor of new zip file {}",
+          newZipFile, e);
+      previousZipFile = null;
+    }
 
     Results previousResults;
     if (previousZipFile == null) {
       previousResults = null;
     } else {
       try {
-        previousResults =
-            ZipFiles.readZipEntry(
-                previousZipFile,
-                "results.json",
-                inputStream ->
-                    objectMapper.readValue(inputStream, Results.class));
+        previousResults = readCompactResults(previousZipFile);
       } catch (IOException e) {
         logger.warn(
             "Ignoring previous zip file {} because of a JSON parse error",
@@ -178,10 +183,20 @@ public final class RunCompleteMailer {
       previousResults = null;
     }
 
-    String diff =
-        (previousResults == null)
-            ? null
-            : diffGenerator.diff(previousResults, results);
+    String diff = null;
+    if (previousResults != null && previousZipFile != null) {
+      try {
+        diff =
+            diffCache.diff(
+                /* oldResultsFile= */ previousZipFile,
+                /* newResultsFile= */ newZipFile,
+                /* format= */ DiffCache.Format.HTML);
+      } catch (IOException e) {
+        logger.warn(
+            "Error generating diff between zip files {} and {}",
+            previousZipFile, newZipFile, e);
+      }
+    }
 
     String subject = runCompleteEmailSubject(results);
 
@@ -211,33 +226,11 @@ public final class RunCompleteMailer {
     }
   }
 
-  private @Nullable Path findPreviousZipFile(Path newZipFile) {
-    Path previousZipFile = null;
-    FileTime previousTime = null;
-
-    try (DirectoryStream<Path> zipFiles =
-             Files.newDirectoryStream(fileStore.resultsDirectory(), "*.zip")) {
-
-      for (Path file : zipFiles) {
-        if (file.equals(newZipFile))
-          continue;
-
-        FileTime time = Files.getLastModifiedTime(file);
-
-        if (previousZipFile == null || time.compareTo(previousTime) > 0) {
-          previousZipFile = file;
-          previousTime = time;
-        }
-      }
-
-    } catch (IOException e) {
-      logger.warn(
-          "Error finding predecessor of new zip file {}",
-          newZipFile, e);
-      return null;
-    }
+  private @Nullable Results readCompactResults(Path zipFile)
+      throws IOException {
 
-    return previousZipFile;
+    ResultsSidecar sidecar = sidecarStore.readOrWrite(zipFile);
+    return (sidecar == null) ? null : sidecar.results();
   }
 
   private static boolean areResultsComparable(Results a, Results b) {
@@ -0,0 +1,362 @@
+package tfb.status.service;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import tfb.status.view.FrameworkDictionary;
+import tfb.status.view.Results;
+import tfb.status.view.Results.GitInfo;
+import tfb.status.view.Results.RawData;
+import tfb.status.view.Results.SingleWrkExecution;
+import tfb.status.view.Results.TestType;
+import tfb.status.view.Results.TestTypeToFrameworks;
+import tfb.status.view.TestDefinition;
+
+/**
+ * Parses results.json files for the purpose of summarizing them, without
+ * holding the bulky parts of those files in memory.
+ *
+ * <p>The {@link Results} objects returned by this class are equivalent to the
+ * ones returned by {@code objectMapper.readValue(inputStream, Results.class)}
+ * in every way that matters to {@link Results#requests(TestType, String)} and
+ * {@link Results#testOutcome(TestType, String)}, except that:
+ *
+ * <ul>
+ * <li>The {@link Results#rawData()} contains at most two wrk executions for
+ *     each framework in each test type: the one with the most successful
+ *     requests and the last one.  Those are the only executions that {@link
+ *     Results#requests(TestType, String)} looks at.
+ * <li>The {@link Results#testMetadata()} is empty when it is present in the
+ *     file, since its contents are not needed for a summary.  Its contents are
+ *     skipped without being validated.
+ * </ul>
+ *
+ * <p>The file is read in a single pass, and the memory used while reading is
+ * proportional to the number of frameworks rather than the number of wrk
+ * executions.
+ */
+final class SummaryResultsParser {
+  private SummaryResultsParser() {
+    throw new AssertionError("This class cannot be instantiated");
+  }
+
+  /**
+   * Parses the results.json file from the specified input stream.
+   *
+   * @param objectMapper the object mapper used to parse the small fields of
+   *        the results
+   * @param inputStream the contents of the results.json file
+   * @return the results, with bulky fields trimmed as described in the class
+   *         documentation
+   * @throws IOException if the results cannot be read or are malformed
+   */
+  static Results parse(ObjectMapper objectMapper, InputStream inputStream)
+      throws IOException {
+
+    Objects.requireNonNull(objectMapper);
+    Objects.requireNonNull(inputStream);
+
+    try (JsonParser parser = objectMapper.createParser(inputStream)) {
+      return parseResults(objectMapper, parser);
+    }
+  }
+
+  private static Results parseResults(ObjectMapper objectMapper,
+                                      JsonParser parser)
+      throws IOException {
+
+    expectToken(parser, parser.nextToken(), START_OBJECT);
+
+    String uuid = null;
+    String name = null;
+    String environmentDescription = null;
+    Long startTime = null;
+    Long completionTime = null;
+    Long duration = null;
+    ImmutableSet<String> frameworks = null;
+    ImmutableMap<String, String> completed = null;
+    TestTypeToFrameworks succeeded = null;
+    TestTypeToFrameworks failed = null;
+    RawData rawData = null;
+    ImmutableList<Integer> queryIntervals = null;
+    ImmutableList<Integer> concurrencyLevels = null;
+    GitInfo git = null;
+    ImmutableList<TestDefinition> testMetadata = null;
+
+    while (parser.nextToken() == FIELD_NAME) {
+      String fieldName = parser.currentName();
+      parser.nextToken();
+      switch (fieldName) {
+        case "uuid" ->
+            uuid = objectMapper.readValue(parser, String.class);
+
+        case "name" ->
+            name = objectMapper.readValue(parser, String.class);
+
+        case "environmentDescription" ->
+            environmentDescription =
+                objectMapper.readValue(parser, String.class);
+
+        case "startTime" ->
+            startTime = objectMapper.readValue(parser, Long.class);
+
+        case "completionTime" ->
+            completionTime = objectMapper.readValue(parser, Long.class);
+
+        case "duration" ->
+            duration = objectMapper.readValue(parser, long.class);
+
+        case "frameworks" ->
+            frameworks =
+                internFrameworks(
+                    objectMapper.readValue(parser, FRAMEWORKS_TYPE));
+
+        case "completed" ->
+            completed =
+                internFrameworks(
+                    objectMapper.readValue(parser, COMPLETED_TYPE));
+
+        case "succeeded" ->
+            succeeded =
+                objectMapper.readValue(parser, TestTypeToFrameworks.class);
+
+        case "failed" ->
+            failed =
+                objectMapper.readValue(parser, TestTypeToFrameworks.class);
+
+        case "rawData" ->
+            rawData = parseRawData(objectMapper, parser);
+
+        case "queryIntervals" ->
+            queryIntervals = objectMapper.readValue(parser, INTEGERS_TYPE);
+
+        case "concurrencyLevels" ->
+            concurrencyLevels = objectMapper.readValue(parser, INTEGERS_TYPE);
+
+        case "git" ->
+            git = objectMapper.readValue(parser, GitInfo.class);
+
+        case "testMetadata" -> {
+          if (parser.currentToken() == VALUE_NULL)
+            testMetadata = null;
+          else {
+            parser.skipChildren();
+            testMetadata = ImmutableList.of();
+          }
+        }
+
+        default -> parser.skipChildren();
+      }
+    }
+
+    return new Results(
+        /* uuid= */ uuid,
+        /* name= */ name,
+        /* environmentDescription= */ environmentDescription,
+        /* startTime= */ startTime,
+        /* completionTime= */ completionTime,
+        /* duration= */ requireField(parser, "duration", duration),
+        /* frameworks= */ requireField(parser, "frameworks", frameworks),
+        /* completed= */ requireField(parser, "completed", completed),
+        /* succeeded= */ requireField(parser, "succeeded", succeeded),
+        /* failed= */ requireField(parser, "failed", failed),
+        /* rawData= */ requireField(parser, "rawData", rawData),
+        /* queryIntervals= */
+        requireField(parser, "queryIntervals", queryIntervals),
+        /* concurrencyLevels= */
+        requireField(parser, "concurrencyLevels", concurrencyLevels),
+        /* git= */ git,
+        /* testMetadata= */ testMetadata);
+  }
+
+  private static @Nullable RawData parseRawData(ObjectMapper objectMapper,
+                                                JsonParser parser)
+      throws IOException {
+
+    if (parser.currentToken() == VALUE_NULL)
+      return null;
+
+    expectToken(parser, parser.currentToken(), START_OBJECT);
+
+    var executionsByTestType =
+        new EnumMap<TestType, ImmutableListMultimap<String, SingleWrkExecution>>(
+            TestType.class);
+
+    while (parser.nextToken() == FIELD_NAME) {
+      // Keys that aren't test types, such as "slocCounts" and "commitCounts",
+      // are ignored.
+      TestType testType = TestType.deserialize(parser.currentName());
+      parser.nextToken();
+      if (testType == null)
+        parser.skipChildren();
+      else
+        executionsByTestType.put(
+            testType,
+            parseExecutions(objectMapper, parser));
+    }
+
+    return new RawData(
+        /* json= */ executionsByTestType.get(TestType.JSON),
+        /* plaintext= */ executionsByTestType.get(TestType.PLAINTEXT),
+        /* db= */ executionsByTestType.get(TestType.DB),
+        /* query= */ executionsByTestType.get(TestType.QUERY),
+        /* update= */ executionsByTestType.get(TestType.UPDATE),
+        /* fortune= */ executionsByTestType.get(TestType.FORTUNE),
+        /* cachedQuery= */ executionsByTestType.get(TestType.CACHED_QUERY));
+  }
+
+  /**
+   * Parses the raw data for one test type, which maps framework names to lists
+   * of wrk executions, keeping only the executions with the most successful
+   * requests and the last executions.
+   */
+  private static @Nullable ImmutableListMultimap<String, SingleWrkExecution>
+  parseExecutions(ObjectMapper objectMapper, JsonParser parser)
+      throws IOException {
+
+    if (parser.currentToken() == VALUE_NULL)
+      return null;
+
+    expectToken(parser, parser.currentToken(), START_OBJECT);
+
+    // A framework may appear more than once, in which case its executions are
+    // concatenated, the same as they would be in the multimap.
+    var maxExecutions = new LinkedHashMap<String, SingleWrkExecution>();
+    var lastExecutions = new LinkedHashMap<String, SingleWrkExecution>();
+
+    while (parser.nextToken() == FIELD_NAME) {
+      String framework = FrameworkDictionary.intern(parser.currentName());
+      expectToken(parser, parser.nextToken(), START_ARRAY);
+
+      while (parser.nextToken() != END_ARRAY) {
+        SingleWrkExecution execution =
+            requireField(
+                parser,
+                "rawData",
+                objectMapper.readValue(parser, SingleWrkExecution.class));
+
+        maxExecutions.merge(
+            framework,
+            execution,
+            (a, b) -> (successfulRequests(b) > successfulRequests(a)) ? b : a);
+
+        lastExecutions.put(framework, execution);
+      }
+    }
+
+    var executions = ImmutableListMultimap.<String, SingleWrkExecution>builder();
+
+    for (Map.Entry<String, SingleWrkExecution> entry
+        : maxExecutions.entrySet()) {
+
+      String framework = entry.getKey();
+      SingleWrkExecution maxExecution = entry.getValue();
+      SingleWrkExecution lastExecution = lastExecutions.get(framework);
+
+      executions.put(framework, maxExecution);
+      if (lastExecution != maxExecution)
+        executions.put(framework, lastExecution);
+    }
+
+    return executions.build();
+  }
+
+  /**
+   * Returns the {@linkplain FrameworkDictionary#intern(String) interned} form
+   * of the provided framework names.  The Results class interns framework
+   * names during deserialization, but these fields are deserialized without
+   * that class.
+   */
+  private static @Nullable ImmutableSet<String> internFrameworks(
+      @Nullable ImmutableSet<String> frameworks) {
+
+    if (frameworks == null)
+      return null;
+
+    var interned =
+        ImmutableSet.<String>builderWithExpectedSize(frameworks.size());
+    for (String framework : frameworks)
+      interned.add(FrameworkDictionary.intern(framework));
+
+    return interned.build();
+  }
+
+  /**
+   * Returns the provided map with its framework name keys {@linkplain
+   * FrameworkDictionary#intern(String) interned}.
+   */
+  private static @Nullable ImmutableMap<String, String> internFrameworks(
+      @Nullable ImmutableMap<String, String> completed) {
+
+    if (completed == null)
+      return null;
+
+    var interned =
+        ImmutableMap.<String, String>builderWithExpectedSize(completed.size());
+
+    completed.forEach(
+        (framework, message) ->
+            interned.put(FrameworkDictionary.intern(framework), message));
+
+    return interned.buildOrThrow();
+  }
+
+  // Mirrors SingleWrkExecution.successfulRequests(), which isn't visible here.
+  private static long successfulRequests(SingleWrkExecution execution) {
+    return execution.totalRequests() - execution.status5xx();
+  }
+
+  private static void expectToken(JsonParser parser,
+                                  @Nullable JsonToken actual,
+                                  JsonToken expected)
+      throws MismatchedInputException {
+
+    if (actual != expected)
+      throw MismatchedInputException.from(
+          parser,
+          Results.class,
+          "Expected " + expected + " but found " + actual);
+  }
+
+  private static <T> T requireField(JsonParser parser,
+                                    String fieldName,
+                                    @Nullable T value)
+      throws MismatchedInputException {
+
+    if (value == null)
+      throw MismatchedInputException.from(
+          parser,
+          Results.class,
+          "Missing or null required property '" + fieldName + "'");
+
+    return value;
+  }
+
+  private static final TypeReference<ImmutableSet<String>> FRAMEWORKS_TYPE =
+      new TypeReference<>() {};
+
+  private static final TypeReference<ImmutableMap<String, String>>
+      COMPLETED_TYPE = new TypeReference<>() {};
+
+  private static final TypeReference<ImmutableList<Integer>> INTEGERS_TYPE =
+      new TypeReference<>() {};
+}
@@ -10,8 +10,10 @@ import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
+import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
@@ -25,13 +27,18 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.glassfish.hk2.api.PreDestroy;
+import org.glassfish.hk2.extras.provides.Provides;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import tfb.status.hk2.extensions.AsyncDelivery;
 
 /**
  * Runs tasks asynchronously.
  *
  * <p>Exceptions thrown from tasks are logged.
+ *
+ * <p>This service also provides the {@linkplain #deliveryExecutor() executor}
+ * that runs {@linkplain AsyncDelivery asynchronous} topic subscribers.
  */
 @Singleton
 public final class TaskScheduler implements Executor, PreDestroy {
@@ -120,6 +127,114 @@ public final class TaskScheduler implements Executor, PreDestroy {
     submit(command);
   }
 
+  /**
+   * Returns the executor that delivers messages to {@linkplain AsyncDelivery
+   * asynchronous} topic subscribers.  It runs on this scheduler's threads, but
+   * it runs no more than {@link #MAX_CONCURRENT_DELIVERIES} deliveries at
+   * once, so that a burst of messages cannot start an unbounded number of
+   * threads.
+   */
+  @Provides
+  @Singleton
+  @Named(AsyncDelivery.EXECUTOR_NAME)
+  public Executor deliveryExecutor() {
+    return boundedExecutor(MAX_CONCURRENT_DELIVERIES);
+  }
+
+  /**
+   * Returns an executor that runs tasks on this scheduler's threads, but that
+   * runs no more than the specified number of those tasks at once.  Tasks
+   * beyond that limit wait in a queue and are run in the order they were
+   * submitted.
+   *
+   * <p>Exceptions and errors thrown from the tasks are logged.  A task that
+   * throws an error does not prevent the tasks queued after it from running.
+   *
+   * @param maxConcurrentTasks the maximum number of tasks to run at once
+   * @return a bounded executor
+   * @throws IllegalArgumentException if {@code maxConcurrentTasks} is not
+   *         positive
+   */
+  public Executor boundedExecutor(int maxConcurrentTasks) {
+    if (maxConcurrentTasks <= 0)
+      throw new IllegalArgumentException(
+          "non-positive maxConcurrentTasks: " + maxConcurrentTasks);
+
+    return new BoundedExecutor(maxConcurrentTasks);
+  }
+
+  private final class BoundedExecutor implements Executor {
+    private final int maxConcurrentTasks;
+
+    @GuardedBy("this")
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+
+    @GuardedBy("this")
+    private int runningWorkers = 0;
+
+    BoundedExecutor(int maxConcurrentTasks) {
+      this.maxConcurrentTasks = maxConcurrentTasks;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      Objects.requireNonNull(command);
+
+      synchronized (this) {
+        queue.add(command);
+        if (runningWorkers == maxConcurrentTasks)
+          return;
+
+        runningWorkers++;
+      }
+
+      try {
+        executor.execute(() -> runQueuedTasks());
+      } catch (RejectedExecutionException e) {
+        synchronized (this) {
+          runningWorkers--;
+          queue.removeLastOccurrence(command);
+        }
+        throw e;
+      }
+    }
+
+    private void runQueuedTasks() {
+      while (true) {
+        Runnable task;
+        synchronized (this) {
+          task = queue.poll();
+          if (task == null) {
+            runningWorkers--;
+            return;
+          }
+        }
+
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          logger.error("Uncaught exception from task", e);
+        } catch (Error e) {
+          logger.error("Uncaught error from task", e);
+          // This worker is about to die, so hand its slot and the rest of the
+          // queue to a new worker.
+          replaceWorker();
+          throw e;
+        }
+      }
+    }
+
+    private void replaceWorker() {
+      try {
+        executor.execute(() -> runQueuedTasks());
+      } catch (RejectedExecutionException e) {
+        synchronized (this) {
+          runningWorkers--;
+        }
+      }
+    }
+  }
+
   /**
    * Runs the specified task asynchronously as soon as possible.
    *
@@ -275,4 +390,10 @@ public final class TaskScheduler implements Executor, PreDestroy {
       }
     };
   }
+
+  /**
+   * The maximum number of messages that the {@linkplain #deliveryExecutor()
+   * delivery executor} delivers at once, across all subscribers.
+   */
+  private static final int MAX_CONCURRENT_DELIVERIES = 4;
 }
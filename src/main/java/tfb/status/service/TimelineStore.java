@@ -0,0 +1,1096 @@
+package tfb.status.service;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Ticker;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.primitives.ImmutableIntArray;
+import com.google.errorprone.annotations.Immutable;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.glassfish.hk2.api.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tfb.status.view.FrameworkDictionary;
+import tfb.status.view.Results;
+import tfb.status.view.Results.RequestsMatrix;
+import tfb.status.view.Results.TestType;
+import tfb.status.view.ResultsSidecar;
+
+/**
+ * A columnar store of the requests per second achieved by each framework in
+ * each test type over time, which backs the timeline page.
+ *
+ * <p>The store holds one series for each combination of framework and test
+ * type.  Each series holds one data point for every results.zip file in the
+ * {@linkplain FileStore#resultsDirectory() results directory} where the
+ * framework achieved a nonzero number of requests per second in the test type.
+ * The data points are stored in parallel primitive columns sorted by the start
+ * time of the run, so that reading the timeline of one framework does not
+ * require reading every results.zip file.
+ *
+ * <p>The store is persisted as a single file in the {@linkplain
+ * FileStore#cacheDirectory() cache directory}.  It is {@linkplain #backfill()
+ * backfilled} from the results directory the first time it is used, it is
+ * {@linkplain #add(Path, ResultsSidecar) appended to} when results are
+ * uploaded, and it is periodically reconciled with the results directory in
+ * the background in case results.zip files are added or removed by other
+ * means.  When many results.zip files need to be read at once, such as during
+ * the first backfill, they are read in parallel.
+ *
+ * <p>Readers see an immutable snapshot of the store, which is replaced
+ * whenever the store changes, so reading a timeline never waits for an upload
+ * or a rescan.  Changes are written to disk after a delay, allowing many
+ * changes to be written at once.  Changes that are lost because the
+ * application stopped before writing them are recovered by the rescan that
+ * happens when the store is next loaded.
+ */
+@Singleton
+public final class TimelineStore implements PreDestroy {
+  private final FileStore fileStore;
+  private final ResultsSidecarStore sidecarStore;
+  private final TaskScheduler taskScheduler;
+  private final Ticker ticker;
+  private final LoadingCache<FileKey, RunMatrix> matrixCache;
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  // The mutable contents of this store, which are only read and written by
+  // writers, or null if this store has not been populated yet.
+  @GuardedBy("this")
+  private @Nullable Columns columns;
+
+  // The contents of this store as seen by readers, or null if this store has
+  // not been populated yet.
+  private volatile @Nullable Snapshot snapshot;
+
+  @GuardedBy("this")
+  private @Nullable Future<?> rescanTask;
+
+  // Whether the columns have been modified since they were last written.
+  private final AtomicBoolean isModified = new AtomicBoolean(false);
+
+  // Whether a write of the columns is scheduled but has not started yet.
+  private final AtomicBoolean isWriteScheduled = new AtomicBoolean(false);
+
+  @Inject
+  public TimelineStore(FileStore fileStore,
+                       ResultsSidecarStore sidecarStore,
+                       TaskScheduler taskScheduler,
+                       Ticker ticker) {
+
+    this.fileStore = Objects.requireNonNull(fileStore);
+    this.sidecarStore = Objects.requireNonNull(sidecarStore);
+    this.taskScheduler = Objects.requireNonNull(taskScheduler);
+    this.ticker = Objects.requireNonNull(ticker);
+
+    // Load files asynchronously so that bulk loads, such as the first
+    // backfill, read many files in parallel.
+    this.matrixCache =
+        Caffeine.newBuilder()
+                .maximumSize(MATRIX_CACHE_MAX_SIZE)
+                .executor(
+                    taskScheduler.boundedExecutor(
+                        Runtime.getRuntime().availableProcessors()))
+                .<FileKey, RunMatrix>buildAsync(key -> readMatrix(key))
+                .synchronous();
+  }
+
+  @Override
+  public void preDestroy() {
+    stop();
+  }
+
+  /**
+   * Cleans up resources used by this service, writing any changes that have
+   * not been written yet.
+   */
+  public synchronized void stop() {
+    Future<?> rescan = this.rescanTask;
+    if (rescan != null) {
+      rescan.cancel(true);
+      this.rescanTask = null;
+    }
+
+    writeIfModified();
+  }
+
+  /**
+   * Returns the timeline of the specified framework in the specified test
+   * type, or {@code null} if the framework does not appear in any results.zip
+   * file.
+   *
+   * @param framework the name of the framework
+   * @param testType the test type
+   * @return the timeline, or {@code null} if the framework is unknown
+   * @throws IOException if an I/O error occurs while populating the store for
+   *         the first time
+   */
+  public @Nullable Timeline timeline(String framework, TestType testType)
+      throws IOException {
+
+    Objects.requireNonNull(framework);
+    Objects.requireNonNull(testType);
+
+    Snapshot snapshot = getSnapshot();
+
+    if (!snapshot.frameworks.contains(framework))
+      return null;
+
+    ImmutableMap<TestType, Series> seriesByTestType =
+        snapshot.series.getOrDefault(framework, ImmutableMap.of());
+
+    Series series = seriesByTestType.get(testType);
+
+    var dataPoints = ImmutableList.<DataPoint>builder();
+    if (series != null)
+      for (int i = 0; i < series.size; i++)
+        dataPoints.add(
+            new DataPoint(
+                /* startTime= */ series.startTimes[i],
+                /* rps= */ series.rps[i],
+                /* commitId= */ snapshot.runsById.get(series.runIds[i])
+                                                 .commitId()));
+
+    Set<TestType> presentTestTypes = EnumSet.noneOf(TestType.class);
+    seriesByTestType.forEach(
+        (type, s) -> {
+          if (s.size > 0)
+            presentTestTypes.add(type);
+        });
+
+    return new Timeline(
+        /* dataPoints= */ dataPoints.build(),
+        /* presentTestTypes= */ ImmutableSet.copyOf(presentTestTypes),
+        /* allFrameworks= */ snapshot.sortedFrameworks);
+  }
+
+  /**
+   * The timeline of one framework in one test type.
+   *
+   * @param dataPoints The data points of the timeline, sorted by start time.
+   * @param presentTestTypes The test types in which the framework has any data
+   *        points at all.
+   * @param allFrameworks The names of all the frameworks in the store, sorted
+   *        case-insensitively.
+   */
+  @Immutable
+  public record Timeline(ImmutableList<DataPoint> dataPoints,
+                         ImmutableSet<TestType> presentTestTypes,
+                         ImmutableList<String> allFrameworks) {
+
+    public Timeline {
+      Objects.requireNonNull(dataPoints);
+      Objects.requireNonNull(presentTestTypes);
+      Objects.requireNonNull(allFrameworks);
+    }
+  }
+
+  /**
+   * One data point in a {@link Timeline}.
+   *
+   * @param startTime The epoch millisecond timestamp of when the run started.
+   * @param rps The requests per second achieved by the framework in the run.
+   * @param commitId The commit id of the TFB repository that was used in the
+   *        run, or {@code null} if that is unknown.
+   */
+  @Immutable
+  public record DataPoint(long startTime,
+                          double rps,
+                          @Nullable String commitId) {}
+
+  /**
+   * Records the results of an uploaded results.zip file in this store,
+   * replacing any results previously recorded for that file.
+   *
+   * @param zipFile the results.zip file in the results directory
+   * @param sidecar the up-to-date sidecar of the results.zip file
+   * @throws IOException if an I/O error occurs while populating the store for
+   *         the first time
+   */
+  public synchronized void add(Path zipFile, ResultsSidecar sidecar)
+      throws IOException {
+
+    Objects.requireNonNull(zipFile);
+    Objects.requireNonNull(sidecar);
+
+    Columns columns = this.columns;
+    if (columns == null) {
+      // Populating the store reads the file anyway.
+      getColumns();
+      return;
+    }
+
+    var key =
+        new FileKey(
+            /* file= */ zipFile,
+            /* lastModifiedTime= */
+            FileTime.from(sidecar.resultsFileLastModifiedTime()),
+            /* size= */ sidecar.resultsFileSize());
+
+    RunMatrix matrix = RunMatrix.extract(sidecar);
+    matrixCache.put(key, matrix);
+
+    columns.put(zipFile.getFileName().toString(), matrix);
+    publish(columns);
+    onModified();
+  }
+
+  /**
+   * Populates this store from the results directory if that has not been done
+   * already, reading only the results.zip files that have been added or
+   * modified since this store was last persisted.
+   *
+   * @throws IOException if an I/O error occurs while listing the results
+   *         directory or while persisting the store
+   */
+  public synchronized void backfill() throws IOException {
+    getColumns();
+  }
+
+  private Snapshot getSnapshot() throws IOException {
+    Snapshot existing = this.snapshot;
+    if (existing != null)
+      return existing;
+
+    synchronized (this) {
+      getColumns();
+      return Objects.requireNonNull(this.snapshot);
+    }
+  }
+
+  @GuardedBy("this")
+  private Columns getColumns() throws IOException {
+    Columns existing = this.columns;
+    if (existing != null)
+      return existing;
+
+    Stopwatch stopwatch = Stopwatch.createStarted(ticker);
+
+    Path storeFile = storeFile();
+    Columns loaded;
+    try (InputStream inputStream = Files.newInputStream(storeFile)) {
+      loaded = Columns.read(inputStream);
+    } catch (NoSuchFileException ignored) {
+      loaded = null;
+    } catch (IOException e) {
+      logger.warn("Ignoring unreadable timeline file {}", storeFile, e);
+      loaded = null;
+    }
+
+    if (loaded == null)
+      loaded = new Columns();
+
+    Map<String, Run> scannedRuns = Map.copyOf(loaded.runsByFileName);
+    int changed = apply(loaded, scannedRuns, findChanges(scannedRuns));
+
+    this.columns = loaded;
+    publish(loaded);
+
+    // Write the results of the first backfill right away, since they may
+    // have been expensive to compute.
+    if (changed > 0) {
+      isModified.set(true);
+      writeIfModified();
+      logger.info("Updated timeline for {} results.zip files in {}",
+                  changed, stopwatch);
+    }
+
+    this.rescanTask =
+        taskScheduler.repeat(
+            /* task= */
+            () -> {
+              try {
+                rescan();
+              } catch (IOException e) {
+                logger.warn("Error rescanning results directory", e);
+              }
+            },
+            /* initialDelay= */ RESCAN_INTERVAL,
+            /* interval= */ RESCAN_INTERVAL);
+
+    return loaded;
+  }
+
+  /**
+   * Updates this store to reflect the results.zip files currently in the
+   * results directory.  This does nothing if the store has not been populated
+   * yet.
+   *
+   * <p>This is called periodically in the background.  The results directory
+   * is listed and any changed results.zip files are read without blocking
+   * uploads, which only wait for the changes to be applied.
+   *
+   * @throws IOException if an I/O error occurs while listing the results
+   *         directory
+   */
+  @VisibleForTesting
+  void rescan() throws IOException {
+    Snapshot before = this.snapshot;
+    if (before == null)
+      return;
+
+    Stopwatch stopwatch = Stopwatch.createStarted(ticker);
+
+    Map<String, @Nullable RunMatrix> changes =
+        findChanges(before.runsByFileName);
+
+    if (changes.isEmpty())
+      return;
+
+    int changed;
+    synchronized (this) {
+      Columns columns = Objects.requireNonNull(this.columns);
+      changed = apply(columns, before.runsByFileName, changes);
+      if (changed > 0) {
+        publish(columns);
+        onModified();
+      }
+    }
+
+    if (changed > 0)
+      logger.info("Updated timeline for {} results.zip files in {}",
+                  changed, stopwatch);
+  }
+
+  /**
+   * Compares the specified runs to the results.zip files currently in the
+   * results directory, and reads the matrices of the files that changed.
+   *
+   * @param scannedRuns the runs recorded in the store, by file name
+   * @return the changed files by name, mapped to their new matrices, or to
+   *         {@code null} if the file was deleted or cannot be read
+   */
+  private Map<String, @Nullable RunMatrix> findChanges(
+      Map<String, Run> scannedRuns)
+      throws IOException {
+
+    var currentFileNames = new HashSet<String>();
+    var changedKeys = new ArrayList<FileKey>();
+
+    try (DirectoryStream<Path> zipFiles =
+             Files.newDirectoryStream(fileStore.resultsDirectory(), "*.zip")) {
+
+      for (Path zipFile : zipFiles) {
+        String fileName = zipFile.getFileName().toString();
+        currentFileNames.add(fileName);
+
+        BasicFileAttributes attributes;
+        try {
+          attributes = Files.readAttributes(zipFile, BasicFileAttributes.class);
+        } catch (IOException e) {
+          logger.warn("Error reading attributes of results.zip file {}",
+                      zipFile, e);
+          continue;
+        }
+
+        Run run = scannedRuns.get(fileName);
+        if (run != null
+            && run.size() == attributes.size()
+            && run.lastModifiedTime().equals(
+                   attributes.lastModifiedTime().toInstant()))
+          continue;
+
+        changedKeys.add(
+            new FileKey(
+                /* file= */ zipFile,
+                /* lastModifiedTime= */ attributes.lastModifiedTime(),
+                /* size= */ attributes.size()));
+      }
+    }
+
+    // Files that could not be read are absent from this map.
+    Map<FileKey, RunMatrix> changedMatrices = matrixCache.getAll(changedKeys);
+
+    var changes = new HashMap<String, @Nullable RunMatrix>();
+
+    for (FileKey key : changedKeys)
+      changes.put(key.file().getFileName().toString(),
+                  changedMatrices.get(key));
+
+    for (String fileName : scannedRuns.keySet())
+      if (!currentFileNames.contains(fileName))
+        changes.put(fileName, null);
+
+    return changes;
+  }
+
+  /**
+   * Applies changes that were {@linkplain #findChanges(Map) found} by
+   * comparing the specified runs to the results directory.  Changes to files
+   * whose runs have been replaced since then, such as by a concurrent upload,
+   * are stale and are ignored.
+   *
+   * @return the number of changes applied
+   */
+  private static int apply(Columns columns,
+                           Map<String, Run> scannedRuns,
+                           Map<String, @Nullable RunMatrix> changes) {
+
+    int changed = 0;
+    for (Map.Entry<String, @Nullable RunMatrix> entry : changes.entrySet()) {
+      String fileName = entry.getKey();
+      RunMatrix matrix = entry.getValue();
+
+      Run scannedRun = scannedRuns.get(fileName);
+      Run currentRun = columns.runsByFileName.get(fileName);
+      if (!Objects.equals(scannedRun, currentRun))
+        continue;
+
+      if (matrix == null)
+        columns.remove(fileName);
+      else
+        columns.put(fileName, matrix);
+
+      changed++;
+    }
+    return changed;
+  }
+
+  /**
+   * Reads the matrix of the specified results.zip file from its sidecar,
+   * writing the sidecar first if necessary, or returns {@code null} if the
+   * file cannot be read.
+   */
+  private @Nullable RunMatrix readMatrix(FileKey key) {
+    ResultsSidecar sidecar;
+    try {
+      sidecar = sidecarStore.readOrWrite(key.file());
+    } catch (IOException e) {
+      logger.warn(
+          "Ignoring results.zip file {} whose results.json file "
+              + "could not be parsed",
+          key.file(), e);
+      return null;
+    }
+
+    if (sidecar == null) {
+      logger.warn(
+          "Ignoring results.zip file {} that did not contain a "
+              + "results.json file",
+          key.file());
+      return null;
+    }
+
+    return RunMatrix.extract(sidecar);
+  }
+
+  /**
+   * Replaces the snapshot seen by readers with the current contents of the
+   * specified columns.
+   */
+  @GuardedBy("this")
+  private void publish(Columns columns) {
+    this.snapshot = columns.snapshot();
+  }
+
+  /**
+   * Schedules a write of the columns, unless one is already scheduled.
+   */
+  private void onModified() {
+    isModified.set(true);
+    if (isWriteScheduled.compareAndSet(false, true))
+      taskScheduler.schedule(
+          /* task= */
+          () -> {
+            isWriteScheduled.set(false);
+            writeIfModified();
+          },
+          /* delay= */ TIMELINE_FILE_WRITE_DELAY);
+  }
+
+  /**
+   * Writes the columns to disk if they have been modified since they were
+   * last written.
+   */
+  private synchronized void writeIfModified() {
+    Columns columns = this.columns;
+    if (columns == null || !isModified.getAndSet(false))
+      return;
+
+    Path storeFile = storeFile();
+    try {
+      Path tempFile =
+          Files.createTempFile(
+              /* dir= */ storeFile.getParent(),
+              /* prefix= */ storeFile.getFileName().toString(),
+              /* suffix= */ ".tmp");
+
+      try {
+        try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+          columns.write(outputStream);
+        }
+
+        Files.move(tempFile, storeFile, REPLACE_EXISTING, ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tempFile);
+      }
+    } catch (IOException e) {
+      isModified.set(true);
+      logger.warn("Error writing timeline file {}", storeFile, e);
+    }
+  }
+
+  private Path storeFile() {
+    return fileStore.cacheDirectory().resolve(TIMELINE_FILE_NAME);
+  }
+
+  /**
+   * The results of one results.zip file that are recorded in this store.
+   *
+   * @param id The id of this run, referenced by the data points of the run.
+   * @param fileName The name of the results.zip file.
+   * @param size The size of the results.zip file when it was recorded.
+   * @param lastModifiedTime The last modified time of the results.zip file
+   *        when it was recorded.
+   * @param commitId The commit id of the run, if known.
+   * @param frameworkIds The {@linkplain FrameworkDictionary#id(String) ids} of
+   *        the frameworks in the run, which is empty if the run has no start
+   *        time and therefore contributes no data points.
+   */
+  @Immutable
+  private record Run(int id,
+                     String fileName,
+                     long size,
+                     Instant lastModifiedTime,
+                     @Nullable String commitId,
+                     ImmutableIntArray frameworkIds) {}
+
+  /**
+   * The data points of one framework in one test type, stored as parallel
+   * columns sorted by start time.
+   *
+   * <p>Once a series is published in a {@link Snapshot}, it is never modified
+   * again.  Writers modify a copy instead.
+   */
+  private static final class Series {
+    long[] startTimes = new long[INITIAL_SERIES_CAPACITY];
+    double[] rps = new double[INITIAL_SERIES_CAPACITY];
+    int[] runIds = new int[INITIAL_SERIES_CAPACITY];
+    int size;
+    boolean isPublished;
+
+    Series copy() {
+      var copy = new Series();
+      copy.startTimes = Arrays.copyOf(startTimes, size);
+      copy.rps = Arrays.copyOf(rps, size);
+      copy.runIds = Arrays.copyOf(runIds, size);
+      copy.size = size;
+      return copy;
+    }
+
+    boolean containsRun(int runId) {
+      for (int i = 0; i < size; i++)
+        if (runIds[i] == runId)
+          return true;
+
+      return false;
+    }
+
+    void insert(long startTime, double rps, int runId) {
+      if (size == startTimes.length) {
+        int capacity = Math.max(size * 2, INITIAL_SERIES_CAPACITY);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        this.rps = Arrays.copyOf(this.rps, capacity);
+        runIds = Arrays.copyOf(runIds, capacity);
+      }
+
+      // Insert after any data points with the same start time, so that the
+      // order of the columns is stable.
+      int index = size;
+      while (index > 0 && startTimes[index - 1] > startTime)
+        index--;
+
+      System.arraycopy(startTimes, index, startTimes, index + 1, size - index);
+      System.arraycopy(this.rps, index, this.rps, index + 1, size - index);
+      System.arraycopy(runIds, index, runIds, index + 1, size - index);
+
+      startTimes[index] = startTime;
+      this.rps[index] = rps;
+      runIds[index] = runId;
+      size++;
+    }
+
+    void removeRun(int runId) {
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        if (runIds[i] != runId) {
+          startTimes[kept] = startTimes[i];
+          rps[kept] = rps[i];
+          runIds[kept] = runIds[i];
+          kept++;
+        }
+      }
+      size = kept;
+    }
+  }
+
+  /**
+   * A key in the {@link #matrixCache}, identifying one version of a results.zip
+   * file.  When the file is modified, its old key becomes unreachable.
+   */
+  private record FileKey(Path file, FileTime lastModifiedTime, long size) {}
+
+  /**
+   * The requests per second achieved by every framework in every test type in
+   * one results.zip file, along with the other properties of the run that
+   * matter to the timeline.
+   */
+  private static final class RunMatrix {
+    final long size;
+    final Instant lastModifiedTime;
+    final @Nullable Long startTime;
+    final @Nullable String commitId;
+    final ImmutableIntArray frameworkIds;
+
+    // Indexed by the position of the framework in the framework ids times the
+    // number of test types, plus the ordinal of the test type.
+    final double[] rps;
+
+    private RunMatrix(long size,
+                      Instant lastModifiedTime,
+                      @Nullable Long startTime,
+                      @Nullable String commitId,
+                      ImmutableIntArray frameworkIds,
+                      double[] rps) {
+
+      this.size = size;
+      this.lastModifiedTime = Objects.requireNonNull(lastModifiedTime);
+      this.startTime = startTime;
+      this.commitId = commitId;
+      this.frameworkIds = Objects.requireNonNull(frameworkIds);
+      this.rps = Objects.requireNonNull(rps);
+    }
+
+    static RunMatrix extract(ResultsSidecar sidecar) {
+      Objects.requireNonNull(sidecar);
+
+      Results results = sidecar.results();
+      RequestsMatrix matrix = results.requestsMatrix();
+
+      var frameworkIds =
+          ImmutableIntArray.builder(results.frameworks().size());
+      for (String framework : results.frameworks())
+        frameworkIds.add(FrameworkDictionary.id(framework));
+
+      var rps = new double[results.frameworks().size() * TEST_TYPES.size()];
+      int i = 0;
+      // The matrix indexes the frameworks of the results in the same order.
+      for (int f = 0; f < results.frameworks().size(); f++)
+        for (TestType testType : TEST_TYPES)
+          rps[i++] = matrix.rps(testType, f);
+
+      return new RunMatrix(
+          /* size= */ sidecar.resultsFileSize(),
+          /* lastModifiedTime= */ sidecar.resultsFileLastModifiedTime(),
+          /* startTime= */ results.startTime(),
+          /* commitId= */
+          (results.git() != null)
+              ? results.git().commitId()
+              : sidecar.backupCommitId(),
+          /* frameworkIds= */ frameworkIds.build(),
+          /* rps= */ rps);
+    }
+  }
+
+  /**
+   * The contents of this store as seen by readers.
+   */
+  private static final class Snapshot {
+    final ImmutableMap<String, Run> runsByFileName;
+    final ImmutableMap<Integer, Run> runsById;
+    final ImmutableMap<String, ImmutableMap<TestType, Series>> series;
+    final ImmutableSet<String> frameworks;
+    final ImmutableList<String> sortedFrameworks;
+
+    Snapshot(ImmutableMap<String, Run> runsByFileName,
+             ImmutableMap<Integer, Run> runsById,
+             ImmutableMap<String, ImmutableMap<TestType, Series>> series,
+             ImmutableSet<String> frameworks,
+             ImmutableList<String> sortedFrameworks) {
+
+      this.runsByFileName = Objects.requireNonNull(runsByFileName);
+      this.runsById = Objects.requireNonNull(runsById);
+      this.series = Objects.requireNonNull(series);
+      this.frameworks = Objects.requireNonNull(frameworks);
+      this.sortedFrameworks = Objects.requireNonNull(sortedFrameworks);
+    }
+  }
+
+  /**
+   * The mutable in-memory contents of this store.
+   */
+  private static final class Columns {
+    final Map<String, Run> runsByFileName = new HashMap<>();
+    final Map<Integer, Run> runsById = new HashMap<>();
+    final Map<String, EnumMap<TestType, Series>> series = new HashMap<>();
+
+    // The number of runs containing each framework.
+    final Multiset<String> frameworks = HashMultiset.create();
+
+    // Derived from the frameworks, and reset whenever they change.
+    @Nullable ImmutableList<String> sortedFrameworks;
+
+    int nextRunId;
+
+    /**
+     * Replaces the run for the specified results.zip file with the results in
+     * the provided matrix.
+     */
+    void put(String fileName, RunMatrix matrix) {
+      remove(fileName);
+
+      Long startTime = matrix.startTime;
+
+      var run =
+          new Run(
+              /* id= */ nextRunId++,
+              /* fileName= */ fileName,
+              /* size= */ matrix.size,
+              /* lastModifiedTime= */ matrix.lastModifiedTime,
+              /* commitId= */ matrix.commitId,
+              /* frameworkIds= */
+              // We could try to read the timestamp from somewhere else, but
+              // it's not worth the added complexity.
+              (startTime == null)
+                  ? ImmutableIntArray.of()
+                  : matrix.frameworkIds);
+
+      addRun(run);
+
+      if (startTime == null)
+        return;
+
+      int i = 0;
+      for (int f = 0; f < matrix.frameworkIds.length(); f++) {
+        String framework = FrameworkDictionary.name(matrix.frameworkIds.get(f));
+        for (TestType testType : TEST_TYPES) {
+          double rps = matrix.rps[i++];
+          if (rps != 0)
+            series(framework, testType).insert(startTime, rps, run.id());
+        }
+      }
+    }
+
+    void remove(String fileName) {
+      Run run = runsByFileName.remove(fileName);
+      if (run == null)
+        return;
+
+      runsById.remove(run.id());
+
+      run.frameworkIds().forEach(
+          id -> frameworks.remove(FrameworkDictionary.name(id)));
+
+      sortedFrameworks = null;
+
+      // The run only has data points in the series of its own frameworks.
+      for (int f = 0; f < run.frameworkIds().length(); f++) {
+        String framework = FrameworkDictionary.name(run.frameworkIds().get(f));
+        EnumMap<TestType, Series> seriesByTestType = series.get(framework);
+        if (seriesByTestType == null)
+          continue;
+
+        for (Map.Entry<TestType, Series> entry : seriesByTestType.entrySet()) {
+          Series s = entry.getValue();
+          if (s.containsRun(run.id())) {
+            s = modifiable(s);
+            s.removeRun(run.id());
+            entry.setValue(s);
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns an immutable snapshot of these columns, after which any series
+     * in the snapshot are copied before they are modified.
+     */
+    Snapshot snapshot() {
+      var snapshotSeries =
+          ImmutableMap.<String, ImmutableMap<TestType, Series>>builder();
+
+      series.forEach(
+          (framework, seriesByTestType) -> {
+            seriesByTestType.values().forEach(s -> s.isPublished = true);
+            snapshotSeries.put(framework,
+                               Maps.immutableEnumMap(seriesByTestType));
+          });
+
+      return new Snapshot(
+          /* runsByFileName= */ ImmutableMap.copyOf(runsByFileName),
+          /* runsById= */ ImmutableMap.copyOf(runsById),
+          /* series= */ snapshotSeries.buildOrThrow(),
+          /* frameworks= */ ImmutableSet.copyOf(frameworks.elementSet()),
+          /* sortedFrameworks= */ sortedFrameworks());
+    }
+
+    private ImmutableList<String> sortedFrameworks() {
+      ImmutableList<String> sorted = sortedFrameworks;
+      if (sorted == null) {
+        sorted =
+            frameworks.elementSet()
+                      .stream()
+                      .sorted(String.CASE_INSENSITIVE_ORDER)
+                      .collect(ImmutableList.toImmutableList());
+
+        sortedFrameworks = sorted;
+      }
+      return sorted;
+    }
+
+    /**
+     * Returns the specified series if it may be modified, or a copy of it
+     * otherwise.
+     */
+    private static Series modifiable(Series s) {
+      return s.isPublished ? s.copy() : s;
+    }
+
+    private void addRun(Run run) {
+      runsByFileName.put(run.fileName(), run);
+      runsById.put(run.id(), run);
+      run.frameworkIds().forEach(
+          id -> frameworks.add(FrameworkDictionary.name(id)));
+      sortedFrameworks = null;
+    }
+
+    private Series series(String framework, TestType testType) {
+      EnumMap<TestType, Series> seriesByTestType =
+          series.computeIfAbsent(framework,
+                                 f -> new EnumMap<>(TestType.class));
+
+      Series s = seriesByTestType.get(testType);
+      if (s == null || s.isPublished) {
+        s = (s == null) ? new Series() : s.copy();
+        seriesByTestType.put(testType, s);
+      }
+      return s;
+    }
+
+    /**
+     * Writes these columns in the persistent binary format.
+     */
+    void write(OutputStream outputStream) throws IOException {
+      var out = new DataOutputStream(new BufferedOutputStream(outputStream));
+
+      // Every framework name is written once, and is referred to elsewhere by
+      // its index in this table.
+      var frameworkTable = new ArrayList<String>();
+      var frameworkIndexes = new HashMap<String, Integer>();
+      for (String framework : frameworks.elementSet())
+        if (frameworkIndexes.putIfAbsent(framework,
+                                         frameworkTable.size()) == null)
+          frameworkTable.add(framework);
+
+      for (String framework : series.keySet())
+        if (frameworkIndexes.putIfAbsent(framework,
+                                         frameworkTable.size()) == null)
+          frameworkTable.add(framework);
+
+      out.writeInt(TIMELINE_FILE_VERSION);
+
+      out.writeInt(frameworkTable.size());
+      for (String framework : frameworkTable)
+        out.writeUTF(framework);
+
+      out.writeInt(runsByFileName.size());
+      for (Run run : runsByFileName.values()) {
+        out.writeInt(run.id());
+        out.writeUTF(run.fileName());
+        out.writeLong(run.size());
+        out.writeLong(run.lastModifiedTime().getEpochSecond());
+        out.writeInt(run.lastModifiedTime().getNano());
+        out.writeBoolean(run.commitId() != null);
+        if (run.commitId() != null)
+          out.writeUTF(run.commitId());
+
+        out.writeInt(run.frameworkIds().length());
+        for (int j = 0; j < run.frameworkIds().length(); j++)
+          out.writeInt(
+              frameworkIndexes.get(
+                  FrameworkDictionary.name(run.frameworkIds().get(j))));
+      }
+
+      int seriesCount = 0;
+      for (EnumMap<TestType, Series> seriesByTestType : series.values())
+        for (Series s : seriesByTestType.values())
+          if (s.size > 0)
+            seriesCount++;
+
+      out.writeInt(seriesCount);
+      for (Map.Entry<String, EnumMap<TestType, Series>> entry
+               : series.entrySet()) {
+
+        for (Map.Entry<TestType, Series> typeEntry
+                 : entry.getValue().entrySet()) {
+
+          Series s = typeEntry.getValue();
+          if (s.size == 0)
+            continue;
+
+          out.writeInt(frameworkIndexes.get(entry.getKey()));
+          out.writeUTF(typeEntry.getKey().serialize());
+          out.writeInt(s.size);
+          for (int i = 0; i < s.size; i++)
+            out.writeLong(s.startTimes[i]);
+          for (int i = 0; i < s.size; i++)
+            out.writeDouble(s.rps[i]);
+          for (int i = 0; i < s.size; i++)
+            out.writeInt(s.runIds[i]);
+        }
+      }
+
+      out.flush();
+    }
+
+    /**
+     * Reads columns that were written by {@link #write(OutputStream)}, or
+     * returns {@code null} if they were written in a different version of the
+     * format.
+     */
+    static @Nullable Columns read(InputStream inputStream) throws IOException {
+      var in = new DataInputStream(new BufferedInputStream(inputStream));
+
+      if (in.readInt() != TIMELINE_FILE_VERSION)
+        return null;
+
+      var frameworkTable = new String[in.readInt()];
+      for (int i = 0; i < frameworkTable.length; i++)
+        frameworkTable[i] = FrameworkDictionary.intern(in.readUTF());
+
+      var columns = new Columns();
+
+      int runCount = in.readInt();
+      for (int i = 0; i < runCount; i++) {
+        int id = in.readInt();
+        String fileName = in.readUTF();
+        long size = in.readLong();
+        Instant lastModifiedTime =
+            Instant.ofEpochSecond(in.readLong(), in.readInt());
+        String commitId = in.readBoolean() ? in.readUTF() : null;
+
+        var runFrameworkIds = ImmutableIntArray.builder();
+        int frameworkCount = in.readInt();
+        for (int j = 0; j < frameworkCount; j++)
+          runFrameworkIds.add(
+              FrameworkDictionary.id(frameworkTable[in.readInt()]));
+
+        columns.addRun(
+            new Run(
+                /* id= */ id,
+                /* fileName= */ fileName,
+                /* size= */ size,
+                /* lastModifiedTime= */ lastModifiedTime,
+                /* commitId= */ commitId,
+                /* frameworkIds= */ runFrameworkIds.build()));
+
+        columns.nextRunId = Math.max(columns.nextRunId, id + 1);
+      }
+
+      int seriesCount = in.readInt();
+      for (int i = 0; i < seriesCount; i++) {
+        String framework = frameworkTable[in.readInt()];
+        TestType testType = TestType.deserialize(in.readUTF());
+        int size = in.readInt();
+
+        var s = new Series();
+        s.startTimes = new long[size];
+        s.rps = new double[size];
+        s.runIds = new int[size];
+        s.size = size;
+
+        for (int j = 0; j < size; j++)
+          s.startTimes[j] = in.readLong();
+        for (int j = 0; j < size; j++)
+          s.rps[j] = in.readDouble();
+        for (int j = 0; j < size; j++)
+          s.runIds[j] = in.readInt();
+
+        // Ignore series for test types that no longer exist.
+        if (testType != null && size > 0)
+          columns.series.computeIfAbsent(framework,
+                                         f -> new EnumMap<>(TestType.class))
+                        .put(testType, s);
+      }
+
+      return columns;
+    }
+  }
+
+  /**
+   * The name of the file within the {@linkplain FileStore#cacheDirectory()
+   * cache directory} where this store is persisted.
+   */
+  @VisibleForTesting
+  static final String TIMELINE_FILE_NAME = "timeline.bin";
+
+  /**
+   * The version of the persistent file format.  Increment this number whenever
+   * the format changes or whenever the contents of the store would be
+   * computed differently.
+   */
+  private static final int TIMELINE_FILE_VERSION = 1;
+
+  /**
+   * How often to reconcile the store with the results directory, in case
+   * results.zip files are added or removed without being uploaded.
+   */
+  private static final Duration RESCAN_INTERVAL = Duration.ofMinutes(5);
+
+  /**
+   * How long to wait after the store is modified before writing it to disk,
+   * allowing many modifications to be written at once.
+   */
+  private static final Duration TIMELINE_FILE_WRITE_DELAY =
+      Duration.ofSeconds(10);
+
+  private static final int INITIAL_SERIES_CAPACITY = 8;
+
+  /**
+   * The maximum number of results.zip files whose matrices are cached.  The
+   * matrices of all the files are already reflected in the columns of this
+   * store, so this cache only needs to cover files that change at once.
+   */
+  private static final int MATRIX_CACHE_MAX_SIZE = 256;
+
+  private static final ImmutableList<TestType> TEST_TYPES =
+      ImmutableList.copyOf(TestType.values());
+}
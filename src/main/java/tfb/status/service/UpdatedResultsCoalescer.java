@@ -0,0 +1,110 @@
+package tfb.status.service;
+
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import org.glassfish.hk2.api.messaging.Topic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tfb.status.config.UpdatedResultsConfig;
+import tfb.status.view.UpdatedResultsEvent;
+
+/**
+ * Publishes {@link UpdatedResultsEvent}s to the {@link Topic} of those events,
+ * coalescing bursts of events for the same results.
+ *
+ * <p>A TFB run uploads its results repeatedly as frameworks complete, and each
+ * subscriber to the topic does a fair amount of work per event.  When an event
+ * is published here, it is held for the {@linkplain
+ * UpdatedResultsConfig#debounceMillis() debounce window} before it is
+ * published to the topic.  Further events for the same results that arrive
+ * during that window replace the held event instead of being published
+ * themselves, so the subscribers see at most one event per window for any
+ * given results.
+ */
+@Singleton
+public final class UpdatedResultsCoalescer {
+  private final UpdatedResultsConfig config;
+  private final Topic<UpdatedResultsEvent> updatedResultsTopic;
+  private final TaskScheduler taskScheduler;
+  private final AtomicLong collapsedEventCount = new AtomicLong(0);
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  // The latest unpublished event for each uuid.
+  @GuardedBy("this")
+  private final Map<String, UpdatedResultsEvent> pendingEvents =
+      new HashMap<>();
+
+  @Inject
+  public UpdatedResultsCoalescer(UpdatedResultsConfig config,
+                                 Topic<UpdatedResultsEvent> updatedResultsTopic,
+                                 TaskScheduler taskScheduler) {
+
+    this.config = Objects.requireNonNull(config);
+    this.updatedResultsTopic = Objects.requireNonNull(updatedResultsTopic);
+    this.taskScheduler = Objects.requireNonNull(taskScheduler);
+  }
+
+  /**
+   * Publishes the specified event to the topic once the debounce window for
+   * its results has elapsed, unless the window is zero, in which case the
+   * event is published immediately.
+   */
+  public void publish(UpdatedResultsEvent event) {
+    Objects.requireNonNull(event);
+
+    if (config.debounceMillis() <= 0) {
+      updatedResultsTopic.publish(event);
+      return;
+    }
+
+    synchronized (this) {
+      UpdatedResultsEvent previous = pendingEvents.put(event.uuid(), event);
+      if (previous != null) {
+        collapsedEventCount.incrementAndGet();
+        logger.debug("Collapsed updated results event for uuid {}",
+                     event.uuid());
+        return;
+      }
+    }
+
+    taskScheduler.schedule(
+        () -> publishPendingEvent(event.uuid()),
+        Duration.ofMillis(config.debounceMillis()));
+  }
+
+  private void publishPendingEvent(String uuid) {
+    Objects.requireNonNull(uuid);
+
+    UpdatedResultsEvent event;
+    synchronized (this) {
+      event = pendingEvents.remove(uuid);
+    }
+
+    if (event == null)
+      return;
+
+    updatedResultsTopic.publish(event);
+
+    // This is logged at most once per debounce window for any given results,
+    // which is rarely enough to keep an eye on how much we are coalescing.
+    logger.info(
+        "Published updated results event for uuid {}, "
+            + "{} events collapsed since startup",
+        uuid,
+        collapsedEventCount());
+  }
+
+  /**
+   * Returns the number of events that were not published to the topic because
+   * a later event for the same results replaced them.
+   */
+  public long collapsedEventCount() {
+    return collapsedEventCount.get();
+  }
+}
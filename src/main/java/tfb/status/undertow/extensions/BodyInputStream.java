@@ -0,0 +1,203 @@
+package tfb.status.undertow.extensions;
+
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import io.undertow.server.HttpServerExchange;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import tfb.status.undertow.extensions.RequestBodyFileHandler.BodyObserver;
+
+/**
+ * An input stream of a request body that is being received by a {@link
+ * RequestBodyFileHandler}, which allows the body to be parsed on another thread
+ * while it is being received.
+ *
+ * <p>This stream holds a bounded number of received bytes in memory that have
+ * not been read yet.  Once that limit is reached, the receiver of a
+ * non-blocking exchange is {@linkplain io.undertow.io.Receiver#pause() paused}
+ * until enough of those bytes have been read, and the receiving thread of a
+ * blocking exchange waits instead.  The receiver is paused after the chunks
+ * that it has already read from the connection are observed, so the limit may
+ * be exceeded by that many bytes.
+ *
+ * <p>Once this stream is closed, the remainder of the body is no longer
+ * buffered, but it is still saved to the file.
+ */
+public final class BodyInputStream extends InputStream
+    implements BodyObserver {
+
+  private final HttpServerExchange exchange;
+  private final int maxBufferedBytes;
+
+  @GuardedBy("this")
+  private final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+
+  @GuardedBy("this")
+  private int bufferedBytes = 0;
+
+  @GuardedBy("this")
+  private boolean isPaused = false;
+
+  @GuardedBy("this")
+  private boolean isEnded = false;
+
+  @GuardedBy("this")
+  private boolean isClosed = false;
+
+  @GuardedBy("this")
+  private @Nullable IOException error;
+
+  /**
+   * Constructs a new input stream of the body of the specified exchange.
+   *
+   * @param exchange the exchange whose body is being received
+   * @param maxBufferedBytes the maximum number of received bytes to hold in
+   *        memory before pausing the receiver
+   * @throws IllegalArgumentException if {@code maxBufferedBytes} is not
+   *         positive
+   */
+  public BodyInputStream(HttpServerExchange exchange, int maxBufferedBytes) {
+    if (maxBufferedBytes <= 0)
+      throw new IllegalArgumentException(
+          "maxBufferedBytes must be positive, but it was " + maxBufferedBytes);
+
+    this.exchange = Objects.requireNonNull(exchange);
+    this.maxBufferedBytes = maxBufferedBytes;
+  }
+
+  @Override
+  public synchronized void onChunk(byte[] bytes, int length) {
+    Objects.requireNonNull(bytes);
+
+    if (exchange.isBlocking()) {
+      while (!isClosed
+             && error == null
+             && bufferedBytes >= maxBufferedBytes) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          onError(new InterruptedIOException());
+        }
+      }
+    }
+
+    if (isClosed || isEnded || error != null)
+      return;
+
+    chunks.add(ByteBuffer.wrap(Arrays.copyOf(bytes, length)));
+    bufferedBytes += length;
+
+    if (bufferedBytes >= maxBufferedBytes
+        && !isPaused
+        && !exchange.isBlocking()) {
+      // Pausing the receiver before the handler of the exchange has returned
+      // would end the exchange, so pause it once the chunks that the I/O
+      // thread is currently reading have been observed.
+      isPaused = true;
+      exchange.getIoThread().execute(
+          () -> exchange.getRequestReceiver().pause());
+    }
+
+    notifyAll();
+  }
+
+  @Override
+  public synchronized void onEnd() {
+    isEnded = true;
+    notifyAll();
+  }
+
+  @Override
+  public synchronized void onError(IOException e) {
+    Objects.requireNonNull(e);
+
+    if (isEnded || error != null)
+      return;
+
+    error = e;
+    notifyAll();
+  }
+
+  @Override
+  public int read() throws IOException {
+    var b = new byte[1];
+    int n = read(b, 0, 1);
+    return (n == -1) ? -1 : Byte.toUnsignedInt(b[0]);
+  }
+
+  @Override
+  public synchronized int read(byte[] b, int off, int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, b.length);
+
+    if (len == 0)
+      return 0;
+
+    while (chunks.isEmpty()) {
+      if (isClosed)
+        throw new IOException("Stream closed");
+
+      if (error != null)
+        throw new IOException("The request body was not received", error);
+
+      if (isEnded)
+        return -1;
+
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+    }
+
+    ByteBuffer chunk = chunks.element();
+    int n = Math.min(len, chunk.remaining());
+    chunk.get(b, off, n);
+    if (!chunk.hasRemaining())
+      chunks.remove();
+
+    bufferedBytes -= n;
+    resumeIfDrained();
+    return n;
+  }
+
+  @Override
+  public synchronized int available() throws IOException {
+    if (isClosed)
+      throw new IOException("Stream closed");
+
+    return bufferedBytes;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (isClosed)
+      return;
+
+    isClosed = true;
+    chunks.clear();
+    bufferedBytes = 0;
+    resumeIfDrained();
+  }
+
+  @GuardedBy("this")
+  private void resumeIfDrained() {
+    notifyAll();
+
+    if (!isPaused || bufferedBytes > maxBufferedBytes / 2)
+      return;
+
+    // The receiver is paused by a task on the I/O thread, so resuming it with
+    // another task on that thread guarantees that it is resumed after it was
+    // paused.
+    isPaused = false;
+    exchange.getIoThread().execute(
+        () -> exchange.getRequestReceiver().resume());
+  }
+}
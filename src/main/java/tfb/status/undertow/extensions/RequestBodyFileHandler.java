@@ -0,0 +1,319 @@
+package tfb.status.undertow.extensions;
+
+import static io.undertow.util.StatusCodes.INTERNAL_SERVER_ERROR;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.google.errorprone.annotations.Immutable;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.BlockingHandler;
+import io.undertow.util.AttachmentKey;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Saves the body of each request to a file without occupying a worker thread
+ * while the body is being received, then invokes another handler on a worker
+ * thread once the entire body has been saved.
+ *
+ * <p>The body is read using the exchange's {@linkplain
+ * HttpServerExchange#getRequestReceiver() asynchronous receiver}, and each
+ * chunk is written to a {@link FileChannel} on the I/O thread as it arrives.
+ * This means that a slow client uploading a large file does not tie up a
+ * worker thread for the duration of the upload.  That is only true when the
+ * exchange is not already {@linkplain HttpServerExchange#startBlocking()
+ * blocking}, because the receiver of a blocking exchange reads the body
+ * synchronously.
+ *
+ * <p>The next handler is invoked in blocking mode, so it may use blocking
+ * operations such as {@link HttpServerExchange#getOutputStream()}.
+ *
+ * <p>The next handler reads the {@link ReceivedFile} from the {@link
+ * #RECEIVED_FILE} attachment of the exchange.  The file is deleted when the
+ * exchange completes, so the next handler must move the file elsewhere if it
+ * wants to keep it.
+ *
+ * <p>The next handler must not read the request body from the exchange.
+ *
+ * <p>A {@link BodyObserver} may also be given each chunk of the body as it is
+ * saved, which allows the body to be parsed while it is being received rather
+ * than read back from the file by the next handler.  See {@link
+ * BodyInputStream}.
+ */
+public final class RequestBodyFileHandler implements HttpHandler {
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final FileFactory fileFactory;
+  private final BodyObserverFactory observerFactory;
+  private final long maxBytes;
+  private final HttpHandler next;
+  private final HttpHandler blockingNext;
+
+  /**
+   * Constructs a new HTTP handler that saves request bodies to files.
+   *
+   * @param fileFactory creates a new, empty file for each request body
+   * @param maxBytes the maximum number of bytes to be written to the file,
+   *        after which the remainder of the request body is discarded and
+   *        {@link ReceivedFile#isTruncated()} is {@code true}
+   * @param next the handler to be invoked once the body has been saved
+   * @throws IllegalArgumentException if {@code maxBytes} is negative
+   */
+  public RequestBodyFileHandler(FileFactory fileFactory,
+                                long maxBytes,
+                                HttpHandler next) {
+
+    this(
+        /* fileFactory= */ fileFactory,
+        /* observerFactory= */ exchange -> null,
+        /* maxBytes= */ maxBytes,
+        /* next= */ next);
+  }
+
+  /**
+   * Constructs a new HTTP handler that saves request bodies to files and
+   * passes them to observers as they are saved.
+   *
+   * @param fileFactory creates a new, empty file for each request body
+   * @param observerFactory creates the observer of each request body
+   * @param maxBytes the maximum number of bytes to be written to the file,
+   *        after which the remainder of the request body is discarded and
+   *        {@link ReceivedFile#isTruncated()} is {@code true}
+   * @param next the handler to be invoked once the body has been saved
+   * @throws IllegalArgumentException if {@code maxBytes} is negative
+   */
+  public RequestBodyFileHandler(FileFactory fileFactory,
+                                BodyObserverFactory observerFactory,
+                                long maxBytes,
+                                HttpHandler next) {
+
+    if (maxBytes < 0)
+      throw new IllegalArgumentException(
+          "maxBytes must not be negative, but it was " + maxBytes);
+
+    this.fileFactory = Objects.requireNonNull(fileFactory);
+    this.observerFactory = Objects.requireNonNull(observerFactory);
+    this.maxBytes = maxBytes;
+    this.next = Objects.requireNonNull(next);
+    this.blockingNext = new BlockingHandler(next);
+  }
+
+  /**
+   * Creates the file that receives a request body.
+   */
+  @FunctionalInterface
+  public interface FileFactory {
+    /**
+     * Creates a new, empty file.
+     *
+     * @throws IOException if an I/O error occurs while creating the file
+     */
+    Path newFile() throws IOException;
+  }
+
+  /**
+   * Observes the chunks of one request body as they are saved to a file.
+   *
+   * <p>The chunks are observed on the thread that receives the body, which is
+   * an I/O thread unless the exchange is blocking, so an observer must not
+   * block unless the exchange is blocking.
+   */
+  public interface BodyObserver {
+    /**
+     * Observes the next chunk of the body.  Only the bytes that are written to
+     * the file are observed.  The array may be reused once this method
+     * returns.
+     *
+     * @param bytes an array containing the chunk
+     * @param length the number of bytes at the start of the array that belong
+     *        to the chunk
+     */
+    void onChunk(byte[] bytes, int length);
+
+    /**
+     * Observes the end of the body, after every chunk has been observed.
+     */
+    void onEnd();
+
+    /**
+     * Observes that the body could not be received in full.  This may be
+     * invoked on any thread, and it may be invoked after {@link #onEnd()} or
+     * more than once, in which case it should be ignored.
+     *
+     * @param e the reason that the body could not be received
+     */
+    void onError(IOException e);
+  }
+
+  /**
+   * Creates the observer of a request body.
+   */
+  @FunctionalInterface
+  public interface BodyObserverFactory {
+    /**
+     * Returns the observer of the body of the specified exchange, or {@code
+     * null} if the body should not be observed.  The factory may attach the
+     * observer, or anything derived from it, to the exchange for the next
+     * handler to read.
+     *
+     * @throws IOException if an I/O error occurs while creating the observer
+     */
+    @Nullable BodyObserver newObserver(HttpServerExchange exchange)
+        throws IOException;
+  }
+
+  /**
+   * A request body that was saved to a file.
+   *
+   * @param file the file containing the request body
+   * @param size the number of bytes in the file
+   * @param isTruncated {@code true} if the request body was larger than the
+   *        maximum size, in which case the file contains only the first bytes
+   *        of the request body
+   */
+  @Immutable
+  public record ReceivedFile(Path file, long size, boolean isTruncated) {
+
+    public ReceivedFile {
+      Objects.requireNonNull(file);
+    }
+  }
+
+  /**
+   * The attachment containing the saved request body, which is available to
+   * the next handler.
+   */
+  public static final AttachmentKey<ReceivedFile> RECEIVED_FILE =
+      AttachmentKey.create(ReceivedFile.class);
+
+  @Override
+  public void handleRequest(HttpServerExchange exchange) throws IOException {
+    BodyObserver observer = observerFactory.newObserver(exchange);
+
+    // Let the observer know if the body is never received in full, including
+    // when the file cannot be created.
+    if (observer != null)
+      exchange.addExchangeCompleteListener(
+          (completedExchange, nextListener) -> {
+            try {
+              observer.onError(
+                  new IOException(
+                      "The exchange completed before the request body was "
+                          + "received"));
+            } finally {
+              nextListener.proceed();
+            }
+          });
+
+    Path file = fileFactory.newFile();
+
+    // Clean up after the next handler no matter how the exchange ends.
+    exchange.addExchangeCompleteListener(
+        (completedExchange, nextListener) -> {
+          try {
+            Files.deleteIfExists(file);
+          } catch (IOException e) {
+            logger.warn("Error deleting request body file {}", file, e);
+          } finally {
+            nextListener.proceed();
+          }
+        });
+
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(file, WRITE);
+    } catch (IOException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+
+    var receiver = new Receiver(file, channel, observer);
+
+    exchange.getRequestReceiver().receivePartialBytes(
+        (receivingExchange, bytes, last) -> receiver.onBytes(receivingExchange,
+                                                             bytes,
+                                                             last),
+        (receivingExchange, e) -> receiver.onError(receivingExchange, e));
+  }
+
+  /**
+   * The state of one request body as it is being received.  The methods of
+   * this class are invoked on an I/O thread, one at a time.
+   */
+  private final class Receiver {
+    private final Path file;
+    private final FileChannel channel;
+    private final @Nullable BodyObserver observer;
+    private long size = 0;
+    private boolean isTruncated = false;
+
+    Receiver(Path file, FileChannel channel, @Nullable BodyObserver observer) {
+      this.file = Objects.requireNonNull(file);
+      this.channel = Objects.requireNonNull(channel);
+      this.observer = observer;
+    }
+
+    void onBytes(HttpServerExchange exchange, byte[] bytes, boolean last) {
+      try {
+        int length = (int) Math.min(bytes.length, maxBytes - size);
+        if (length < bytes.length)
+          isTruncated = true;
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining())
+          channel.write(buffer);
+
+        size += length;
+
+        if (observer != null && length > 0)
+          observer.onChunk(bytes, length);
+
+        if (!last)
+          return;
+
+        channel.close();
+
+        if (observer != null)
+          observer.onEnd();
+      } catch (IOException e) {
+        onError(exchange, e);
+        return;
+      }
+
+      exchange.putAttachment(
+          RECEIVED_FILE,
+          new ReceivedFile(
+              /* file= */ file,
+              /* size= */ size,
+              /* isTruncated= */ isTruncated));
+
+      exchange.dispatch(
+          exchange.getConnection().getWorker(),
+          exchange.isBlocking() ? next : blockingNext);
+    }
+
+    void onError(HttpServerExchange exchange, IOException e) {
+      try {
+        channel.close();
+      } catch (IOException closeException) {
+        e.addSuppressed(closeException);
+      }
+
+      if (observer != null)
+        observer.onError(e);
+
+      logger.warn("Error receiving request body into file {}", file, e);
+
+      if (!exchange.isResponseStarted())
+        exchange.setStatusCode(INTERNAL_SERVER_ERROR);
+
+      exchange.endExchange();
+    }
+  }
+}
@@ -1,12 +1,17 @@
 package tfb.status.undertow.extensions;
 
+import static io.undertow.util.Headers.ACCEPT_ENCODING;
+
+import com.google.common.base.Splitter;
 import com.google.common.collect.Iterables;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.RoutingHandler;
 import io.undertow.server.handlers.PathTemplateHandler;
+import io.undertow.util.HeaderValues;
 import io.undertow.util.PathTemplateMatch;
 import io.undertow.util.PathTemplateMatcher;
 import java.util.Deque;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -107,4 +112,60 @@ public final class RequestValues {
     String value = match.getParameters().get(parameterName);
     return Optional.ofNullable(value);
   }
+
+  /**
+   * Returns {@code true} if the {@code Accept-Encoding} header of the request
+   * allows the specified content coding, either by naming it or by naming
+   * {@code *}, with a non-zero quality value.
+   *
+   * @param exchange the HTTP request/response
+   * @param contentCoding the content coding, such as "gzip"
+   * @return {@code true} if the client accepts responses in that content
+   *         coding
+   */
+  public static boolean acceptsContentCoding(HttpServerExchange exchange,
+                                             String contentCoding) {
+    Objects.requireNonNull(exchange);
+    Objects.requireNonNull(contentCoding);
+
+    HeaderValues values = exchange.getRequestHeaders().get(ACCEPT_ENCODING);
+    if (values == null)
+      return false;
+
+    Double codingQuality = null;
+    Double wildcardQuality = null;
+
+    for (String value : values) {
+      for (String element : Splitter.on(',').trimResults().omitEmptyStrings()
+                                    .split(value)) {
+
+        List<String> parts =
+            Splitter.on(';').trimResults().splitToList(element);
+
+        String coding = parts.get(0);
+
+        double quality = 1;
+        for (String parameter : parts.subList(1, parts.size())) {
+          if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+            try {
+              quality = Double.parseDouble(parameter.substring(2));
+            } catch (NumberFormatException ignored) {
+              quality = 0;
+            }
+          }
+        }
+
+        if (coding.equalsIgnoreCase(contentCoding))
+          codingQuality = quality;
+        else if (coding.equals("*"))
+          wildcardQuality = quality;
+      }
+    }
+
+    // A coding that is named explicitly takes precedence over the wildcard.
+    if (codingQuality != null)
+      return codingQuality > 0;
+
+    return wildcardQuality != null && wildcardQuality > 0;
+  }
 }
@@ -0,0 +1,444 @@
+package tfb.status.util;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import tfb.status.util.ZipEntryIndex.FileEntry;
+import tfb.status.util.ZipFiles.ZipEntryBufferConsumer;
+
+/**
+ * Reads the contents of regular file entries directly from a zip file, using
+ * the locations recorded in the zip file's {@linkplain ZipEntryIndex central
+ * directory}.
+ *
+ * <p>The data of each entry is memory-mapped when the zip file's file system
+ * supports it.  Entries that are {@linkplain ZipEntry#STORED stored} are
+ * passed along as slices of the mapped data, without being copied.  Entries
+ * that are {@linkplain ZipEntry#DEFLATED deflated} are inflated into pooled
+ * direct buffers.  When the zip file cannot be memory-mapped, the data is read
+ * into pooled direct buffers instead.  The contents of entries may also be
+ * read as streams, which read the zip file directly without memory mapping.
+ *
+ * <p>A mapping can't be released explicitly, and it remains in place until
+ * its buffer is garbage collected.  To bound the mappings that may be waiting
+ * for garbage collection, each reader maps at most {@link #MAX_MAPPED_BYTES}
+ * in total, and the data of entries beyond that limit, including any single
+ * entry larger than the limit, is read into pooled direct buffers instead.
+ *
+ * <p>The contents of deflated entries are never inflated beyond the size
+ * recorded in the central directory.  Entries that would exceed that size are
+ * rejected as soon as they do.
+ *
+ * <p>Instances of this class are not safe for use by multiple threads.
+ */
+final class MappedZipReader implements Closeable {
+  private final FileChannel channel;
+
+  // Reused for every deflated entry read by this reader.
+  private @Nullable Inflater inflater;
+
+  // Set when the file system of the zip file does not support memory mapping,
+  // such as an in-memory file system.
+  private boolean mappingUnsupported;
+
+  // The total size of the regions mapped by this reader.
+  private long mappedBytes;
+
+  private MappedZipReader(FileChannel channel) {
+    this.channel = Objects.requireNonNull(channel);
+  }
+
+  /**
+   * Opens the provided zip file for reading.
+   *
+   * @param zipFile the zip file
+   * @return a reader for the zip file, which must be closed by the caller
+   * @throws IOException if an I/O error occurs while opening the zip file
+   */
+  static MappedZipReader open(Path zipFile) throws IOException {
+    Objects.requireNonNull(zipFile);
+    return new MappedZipReader(FileChannel.open(zipFile, READ));
+  }
+
+  /**
+   * Returns {@code true} if this reader is able to read the data of the
+   * provided entry.  Encrypted entries and entries using compression methods
+   * other than {@link ZipEntry#STORED} and {@link ZipEntry#DEFLATED} are not
+   * supported.
+   */
+  static boolean isSupported(FileEntry entry) {
+    Objects.requireNonNull(entry);
+    return !entry.isEncrypted()
+        && (entry.method() == ZipEntry.STORED
+            || entry.method() == ZipEntry.DEFLATED);
+  }
+
+  /**
+   * Passes the contents of the provided entry to the provided consumer, in
+   * order, in one or more buffers.
+   *
+   * @param entry the entry to be read, which must be {@linkplain
+   *        #isSupported(FileEntry) supported}
+   * @param consumer the consumer of the entry's contents
+   * @throws IOException if an I/O error occurs while reading the zip file, if
+   *         the entry's data is malformed, or if the consumer throws an
+   *         exception
+   */
+  void transfer(FileEntry entry, ZipEntryBufferConsumer consumer)
+      throws IOException {
+
+    Objects.requireNonNull(entry);
+    Objects.requireNonNull(consumer);
+
+    if (!isSupported(entry))
+      throw new ZipException("Unsupported zip entry: " + entry);
+
+    long dataOffset = dataOffset(entry);
+    ByteBuffer mapped = map(dataOffset, entry.compressedSize());
+
+    if (entry.method() == ZipEntry.STORED) {
+      if (mapped != null)
+        consumer.accept(mapped);
+      else
+        transferStored(dataOffset, entry.compressedSize(), consumer);
+    } else {
+      long inflatedSize = transferDeflated(mapped, dataOffset, entry, consumer);
+      if (inflatedSize != entry.uncompressedSize())
+        throw new ZipException(
+            "Expected "
+                + entry.uncompressedSize()
+                + " bytes from zip entry but found "
+                + inflatedSize);
+    }
+  }
+
+  /**
+   * Returns a stream of the contents of the provided entry.  The stream reads
+   * from this reader, so it must be closed before this reader is closed.
+   *
+   * @param entry the entry to be read, which must be {@linkplain
+   *        #isSupported(FileEntry) supported}
+   * @return a stream of the entry's contents
+   * @throws IOException if an I/O error occurs while reading the zip file or
+   *         if the entry's local header is malformed
+   */
+  InputStream newInputStream(FileEntry entry) throws IOException {
+    Objects.requireNonNull(entry);
+
+    if (!isSupported(entry))
+      throw new ZipException("Unsupported zip entry: " + entry);
+
+    long dataOffset = dataOffset(entry);
+    InputStream data =
+        new RegionInputStream(dataOffset, dataOffset + entry.compressedSize());
+
+    if (entry.method() == ZipEntry.STORED)
+      return data;
+
+    // See the documentation for Inflater(boolean), regarding the "nowrap"
+    // option.
+    InputStream paddedData =
+        new SequenceInputStream(data, new ByteArrayInputStream(new byte[1]));
+
+    var inflater = new Inflater(/* nowrap= */ true);
+    return new InflaterInputStream(paddedData, inflater, 8192) {
+      private long inflatedSize = 0;
+
+      @Override
+      public int read(byte[] bytes, int offset, int length)
+          throws IOException {
+
+        int bytesRead = super.read(bytes, offset, length);
+        if (bytesRead > 0) {
+          inflatedSize += bytesRead;
+          checkInflatedSize(entry, inflatedSize);
+        }
+        return bytesRead;
+      }
+
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          inflater.end();
+        }
+      }
+    };
+  }
+
+  /**
+   * A stream of the bytes in one region of the zip file.
+   */
+  private final class RegionInputStream extends InputStream {
+    private long position;
+    private final long end;
+
+    RegionInputStream(long position, long end) {
+      this.position = position;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] bytes = new byte[1];
+      return (read(bytes, 0, 1) == -1) ? -1 : (bytes[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      Objects.checkFromIndexSize(offset, length, bytes.length);
+
+      if (position >= end)
+        return -1;
+
+      if (length == 0)
+        return 0;
+
+      ByteBuffer buffer =
+          ByteBuffer.wrap(
+              bytes,
+              offset,
+              (int) Math.min(length, end - position));
+
+      int bytesRead = channel.read(buffer, position);
+      if (bytesRead == -1)
+        throw new ZipException("Unexpected end of zip file");
+
+      position += bytesRead;
+      return bytesRead;
+    }
+  }
+
+  /**
+   * Returns the position of the provided entry's data, which follows the
+   * entry's local header.  The local header may have different extra fields
+   * than the entry in the central directory.
+   */
+  private long dataOffset(FileEntry entry) throws IOException {
+    ByteBuffer localHeader =
+        ZipEntryIndex.readFully(
+            channel,
+            entry.localHeaderOffset(),
+            LOCAL_HEADER_SIZE);
+
+    if (localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE)
+      throw new ZipException("Invalid local header for zip entry");
+
+    int nameLength = localHeader.getShort(26) & 0xFFFF;
+    int extraLength = localHeader.getShort(28) & 0xFFFF;
+
+    long dataOffset =
+        entry.localHeaderOffset()
+            + LOCAL_HEADER_SIZE
+            + nameLength
+            + extraLength;
+
+    if (dataOffset + entry.compressedSize() > channel.size())
+      throw new ZipException("Zip entry extends beyond the end of the file");
+
+    return dataOffset;
+  }
+
+  /**
+   * Memory-maps the specified region of the zip file, or returns {@code null}
+   * if the zip file cannot be memory-mapped or if mapping the region would
+   * exceed {@link #MAX_MAPPED_BYTES}.
+   */
+  private @Nullable ByteBuffer map(long position, long size)
+      throws IOException {
+
+    if (mappingUnsupported || size > MAX_MAPPED_BYTES - mappedBytes)
+      return null;
+
+    ByteBuffer mapped;
+    try {
+      mapped = channel.map(READ_ONLY, position, size);
+    } catch (UnsupportedOperationException e) {
+      mappingUnsupported = true;
+      return null;
+    }
+
+    mappedBytes += size;
+    return mapped;
+  }
+
+  private void transferStored(long position,
+                              long size,
+                              ZipEntryBufferConsumer consumer)
+      throws IOException {
+
+    ByteBuffer buffer = acquireBuffer();
+    try {
+      long remaining = size;
+      while (remaining > 0) {
+        buffer.clear();
+        fill(buffer, position + size - remaining, remaining);
+        remaining -= buffer.remaining();
+        consumer.accept(buffer);
+      }
+    } finally {
+      releaseBuffer(buffer);
+    }
+  }
+
+  private long transferDeflated(@Nullable ByteBuffer mapped,
+                                long dataOffset,
+                                FileEntry entry,
+                                ZipEntryBufferConsumer consumer)
+      throws IOException {
+
+    Inflater inflater = this.inflater;
+    if (inflater == null)
+      this.inflater = inflater = new Inflater(/* nowrap= */ true);
+    else
+      inflater.reset();
+
+    boolean pooledInput = (mapped == null);
+    ByteBuffer input = (mapped == null) ? acquireBuffer().limit(0) : mapped;
+    ByteBuffer output = acquireBuffer();
+    try {
+      long compressedRemaining =
+          (mapped == null) ? entry.compressedSize() : 0;
+
+      inflater.setInput(input);
+
+      boolean suppliedDummyByte = false;
+      long inflatedSize = 0;
+      while (!inflater.finished()) {
+        if (inflater.needsInput()) {
+          if (compressedRemaining > 0) {
+            input.clear();
+            fill(input,
+                 dataOffset + entry.compressedSize() - compressedRemaining,
+                 compressedRemaining);
+            compressedRemaining -= input.remaining();
+            inflater.setInput(input);
+          } else if (!suppliedDummyByte) {
+            // See the documentation for Inflater(boolean), regarding the
+            // "nowrap" option.
+            suppliedDummyByte = true;
+            inflater.setInput(new byte[1]);
+          } else {
+            throw new ZipException("Unexpected end of zip entry data");
+          }
+        }
+
+        if (inflater.needsDictionary())
+          throw new ZipException("Unsupported zip entry data");
+
+        try {
+          inflatedSize += inflater.inflate(output);
+        } catch (DataFormatException e) {
+          throw new ZipException(e.getMessage());
+        }
+
+        checkInflatedSize(entry, inflatedSize);
+
+        if (!output.hasRemaining()
+            || (inflater.finished() && output.position() > 0)) {
+          output.flip();
+          consumer.accept(output);
+          output.clear();
+        }
+      }
+
+      return inflatedSize;
+    } finally {
+      if (pooledInput)
+        releaseBuffer(input);
+      releaseBuffer(output);
+    }
+  }
+
+  /**
+   * Throws an exception if the contents of the provided entry have been
+   * inflated beyond the size recorded in the central directory, so that
+   * malformed or malicious entries are not inflated any further.
+   */
+  private static void checkInflatedSize(FileEntry entry, long inflatedSize)
+      throws ZipException {
+
+    if (inflatedSize > entry.uncompressedSize())
+      throw new ZipException(
+          "Zip entry inflated beyond its expected size of "
+              + entry.uncompressedSize()
+              + " bytes");
+  }
+
+  /**
+   * Reads at most {@code limit} bytes from the zip file into the provided
+   * buffer, starting at the specified position, until the buffer is full, then
+   * flips the buffer.
+   */
+  private void fill(ByteBuffer buffer, long position, long limit)
+      throws IOException {
+
+    if (limit < buffer.remaining())
+      buffer.limit(buffer.position() + (int) limit);
+
+    long nextPosition = position;
+    while (buffer.hasRemaining()) {
+      int bytesRead = channel.read(buffer, nextPosition);
+      if (bytesRead == -1)
+        throw new ZipException("Unexpected end of zip file");
+
+      nextPosition += bytesRead;
+    }
+
+    buffer.flip();
+  }
+
+  @Override
+  public void close() throws IOException {
+    Inflater inflater = this.inflater;
+    if (inflater != null) {
+      this.inflater = null;
+      inflater.end();
+    }
+
+    channel.close();
+  }
+
+  private static ByteBuffer acquireBuffer() {
+    ByteBuffer buffer = BUFFER_POOL.poll();
+    if (buffer == null)
+      buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    return buffer.clear();
+  }
+
+  private static void releaseBuffer(ByteBuffer buffer) {
+    // When the pool is full, let the buffer be garbage collected.
+    BUFFER_POOL.offer(buffer);
+  }
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * The maximum number of bytes of the zip file that one reader may map.
+   */
+  private static final long MAX_MAPPED_BYTES = 32 * 1024 * 1024;
+
+  private static final ArrayBlockingQueue<ByteBuffer> BUFFER_POOL =
+      new ArrayBlockingQueue<>(16);
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+}
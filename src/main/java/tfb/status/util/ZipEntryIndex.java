@@ -0,0 +1,359 @@
+package tfb.status.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.errorprone.annotations.Immutable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.ZipException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An index of the entries in a zip file, read directly from the zip file's
+ * central directory, that maps every trailing sequence of names in every
+ * entry's path to an entry having that path.
+ *
+ * <p>For example, the entry "a/b/results.json" is indexed under
+ * "results.json", "b/results.json", and "a/b/results.json".  Directories that
+ * are only implied by the paths of other entries, such as "a" and "a/b" in this
+ * example, are indexed as well.  The empty string maps to the root directory.
+ * The immediate children of every directory are recorded as well, so that
+ * directories may be listed without opening the zip file.
+ */
+@Immutable
+final class ZipEntryIndex {
+  private final ImmutableMap<String, String> entriesBySuffix;
+  private final ImmutableMap<String, FileEntry> fileEntries;
+  private final ImmutableSetMultimap<String, String> childrenByDirectory;
+
+  private ZipEntryIndex(
+      ImmutableMap<String, String> entriesBySuffix,
+      ImmutableMap<String, FileEntry> fileEntries,
+      ImmutableSetMultimap<String, String> childrenByDirectory) {
+
+    this.entriesBySuffix = Objects.requireNonNull(entriesBySuffix);
+    this.fileEntries = Objects.requireNonNull(fileEntries);
+    this.childrenByDirectory = Objects.requireNonNull(childrenByDirectory);
+  }
+
+  /**
+   * Returns the number of mappings in this index, which is roughly
+   * proportional to the memory that it occupies.
+   */
+  int size() {
+    return entriesBySuffix.size()
+        + fileEntries.size()
+        + childrenByDirectory.size();
+  }
+
+  /**
+   * Returns the path of an entry, relative to the root of the zip file, whose
+   * path ends with the provided names.  If there are multiple such entries,
+   * then the one closest to the root of the zip file is returned.
+   *
+   * @param suffix the trailing names of the entry's path, joined with '/'
+   * @return the path of the matching entry relative to the root of the zip
+   *         file, which is the empty string for the root directory itself, or
+   *         {@code null} if there is no matching entry
+   */
+  @Nullable String find(String suffix) {
+    Objects.requireNonNull(suffix);
+    return entriesBySuffix.get(suffix);
+  }
+
+  /**
+   * Returns the location of the data for the regular file entry having the
+   * provided path.
+   *
+   * @param entry the path of the entry relative to the root of the zip file, as
+   *        returned by {@link #find(String)}
+   * @return the location of the entry's data, or {@code null} if there is no
+   *         such regular file entry
+   */
+  @Nullable FileEntry fileEntry(String entry) {
+    Objects.requireNonNull(entry);
+    return fileEntries.get(entry);
+  }
+
+  /**
+   * Returns the paths of the entries that are immediate children of the
+   * provided directory entry.
+   *
+   * @param directory the path of the directory entry relative to the root of
+   *        the zip file, as returned by {@link #find(String)}
+   * @return the paths of the child entries relative to the root of the zip
+   *         file, which is empty if the entry has no children or if it is not
+   *         a directory
+   */
+  ImmutableSet<String> children(String directory) {
+    Objects.requireNonNull(directory);
+    return childrenByDirectory.get(directory);
+  }
+
+  /**
+   * The location and encoding of one regular file entry's data, as described
+   * by the zip file's central directory.
+   *
+   * @param flags the general purpose bit flags of the entry
+   * @param method the compression method of the entry, such as {@link
+   *        java.util.zip.ZipEntry#STORED} or {@link
+   *        java.util.zip.ZipEntry#DEFLATED}
+   * @param compressedSize the size of the entry's data within the zip file
+   * @param uncompressedSize the size of the entry's contents
+   * @param localHeaderOffset the position of the entry's local header within
+   *        the zip file, which is followed by the entry's data
+   */
+  @Immutable
+  record FileEntry(int flags,
+                   int method,
+                   long compressedSize,
+                   long uncompressedSize,
+                   long localHeaderOffset) {
+
+    /**
+     * {@code true} if the entry's data is encrypted.
+     */
+    boolean isEncrypted() {
+      return (flags & 1) != 0;
+    }
+  }
+
+  /**
+   * Reads the central directory of the provided zip file.  The contents of the
+   * entries are not read.
+   *
+   * @param zipFile the zip file
+   * @return the index of the entries in the zip file
+   * @throws IOException if an I/O error occurs while reading the zip file or if
+   *         the file is not a zip file
+   */
+  static ZipEntryIndex read(Path zipFile) throws IOException {
+    Objects.requireNonNull(zipFile);
+
+    var entriesBySuffix = new HashMap<String, String>();
+    entriesBySuffix.put("", "");
+
+    var fileEntries = new HashMap<String, FileEntry>();
+
+    SetMultimap<String, String> childrenByDirectory = HashMultimap.create();
+
+    try (SeekableByteChannel channel = Files.newByteChannel(zipFile)) {
+      readCentralDirectory(
+          channel,
+          (String entryName, FileEntry fileEntry) -> {
+            List<String> names = new ArrayList<>();
+            for (String name : ENTRY_NAME_SPLITTER.split(entryName)) {
+              String parent = String.join("/", names);
+              names.add(name);
+              indexEntry(names, entriesBySuffix);
+              childrenByDirectory.put(parent, String.join("/", names));
+            }
+
+            if (!entryName.endsWith("/") && !names.isEmpty())
+              fileEntries.putIfAbsent(String.join("/", names), fileEntry);
+          });
+    }
+
+    return new ZipEntryIndex(ImmutableMap.copyOf(entriesBySuffix),
+                             ImmutableMap.copyOf(fileEntries),
+                             ImmutableSetMultimap.copyOf(childrenByDirectory));
+  }
+
+  /**
+   * Indexes the entry having the provided names under every trailing sequence
+   * of those names.
+   */
+  private static void indexEntry(List<String> names,
+                                 Map<String, String> entriesBySuffix) {
+
+    String entry = String.join("/", names);
+    for (int i = 0; i < names.size(); i++)
+      entriesBySuffix.merge(
+          String.join("/", names.subList(i, names.size())),
+          entry,
+          // When there are multiple matching entries, prefer the one that is
+          // closest to the root.
+          (a, b) -> (depth(b) < depth(a)) ? b : a);
+  }
+
+  private static long depth(String entry) {
+    return entry.chars().filter(c -> c == '/').count();
+  }
+
+  /**
+   * Invokes the provided action for every entry listed in the central
+   * directory of the zip file.
+   */
+  private static void readCentralDirectory(SeekableByteChannel channel,
+                                           CentralDirectoryVisitor visitor)
+      throws IOException {
+
+    long fileSize = channel.size();
+
+    // The end of central directory record is at the end of the file, followed
+    // only by a variable-length comment.
+    int tailSize =
+        (int) Math.min(fileSize, END_RECORD_SIZE + MAX_COMMENT_SIZE);
+
+    ByteBuffer tail = readFully(channel, fileSize - tailSize, tailSize);
+
+    int endRecord = -1;
+    for (int i = tailSize - END_RECORD_SIZE; i >= 0; i--) {
+      if (tail.getInt(i) == END_RECORD_SIGNATURE) {
+        endRecord = i;
+        break;
+      }
+    }
+
+    if (endRecord == -1)
+      throw new ZipException("End of central directory record not found");
+
+    long entryCount = tail.getShort(endRecord + 10) & 0xFFFF;
+    long directorySize = tail.getInt(endRecord + 12) & 0xFFFFFFFFL;
+    long directoryOffset = tail.getInt(endRecord + 16) & 0xFFFFFFFFL;
+
+    // In the zip64 format, the real values are in another record, located by
+    // a fixed-size record that immediately precedes this one.
+    long endRecordOffset = fileSize - tailSize + endRecord;
+    if ((entryCount == 0xFFFF
+            || directorySize == 0xFFFFFFFFL
+            || directoryOffset == 0xFFFFFFFFL)
+        && endRecordOffset >= ZIP64_LOCATOR_SIZE) {
+
+      ByteBuffer locator =
+          readFully(channel,
+                    endRecordOffset - ZIP64_LOCATOR_SIZE,
+                    ZIP64_LOCATOR_SIZE);
+
+      if (locator.getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+        ByteBuffer zip64EndRecord =
+            readFully(channel, locator.getLong(8), ZIP64_END_RECORD_SIZE);
+
+        if (zip64EndRecord.getInt(0) != ZIP64_END_RECORD_SIGNATURE)
+          throw new ZipException("Invalid zip64 end of central directory");
+
+        directorySize = zip64EndRecord.getLong(40);
+        directoryOffset = zip64EndRecord.getLong(48);
+      }
+    }
+
+    if (directorySize > Integer.MAX_VALUE
+        || directoryOffset + directorySize > endRecordOffset)
+      throw new ZipException("Invalid central directory");
+
+    ByteBuffer directory =
+        readFully(channel, directoryOffset, (int) directorySize);
+
+    int position = 0;
+    while (position + ENTRY_HEADER_SIZE <= directory.limit()) {
+      if (directory.getInt(position) != ENTRY_HEADER_SIGNATURE)
+        throw new ZipException("Invalid central directory entry");
+
+      int flags = directory.getShort(position + 8) & 0xFFFF;
+      int method = directory.getShort(position + 10) & 0xFFFF;
+      long compressedSize = directory.getInt(position + 20) & 0xFFFFFFFFL;
+      long uncompressedSize = directory.getInt(position + 24) & 0xFFFFFFFFL;
+      int nameLength = directory.getShort(position + 28) & 0xFFFF;
+      int extraLength = directory.getShort(position + 30) & 0xFFFF;
+      int commentLength = directory.getShort(position + 32) & 0xFFFF;
+      long localHeaderOffset = directory.getInt(position + 42) & 0xFFFFFFFFL;
+
+      int nameStart = position + ENTRY_HEADER_SIZE;
+      int extraStart = nameStart + nameLength;
+      if (extraStart + extraLength > directory.limit())
+        throw new ZipException("Invalid central directory entry");
+
+      byte[] name = new byte[nameLength];
+      directory.get(nameStart, name);
+
+      // In the zip64 format, sizes and offsets that don't fit in four bytes
+      // are stored in an extra field instead, in this order.
+      int extra = extraStart;
+      while (extra + 4 <= extraStart + extraLength) {
+        int extraId = directory.getShort(extra) & 0xFFFF;
+        int extraSize = directory.getShort(extra + 2) & 0xFFFF;
+        int extraEnd = extra + 4 + extraSize;
+        if (extraEnd > extraStart + extraLength)
+          throw new ZipException("Invalid central directory entry");
+
+        if (extraId == ZIP64_EXTRA_ID) {
+          int field = extra + 4;
+          if (uncompressedSize == 0xFFFFFFFFL && field + 8 <= extraEnd) {
+            uncompressedSize = directory.getLong(field);
+            field += 8;
+          }
+          if (compressedSize == 0xFFFFFFFFL && field + 8 <= extraEnd) {
+            compressedSize = directory.getLong(field);
+            field += 8;
+          }
+          if (localHeaderOffset == 0xFFFFFFFFL && field + 8 <= extraEnd)
+            localHeaderOffset = directory.getLong(field);
+        }
+
+        extra = extraEnd;
+      }
+
+      visitor.visit(
+          new String(name, UTF_8),
+          new FileEntry(
+              /* flags= */ flags,
+              /* method= */ method,
+              /* compressedSize= */ compressedSize,
+              /* uncompressedSize= */ uncompressedSize,
+              /* localHeaderOffset= */ localHeaderOffset));
+
+      position = extraStart + extraLength + commentLength;
+    }
+  }
+
+  @FunctionalInterface
+  private interface CentralDirectoryVisitor {
+    void visit(String entryName, FileEntry fileEntry);
+  }
+
+  static ByteBuffer readFully(SeekableByteChannel channel,
+                              long position,
+                              int length)
+      throws IOException {
+
+    ByteBuffer buffer =
+        ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+    channel.position(position);
+    while (buffer.hasRemaining())
+      if (channel.read(buffer) == -1)
+        throw new EOFException();
+
+    return buffer.flip();
+  }
+
+  private static final Splitter ENTRY_NAME_SPLITTER =
+      Splitter.on('/').omitEmptyStrings();
+
+  private static final int END_RECORD_SIGNATURE = 0x06054b50;
+  private static final int END_RECORD_SIZE = 22;
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int ZIP64_LOCATOR_SIZE = 20;
+  private static final int ZIP64_END_RECORD_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_END_RECORD_SIZE = 56;
+  private static final int ENTRY_HEADER_SIGNATURE = 0x02014b50;
+  private static final int ENTRY_HEADER_SIZE = 46;
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+}
@@ -1,7 +1,17 @@
 package tfb.status.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
+import com.google.errorprone.annotations.Immutable;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.FileSystems;
@@ -9,10 +19,12 @@ import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.ProviderNotFoundException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import tfb.status.util.ZipEntryIndex.FileEntry;
 
 /**
  * Utility methods for working with zip files.
@@ -35,8 +47,10 @@ public final class ZipFiles {
    * <p>If the entry is found but the reader throws an exception while reading
    * it, that exception is propagated as-is to the caller of this method.
    *
-   * <p>The time complexity of this method is {@code O(n)} with respect to the
-   * total number of entries in the zip file.
+   * <p>The entries of the zip file are looked up in an index of its central
+   * directory, which is cached until the zip file is modified.  Callers that
+   * read several entries from the same zip file should use {@link
+   * #openZipFile(Path)} instead, which opens the zip file once.
    *
    * @param <T> the type of value to be read from the entry
    * @param zipFile the zip file to be searched
@@ -56,25 +70,9 @@ public final class ZipFiles {
     Objects.requireNonNull(entryPath, "entryPath");
     Objects.requireNonNull(entryReader, "entryReader");
 
-    var resultHolder = new AtomicReference<T>();
-
-    findZipEntry(
-        /* zipFile= */ zipFile,
-        /* entryPath= */ entryPath,
-        /* ifPresent= */
-        (Path zipEntry) -> {
-          if (Files.isRegularFile(zipEntry)) {
-            T result;
-            try (InputStream inputStream = Files.newInputStream(zipEntry)) {
-              result = entryReader.read(inputStream);
-            }
-            Objects.requireNonNull(result, "result");
-            resultHolder.set(result);
-          }
-        },
-        /* ifAbsent= */ () -> {});
-
-    return resultHolder.get();
+    try (ZipSession session = openZipFile(zipFile)) {
+      return session.readEntry(entryPath, entryReader);
+    }
   }
 
   /**
@@ -85,7 +83,8 @@ public final class ZipFiles {
    * stream.
    *
    * <p>This interface should only be used by callers of {@link
-   * #readZipEntry(Path, String, ZipEntryReader)}.
+   * #readZipEntry(Path, String, ZipEntryReader)} and {@link
+   * ZipSession#readEntry(String, ZipEntryReader)}.
    *
    * @param <T> the type of value contained (as bytes) in the stream
    */
@@ -115,8 +114,10 @@ public final class ZipFiles {
    * <p>If the entry is found but the entry handler throws an exception when
    * invoked, that exception is propagated as-is to the caller of this method.
    *
-   * <p>The time complexity of this method is {@code O(n)} with respect to the
-   * total number of entries in the zip file.
+   * <p>The entries of the zip file are looked up in an index of its central
+   * directory, which is cached until the zip file is modified.  Callers that
+   * read several entries from the same zip file should use {@link
+   * #openZipFile(Path)} instead, which opens the zip file once.
    *
    * @param zipFile the zip file to be searched
    * @param entryPath the path of the entry to be read
@@ -136,43 +137,11 @@ public final class ZipFiles {
     Objects.requireNonNull(ifPresent, "ifPresent");
     Objects.requireNonNull(ifAbsent, "ifAbsent");
 
-    FileSystem zipFileSystem;
-    try {
-      zipFileSystem = FileSystems.newFileSystem(zipFile);
-    } catch (ProviderNotFoundException | FileSystemNotFoundException e) {
-      throw new IOException(e);
-    }
-
-    try (zipFileSystem) {
-      Path validatedEntryPath;
-      try {
-        validatedEntryPath = zipFileSystem.getPath(entryPath);
-      } catch (InvalidPathException e) {
-        throw new IOException(e);
-      }
-
-      if (validatedEntryPath.isAbsolute()) {
-        if (Files.exists(validatedEntryPath)) {
-          ifPresent.accept(validatedEntryPath);
-          return;
-        }
-      } else {
-        for (Path root : zipFileSystem.getRootDirectories()) {
-          Path matchingEntry;
-          try (Stream<Path> entries = Files.walk(root)) {
-            matchingEntry =
-                entries.filter(Files::isDirectory)
-                       .map(directory -> directory.resolve(validatedEntryPath))
-                       .filter(Files::exists)
-                       .findAny()
-                       .orElse(null);
-          }
-
-          if (matchingEntry != null) {
-            ifPresent.accept(matchingEntry);
-            return;
-          }
-        }
+    try (ZipSession session = openZipFile(zipFile)) {
+      Path zipEntry = session.findEntry(entryPath);
+      if (zipEntry != null) {
+        ifPresent.accept(zipEntry);
+        return;
       }
     }
 
@@ -200,4 +169,469 @@ public final class ZipFiles {
      */
     void accept(Path zipEntry) throws IOException;
   }
+
+  /**
+   * Opens the provided zip file for reading any number of its entries.  The
+   * entries of the zip file are indexed from its central directory, so that
+   * each lookup in the returned session takes constant time.  The index is
+   * cached, and it is reused until the zip file is modified.
+   *
+   * <p>Entries are read directly from the zip file using the index where
+   * possible.  The zip file is only opened as a {@link FileSystem}, which
+   * reads its central directory again, when the session needs to produce a
+   * {@link Path} for an entry or to read an entry that it can't read on its
+   * own.
+   *
+   * <p>Entry paths are matched the same way as in {@link #findZipEntry(Path,
+   * String, ZipEntryConsumer, Runnable)}.
+   *
+   * <p>The caller must close the returned session.
+   *
+   * @param zipFile the zip file to be opened
+   * @return a session for reading entries from the zip file
+   * @throws IOException if an I/O error occurs while opening the zip file
+   */
+  public static ZipSession openZipFile(Path zipFile) throws IOException {
+    Objects.requireNonNull(zipFile, "zipFile");
+
+    ZipEntryIndex index = getEntryIndex(zipFile);
+    return new ZipSession(zipFile, index);
+  }
+
+  private static ZipEntryIndex getEntryIndex(Path zipFile) throws IOException {
+    BasicFileAttributes attributes =
+        Files.readAttributes(zipFile, BasicFileAttributes.class);
+
+    var key =
+        new EntryIndexKey(
+            /* zipFile= */ zipFile,
+            /* lastModifiedTime= */ attributes.lastModifiedTime(),
+            /* size= */ attributes.size());
+
+    // Concurrent requests for the same zip file wait for one read of its
+    // central directory rather than each reading it.
+    try {
+      return ENTRY_INDEX_CACHE.get(
+          key,
+          k -> {
+            try {
+              return ZipEntryIndex.read(k.zipFile());
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Identifies one version of a zip file.  When the zip file is modified, its
+   * old key becomes unreachable, and the old index is eventually evicted from
+   * the cache.
+   */
+  private record EntryIndexKey(Path zipFile,
+                               FileTime lastModifiedTime,
+                               long size) {
+
+    EntryIndexKey {
+      Objects.requireNonNull(zipFile);
+      Objects.requireNonNull(lastModifiedTime);
+    }
+  }
+
+  private static final long ENTRY_INDEX_CACHE_MAX_WEIGHT = 100_000;
+  private static final Duration ENTRY_INDEX_CACHE_EXPIRY =
+      Duration.ofMinutes(5);
+
+  /**
+   * Indexes are weighed by their number of mappings, since a results.zip file
+   * may contain thousands of log files.  Indexes that are no longer being read,
+   * such as those read once while scanning every results.zip file, expire
+   * rather than remaining in memory until they are displaced.
+   */
+  private static final Cache<EntryIndexKey, ZipEntryIndex> ENTRY_INDEX_CACHE =
+      Caffeine.newBuilder()
+              .maximumWeight(ENTRY_INDEX_CACHE_MAX_WEIGHT)
+              .<EntryIndexKey, ZipEntryIndex>weigher(
+                  (key, index) -> index.size())
+              .expireAfterAccess(ENTRY_INDEX_CACHE_EXPIRY)
+              .build();
+
+  /**
+   * An open zip file whose entries may be looked up and read many times.
+   *
+   * <p>Instances of this class are obtained from {@link #openZipFile(Path)}.
+   * The {@link Path} objects returned from this session are readable until the
+   * session is closed.
+   *
+   * <p>Instances of this class are not safe for use by multiple threads.
+   */
+  public static final class ZipSession implements Closeable {
+    private final Path zipFile;
+    private final ZipEntryIndex index;
+
+    // Opened on the first call that needs a Path for an entry.
+    private @Nullable FileSystem zipFileSystem;
+
+    // Opened on the first call that reads an entry directly.
+    private @Nullable MappedZipReader mappedReader;
+
+    ZipSession(Path zipFile, ZipEntryIndex index) {
+      this.zipFile = Objects.requireNonNull(zipFile);
+      this.index = Objects.requireNonNull(index);
+    }
+
+    /**
+     * Finds the entry whose path {@linkplain Path#endsWith(String) ends with}
+     * the provided entry path, or the entry having exactly that path if the
+     * provided entry path is absolute.
+     *
+     * <p>If the zip file contains multiple matching entries, then this method
+     * will choose one of those entries.  The way it makes this choice is
+     * unspecified and subject to change.
+     *
+     * @param entryPath the path of the entry to be found
+     * @return the matching entry, which may be a file or a directory, or {@code
+     *         null} if there is no matching entry
+     * @throws IOException if the entry path is invalid or if an I/O error
+     *         occurs while reading the zip file
+     */
+    public @Nullable Path findEntry(String entryPath) throws IOException {
+      Objects.requireNonNull(entryPath, "entryPath");
+
+      String entry = resolveEntry(entryPath);
+      if (entry == null)
+        return null;
+
+      return entryPath(entry);
+    }
+
+    /**
+     * Finds the entry whose path {@linkplain Path#endsWith(String) ends with}
+     * the provided entry path, in the same way as {@link #findEntry(String)},
+     * using only the index of the zip file's central directory.  Unlike
+     * {@link #findEntry(String)}, this method does not open the zip file as a
+     * {@link FileSystem}.
+     *
+     * @param entryPath the path of the entry to be found
+     * @return the matching entry, which may be a file or a directory, or {@code
+     *         null} if there is no matching entry
+     * @throws IOException if the entry path is invalid
+     */
+    public @Nullable ZipEntryInfo lookupEntry(String entryPath)
+        throws IOException {
+
+      Objects.requireNonNull(entryPath, "entryPath");
+
+      String entry = resolveEntry(entryPath);
+      if (entry == null)
+        return null;
+
+      return entryInfo(entry);
+    }
+
+    /**
+     * Lists the immediate children of the provided directory entry, using only
+     * the index of the zip file's central directory.
+     *
+     * @param directory a directory entry previously returned from {@link
+     *        #lookupEntry(String)}
+     * @return the children of the directory, in no particular order
+     * @throws IllegalArgumentException if the entry is not a directory
+     */
+    public ImmutableList<ZipEntryInfo> listDirectory(ZipEntryInfo directory) {
+      Objects.requireNonNull(directory, "directory");
+
+      if (!directory.isDirectory())
+        throw new IllegalArgumentException(
+            "Zip entry " + directory.path() + " is not a directory");
+
+      var children = new ImmutableList.Builder<ZipEntryInfo>();
+      for (String child : index.children(directory.path()))
+        children.add(entryInfo(child));
+
+      return children.build();
+    }
+
+    /**
+     * Reads the regular file entry whose path {@linkplain
+     * Path#endsWith(String) ends with} the provided entry path.  Returns the
+     * non-{@code null} result of reading the entry or {@code null} if the
+     * entry is not found.
+     *
+     * <p>If the entry is found but the reader throws an exception while
+     * reading it, that exception is propagated as-is to the caller of this
+     * method.
+     *
+     * @param <T> the type of value to be read from the entry
+     * @param entryPath the path of the entry to be read
+     * @param entryReader the reader to be used upon finding the entry
+     * @return the non-{@code null} result of reading the entry or {@code null}
+     *         if the entry is not found
+     * @throws IOException if an I/O error occurs while reading the zip file or
+     *         while executing the entry reader on the matching zip entry
+     */
+    public <T> @Nullable T readEntry(String entryPath,
+                                     ZipEntryReader<T> entryReader)
+        throws IOException {
+
+      Objects.requireNonNull(entryPath, "entryPath");
+      Objects.requireNonNull(entryReader, "entryReader");
+
+      String entry = resolveEntry(entryPath);
+      if (entry == null)
+        return null;
+
+      FileEntry fileEntry = index.fileEntry(entry);
+      if (fileEntry == null)
+        // This entry is a directory.
+        return null;
+
+      if (MappedZipReader.isSupported(fileEntry)) {
+        T result;
+        try (InputStream inputStream =
+                 mappedReader().newInputStream(fileEntry)) {
+          result = entryReader.read(inputStream);
+        }
+        Objects.requireNonNull(result, "result");
+        return result;
+      }
+
+      // This is an unusual entry that we can't read on our own, so let the
+      // zip file system read it.
+      Path zipEntry = entryPath(entry);
+
+      T result;
+      try (InputStream inputStream = Files.newInputStream(zipEntry)) {
+        result = entryReader.read(inputStream);
+      }
+      Objects.requireNonNull(result, "result");
+      return result;
+    }
+
+    /**
+     * Passes the contents of the provided regular file entry to the provided
+     * consumer, in the same way as {@link #transferEntry(Path,
+     * ZipEntryBufferConsumer)}.  The zip file is only opened as a {@link
+     * FileSystem} if the entry is stored in a way that can't be read directly
+     * from the zip file.
+     *
+     * @param zipEntry a regular file entry previously returned from {@link
+     *        #lookupEntry(String)}
+     * @param consumer the consumer of the entry's contents
+     * @throws IOException if the entry is not a regular file, if an I/O error
+     *         occurs while reading the zip file, or if the consumer throws an
+     *         {@link IOException}
+     */
+    public void transferEntry(ZipEntryInfo zipEntry,
+                              ZipEntryBufferConsumer consumer)
+        throws IOException {
+
+      Objects.requireNonNull(zipEntry, "zipEntry");
+      Objects.requireNonNull(consumer, "consumer");
+
+      FileEntry fileEntry = index.fileEntry(zipEntry.path());
+      if (fileEntry == null)
+        throw new IOException(
+            "Zip entry " + zipEntry.path() + " is not a file");
+
+      if (MappedZipReader.isSupported(fileEntry)) {
+        mappedReader().transfer(fileEntry, consumer);
+        return;
+      }
+
+      transferEntry(entryPath(zipEntry.path()), consumer);
+    }
+
+    /**
+     * Passes the contents of the provided regular file entry to the provided
+     * consumer, in order, in one or more buffers.
+     *
+     * <p>Where possible, the contents are read directly from a memory mapping
+     * of the zip file rather than through the {@link Path} of the entry.
+     * Entries that are stored without compression are passed to the consumer
+     * as a single slice of that mapping, and entries that are compressed are
+     * inflated into reusable direct buffers.  This avoids copying the
+     * contents of large entries through the heap.
+     *
+     * @param zipEntry a regular file entry previously returned from {@link
+     *        #findEntry(String)}
+     * @param consumer the consumer of the entry's contents
+     * @throws IllegalArgumentException if the entry is not from this session
+     * @throws IOException if the entry is not a regular file, if an I/O error
+     *         occurs while reading the zip file, or if the consumer throws an
+     *         {@link IOException}
+     */
+    public void transferEntry(Path zipEntry, ZipEntryBufferConsumer consumer)
+        throws IOException {
+
+      Objects.requireNonNull(zipEntry, "zipEntry");
+      Objects.requireNonNull(consumer, "consumer");
+
+      if (zipEntry.getFileSystem() != zipFileSystem)
+        throw new IllegalArgumentException(
+            "Zip entry " + zipEntry + " is not from zip file " + zipFile);
+
+      FileEntry fileEntry = index.fileEntry(Joiner.on('/').join(zipEntry));
+
+      if (fileEntry != null && MappedZipReader.isSupported(fileEntry)) {
+        mappedReader().transfer(fileEntry, consumer);
+        return;
+      }
+
+      if (!Files.isRegularFile(zipEntry))
+        throw new IOException("Zip entry " + zipEntry + " is not a file");
+
+      // This is an unusual entry that we can't read on our own, so let the
+      // zip file system read it.
+      try (InputStream inputStream = Files.newInputStream(zipEntry)) {
+        byte[] bytes = new byte[8192];
+        int bytesRead;
+        while ((bytesRead = inputStream.read(bytes)) != -1)
+          consumer.accept(ByteBuffer.wrap(bytes, 0, bytesRead));
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      // The closer closes these in the reverse order of their registration,
+      // and registering null is allowed.
+      try (Closer closer = Closer.create()) {
+        closer.register(zipFileSystem);
+        closer.register(mappedReader);
+      } finally {
+        zipFileSystem = null;
+        mappedReader = null;
+      }
+    }
+
+    /**
+     * Returns the path of the entry matching the provided entry path relative
+     * to the root of the zip file, or {@code null} if there is no matching
+     * entry.  An absolute entry path only matches the entry having exactly
+     * that path.
+     */
+    private @Nullable String resolveEntry(String entryPath)
+        throws IOException {
+
+      String entry = relativeEntryPath(entryPath);
+      String match = index.find(entry);
+
+      if (entryPath.startsWith("/") && !entry.equals(match))
+        return null;
+
+      return match;
+    }
+
+    private ZipEntryInfo entryInfo(String entry) {
+      FileEntry fileEntry = index.fileEntry(entry);
+      return new ZipEntryInfo(
+          /* path= */ entry,
+          /* isDirectory= */ fileEntry == null,
+          /* size= */ (fileEntry == null) ? 0 : fileEntry.uncompressedSize());
+    }
+
+    /**
+     * Opens the zip file as a {@link FileSystem} if necessary, then returns
+     * the {@link Path} of the provided entry.
+     */
+    private Path entryPath(String entry) throws IOException {
+      Path root = zipFileSystem().getRootDirectories().iterator().next();
+      return root.resolve(entry);
+    }
+
+    private FileSystem zipFileSystem() throws IOException {
+      FileSystem fileSystem = this.zipFileSystem;
+      if (fileSystem != null)
+        return fileSystem;
+
+      try {
+        fileSystem = FileSystems.newFileSystem(zipFile);
+      } catch (ProviderNotFoundException | FileSystemNotFoundException e) {
+        throw new IOException(e);
+      }
+
+      this.zipFileSystem = fileSystem;
+      return fileSystem;
+    }
+
+    private MappedZipReader mappedReader() throws IOException {
+      MappedZipReader reader = this.mappedReader;
+      if (reader != null)
+        return reader;
+
+      reader = MappedZipReader.open(zipFile);
+      this.mappedReader = reader;
+      return reader;
+    }
+
+    /**
+     * Converts a relative entry path to the form used by the {@link
+     * ZipEntryIndex}, validating it the same way as the zip file system.
+     */
+    private static String relativeEntryPath(String entryPath)
+        throws IOException {
+
+      if (entryPath.indexOf('\0') != -1)
+        throw new IOException(
+            new InvalidPathException(entryPath, "Nul character not allowed"));
+
+      return Joiner.on('/').join(
+          Splitter.on('/').omitEmptyStrings().split(entryPath));
+    }
+  }
+
+  /**
+   * An entry in a zip file, as described by the zip file's central directory.
+   *
+   * <p>Instances of this class are obtained from {@link
+   * ZipSession#lookupEntry(String)} and {@link
+   * ZipSession#listDirectory(ZipEntryInfo)}.
+   *
+   * @param path the path of the entry relative to the root of the zip file,
+   *        with its names separated by '/', which is the empty string for the
+   *        root directory itself
+   * @param isDirectory {@code true} if the entry is a directory rather than a
+   *        regular file
+   * @param size the (unzipped) size of a regular file entry in bytes, or zero
+   *        for a directory
+   */
+  @Immutable
+  public record ZipEntryInfo(String path, boolean isDirectory, long size) {
+
+    public ZipEntryInfo {
+      Objects.requireNonNull(path);
+    }
+
+    /**
+     * Returns the last name in the path of this entry, which is the empty
+     * string for the root directory.
+     */
+    public String fileName() {
+      return path.substring(path.lastIndexOf('/') + 1);
+    }
+  }
+
+  /**
+   * An action performed on the contents of a zip entry, where the contents
+   * are provided in one or more buffers.
+   *
+   * <p>The buffer is only valid until the action returns, so implementations
+   * of this interface must consume all of the buffer's remaining bytes before
+   * returning, and must not retain the buffer.  The buffer may be read-only.
+   *
+   * <p>This interface should only be used by callers of {@link
+   * ZipSession#transferEntry(Path, ZipEntryBufferConsumer)}.
+   */
+  @FunctionalInterface
+  public interface ZipEntryBufferConsumer {
+    /**
+     * Consumes the next part of the contents of a zip entry.
+     *
+     * @param buffer the next part of the contents of the entry
+     * @throws IOException if an I/O error occurs while consuming the contents
+     */
+    void accept(ByteBuffer buffer) throws IOException;
+  }
 }
@@ -0,0 +1,133 @@
+package tfb.status.view;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import java.io.IOException;
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A process-wide dictionary of framework names, which assigns a small integer
+ * id to every distinct framework name and keeps one canonical {@link String}
+ * instance for each name.
+ *
+ * <p>The same few thousand framework names appear in every results.json file.
+ * Framework names in {@link Results} and in the summaries derived from them
+ * are {@linkplain #intern(String) interned} as they are deserialized, using
+ * {@link NameDeserializer} and {@link NameKeyDeserializer}, so that memory used
+ * by framework names is proportional to the number of distinct frameworks
+ * rather than the number of runs times the number of frameworks.  Data
+ * structures that hold framework names for many runs may hold their {@linkplain
+ * #id(String) ids} instead.
+ *
+ * <p>Ids are only meaningful within the current process.  They must not be
+ * persisted.
+ *
+ * <p>Names are never removed from the dictionary.  There are few enough
+ * distinct framework names that this is not a concern.
+ */
+public final class FrameworkDictionary {
+  private FrameworkDictionary() {
+    throw new AssertionError("This class cannot be instantiated");
+  }
+
+  /**
+   * Returns the id of the specified framework name, assigning a new id if this
+   * name has never been seen before.  Ids are assigned sequentially starting
+   * from zero.
+   */
+  public static int id(String name) {
+    Objects.requireNonNull(name);
+
+    Integer existing = IDS.get(name);
+    if (existing != null)
+      return existing;
+
+    synchronized (LOCK) {
+      existing = IDS.get(name);
+      if (existing != null)
+        return existing;
+
+      int id = size;
+      String[] names = NAMES;
+      if (id == names.length)
+        NAMES = names = Arrays.copyOf(names, names.length * 2);
+
+      // Publish the name before the id, so that anyone who can see the id can
+      // also see the name.
+      names[id] = name;
+      size = id + 1;
+      IDS.put(name, id);
+      return id;
+    }
+  }
+
+  /**
+   * Returns the framework name having the specified id.
+   *
+   * @throws IndexOutOfBoundsException if no name has been assigned that id
+   */
+  public static String name(int id) {
+    String[] names = NAMES;
+    String name = (id >= 0 && id < names.length) ? names[id] : null;
+    if (name == null)
+      throw new IndexOutOfBoundsException("No framework name with id " + id);
+
+    return name;
+  }
+
+  /**
+   * Returns the canonical instance of the specified framework name, which is
+   * equal to the specified name.
+   */
+  public static String intern(String name) {
+    return name(id(name));
+  }
+
+  /**
+   * Deserializes framework names that are JSON string values, {@linkplain
+   * #intern(String) interning} them.
+   */
+  public static final class NameDeserializer
+      extends StdScalarDeserializer<String> {
+
+    public NameDeserializer() {
+      super(String.class);
+    }
+
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context)
+        throws IOException {
+
+      return intern(StringDeserializer.instance.deserialize(parser, context));
+    }
+
+    @Serial
+    private static final long serialVersionUID = 0;
+  }
+
+  /**
+   * Deserializes framework names that are keys of JSON objects, {@linkplain
+   * #intern(String) interning} them.
+   */
+  public static final class NameKeyDeserializer extends KeyDeserializer {
+    @Override
+    public Object deserializeKey(String key, DeserializationContext context) {
+      return intern(key);
+    }
+  }
+
+  private static final Object LOCK = new Object();
+
+  private static final ConcurrentHashMap<String, Integer> IDS =
+      new ConcurrentHashMap<>();
+
+  // Written only while holding the lock.
+  private static volatile String[] NAMES = new String[1024];
+  private static int size = 0;
+}
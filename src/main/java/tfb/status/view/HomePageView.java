@@ -2,6 +2,7 @@ package tfb.status.view;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.google.common.collect.ImmutableList;
 import com.google.errorprone.annotations.Immutable;
 import java.util.Objects;
@@ -185,6 +186,7 @@ public record HomePageView(ImmutableList<ResultsView> results,
       @Nullable String visualizeResultsUrl,
 
       @JsonProperty(value = "lastCompletedFramework", required = true)
+      @JsonDeserialize(using = FrameworkDictionary.NameDeserializer.class)
       @Nullable String lastCompletedFramework) {
 
     @JsonCreator
@@ -233,6 +235,7 @@ public record HomePageView(ImmutableList<ResultsView> results,
     public record Failure (
 
         @JsonProperty(value = "framework", required = true)
+        @JsonDeserialize(using = FrameworkDictionary.NameDeserializer.class)
         String framework,
 
         @JsonProperty(value = "failedTestTypes", required = true)
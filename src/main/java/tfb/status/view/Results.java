@@ -1,18 +1,27 @@
 package tfb.status.view;
 
 import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_DEFAULT;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
 
 import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.ImmutableIntArray;
 import com.google.errorprone.annotations.Immutable;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.IntStream;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -24,8 +33,8 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * omitted from this class.
  *
  * <p>Instances of this class are deserialized from JSON.  Instances of this
- * class are serialized to JSON in tests only; the serialized form of this class
- * is never exposed to users.
+ * class are serialized to JSON in tests and in {@link ResultsSidecar} files
+ * only; the serialized form of this class is never exposed to users.
  *
  * @param uuid The universally unique id for this set of results, or {@code
  *        null} if that information is unavailable.  This field was added in
@@ -97,9 +106,11 @@ public record Results(
     long duration,
 
     @JsonProperty(value = "frameworks", required = true)
+    @JsonDeserialize(contentUsing = FrameworkDictionary.NameDeserializer.class)
     ImmutableSet<String> frameworks,
 
     @JsonProperty(value = "completed", required = true)
+    @JsonDeserialize(keyUsing = FrameworkDictionary.NameKeyDeserializer.class)
     ImmutableMap<String, String> completed,
 
     @JsonProperty(value = "succeeded", required = true)
@@ -141,9 +152,11 @@ public record Results(
     Objects.requireNonNull(testType);
     Objects.requireNonNull(framework);
 
-    ImmutableList<SingleWrkExecution> executions =
-        rawData.get(testType, framework);
+    return requests(testType, rawData.get(testType, framework));
+  }
 
+  private static long requests(TestType testType,
+                               List<SingleWrkExecution> executions) {
     return switch (testType) {
       //
       // For these test types, we vary the concurrency (simultaneous requests
@@ -178,6 +191,19 @@ public record Results(
     return ((double) requests) / duration;
   }
 
+  /**
+   * Returns a dense matrix of the {@linkplain #requests(TestType, String) total
+   * requests} achieved by every framework in every test type in this run.
+   * Callers that look up the requests of many frameworks should use this
+   * matrix rather than calling {@link #requests(TestType, String)} repeatedly.
+   *
+   * <p>The matrix is computed each time this method is called, so callers that
+   * need it more than once should hold onto it.
+   */
+  public RequestsMatrix requestsMatrix() {
+    return RequestsMatrix.of(this);
+  }
+
   /**
    * Returns a {@link TestOutcome} describing what happened for the specified
    * framework in the specified test type in this run.
@@ -224,6 +250,165 @@ public record Results(
     NOT_IMPLEMENTED_OR_NOT_YET_TESTED
   }
 
+  /**
+   * The {@linkplain #requests(TestType, String) total requests} achieved by
+   * every framework in every test type in one run, stored as one {@code long}
+   * for each test type in a row for each framework.  Instances of this class
+   * are immutable.
+   */
+  public static final class RequestsMatrix {
+    private final ImmutableList<String> frameworks;
+    private final ImmutableMap<String, Integer> frameworkIndexes;
+    private final ImmutableIntArray sortedFrameworkIndexes;
+
+    // Indexed by framework index, then by test type ordinal.
+    private final long[][] requests;
+
+    private final long duration;
+
+    private RequestsMatrix(ImmutableList<String> frameworks,
+                           ImmutableMap<String, Integer> frameworkIndexes,
+                           ImmutableIntArray sortedFrameworkIndexes,
+                           long[][] requests,
+                           long duration) {
+
+      this.frameworks = Objects.requireNonNull(frameworks);
+      this.frameworkIndexes = Objects.requireNonNull(frameworkIndexes);
+      this.sortedFrameworkIndexes =
+          Objects.requireNonNull(sortedFrameworkIndexes);
+      this.requests = Objects.requireNonNull(requests);
+      this.duration = duration;
+    }
+
+    /**
+     * Computes the matrix for the provided results.
+     */
+    static RequestsMatrix of(Results results) {
+      Objects.requireNonNull(results);
+
+      var frameworkIndexes = new LinkedHashMap<String, Integer>();
+      for (String framework : results.frameworks())
+        frameworkIndexes.putIfAbsent(framework, frameworkIndexes.size());
+
+      // The raw data may mention frameworks that are missing from the list of
+      // frameworks, which are given rows of their own.
+      for (TestType testType : TEST_TYPES)
+        for (String framework : results.rawData().get(testType).keySet())
+          frameworkIndexes.putIfAbsent(framework, frameworkIndexes.size());
+
+      var requests = new long[frameworkIndexes.size()][TEST_TYPES.size()];
+
+      for (TestType testType : TEST_TYPES) {
+        results.rawData().get(testType).asMap().forEach(
+            (String framework, Collection<SingleWrkExecution> executions) ->
+                requests[frameworkIndexes.get(framework)][testType.ordinal()] =
+                    Results.requests(
+                        testType,
+                        (List<SingleWrkExecution>) executions));
+      }
+
+      ImmutableList<String> frameworks =
+          ImmutableList.copyOf(frameworkIndexes.keySet());
+
+      int[] sortedFrameworkIndexes =
+          IntStream.range(0, frameworks.size())
+                   .boxed()
+                   .sorted(comparing(i -> frameworks.get(i), FRAMEWORK_ORDER))
+                   .mapToInt(i -> i)
+                   .toArray();
+
+      return new RequestsMatrix(
+          /* frameworks= */ frameworks,
+          /* frameworkIndexes= */ ImmutableMap.copyOf(frameworkIndexes),
+          /* sortedFrameworkIndexes= */
+          ImmutableIntArray.copyOf(sortedFrameworkIndexes),
+          /* requests= */ requests,
+          /* duration= */ results.duration());
+    }
+
+    /**
+     * The names of the frameworks in this matrix, in the order of their
+     * indexes.  These are the {@linkplain Results#frameworks() frameworks} of
+     * the run, followed by any other frameworks mentioned in the run's raw
+     * data.
+     */
+    public ImmutableList<String> frameworks() {
+      return frameworks;
+    }
+
+    /**
+     * The indexes of the frameworks in this matrix, ordered by the names of
+     * those frameworks according to {@link #FRAMEWORK_ORDER}.  Two matrices
+     * can be compared framework-by-framework by merging their sorted indexes
+     * in a single pass.
+     */
+    public ImmutableIntArray sortedFrameworkIndexes() {
+      return sortedFrameworkIndexes;
+    }
+
+    /**
+     * Returns the index of the specified framework in this matrix, or {@code
+     * -1} if the framework is not in this matrix.
+     */
+    public int frameworkIndex(String framework) {
+      Objects.requireNonNull(framework);
+      Integer index = frameworkIndexes.get(framework);
+      return (index == null) ? -1 : index;
+    }
+
+    /**
+     * Returns the total number of requests achieved by the framework having
+     * the specified index in the specified test type.
+     *
+     * @throws IndexOutOfBoundsException if there is no framework with that
+     *         index
+     */
+    public long requests(TestType testType, int frameworkIndex) {
+      Objects.requireNonNull(testType);
+      return requests[frameworkIndex][testType.ordinal()];
+    }
+
+    /**
+     * Returns the total number of requests achieved by a framework in a test.
+     * Equivalent to {@link Results#requests(TestType, String)}.
+     */
+    public long requests(TestType testType, String framework) {
+      Objects.requireNonNull(testType);
+      int index = frameworkIndex(framework);
+      return (index == -1) ? 0 : requests[index][testType.ordinal()];
+    }
+
+    /**
+     * Returns the requests per second achieved by the framework having the
+     * specified index in the specified test type.
+     *
+     * @throws IndexOutOfBoundsException if there is no framework with that
+     *         index
+     */
+    public double rps(TestType testType, int frameworkIndex) {
+      return ((double) requests(testType, frameworkIndex)) / duration;
+    }
+
+    /**
+     * Returns the requests per second achieved by a framework in a test.
+     * Equivalent to {@link Results#rps(TestType, String)}.
+     */
+    public double rps(TestType testType, String framework) {
+      return ((double) requests(testType, framework)) / duration;
+    }
+
+    /**
+     * The order of {@link #sortedFrameworkIndexes()}, which is case-insensitive
+     * order by framework name, with ties broken by case-sensitive order so
+     * that distinct names are never considered equal.
+     */
+    public static final Comparator<String> FRAMEWORK_ORDER =
+        String.CASE_INSENSITIVE_ORDER.thenComparing(naturalOrder());
+
+    private static final ImmutableList<TestType> TEST_TYPES =
+        ImmutableList.copyOf(TestType.values());
+  }
+
   /**
    * A mapping of test types to names of frameworks.
    *
@@ -246,25 +431,39 @@ public record Results(
   public record TestTypeToFrameworks(
 
       @JsonProperty(value = "json", required = false)
+      @JsonDeserialize(
+          contentUsing = FrameworkDictionary.NameDeserializer.class)
       @Nullable ImmutableSet<String> json,
 
       @JsonProperty(value = "plaintext", required = false)
+      @JsonDeserialize(
+          contentUsing = FrameworkDictionary.NameDeserializer.class)
       @Nullable ImmutableSet<String> plaintext,
 
       @JsonProperty(value = "db", required = false)
+      @JsonDeserialize(
+          contentUsing = FrameworkDictionary.NameDeserializer.class)
       @Nullable ImmutableSet<String> db,
 
       @JsonProperty(value = "query", required = false)
+      @JsonDeserialize(
+          contentUsing = FrameworkDictionary.NameDeserializer.class)
       @Nullable ImmutableSet<String> query,
 
       @JsonProperty(value = "update", required = false)
+      @JsonDeserialize(
+          contentUsing = FrameworkDictionary.NameDeserializer.class)
       @Nullable ImmutableSet<String> update,
 
       @JsonProperty(value = "fortune", required = false)
+      @JsonDeserialize(
+          contentUsing = FrameworkDictionary.NameDeserializer.class)
       @Nullable ImmutableSet<String> fortune,
 
       @JsonProperty(value = "cached_query", required = false)
       @JsonAlias("cached-query")
+      @JsonDeserialize(
+          contentUsing = FrameworkDictionary.NameDeserializer.class)
       @Nullable ImmutableSet<String> cachedQuery) {
 
     @JsonCreator
@@ -328,25 +527,32 @@ public record Results(
       //       values are structured differently than the test types' values.
 
       @JsonProperty(value = "json", required = false)
+      @JsonDeserialize(keyUsing = FrameworkDictionary.NameKeyDeserializer.class)
       @Nullable ImmutableListMultimap<String, SingleWrkExecution> json,
 
       @JsonProperty(value = "plaintext", required = false)
+      @JsonDeserialize(keyUsing = FrameworkDictionary.NameKeyDeserializer.class)
       @Nullable ImmutableListMultimap<String, SingleWrkExecution> plaintext,
 
       @JsonProperty(value = "db", required = false)
+      @JsonDeserialize(keyUsing = FrameworkDictionary.NameKeyDeserializer.class)
       @Nullable ImmutableListMultimap<String, SingleWrkExecution> db,
 
       @JsonProperty(value = "query", required = false)
+      @JsonDeserialize(keyUsing = FrameworkDictionary.NameKeyDeserializer.class)
       @Nullable ImmutableListMultimap<String, SingleWrkExecution> query,
 
       @JsonProperty(value = "update", required = false)
+      @JsonDeserialize(keyUsing = FrameworkDictionary.NameKeyDeserializer.class)
       @Nullable ImmutableListMultimap<String, SingleWrkExecution> update,
 
       @JsonProperty(value = "fortune", required = false)
+      @JsonDeserialize(keyUsing = FrameworkDictionary.NameKeyDeserializer.class)
       @Nullable ImmutableListMultimap<String, SingleWrkExecution> fortune,
 
       @JsonProperty(value = "cached_query", required = false)
       @JsonAlias("cached-query")
+      @JsonDeserialize(keyUsing = FrameworkDictionary.NameKeyDeserializer.class)
       @Nullable ImmutableListMultimap<String, SingleWrkExecution> cachedQuery) {
 
     @JsonCreator
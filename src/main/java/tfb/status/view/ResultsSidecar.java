@@ -0,0 +1,161 @@
+package tfb.status.view;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.errorprone.annotations.Immutable;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import tfb.status.view.Results.RawData;
+import tfb.status.view.Results.RequestsMatrix;
+import tfb.status.view.Results.SingleWrkExecution;
+import tfb.status.view.Results.TestType;
+
+/**
+ * A compact summary of a results.json or results.zip file, stored in a sidecar
+ * file next to that results file so that the results file does not need to be
+ * parsed again.
+ *
+ * <p>Instances of this class are serialized to and deserialized from JSON.  The
+ * serialized form of this class is never exposed to users.
+ *
+ * @param version The version of the sidecar format that was used to write this
+ *        sidecar.  Sidecars written with a different version are ignored.
+ * @param resultsFileSize The size in bytes of the results file when this
+ *        sidecar was written.
+ * @param resultsFileLastModifiedTime The last modified time of the results file
+ *        when this sidecar was written.
+ * @param results The results, where the raw data is reduced to a single wrk
+ *        execution per framework and test type whose total requests are {@link
+ *        Results#requests(Results.TestType, String)}, making this a table of
+ *        the requests per second achieved by each framework in each test type.
+ *        When the original results contain test metadata, this contains empty
+ *        test metadata instead.
+ * @param backupCommitId The commit id from the commit_id.txt file in the
+ *        results.zip file, or {@code null} if the results already contain git
+ *        information or if there is no such file.
+ * @param hasTestMetadataFile {@code true} if the results.zip file contains a
+ *        test_metadata.json file and the results do not contain test metadata.
+ */
+@Immutable
+public record ResultsSidecar(
+
+    @JsonProperty(value = "version", required = true)
+    int version,
+
+    @JsonProperty(value = "resultsFileSize", required = true)
+    long resultsFileSize,
+
+    @JsonProperty(value = "resultsFileLastModifiedTime", required = true)
+    Instant resultsFileLastModifiedTime,
+
+    @JsonProperty(value = "results", required = true)
+    Results results,
+
+    @JsonProperty(value = "backupCommitId", required = false)
+    @Nullable String backupCommitId,
+
+    @JsonProperty(value = "hasTestMetadataFile", required = true)
+    boolean hasTestMetadataFile) {
+
+  @JsonCreator
+  public ResultsSidecar {
+    Objects.requireNonNull(resultsFileLastModifiedTime);
+    Objects.requireNonNull(results);
+  }
+
+  /**
+   * Creates a sidecar in the {@linkplain #CURRENT_VERSION current version} of
+   * the sidecar format for the provided results.
+   *
+   * @param resultsFileSize the size in bytes of the results file
+   * @param resultsFileLastModifiedTime the last modified time of the results
+   *        file
+   * @param results the results read from the results file, which may have
+   *        any number of wrk executions per framework and test type
+   * @param backupCommitId the commit id from the commit_id.txt file in the
+   *        results.zip file, if relevant
+   * @param hasTestMetadataFile {@code true} if the results.zip file contains a
+   *        test_metadata.json file, if relevant
+   * @return a new sidecar
+   */
+  public static ResultsSidecar create(long resultsFileSize,
+                                      Instant resultsFileLastModifiedTime,
+                                      Results results,
+                                      @Nullable String backupCommitId,
+                                      boolean hasTestMetadataFile) {
+
+    Objects.requireNonNull(resultsFileLastModifiedTime);
+    Objects.requireNonNull(results);
+
+    var rawData =
+        new EnumMap<TestType, ImmutableListMultimap<String, SingleWrkExecution>>(
+            TestType.class);
+
+    RequestsMatrix matrix = results.requestsMatrix();
+
+    for (TestType testType : TestType.values()) {
+      var executions =
+          ImmutableListMultimap.<String, SingleWrkExecution>builder();
+
+      for (int i = 0; i < matrix.frameworks().size(); i++) {
+        String framework = matrix.frameworks().get(i);
+        long requests = matrix.requests(testType, i);
+        if (requests != 0)
+          executions.put(
+              framework,
+              new SingleWrkExecution(
+                  /* totalRequests= */ requests,
+                  /* status5xx= */ 0));
+      }
+
+      rawData.put(testType, executions.build());
+    }
+
+    var compactResults =
+        new Results(
+            /* uuid= */ results.uuid(),
+            /* name= */ results.name(),
+            /* environmentDescription= */ results.environmentDescription(),
+            /* startTime= */ results.startTime(),
+            /* completionTime= */ results.completionTime(),
+            /* duration= */ results.duration(),
+            /* frameworks= */ results.frameworks(),
+            /* completed= */ results.completed(),
+            /* succeeded= */ results.succeeded(),
+            /* failed= */ results.failed(),
+            /* rawData= */
+            new RawData(
+                /* json= */ rawData.get(TestType.JSON),
+                /* plaintext= */ rawData.get(TestType.PLAINTEXT),
+                /* db= */ rawData.get(TestType.DB),
+                /* query= */ rawData.get(TestType.QUERY),
+                /* update= */ rawData.get(TestType.UPDATE),
+                /* fortune= */ rawData.get(TestType.FORTUNE),
+                /* cachedQuery= */ rawData.get(TestType.CACHED_QUERY)),
+            /* queryIntervals= */ results.queryIntervals(),
+            /* concurrencyLevels= */ results.concurrencyLevels(),
+            /* git= */ results.git(),
+            /* testMetadata= */
+            (results.testMetadata() == null) ? null : ImmutableList.of());
+
+    return new ResultsSidecar(
+        /* version= */ CURRENT_VERSION,
+        /* resultsFileSize= */ resultsFileSize,
+        /* resultsFileLastModifiedTime= */ resultsFileLastModifiedTime,
+        /* results= */ compactResults,
+        /* backupCommitId= */ (results.git() == null) ? backupCommitId : null,
+        /* hasTestMetadataFile= */
+        results.testMetadata() == null && hasTestMetadataFile);
+  }
+
+  /**
+   * The current version of the sidecar format.  Increment this number whenever
+   * this class changes in a way that would make previously-written sidecars
+   * incorrect.
+   */
+  public static final int CURRENT_VERSION = 1;
+}
@@ -0,0 +1,40 @@
+package tfb.status.view;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.errorprone.annotations.Immutable;
+import java.util.Objects;
+
+/**
+ * A view of a resumable upload of a results file.
+ *
+ * @param uploadId The unique id of this upload.
+ * @param uploadUrl The URL to which the bytes of the file are sent, relative
+ *        to the root of this website.
+ * @param format The kind of file being uploaded, either "json" for a
+ *        results.json file or "zip" for a zip file containing the full output
+ *        of a run.
+ * @param offset The number of bytes of the file that have been received so
+ *        far, which is the position of the next byte that should be sent.
+ */
+@Immutable
+public record UploadSessionView(
+    @JsonProperty(value = "uploadId", required = true)
+    String uploadId,
+
+    @JsonProperty(value = "uploadUrl", required = true)
+    String uploadUrl,
+
+    @JsonProperty(value = "format", required = true)
+    String format,
+
+    @JsonProperty(value = "offset", required = true)
+    long offset) {
+
+  @JsonCreator
+  public UploadSessionView {
+    Objects.requireNonNull(uploadId);
+    Objects.requireNonNull(uploadUrl);
+    Objects.requireNonNull(format);
+  }
+}
@@ -0,0 +1,103 @@
+package tfb.status.handler;
+
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.MediaType.HTML_UTF_8;
+import static io.undertow.util.StatusCodes.NOT_FOUND;
+import static io.undertow.util.StatusCodes.OK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tfb.status.testlib.MoreAssertions.assertContains;
+import static tfb.status.testlib.MoreAssertions.assertHtmlDocument;
+import static tfb.status.testlib.MoreAssertions.assertMediaType;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.text.NumberFormat;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import tfb.status.testlib.HttpTester;
+import tfb.status.testlib.TestServicesInjector;
+
+/**
+ * Tests for {@link DiffPageHandler}.
+ */
+@ExtendWith(TestServicesInjector.class)
+public final class DiffPageHandlerTest {
+  /**
+   * Verifies that a GET request for the diff between two runs with valid uuids
+   * produces an HTML response.
+   */
+  @Test
+  public void testGetHtml(HttpTester http)
+      throws IOException, InterruptedException {
+
+    HttpResponse<String> response =
+        http.getString("/diff/" + UUID + "/" + UUID);
+
+    assertEquals(OK, response.statusCode());
+
+    assertMediaType(
+        HTML_UTF_8,
+        response.headers()
+                .firstValue(CONTENT_TYPE)
+                .orElse(null));
+
+    assertHtmlDocument(response.body());
+    assertContains("gemini", response.body());
+  }
+
+  /**
+   * Verifies that a GET request for the diff between two runs in JSON format
+   * produces a response with the expected content.
+   */
+  @Test
+  public void testGetJson(HttpTester http, ObjectMapper objectMapper)
+      throws IOException, InterruptedException {
+
+    HttpResponse<String> response =
+        http.getString("/diff/" + UUID + "/" + UUID + ".json");
+
+    assertEquals(OK, response.statusCode());
+
+    assertMediaType(
+        "application/json",
+        response.headers()
+                .firstValue(CONTENT_TYPE)
+                .orElse(null));
+
+    JsonNode diff = objectMapper.readTree(response.body());
+
+    assertEquals("0", diff.get("summary").get("totalAdded").asText());
+    assertEquals("0", diff.get("summary").get("totalRemoved").asText());
+    assertEquals("0", diff.get("summary").get("totalBetter").asText());
+    assertEquals("0", diff.get("summary").get("totalWorse").asText());
+
+    JsonNode lines = diff.get("lines");
+    assertTrue(lines.isArray());
+    assertTrue(lines.size() > 0);
+
+    // Every line is in both rounds, and the totals are formatted numbers.
+    assertEquals(
+        NumberFormat.getIntegerInstance(Locale.ROOT).format(lines.size()),
+        diff.get("summary").get("totalBothRounds").asText());
+  }
+
+  /**
+   * Verifies that a GET request for the diff between two runs where one of the
+   * uuids is unknown produces a {@code 404 Not Found} response.
+   */
+  @Test
+  public void testUnknownUuid(HttpTester http)
+      throws IOException, InterruptedException {
+
+    HttpResponse<String> response =
+        http.getString("/diff/" + UUID + "/notarealuuid");
+
+    assertEquals(NOT_FOUND, response.statusCode());
+  }
+
+  private static final String UUID = "598923fe-6491-41bd-a2b6-047f70860aed";
+}
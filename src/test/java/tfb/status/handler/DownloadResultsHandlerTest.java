@@ -1,18 +1,40 @@
 package tfb.status.handler;
 
+import static com.google.common.net.HttpHeaders.ACCEPT_ENCODING;
+import static com.google.common.net.HttpHeaders.ACCEPT_RANGES;
+import static com.google.common.net.HttpHeaders.CONTENT_ENCODING;
+import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
+import static com.google.common.net.HttpHeaders.CONTENT_RANGE;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+import static com.google.common.net.HttpHeaders.RANGE;
 import static io.undertow.util.StatusCodes.NOT_FOUND;
+import static io.undertow.util.StatusCodes.NOT_MODIFIED;
 import static io.undertow.util.StatusCodes.OK;
+import static io.undertow.util.StatusCodes.PARTIAL_CONTENT;
+import static io.undertow.util.StatusCodes.REQUEST_RANGE_NOT_SATISFIABLE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import tfb.status.service.FileStore;
 import tfb.status.testlib.HttpTester;
 import tfb.status.testlib.TestServicesInjector;
 import tfb.status.view.Results;
@@ -90,4 +112,234 @@ public final class DownloadResultsHandlerTest {
     assertEquals(NOT_FOUND, response2.statusCode());
     assertEquals("", response2.body());
   }
+
+  /**
+   * Verifies that a GET request for a results.json file from a client that
+   * accepts gzip is answered with the compressed file.
+   */
+  @Test
+  public void testGetJsonGzip(HttpTester http, ObjectMapper objectMapper)
+      throws IOException, InterruptedException {
+
+    HttpResponse<byte[]> response =
+        http.client().send(
+            http.newRequestBuilder("/raw/results.2019-12-11-13-21-02-404.json")
+                .header(ACCEPT_ENCODING, "gzip, deflate")
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+    assertEquals(OK, response.statusCode());
+
+    assertEquals(
+        Optional.of("gzip"),
+        response.headers().firstValue(CONTENT_ENCODING));
+
+    Results results;
+
+    try (var bais = new ByteArrayInputStream(response.body());
+         var gzip = new GZIPInputStream(bais)) {
+      results = objectMapper.readValue(gzip, Results.class);
+    }
+
+    assertEquals("598923fe-6491-41bd-a2b6-047f70860aed", results.uuid());
+  }
+
+  /**
+   * Verifies that a GET request for a results.zip file from a client that
+   * accepts gzip is answered with the uncompressed file, since the file is
+   * already compressed.
+   */
+  @Test
+  public void testGetZipNotCompressed(HttpTester http)
+      throws IOException, InterruptedException {
+
+    HttpResponse<byte[]> response =
+        http.client().send(
+            http.newRequestBuilder("/raw/results.2019-12-16-03-22-48-407.zip")
+                .header(ACCEPT_ENCODING, "gzip")
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+    assertEquals(OK, response.statusCode());
+
+    assertEquals(
+        Optional.empty(),
+        response.headers().firstValue(CONTENT_ENCODING));
+  }
+
+  /**
+   * Verifies that responses have strong entity tags that differ between the
+   * compressed and uncompressed files, and that a GET request whose {@code
+   * If-None-Match} header matches the entity tag results in {@code 304 Not
+   * Modified}.
+   */
+  @Test
+  public void testNotModified(HttpTester http)
+      throws IOException, InterruptedException {
+
+    String path = "/raw/results.2019-12-11-13-21-02-404.json";
+
+    HttpResponse<byte[]> plainResponse = http.getBytes(path);
+
+    assertEquals(OK, plainResponse.statusCode());
+
+    String plainEtag = plainResponse.headers().firstValue(ETAG).orElseThrow();
+
+    assertTrue(plainEtag.startsWith("\""), plainEtag);
+
+    HttpResponse<byte[]> gzipResponse =
+        http.client().send(
+            http.newRequestBuilder(path)
+                .header(ACCEPT_ENCODING, "gzip")
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+    assertEquals(OK, gzipResponse.statusCode());
+
+    String gzipEtag = gzipResponse.headers().firstValue(ETAG).orElseThrow();
+
+    assertNotEquals(plainEtag, gzipEtag);
+
+    HttpResponse<byte[]> notModifiedResponse =
+        http.client().send(
+            http.newRequestBuilder(path)
+                .header(IF_NONE_MATCH, plainEtag)
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+    assertEquals(NOT_MODIFIED, notModifiedResponse.statusCode());
+    assertEquals(0, notModifiedResponse.body().length);
+
+    HttpResponse<byte[]> modifiedResponse =
+        http.client().send(
+            http.newRequestBuilder(path)
+                .header(IF_NONE_MATCH, gzipEtag)
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+    assertEquals(OK, modifiedResponse.statusCode());
+  }
+
+  /**
+   * Verifies that a GET request for a single byte range of a results file is
+   * answered with that range, even when the client accepts gzip.
+   */
+  @Test
+  public void testRange(HttpTester http, FileStore fileStore)
+      throws IOException, InterruptedException {
+
+    String fileName = "results.2019-12-11-13-21-02-404.json";
+    byte[] fileBytes =
+        Files.readAllBytes(fileStore.resultsDirectory().resolve(fileName));
+
+    HttpResponse<byte[]> response =
+        http.client().send(
+            http.newRequestBuilder("/raw/" + fileName)
+                .header(RANGE, "bytes=10-19")
+                .header(ACCEPT_ENCODING, "gzip")
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+    assertEquals(PARTIAL_CONTENT, response.statusCode());
+
+    assertEquals(
+        Optional.of("bytes 10-19/" + fileBytes.length),
+        response.headers().firstValue(CONTENT_RANGE));
+
+    assertEquals(
+        Optional.empty(),
+        response.headers().firstValue(CONTENT_ENCODING));
+
+    assertArrayEquals(
+        Arrays.copyOfRange(fileBytes, 10, 20),
+        response.body());
+
+    HttpResponse<byte[]> unsatisfiableResponse =
+        http.client().send(
+            http.newRequestBuilder("/raw/" + fileName)
+                .header(RANGE, "bytes=" + fileBytes.length + "-")
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+    assertEquals(
+        REQUEST_RANGE_NOT_SATISFIABLE,
+        unsatisfiableResponse.statusCode());
+
+    assertEquals(
+        Optional.of("bytes */" + fileBytes.length),
+        unsatisfiableResponse.headers().firstValue(CONTENT_RANGE));
+  }
+
+  /**
+   * Verifies that a HEAD request for a results file is answered with the
+   * headers of the GET response and no body.
+   */
+  @Test
+  public void testHead(HttpTester http, FileStore fileStore)
+      throws IOException, InterruptedException {
+
+    String fileName = "results.2019-12-16-03-22-48-407.zip";
+    long fileSize = Files.size(fileStore.resultsDirectory().resolve(fileName));
+
+    HttpResponse<byte[]> response =
+        http.client().send(
+            http.newRequestBuilder("/raw/" + fileName)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+    assertEquals(OK, response.statusCode());
+    assertEquals(0, response.body().length);
+
+    assertEquals(
+        OptionalLong.of(fileSize),
+        response.headers().firstValueAsLong(CONTENT_LENGTH));
+
+    assertEquals(
+        Optional.of("bytes"),
+        response.headers().firstValue(ACCEPT_RANGES));
+
+    assertTrue(response.headers().firstValue(ETAG).isPresent());
+  }
+
+  /**
+   * Verifies that files in the results directory that are not results files
+   * cannot be downloaded.
+   */
+  @Test
+  public void testNotResultsFile(HttpTester http, FileStore fileStore)
+      throws IOException, InterruptedException {
+
+    String fileName = "results.2019-12-11-13-21-02-404.json";
+
+    // Ensure that the compressed copy of the file exists.
+    HttpResponse<byte[]> gzipResponse =
+        http.client().send(
+            http.newRequestBuilder("/raw/" + fileName)
+                .header(ACCEPT_ENCODING, "gzip")
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+    assertEquals(OK, gzipResponse.statusCode());
+
+    HttpResponse<String> compressedCopyResponse =
+        http.getString("/raw/" + fileName + ".gz");
+
+    assertEquals(NOT_FOUND, compressedCopyResponse.statusCode());
+
+    Path tempFile =
+        Files.createTempFile(
+            /* dir= */ fileStore.resultsDirectory(),
+            /* prefix= */ "TFB_Status_Upload",
+            /* suffix= */ ".tmp");
+
+    try {
+      HttpResponse<String> tempFileResponse =
+          http.getString("/raw/" + tempFile.getFileName());
+
+      assertEquals(NOT_FOUND, tempFileResponse.statusCode());
+    } finally {
+      Files.delete(tempFile);
+    }
+  }
 }
@@ -0,0 +1,203 @@
+package tfb.status.handler;
+
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.undertow.util.StatusCodes.BAD_REQUEST;
+import static io.undertow.util.StatusCodes.NOT_FOUND;
+import static io.undertow.util.StatusCodes.OK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static tfb.status.testlib.HttpTester.asBodyPublisher;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import tfb.status.service.FileStore;
+import tfb.status.testlib.HttpTester;
+import tfb.status.testlib.ResultsTester;
+import tfb.status.testlib.TestServicesInjector;
+import tfb.status.view.DetailPageView;
+import tfb.status.view.Results;
+import tfb.status.view.Results.RawData;
+import tfb.status.view.Results.TestTypeToFrameworks;
+
+/**
+ * Tests for {@link PatchResultsHandler}.
+ */
+@Execution(ExecutionMode.SAME_THREAD) // currently not parallelizable
+@ExtendWith(TestServicesInjector.class)
+public final class PatchResultsHandlerTest {
+  /**
+   * Verifies that a patch containing the progress of a run is merged into the
+   * results.json file that was uploaded at the start of the run.
+   */
+  @Test
+  public void testPatch(HttpTester http,
+                        FileStore fileStore,
+                        ObjectMapper objectMapper,
+                        ResultsTester resultsTester)
+      throws IOException, InterruptedException {
+
+    Results fullResults = resultsTester.newResults();
+    assertNotNull(fullResults.uuid());
+
+    String uuid = fullResults.uuid();
+
+    //
+    // Upload the results as they would be at the start of the run.
+    //
+
+    Results initialResults =
+        new Results(
+            /* uuid= */ uuid,
+            /* name= */ fullResults.name(),
+            /* environmentDescription= */ fullResults.environmentDescription(),
+            /* startTime= */ fullResults.startTime(),
+            /* completionTime= */ null,
+            /* duration= */ fullResults.duration(),
+            /* frameworks= */ fullResults.frameworks(),
+            /* completed= */ ImmutableMap.of(),
+            /* succeeded= */ emptyTestTypeToFrameworks(),
+            /* failed= */ emptyTestTypeToFrameworks(),
+            /* rawData= */
+            new RawData(null, null, null, null, null, null, null),
+            /* queryIntervals= */ fullResults.queryIntervals(),
+            /* concurrencyLevels= */ fullResults.concurrencyLevels(),
+            /* git= */ fullResults.git(),
+            /* testMetadata= */ fullResults.testMetadata());
+
+    HttpRequest.Builder uploadRequest =
+        http.newRequestBuilder("/upload")
+            .POST(asBodyPublisher(resultsTester.asByteSource(initialResults)))
+            .header(CONTENT_TYPE, "application/json");
+
+    HttpResponse<Void> uploadResponse =
+        http.client().send(
+            http.addAuthorization(uploadRequest).build(),
+            HttpResponse.BodyHandlers.discarding());
+
+    assertEquals(OK, uploadResponse.statusCode());
+
+    DetailPageView initialDetails = details(http, objectMapper, uuid);
+    assertEquals(0, initialDetails.result().successfulTests());
+
+    //
+    // Send the progress of the run as a patch.
+    //
+
+    JsonNode fullJson = objectMapper.valueToTree(fullResults);
+
+    ObjectNode patch = objectMapper.createObjectNode();
+    patch.set("completed", fullJson.get("completed"));
+    patch.set("succeeded", fullJson.get("succeeded"));
+    patch.set("failed", fullJson.get("failed"));
+    patch.set("rawData", fullJson.get("rawData"));
+    patch.set("completionTime", fullJson.get("completionTime"));
+
+    HttpResponse<Void> patchResponse = sendPatch(http, uuid, patch.toString());
+
+    assertEquals(OK, patchResponse.statusCode());
+
+    //
+    // Confirm that both the summary and the file were updated.
+    //
+
+    DetailPageView patchedDetails = details(http, objectMapper, uuid);
+
+    assertNotEquals(0, patchedDetails.result().successfulTests());
+    assertEquals(
+        initialDetails.result().jsonFileName(),
+        patchedDetails.result().jsonFileName());
+
+    Path jsonFile =
+        fileStore.resultsDirectory()
+                 .resolve(patchedDetails.result().jsonFileName());
+
+    Results patchedResults;
+    try (InputStream inputStream = Files.newInputStream(jsonFile)) {
+      patchedResults = objectMapper.readValue(inputStream, Results.class);
+    }
+
+    assertEquals(fullResults, patchedResults);
+  }
+
+  /**
+   * Verifies that a patch for results that were never uploaded is rejected.
+   */
+  @Test
+  public void testUnknownUuid(HttpTester http)
+      throws IOException, InterruptedException {
+
+    HttpResponse<Void> response =
+        sendPatch(http, UUID.randomUUID().toString(), "{}");
+
+    assertEquals(NOT_FOUND, response.statusCode());
+  }
+
+  /**
+   * Verifies that a patch that would change the uuid of the results is
+   * rejected.
+   */
+  @Test
+  public void testDifferentUuid(HttpTester http,
+                                ResultsTester resultsTester)
+      throws IOException, InterruptedException {
+
+    Results results = resultsTester.newResults();
+    assertNotNull(results.uuid());
+
+    resultsTester.saveJsonToResultsDirectory(results);
+
+    HttpResponse<Void> response =
+        sendPatch(
+            http,
+            results.uuid(),
+            "{\"uuid\":\"" + UUID.randomUUID() + "\"}");
+
+    assertEquals(BAD_REQUEST, response.statusCode());
+  }
+
+  private static HttpResponse<Void> sendPatch(HttpTester http,
+                                              String uuid,
+                                              String patch)
+      throws IOException, InterruptedException {
+
+    HttpRequest.Builder request =
+        http.newRequestBuilder("/upload/" + uuid)
+            .method("PATCH", HttpRequest.BodyPublishers.ofString(patch))
+            .header(CONTENT_TYPE, "application/json");
+
+    return http.client().send(
+        http.addAuthorization(request).build(),
+        HttpResponse.BodyHandlers.discarding());
+  }
+
+  private static DetailPageView details(HttpTester http,
+                                        ObjectMapper objectMapper,
+                                        String uuid)
+      throws IOException, InterruptedException {
+
+    HttpResponse<byte[]> response =
+        http.getBytes("/results/" + uuid + ".json");
+
+    assertEquals(OK, response.statusCode());
+
+    return objectMapper.readValue(response.body(), DetailPageView.class);
+  }
+
+  private static TestTypeToFrameworks emptyTestTypeToFrameworks() {
+    return new TestTypeToFrameworks(null, null, null, null, null, null, null);
+  }
+}
@@ -0,0 +1,250 @@
+package tfb.status.handler;
+
+import static com.google.common.net.HttpHeaders.CONTENT_RANGE;
+import static io.undertow.util.StatusCodes.BAD_REQUEST;
+import static io.undertow.util.StatusCodes.CONFLICT;
+import static io.undertow.util.StatusCodes.CREATED;
+import static io.undertow.util.StatusCodes.NOT_FOUND;
+import static io.undertow.util.StatusCodes.OK;
+import static io.undertow.util.StatusCodes.UNAUTHORIZED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import tfb.status.testlib.HttpTester;
+import tfb.status.testlib.ResultsTester;
+import tfb.status.testlib.TestServicesInjector;
+import tfb.status.view.DetailPageView;
+import tfb.status.view.Results;
+import tfb.status.view.UploadSessionView;
+
+/**
+ * Tests for {@link ResumableUploadHandler}.
+ */
+@Execution(ExecutionMode.SAME_THREAD) // currently not parallelizable
+@ExtendWith(TestServicesInjector.class)
+public final class ResumableUploadHandlerTest {
+  /**
+   * Verifies that a zip file can be uploaded in two ranges, that the offset of
+   * the upload can be queried between the ranges, and that a range sent from
+   * the wrong offset is rejected.
+   */
+  @Test
+  public void testResumableUpload(HttpTester http,
+                                  FileSystem fileSystem,
+                                  ObjectMapper objectMapper,
+                                  ResultsTester resultsTester)
+      throws IOException, InterruptedException {
+
+    Results results = resultsTester.newResults();
+    assertNotNull(results.uuid());
+
+    Path zipFile = fileSystem.getPath("resumable_upload.zip");
+    resultsTester.saveZipToFile(results, zipFile);
+
+    byte[] zipBytes = Files.readAllBytes(zipFile);
+    int middle = zipBytes.length / 2;
+
+    //
+    // Create the upload.
+    //
+
+    HttpResponse<String> createResponse =
+        http.client().send(
+            http.addAuthorization(
+                    http.newRequestBuilder("/upload/sessions?format=zip")
+                        .POST(HttpRequest.BodyPublishers.noBody()))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+    assertEquals(CREATED, createResponse.statusCode());
+
+    UploadSessionView session =
+        objectMapper.readValue(createResponse.body(), UploadSessionView.class);
+
+    assertEquals("zip", session.format());
+    assertEquals(0, session.offset());
+    assertEquals(
+        session.uploadUrl(),
+        createResponse.headers().firstValue("Location").orElseThrow());
+
+    //
+    // Send the first range.
+    //
+
+    HttpResponse<String> firstRangeResponse =
+        sendRange(http, session, zipBytes, 0, middle);
+
+    assertEquals(OK, firstRangeResponse.statusCode());
+
+    //
+    // Confirm the offset has advanced.
+    //
+
+    HttpResponse<String> getResponse =
+        http.client().send(
+            http.addAuthorization(http.newRequestBuilder(session.uploadUrl()))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+    assertEquals(OK, getResponse.statusCode());
+
+    assertEquals(
+        middle,
+        objectMapper.readValue(getResponse.body(), UploadSessionView.class)
+                    .offset());
+
+    //
+    // Confirm that sending a range from the wrong offset is rejected.
+    //
+
+    HttpResponse<String> conflictResponse =
+        sendRange(http, session, zipBytes, 0, middle);
+
+    assertEquals(CONFLICT, conflictResponse.statusCode());
+
+    assertEquals(
+        middle,
+        objectMapper.readValue(conflictResponse.body(), UploadSessionView.class)
+                    .offset());
+
+    //
+    // Send the rest of the file and finalize the upload.
+    //
+
+    HttpResponse<String> lastRangeResponse =
+        sendRange(http, session, zipBytes, middle, zipBytes.length);
+
+    assertEquals(OK, lastRangeResponse.statusCode());
+
+    HttpResponse<Void> finalizeResponse =
+        http.client().send(
+            http.addAuthorization(
+                    http.newRequestBuilder(session.uploadUrl() + "/finalize")
+                        .POST(HttpRequest.BodyPublishers.noBody()))
+                .build(),
+            HttpResponse.BodyHandlers.discarding());
+
+    assertEquals(OK, finalizeResponse.statusCode());
+
+    //
+    // Confirm the results exist on the server now, and that the upload does
+    // not.
+    //
+
+    HttpResponse<byte[]> detailsResponse =
+        http.getBytes("/results/" + results.uuid() + ".json");
+
+    assertEquals(OK, detailsResponse.statusCode());
+
+    DetailPageView details =
+        objectMapper.readValue(detailsResponse.body(), DetailPageView.class);
+
+    assertEquals(results.uuid(), details.result().uuid());
+    assertNotNull(details.result().zipFileName());
+
+    HttpResponse<String> getAfterFinalizeResponse =
+        http.client().send(
+            http.addAuthorization(http.newRequestBuilder(session.uploadUrl()))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+    assertEquals(NOT_FOUND, getAfterFinalizeResponse.statusCode());
+  }
+
+  /**
+   * Verifies that a range whose {@code Content-Range} header does not match
+   * the body of the request is rejected, and that none of its bytes are
+   * appended to the upload.
+   */
+  @Test
+  public void testInvalidRange(HttpTester http, ObjectMapper objectMapper)
+      throws IOException, InterruptedException {
+
+    HttpResponse<String> createResponse =
+        http.client().send(
+            http.addAuthorization(
+                    http.newRequestBuilder("/upload/sessions?format=json")
+                        .POST(HttpRequest.BodyPublishers.noBody()))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+    assertEquals(CREATED, createResponse.statusCode());
+
+    UploadSessionView session =
+        objectMapper.readValue(createResponse.body(), UploadSessionView.class);
+
+    HttpResponse<Void> response =
+        http.client().send(
+            http.addAuthorization(
+                    http.newRequestBuilder(session.uploadUrl())
+                        .PUT(HttpRequest.BodyPublishers.ofString("{}"))
+                        .header(CONTENT_RANGE, "bytes 0-9/10"))
+                .build(),
+            HttpResponse.BodyHandlers.discarding());
+
+    assertEquals(BAD_REQUEST, response.statusCode());
+
+    HttpResponse<String> getResponse =
+        http.client().send(
+            http.addAuthorization(http.newRequestBuilder(session.uploadUrl()))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+    assertEquals(OK, getResponse.statusCode());
+
+    assertEquals(
+        0,
+        objectMapper.readValue(getResponse.body(), UploadSessionView.class)
+                    .offset());
+  }
+
+  /**
+   * Verifies that an unauthenticated request to create an upload is rejected.
+   */
+  @Test
+  public void testUnauthorized(HttpTester http)
+      throws IOException, InterruptedException {
+
+    HttpResponse<Void> response =
+        http.client().send(
+            http.newRequestBuilder("/upload/sessions")
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(),
+            HttpResponse.BodyHandlers.discarding());
+
+    assertEquals(UNAUTHORIZED, response.statusCode());
+  }
+
+  private static HttpResponse<String> sendRange(HttpTester http,
+                                                UploadSessionView session,
+                                                byte[] bytes,
+                                                int start,
+                                                int end)
+      throws IOException, InterruptedException {
+
+    HttpRequest.Builder request =
+        http.newRequestBuilder(session.uploadUrl())
+            .PUT(
+                HttpRequest.BodyPublishers.ofByteArray(
+                    Arrays.copyOfRange(bytes, start, end)))
+            .header(
+                CONTENT_RANGE,
+                "bytes " + start + "-" + (end - 1) + "/" + bytes.length);
+
+    return http.client().send(
+        http.addAuthorization(request).build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+}
@@ -19,7 +19,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Ascii;
 import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Uninterruptibles;
 import jakarta.mail.MessagingException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.http.HttpRequest;
@@ -29,6 +31,10 @@ import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.parallel.Execution;
@@ -307,7 +313,11 @@ public final class ShareUploadHandlerTest {
                                           ResultsTester resultsTester,
                                           ObjectMapper objectMapper,
                                           MutableClock clock)
-      throws IOException, InterruptedException, MessagingException {
+      throws IOException,
+             InterruptedException,
+             MessagingException,
+             ExecutionException,
+             TimeoutException {
 
     class ShareTester {
       /**
@@ -402,6 +412,43 @@ public final class ShareUploadHandlerTest {
       Thread.sleep(mailDelay.timeToSendOneEmail().toMillis());
       assertEquals(2, shareTester.countEmails());
 
+      //
+      // Assert that the upload is rejected before its body is received.
+      //
+
+      var sendBody = new CountDownLatch(1);
+
+      // The client waits for "100 Continue" before sending the body, and the
+      // body can't be sent until the response has arrived.
+      InputStream body =
+          new FilterInputStream(
+              resultsTester.asByteSource(resultsTester.newResults())
+                           .openStream()) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+              Uninterruptibles.awaitUninterruptibly(sendBody);
+              return super.read(b, off, len);
+            }
+          };
+
+      try {
+        HttpResponse<String> response =
+            http.client()
+                .sendAsync(
+                    http.newRequestBuilder("/share/upload")
+                        .POST(HttpRequest.BodyPublishers.ofInputStream(
+                            () -> body))
+                        .header(CONTENT_TYPE, "application/json")
+                        .expectContinue(true)
+                        .build(),
+                    HttpResponse.BodyHandlers.ofString())
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(SERVICE_UNAVAILABLE, response.statusCode());
+      } finally {
+        sendBody.countDown();
+      }
+
     } finally {
       Files.delete(junk);
     }
@@ -2,6 +2,7 @@ package tfb.status.handler;
 
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static com.google.common.net.MediaType.ZIP;
+import static io.undertow.util.StatusCodes.BAD_REQUEST;
 import static io.undertow.util.StatusCodes.NOT_FOUND;
 import static io.undertow.util.StatusCodes.OK;
 import static io.undertow.util.StatusCodes.UNAUTHORIZED;
@@ -14,6 +15,7 @@ import static tfb.status.testlib.HttpTester.asBodyPublisher;
 import static tfb.status.testlib.MoreAssertions.assertContains;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteSource;
 import jakarta.mail.MessagingException;
@@ -24,6 +26,8 @@ import java.net.http.HttpResponse;
 import java.net.http.WebSocket;
 import java.nio.file.FileSystem;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.UUID;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -37,6 +41,7 @@ import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 import tfb.status.service.RunCompleteMailer;
 import tfb.status.testlib.HttpTester;
+import tfb.status.testlib.MailDelay;
 import tfb.status.testlib.MailServer;
 import tfb.status.testlib.ResultsTester;
 import tfb.status.testlib.TestServicesInjector;
@@ -58,7 +63,8 @@ public final class UploadResultsHandlerTest {
                          FileSystem fileSystem,
                          ObjectMapper objectMapper,
                          ResultsTester resultsTester,
-                         MailServer mailServer)
+                         MailServer mailServer,
+                         MailDelay mailDelay)
       throws ExecutionException,
              InterruptedException,
              IOException,
@@ -305,9 +311,16 @@ public final class UploadResultsHandlerTest {
       String subject =
           RunCompleteMailer.runCompleteEmailSubject(finalResults);
 
+      // The email is sent asynchronously.
       ImmutableList<MimeMessage> messages =
           mailServer.getMessages(m -> m.getSubject().equals(subject));
 
+      Instant deadline = Instant.now().plus(EMAIL_TIMEOUT);
+      while (messages.isEmpty() && Instant.now().isBefore(deadline)) {
+        Thread.sleep(mailDelay.timeToSendOneEmail().toMillis());
+        messages = mailServer.getMessages(m -> m.getSubject().equals(subject));
+      }
+
       assertEquals(1, messages.size());
 
     } finally {
@@ -342,6 +355,51 @@ public final class UploadResultsHandlerTest {
     assertEquals("", response.body());
   }
 
+  /**
+   * Verifies that {@code POST /upload} produces a {@code 400 Bad Request}
+   * response for a results.json file that is not valid JSON.
+   */
+  @Test
+  public void testPost_invalidJson(HttpTester http)
+      throws IOException, InterruptedException {
+
+    HttpRequest.Builder request =
+        http.newRequestBuilder("/upload")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"uuid\": [}"))
+            .header(CONTENT_TYPE, "application/json");
+
+    HttpResponse<String> response =
+        http.client().send(
+            http.addAuthorization(request).build(),
+            HttpResponse.BodyHandlers.ofString());
+
+    assertEquals(BAD_REQUEST, response.statusCode());
+  }
+
+  /**
+   * Verifies that {@code POST /upload} produces a {@code 400 Bad Request}
+   * response for a results.json file that is found to be invalid long before
+   * the rest of the file has been received.
+   */
+  @Test
+  public void testPost_invalidJsonPrefix(HttpTester http)
+      throws IOException, InterruptedException {
+
+    String invalidJson = "{\"uuid\": [}" + Strings.repeat(" ", 5_000_000);
+
+    HttpRequest.Builder request =
+        http.newRequestBuilder("/upload")
+            .POST(HttpRequest.BodyPublishers.ofString(invalidJson))
+            .header(CONTENT_TYPE, "application/json");
+
+    HttpResponse<String> response =
+        http.client().send(
+            http.addAuthorization(request).build(),
+            HttpResponse.BodyHandlers.ofString());
+
+    assertEquals(BAD_REQUEST, response.statusCode());
+  }
+
   /**
    * Verifies that {@code POST /upload} produces a {@code 401 Unauthorized}
    * response for a request that does not include valid credentials.
@@ -366,4 +424,6 @@ public final class UploadResultsHandlerTest {
 
     assertEquals("", response.body());
   }
+
+  private static final Duration EMAIL_TIMEOUT = Duration.ofSeconds(10);
 }
@@ -11,8 +11,15 @@ import static tfb.status.hk2.extensions.CompatibleWithJava8.listOf;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.glassfish.hk2.api.PostConstruct;
 import org.glassfish.hk2.api.PreDestroy;
 import org.glassfish.hk2.api.ServiceLocator;
@@ -22,6 +29,7 @@ import org.glassfish.hk2.api.messaging.Topic;
 import org.glassfish.hk2.api.messaging.TopicDistributionService;
 import org.glassfish.hk2.utilities.ServiceLocatorUtilities;
 import org.junit.jupiter.api.Test;
+import tfb.status.hk2.extensions.AsyncDelivery.Overflow;
 
 /**
  * Tests for {@link TopicsModule} and supporting classes.
@@ -79,6 +87,53 @@ public final class TopicsTest {
     assertSame(service2List.get(0), service2List.get(1));
   }
 
+  /**
+   * Verifies that messages are delivered to {@link AsyncDelivery} subscribers
+   * in order on threads other than the publishing thread, and that messages
+   * published while a subscriber's queue is full are handled according to
+   * the subscriber's overflow policy.
+   */
+  @Test
+  public void testAsyncDelivery() throws InterruptedException {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      ServiceLocator locator = createAndPopulateServiceLocator();
+      ServiceLocatorUtilities.bind(locator, new TopicsModule());
+      ServiceLocatorUtilities.addOneConstant(
+          locator,
+          executor,
+          AsyncDelivery.EXECUTOR_NAME,
+          Executor.class);
+      ServiceLocatorUtilities.addClasses(
+          locator,
+          AsyncTopics.class,
+          AsyncSubscriberService.class);
+
+      AsyncTopics topics = locator.getService(AsyncTopics.class);
+      AsyncSubscriberService service =
+          locator.getService(AsyncSubscriberService.class);
+
+      // The subscriber blocks while receiving the first message, so that the
+      // next two messages fill its queue and the last one overflows.
+      topics.longTopic.publish(0L);
+      assertTrue(service.firstMessageReceived.await(10, TimeUnit.SECONDS));
+
+      topics.longTopic.publish(1L);
+      topics.longTopic.publish(2L);
+      topics.longTopic.publish(3L);
+
+      service.releaseFirstMessage.countDown();
+
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+      assertEquals(listOf(0L, 1L, 2L), service.getMessages());
+      assertFalse(service.getThreads().contains(Thread.currentThread()));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   public static final class Topics {
     final Topic<String> stringTopic;
     final Topic<Integer> integerTopic; // subtype of Number, should be seen
@@ -133,6 +188,51 @@ public final class TopicsTest {
   public static class SingletonServiceWithShutdown
       extends ServiceWithLifecycle {}
 
+  public static final class AsyncTopics {
+    final Topic<Long> longTopic;
+
+    @Inject
+    public AsyncTopics(Topic<Long> longTopic) {
+      this.longTopic = Objects.requireNonNull(longTopic);
+    }
+  }
+
+  @Singleton
+  @MessageReceiver({ Long.class })
+  public static final class AsyncSubscriberService {
+    final CountDownLatch firstMessageReceived = new CountDownLatch(1);
+    final CountDownLatch releaseFirstMessage = new CountDownLatch(1);
+
+    /*@GuardedBy("this")*/
+    private final List<Long> messages = new ArrayList<>();
+
+    /*@GuardedBy("this")*/
+    private final Set<Thread> threads = new HashSet<>();
+
+    @AsyncDelivery(queueCapacity = 2, overflow = Overflow.DROP_NEWEST)
+    public void onEvent(@SubscribeTo Long message)
+        throws InterruptedException {
+
+      synchronized (this) {
+        messages.add(message);
+        threads.add(Thread.currentThread());
+      }
+
+      if (message == 0L) {
+        firstMessageReceived.countDown();
+        releaseFirstMessage.await();
+      }
+    }
+
+    public synchronized List<Long> getMessages() {
+      return new ArrayList<>(messages);
+    }
+
+    public synchronized Set<Thread> getThreads() {
+      return new HashSet<>(threads);
+    }
+  }
+
   @Singleton
   @MessageReceiver({ String.class, Number.class })
   public static final class SubscriberService {
@@ -22,6 +22,7 @@ import tfb.status.config.MustacheConfig;
 import tfb.status.config.RunCompleteMailerConfig;
 import tfb.status.config.RunProgressMonitorConfig;
 import tfb.status.config.ShareConfig;
+import tfb.status.config.UpdatedResultsConfig;
 import tfb.status.testlib.TestServicesInjector;
 
 /**
@@ -43,6 +44,7 @@ public final class ApplicationConfigFactoryTest {
       Provider<RunCompleteMailerConfig> runCompleteMailerConfigProvider,
       Provider<ShareConfig> shareConfigProvider,
       Provider<HealthCheckConfig> healthCheckConfigProvider,
+      Provider<UpdatedResultsConfig> updatedResultsConfigProvider,
       Provider<EmailConfig> emailConfigProvider) {
 
     ApplicationConfig config = applicationConfigProvider.get();
@@ -80,6 +82,10 @@ public final class ApplicationConfigFactoryTest {
         config.healthCheck(),
         healthCheckConfigProvider.get());
 
+    assertEquals(
+        config.updatedResults(),
+        updatedResultsConfigProvider.get());
+
     assertEquals(
         config.email(),
         emailConfigProvider.get());
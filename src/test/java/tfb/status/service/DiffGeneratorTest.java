@@ -1,5 +1,7 @@
 package tfb.status.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static tfb.status.testlib.MoreAssertions.assertContains;
 import static tfb.status.testlib.MoreAssertions.assertHtmlDocument;
 
@@ -88,4 +90,111 @@ public final class DiffGeneratorTest {
     assertContains(framework, html);
     assertContains(expectedRps, html);
   }
+
+  /**
+   * Verifies that {@link DiffGenerator#diff(Results, Results)} lists the
+   * union of the frameworks in both sets of results in case-insensitive order,
+   * and that it flags frameworks that were added or removed.
+   */
+  @Test
+  public void testDiffMergesFrameworks(DiffGenerator diffGenerator) {
+    Results oldResults =
+        newJsonResults(ImmutableMap.of("b_framework", 100L,
+                                       "A_framework", 200L));
+
+    Results newResults =
+        newJsonResults(ImmutableMap.of("c_framework", 300L,
+                                       "a_framework", 400L,
+                                       "b_framework", 500L));
+
+    String html = diffGenerator.diff(oldResults, newResults);
+
+    assertHtmlDocument(html);
+
+    int upperA = html.indexOf("A_framework");
+    int lowerA = html.indexOf("a_framework");
+    int b = html.indexOf("b_framework");
+    int c = html.indexOf("c_framework");
+    assertTrue(upperA != -1 && upperA < lowerA && lowerA < b && b < c, html);
+
+    assertEquals(2, countOccurrences(html, "ADDED"), html);
+    assertEquals(1, countOccurrences(html, "REMOVED"), html);
+    assertContains("400%", html);
+
+    assertEquals(
+        html,
+        diffGenerator.diff(oldResults.requestsMatrix(),
+                           newResults.requestsMatrix()));
+  }
+
+  private static int countOccurrences(String string, String substring) {
+    int count = 0;
+    int index = string.indexOf(substring);
+    while (index != -1) {
+      count++;
+      index = string.indexOf(substring, index + substring.length());
+    }
+    return count;
+  }
+
+  /**
+   * Returns results where each framework has the specified total requests in
+   * the JSON test type and no other data.
+   */
+  private static Results newJsonResults(ImmutableMap<String, Long> requests) {
+    var json = ImmutableListMultimap.<String, SingleWrkExecution>builder();
+    requests.forEach(
+        (framework, totalRequests) ->
+            json.put(framework,
+                     new SingleWrkExecution(
+                         /* totalRequests= */ totalRequests,
+                         /* status5xx= */ 0)));
+
+    var rawData =
+        new RawData(
+            /* json= */ json.build(),
+            /* plaintext= */ null,
+            /* db= */ null,
+            /* query= */ null,
+            /* update= */ null,
+            /* fortune= */ null,
+            /* cachedQuery= */ null);
+
+    var succeeded =
+        new TestTypeToFrameworks(
+            /* json= */ requests.keySet(),
+            /* plaintext= */ null,
+            /* db= */ null,
+            /* query= */ null,
+            /* update= */ null,
+            /* fortune= */ null,
+            /* cachedQuery= */ null);
+
+    var failed =
+        new TestTypeToFrameworks(
+            /* json= */ null,
+            /* plaintext= */ null,
+            /* db= */ null,
+            /* query= */ null,
+            /* update= */ null,
+            /* fortune= */ null,
+            /* cachedQuery= */ null);
+
+    return new Results(
+        /* uuid= */ null,
+        /* name= */ null,
+        /* environmentDescription= */ null,
+        /* startTime= */ null,
+        /* completionTime= */ null,
+        /* duration= */ 1,
+        /* frameworks= */ requests.keySet(),
+        /* completed= */ ImmutableMap.of(),
+        /* succeeded= */ succeeded,
+        /* failed= */ failed,
+        /* rawData= */ rawData,
+        /* queryIntervals= */ ImmutableList.of(1),
+        /* concurrencyLevels= */ ImmutableList.of(1),
+        /* git= */ null,
+        /* testMetadata= */ null);
+  }
 }
@@ -36,6 +36,22 @@ public final class FileStoreTest {
     assertTrue(Files.isDirectory(fileStore.shareDirectory()));
   }
 
+  /**
+   * Verifies that {@link FileStore#cacheDirectory()} returns a directory.
+   */
+  @Test
+  public void testCacheDirectory(FileStore fileStore) {
+    assertTrue(Files.isDirectory(fileStore.cacheDirectory()));
+  }
+
+  /**
+   * Verifies that {@link FileStore#uploadsDirectory()} returns a directory.
+   */
+  @Test
+  public void testUploadsDirectory(FileStore fileStore) {
+    assertTrue(Files.isDirectory(fileStore.uploadsDirectory()));
+  }
+
   /**
    * Verifies that {@link FileStore#announcementFile()} returns a file.
    */
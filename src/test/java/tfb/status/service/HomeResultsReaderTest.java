@@ -1,17 +1,30 @@
 package tfb.status.service;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
+import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import tfb.status.config.FileStoreConfig;
 import tfb.status.testlib.ResultsTester;
 import tfb.status.testlib.TestServicesInjector;
 import tfb.status.util.ZipFiles;
@@ -283,6 +296,513 @@ public final class HomeResultsReaderTest {
     assertNull(view.visualizeResultsUrl());
   }
 
+  /**
+   * Verifies that {@link HomeResultsReader} writes the summaries of results
+   * files to a persistent index, and that a new instance of {@link
+   * HomeResultsReader} uses that index rather than re-reading files that have
+   * not changed.
+   */
+  @Test
+  public void testSummaryIndex(FileSystem fileSystem,
+                               ObjectMapper objectMapper,
+                               Clock clock,
+                               TaskScheduler taskScheduler,
+                               ResultsTester resultsTester)
+      throws IOException {
+
+    // Use a separate file store so that the index file isn't shared with the
+    // other tests.
+    var fileStore =
+        new FileStore(
+            FileStoreConfig.create("summary_index_test_" + UUID.randomUUID()),
+            fileSystem);
+
+    Results results = resultsTester.newResults();
+    assertNotNull(results.uuid());
+    assertNotNull(results.name());
+
+    Path jsonFile = fileStore.resultsDirectory().resolve("results.json");
+    resultsTester.saveJsonToFile(results, jsonFile);
+
+    var firstReader =
+        new HomeResultsReader(
+            fileStore,
+            objectMapper,
+            clock,
+            taskScheduler,
+            new ResultsSidecarStore(fileStore, objectMapper));
+
+    ResultsView firstView;
+    try {
+      firstView = firstReader.resultsByUuid(results.uuid());
+    } finally {
+      firstReader.stop();
+    }
+
+    assertNotNull(firstView);
+    assertEquals(results.name(), firstView.name());
+
+    Path indexFile =
+        fileStore.cacheDirectory()
+                 .resolve(HomeResultsReader.SUMMARY_INDEX_FILE_NAME);
+
+    assertTrue(Files.isRegularFile(indexFile));
+
+    // Change the contents of the results file without changing its size or
+    // its last modified time.  The new reader should not notice.
+    FileTime lastModifiedTime = Files.getLastModifiedTime(jsonFile);
+    String oldJson = Files.readString(jsonFile, UTF_8);
+    String newName = results.name().toUpperCase(Locale.ROOT);
+    String newJson = oldJson.replace(results.name(), newName);
+    Files.writeString(jsonFile, newJson, UTF_8);
+    Files.setLastModifiedTime(jsonFile, lastModifiedTime);
+
+    var secondReader =
+        new HomeResultsReader(
+            fileStore,
+            objectMapper,
+            clock,
+            taskScheduler,
+            new ResultsSidecarStore(fileStore, objectMapper));
+
+    try {
+      ResultsView secondView = secondReader.resultsByUuid(results.uuid());
+      assertEquals(firstView, secondView);
+    } finally {
+      secondReader.stop();
+    }
+
+    // Once the file's last modified time changes, the index entry for that
+    // file should be ignored.
+    Files.setLastModifiedTime(
+        jsonFile,
+        FileTime.from(lastModifiedTime.toInstant().plusSeconds(1)));
+
+    var thirdReader =
+        new HomeResultsReader(
+            fileStore,
+            objectMapper,
+            clock,
+            taskScheduler,
+            new ResultsSidecarStore(fileStore, objectMapper));
+
+    try {
+      ResultsView thirdView = thirdReader.resultsByUuid(results.uuid());
+      assertNotNull(thirdView);
+      assertEquals(newName, thirdView.name());
+    } finally {
+      thirdReader.stop();
+    }
+  }
+
+  /**
+   * Verifies that {@link HomeResultsReader} appends new summaries to its
+   * persistent index rather than rewriting the index, and that it recovers
+   * the summaries before an incomplete record at the end of the index.
+   */
+  @Test
+  public void testSummaryIndex_append(FileSystem fileSystem,
+                                      ObjectMapper objectMapper,
+                                      Clock clock,
+                                      TaskScheduler taskScheduler,
+                                      ResultsTester resultsTester)
+      throws IOException {
+
+    var fileStore =
+        new FileStore(
+            FileStoreConfig.create("summary_index_append_test_"
+                                       + UUID.randomUUID()),
+            fileSystem);
+
+    Results results1 = resultsTester.newResults();
+    Results results2 = resultsTester.newResults();
+    assertNotNull(results1.uuid());
+    assertNotNull(results2.uuid());
+
+    Path indexFile =
+        fileStore.cacheDirectory()
+                 .resolve(HomeResultsReader.SUMMARY_INDEX_FILE_NAME);
+
+    resultsTester.saveJsonToFile(
+        results1,
+        fileStore.resultsDirectory().resolve("results.1.json"));
+
+    var firstReader =
+        new HomeResultsReader(
+            fileStore,
+            objectMapper,
+            clock,
+            taskScheduler,
+            new ResultsSidecarStore(fileStore, objectMapper));
+
+    try {
+      assertNotNull(firstReader.resultsByUuid(results1.uuid()));
+    } finally {
+      firstReader.stop();
+    }
+
+    List<String> firstLines = Files.readAllLines(indexFile, UTF_8);
+    assertEquals(2, firstLines.size());
+
+    resultsTester.saveJsonToFile(
+        results2,
+        fileStore.resultsDirectory().resolve("results.2.json"));
+
+    var secondReader =
+        new HomeResultsReader(
+            fileStore,
+            objectMapper,
+            clock,
+            taskScheduler,
+            new ResultsSidecarStore(fileStore, objectMapper));
+
+    try {
+      assertNotNull(secondReader.resultsByUuid(results2.uuid()));
+    } finally {
+      secondReader.stop();
+    }
+
+    List<String> secondLines = Files.readAllLines(indexFile, UTF_8);
+    assertEquals(3, secondLines.size());
+    assertEquals(firstLines, secondLines.subList(0, 2));
+
+    // Simulate a crash in the middle of appending a record.
+    String lastLine = secondLines.get(2);
+    Files.writeString(
+        indexFile,
+        String.join("\n", secondLines.subList(0, 2))
+            + "\n"
+            + lastLine.substring(0, lastLine.length() / 2),
+        UTF_8);
+
+    var thirdReader =
+        new HomeResultsReader(
+            fileStore,
+            objectMapper,
+            clock,
+            taskScheduler,
+            new ResultsSidecarStore(fileStore, objectMapper));
+
+    try {
+      assertNotNull(thirdReader.resultsByUuid(results1.uuid()));
+      assertNotNull(thirdReader.resultsByUuid(results2.uuid()));
+    } finally {
+      thirdReader.stop();
+    }
+
+    // The incomplete index is rewritten in full.
+    List<String> thirdLines = Files.readAllLines(indexFile, UTF_8);
+    assertEquals(3, thirdLines.size());
+    for (String line : thirdLines)
+      objectMapper.readTree(line);
+  }
+
+  /**
+   * Verifies that {@link HomeResultsReader#refresh(Path)} makes changes to
+   * results files visible immediately.
+   */
+  @Test
+  public void testRefresh(FileSystem fileSystem,
+                          ObjectMapper objectMapper,
+                          Clock clock,
+                          TaskScheduler taskScheduler,
+                          ResultsTester resultsTester)
+      throws IOException {
+
+    var fileStore =
+        new FileStore(
+            FileStoreConfig.create("refresh_test_" + UUID.randomUUID()),
+            fileSystem);
+
+    Results results = resultsTester.newResults();
+    assertNotNull(results.uuid());
+
+    var reader =
+        new HomeResultsReader(
+            fileStore,
+            objectMapper,
+            clock,
+            taskScheduler,
+            new ResultsSidecarStore(fileStore, objectMapper));
+
+    try {
+      assertEquals(List.of(), reader.results());
+
+      Path jsonFile = fileStore.resultsDirectory().resolve("results.json");
+      resultsTester.saveJsonToFile(results, jsonFile);
+      reader.refresh(jsonFile);
+
+      ResultsView view = reader.resultsByUuid(results.uuid());
+      assertNotNull(view);
+      assertEquals("results.json", view.jsonFileName());
+
+      Files.delete(jsonFile);
+      reader.refresh(jsonFile);
+
+      assertNull(reader.resultsByUuid(results.uuid()));
+      assertEquals(List.of(), reader.results());
+    } finally {
+      reader.stop();
+    }
+  }
+
+  /**
+   * Verifies that {@link HomeResultsReader#resultsByUuid(String)} notices when
+   * a results file is overwritten with results having a different UUID.
+   */
+  @Test
+  public void testResultsByUuid_uuidChanged(HomeResultsReader homeResultsReader,
+                                            ResultsTester resultsTester)
+      throws IOException {
+
+    // Make sure the file's size changes when it is overwritten, since its last
+    // modified time might not.
+    Results oldResults = resultsTester.newResults();
+    Results newResults = newResultsWithoutMetadata(resultsTester);
+    assertNotNull(oldResults.uuid());
+    assertNotNull(newResults.uuid());
+
+    Path jsonFile = resultsTester.saveJsonToResultsDirectory(oldResults);
+
+    assertNotNull(homeResultsReader.resultsByUuid(oldResults.uuid()));
+    assertNull(homeResultsReader.resultsByUuid(newResults.uuid()));
+
+    resultsTester.saveJsonToFile(newResults, jsonFile);
+
+    assertNull(homeResultsReader.resultsByUuid(oldResults.uuid()));
+    assertNotNull(homeResultsReader.resultsByUuid(newResults.uuid()));
+  }
+
+  /**
+   * Verifies that {@link HomeResultsReader#results(int, int)} returns pages of
+   * the list returned by {@link HomeResultsReader#results()}, and that the
+   * list stays in order as results files are added and deleted.
+   */
+  @Test
+  public void testResultsPages(FileSystem fileSystem,
+                               ObjectMapper objectMapper,
+                               Clock clock,
+                               TaskScheduler taskScheduler,
+                               ResultsTester resultsTester)
+      throws IOException {
+
+    var fileStore =
+        new FileStore(
+            FileStoreConfig.create("results_pages_test_" + UUID.randomUUID()),
+            fileSystem);
+
+    var reader =
+        new HomeResultsReader(
+            fileStore,
+            objectMapper,
+            clock,
+            taskScheduler,
+            new ResultsSidecarStore(fileStore, objectMapper));
+
+    try {
+      for (String timestamp : List.of("2020-01-03", "2020-01-01")) {
+        Path file =
+            fileStore.resultsDirectory()
+                     .resolve("results." + timestamp + ".json");
+
+        resultsTester.saveJsonToFile(resultsTester.newResults(), file);
+        reader.refresh(file);
+      }
+
+      assertEquals(
+          List.of("results.2020-01-03.json", "results.2020-01-01.json"),
+          jsonFileNames(reader.results()));
+
+      // Insert a file in the middle of the already-sorted list.
+      Path middleFile =
+          fileStore.resultsDirectory().resolve("results.2020-01-02.json");
+
+      resultsTester.saveJsonToFile(resultsTester.newResults(), middleFile);
+      reader.refresh(middleFile);
+
+      ImmutableList<ResultsView> allResults = reader.results();
+
+      assertEquals(
+          List.of("results.2020-01-03.json",
+                  "results.2020-01-02.json",
+                  "results.2020-01-01.json"),
+          jsonFileNames(allResults));
+
+      assertEquals(allResults.subList(0, 2), reader.results(0, 2));
+      assertEquals(allResults.subList(1, 3), reader.results(1, 5));
+      assertEquals(List.of(), reader.results(3, 1));
+      assertEquals(List.of(), reader.results(1, 0));
+
+      Files.delete(middleFile);
+      reader.refresh(middleFile);
+
+      assertEquals(
+          List.of("results.2020-01-03.json", "results.2020-01-01.json"),
+          jsonFileNames(reader.results()));
+
+      assertThrows(IllegalArgumentException.class,
+                   () -> reader.results(-1, 1));
+
+      assertThrows(IllegalArgumentException.class,
+                   () -> reader.results(0, -1));
+    } finally {
+      reader.stop();
+    }
+  }
+
+  /**
+   * Verifies that {@link HomeResultsReader#warmUp()} reads the summaries of all
+   * the results files, so that later requests see the same results.
+   */
+  @Test
+  public void testWarmUp(FileSystem fileSystem,
+                         ObjectMapper objectMapper,
+                         Clock clock,
+                         TaskScheduler taskScheduler,
+                         ResultsTester resultsTester)
+      throws IOException {
+
+    var fileStore =
+        new FileStore(
+            FileStoreConfig.create("warm_up_test_" + UUID.randomUUID()),
+            fileSystem);
+
+    var uuids = new ArrayList<String>();
+    for (int i = 0; i < 10; i++) {
+      Results results = resultsTester.newResults();
+      assertNotNull(results.uuid());
+      uuids.add(results.uuid());
+
+      resultsTester.saveJsonToFile(
+          results,
+          fileStore.resultsDirectory().resolve("results." + i + ".json"));
+    }
+
+    var reader =
+        new HomeResultsReader(
+            fileStore,
+            objectMapper,
+            clock,
+            taskScheduler,
+            new ResultsSidecarStore(fileStore, objectMapper));
+
+    try {
+      reader.warmUp();
+
+      assertEquals(uuids.size(), reader.results().size());
+
+      for (String uuid : uuids)
+        assertNotNull(reader.resultsByUuid(uuid));
+    } finally {
+      reader.stop();
+    }
+  }
+
+  /**
+   * Verifies that {@link HomeResultsReader#previousComparableZipFile(Path)}
+   * finds the most recent earlier run in the same environment, ignoring runs
+   * in other environments and runs that started later.
+   */
+  @Test
+  public void testPreviousComparableZipFile(FileSystem fileSystem,
+                                            ObjectMapper objectMapper,
+                                            Clock clock,
+                                            TaskScheduler taskScheduler,
+                                            ResultsTester resultsTester)
+      throws IOException {
+
+    var fileStore =
+        new FileStore(
+            FileStoreConfig.create("previous_run_test_" + UUID.randomUUID()),
+            fileSystem);
+
+    var reader =
+        new HomeResultsReader(
+            fileStore,
+            objectMapper,
+            clock,
+            taskScheduler,
+            new ResultsSidecarStore(fileStore, objectMapper));
+
+    try {
+      Results template = resultsTester.newResults();
+      assertNotNull(template.startTime());
+      long day = 24 * 60 * 60 * 1000;
+
+      Path first =
+          saveRun(resultsTester, fileStore, template, "first",
+                  template.environmentDescription(), template.startTime());
+
+      Path otherEnvironment =
+          saveRun(resultsTester, fileStore, template, "other",
+                  "other_environment_" + UUID.randomUUID(),
+                  template.startTime() + day);
+
+      Path second =
+          saveRun(resultsTester, fileStore, template, "second",
+                  template.environmentDescription(),
+                  template.startTime() + 2 * day);
+
+      Path third =
+          saveRun(resultsTester, fileStore, template, "third",
+                  template.environmentDescription(),
+                  template.startTime() + 3 * day);
+
+      assertNull(reader.previousComparableZipFile(first));
+      assertNull(reader.previousComparableZipFile(otherEnvironment));
+      assertEquals(first, reader.previousComparableZipFile(second));
+      assertEquals(second, reader.previousComparableZipFile(third));
+
+      Files.delete(second);
+      reader.refresh(second);
+
+      assertEquals(first, reader.previousComparableZipFile(third));
+    } finally {
+      reader.stop();
+    }
+  }
+
+  private static Path saveRun(ResultsTester resultsTester,
+                              FileStore fileStore,
+                              Results template,
+                              String name,
+                              @Nullable String environmentDescription,
+                              long startTime)
+      throws IOException {
+
+    var results =
+        new Results(
+            /* uuid= */ UUID.randomUUID().toString(),
+            /* name= */ template.name(),
+            /* environmentDescription= */ environmentDescription,
+            /* startTime= */ startTime,
+            /* completionTime= */ template.completionTime(),
+            /* duration= */ template.duration(),
+            /* frameworks= */ template.frameworks(),
+            /* completed= */ template.completed(),
+            /* succeeded= */ template.succeeded(),
+            /* failed= */ template.failed(),
+            /* rawData= */ template.rawData(),
+            /* queryIntervals= */ template.queryIntervals(),
+            /* concurrencyLevels= */ template.concurrencyLevels(),
+            /* git= */ template.git(),
+            /* testMetadata= */ template.testMetadata());
+
+    Path zipFile =
+        fileStore.resultsDirectory().resolve("results." + name + ".zip");
+
+    resultsTester.saveZipToFile(results, zipFile);
+    return zipFile;
+  }
+
+  private static ImmutableList<String> jsonFileNames(
+      ImmutableList<ResultsView> results) {
+
+    return results.stream()
+                  .map(view -> view.jsonFileName())
+                  .collect(toImmutableList());
+  }
+
   private static Results newResultsWithoutMetadata(ResultsTester resultsTester)
       throws IOException {
 
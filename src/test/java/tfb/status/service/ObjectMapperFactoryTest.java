@@ -7,6 +7,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableListMultimap;
 import java.io.IOException;
+import java.time.Instant;
 import java.util.Objects;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -52,6 +53,34 @@ public final class ObjectMapperFactoryTest {
     }
   }
 
+  /**
+   * Verifies that the object mapper is compatible with types from the {@code
+   * java.time} package, and that those types are not truncated when they are
+   * serialized.
+   */
+  @Test
+  public void testJavaTimeTypesEnabled(ObjectMapper objectMapper)
+      throws IOException {
+
+    Instant instant = Instant.ofEpochSecond(1576466568, 407_123_456);
+    String json = objectMapper.writeValueAsString(new InstantBox(instant));
+    InstantBox deserialized = objectMapper.readValue(json, InstantBox.class);
+    assertEquals(instant, deserialized.instant);
+  }
+
+  public static final class InstantBox {
+    public final Instant instant;
+
+    @JsonCreator
+    public InstantBox(
+
+        @JsonProperty(value = "instant", required = true)
+        Instant instant) {
+
+      this.instant = Objects.requireNonNull(instant);
+    }
+  }
+
   /**
    * Verifies that the object mapper does not throw an exception when
    * deserializing JSON that contains unrecognized properties
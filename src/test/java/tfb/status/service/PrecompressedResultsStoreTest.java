@@ -0,0 +1,140 @@
+package tfb.status.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import tfb.status.testlib.TestServicesInjector;
+
+/**
+ * Tests for {@link PrecompressedResultsStore}.
+ */
+@ExtendWith(TestServicesInjector.class)
+public final class PrecompressedResultsStoreTest {
+  /**
+   * Verifies that {@link PrecompressedResultsStore#compressedFile(Path)}
+   * returns a compressed copy of a results.json file, and that the copy is
+   * rewritten when the results.json file changes.
+   */
+  @Test
+  public void testCompressedFile(FileSystem fileSystem) throws IOException {
+    var store = new PrecompressedResultsStore();
+
+    Path directory = Files.createDirectories(newDirectory(fileSystem));
+    Path jsonFile = directory.resolve("results.json");
+
+    Files.writeString(jsonFile, "{\"version\":1}");
+
+    Path gzipFile = store.compressedFile(jsonFile);
+    assertNotNull(gzipFile);
+    assertArrayEquals(Files.readAllBytes(jsonFile), decompress(gzipFile));
+
+    Files.writeString(jsonFile, "{\"version\":2}");
+    Files.setLastModifiedTime(
+        jsonFile,
+        FileTime.fromMillis(
+            Files.getLastModifiedTime(gzipFile).toMillis() + 1000));
+
+    assertEquals(gzipFile, store.compressedFile(jsonFile));
+    assertArrayEquals(Files.readAllBytes(jsonFile), decompress(gzipFile));
+  }
+
+  /**
+   * Verifies that {@link PrecompressedResultsStore#invalidate(Path)} deletes
+   * the compressed copy of a results.json file, and that the copy is written
+   * again when it is next requested, even if the results.json file has the
+   * same last modified time as before.
+   */
+  @Test
+  public void testInvalidate(FileSystem fileSystem) throws IOException {
+    var store = new PrecompressedResultsStore();
+
+    Path directory = Files.createDirectories(newDirectory(fileSystem));
+    Path jsonFile = directory.resolve("results.json");
+
+    Files.writeString(jsonFile, "{\"version\":1}");
+    FileTime lastModifiedTime = Files.getLastModifiedTime(jsonFile);
+
+    Path gzipFile = store.compressedFile(jsonFile);
+    assertNotNull(gzipFile);
+
+    Files.writeString(jsonFile, "{\"version\":2}");
+    Files.setLastModifiedTime(jsonFile, lastModifiedTime);
+
+    store.invalidate(jsonFile);
+    assertFalse(Files.exists(gzipFile));
+
+    assertEquals(gzipFile, store.compressedFile(jsonFile));
+    assertArrayEquals(Files.readAllBytes(jsonFile), decompress(gzipFile));
+  }
+
+  /**
+   * Verifies that {@link PrecompressedResultsStore#compressedFile(Path)}
+   * returns {@code null} for files that are not compressible or that do not
+   * exist.
+   */
+  @Test
+  public void testNotCompressed(FileSystem fileSystem) throws IOException {
+    var store = new PrecompressedResultsStore();
+
+    Path directory = Files.createDirectories(newDirectory(fileSystem));
+    Path zipFile = directory.resolve("results.zip");
+
+    Files.writeString(zipFile, "not really a zip file");
+
+    assertNull(store.compressedFile(zipFile));
+    assertNull(store.compressedFile(directory.resolve("missing.json")));
+  }
+
+  /**
+   * Verifies that {@link PrecompressedResultsStore#contentHash(Path)} depends
+   * on the contents of the file.
+   */
+  @Test
+  public void testContentHash(FileSystem fileSystem) throws IOException {
+    var store = new PrecompressedResultsStore();
+
+    Path directory = Files.createDirectories(newDirectory(fileSystem));
+    Path file1 = directory.resolve("results.1.json");
+    Path file2 = directory.resolve("results.2.json");
+    Path file3 = directory.resolve("results.3.json");
+
+    Files.write(file1, "hello".getBytes(UTF_8));
+    Files.write(file2, "hello".getBytes(UTF_8));
+    Files.write(file3, "goodbye".getBytes(UTF_8));
+
+    // Compressing the file also computes its hash.
+    store.compress(file1);
+
+    String hash1 = store.contentHash(file1);
+    assertNotNull(hash1);
+    assertEquals(hash1, store.contentHash(file2));
+    assertNotEquals(hash1, store.contentHash(file3));
+    assertNull(store.contentHash(directory.resolve("missing.json")));
+  }
+
+  private static Path newDirectory(FileSystem fileSystem) {
+    return fileSystem.getPath("precompressed_" + UUID.randomUUID());
+  }
+
+  private static byte[] decompress(Path gzipFile) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(gzipFile);
+         var gzipInputStream = new GZIPInputStream(inputStream)) {
+      return gzipInputStream.readAllBytes();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package tfb.status.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import tfb.status.testlib.TestServicesInjector;
+
+/**
+ * Tests for {@link ResultsPatcher}.
+ */
+@ExtendWith(TestServicesInjector.class)
+public final class ResultsPatcherTest {
+  /**
+   * Verifies that {@link ResultsPatcher#merge(ObjectMapper, InputStream,
+   * ObjectNode, OutputStream)} merges each kind of field as documented, and
+   * that it preserves the fields that the patch does not mention.
+   */
+  @Test
+  public void testMerge(ObjectMapper objectMapper) throws IOException {
+    String file = """
+        {
+          "name": "old",
+          "unused": { "a": [1, 2] },
+          "completed": { "a": "1", "b": "2" },
+          "succeeded": { "json": ["a"], "db": ["b"] },
+          "failed": { "json": ["b"] },
+          "rawData": {
+            "json": { "a": [{ "totalRequests": 1 }] },
+            "slocCounts": { "a": 10 }
+          }
+        }
+        """;
+
+    String patch = """
+        {
+          "name": "new",
+          "completed": { "b": "3", "c": "4" },
+          "succeeded": { "json": ["a", "c"], "query": ["c"] },
+          "rawData": {
+            "json": { "c": [{ "totalRequests": 2 }] },
+            "query": { "c": [{ "totalRequests": 3 }] }
+          },
+          "completionTime": 5
+        }
+        """;
+
+    String expected = """
+        {
+          "name": "new",
+          "unused": { "a": [1, 2] },
+          "completed": { "a": "1", "b": "3", "c": "4" },
+          "succeeded": { "json": ["a", "c"], "db": ["b"], "query": ["c"] },
+          "failed": { "json": ["b"] },
+          "rawData": {
+            "json": {
+              "a": [{ "totalRequests": 1 }],
+              "c": [{ "totalRequests": 2 }]
+            },
+            "slocCounts": { "a": 10 },
+            "query": { "c": [{ "totalRequests": 3 }] }
+          },
+          "completionTime": 5
+        }
+        """;
+
+    String merged = merge(objectMapper, file, patch);
+
+    assertEquals(objectMapper.readTree(expected), objectMapper.readTree(merged));
+
+    // The order of the fields in the file is preserved.
+    assertEquals(
+        objectMapper.readTree(expected).toString(),
+        objectMapper.readTree(merged).toString());
+  }
+
+  /**
+   * Verifies that {@link ResultsPatcher#merge(ObjectMapper, InputStream,
+   * ObjectNode, OutputStream)} rejects a file that is not a JSON object.
+   */
+  @Test
+  public void testNotAnObject(ObjectMapper objectMapper) {
+    assertThrows(
+        IOException.class,
+        () -> merge(objectMapper, "[]", "{}"));
+  }
+
+  private static String merge(ObjectMapper objectMapper,
+                              String file,
+                              String patch)
+      throws IOException {
+
+    var outputStream = new ByteArrayOutputStream();
+
+    ResultsPatcher.merge(
+        /* objectMapper= */ objectMapper,
+        /* inputStream= */ new ByteArrayInputStream(file.getBytes(UTF_8)),
+        /* patch= */ (ObjectNode) objectMapper.readTree(patch),
+        /* outputStream= */ outputStream);
+
+    return outputStream.toString(UTF_8);
+  }
+}
@@ -0,0 +1,204 @@
+package tfb.status.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import tfb.status.config.FileStoreConfig;
+import tfb.status.testlib.ResultsTester;
+import tfb.status.testlib.TestServicesInjector;
+import tfb.status.view.Results;
+import tfb.status.view.Results.TestType;
+import tfb.status.view.ResultsSidecar;
+
+/**
+ * Tests for {@link ResultsSidecarStore}.
+ */
+@ExtendWith(TestServicesInjector.class)
+public final class ResultsSidecarStoreTest {
+  /**
+   * Verifies that {@link ResultsSidecarStore#write(Path, Results)} writes a
+   * sidecar that {@link ResultsSidecarStore#read(Path)} returns, and that the
+   * sidecar agrees with the full results about everything that readers of the
+   * sidecar use.
+   */
+  @Test
+  public void testWriteAndRead(FileSystem fileSystem,
+                               ObjectMapper objectMapper,
+                               ResultsTester resultsTester)
+      throws IOException {
+
+    var fileStore = newFileStore(fileSystem);
+    var sidecarStore = new ResultsSidecarStore(fileStore, objectMapper);
+
+    Results results = resultsTester.newResults();
+    Path jsonFile = fileStore.resultsDirectory().resolve("results.json");
+    resultsTester.saveJsonToFile(results, jsonFile);
+
+    assertNull(sidecarStore.read(jsonFile));
+
+    sidecarStore.write(jsonFile, results);
+
+    ResultsSidecar sidecar = sidecarStore.read(jsonFile);
+    assertNotNull(sidecar);
+    assertEquals(Files.size(jsonFile), sidecar.resultsFileSize());
+    assertNull(sidecar.backupCommitId());
+    assertFalse(sidecar.hasTestMetadataFile());
+    assertEquivalent(results, sidecar.results());
+  }
+
+  /**
+   * Verifies that {@link ResultsSidecarStore#write(Path, Results)} records
+   * the presence of a test_metadata.json file in a results.zip file whose
+   * results.json file doesn't contain the test metadata.
+   */
+  @Test
+  public void testWriteZipFile(FileSystem fileSystem,
+                               ObjectMapper objectMapper,
+                               ResultsTester resultsTester)
+      throws IOException {
+
+    var fileStore = newFileStore(fileSystem);
+    var sidecarStore = new ResultsSidecarStore(fileStore, objectMapper);
+
+    Results template = resultsTester.newResults();
+
+    var results =
+        new Results(
+            /* uuid= */ template.uuid(),
+            /* name= */ template.name(),
+            /* environmentDescription= */ template.environmentDescription(),
+            /* startTime= */ template.startTime(),
+            /* completionTime= */ template.completionTime(),
+            /* duration= */ template.duration(),
+            /* frameworks= */ template.frameworks(),
+            /* completed= */ template.completed(),
+            /* succeeded= */ template.succeeded(),
+            /* failed= */ template.failed(),
+            /* rawData= */ template.rawData(),
+            /* queryIntervals= */ template.queryIntervals(),
+            /* concurrencyLevels= */ template.concurrencyLevels(),
+            /* git= */ template.git(),
+            /* testMetadata= */ null);
+
+    Path zipFile = fileStore.resultsDirectory().resolve("results.zip");
+    resultsTester.saveZipToFile(results, zipFile);
+
+    ResultsSidecar sidecar = sidecarStore.write(zipFile, results);
+    assertEquals(sidecar, sidecarStore.read(zipFile));
+    assertTrue(sidecar.hasTestMetadataFile());
+    assertNull(sidecar.results().testMetadata());
+    assertEquivalent(results, sidecar.results());
+  }
+
+  /**
+   * Verifies that {@link ResultsSidecarStore#read(Path)} ignores the sidecar
+   * of a results file that has been modified since the sidecar was written.
+   */
+  @Test
+  public void testModifiedResultsFile(FileSystem fileSystem,
+                                      ObjectMapper objectMapper,
+                                      ResultsTester resultsTester)
+      throws IOException {
+
+    var fileStore = newFileStore(fileSystem);
+    var sidecarStore = new ResultsSidecarStore(fileStore, objectMapper);
+
+    Results results = resultsTester.newResults();
+    Path jsonFile = fileStore.resultsDirectory().resolve("results.json");
+    resultsTester.saveJsonToFile(results, jsonFile);
+    sidecarStore.write(jsonFile, results);
+    assertNotNull(sidecarStore.read(jsonFile));
+
+    FileTime lastModifiedTime = Files.getLastModifiedTime(jsonFile);
+    Files.setLastModifiedTime(
+        jsonFile,
+        FileTime.from(lastModifiedTime.toInstant().plusSeconds(1)));
+
+    assertNull(sidecarStore.read(jsonFile));
+  }
+
+  /**
+   * Verifies that {@link ResultsSidecarStore#backfill()} writes sidecars for
+   * results files that don't have them, and only for those files.
+   */
+  @Test
+  public void testBackfill(FileSystem fileSystem,
+                           ObjectMapper objectMapper,
+                           FileStore defaultFileStore)
+      throws IOException {
+
+    var fileStore = newFileStore(fileSystem);
+    var sidecarStore = new ResultsSidecarStore(fileStore, objectMapper);
+
+    for (String fileName : new String[] {
+        "results.2019-12-11-13-21-02-404.json",
+        "results.2019-12-16-03-22-48-407.zip" }) {
+
+      Files.copy(
+          defaultFileStore.resultsDirectory().resolve(fileName),
+          fileStore.resultsDirectory().resolve(fileName));
+    }
+
+    Path jsonFile =
+        fileStore.resultsDirectory()
+                 .resolve("results.2019-12-11-13-21-02-404.json");
+
+    Results results;
+    try (InputStream inputStream = Files.newInputStream(jsonFile)) {
+      results = objectMapper.readValue(inputStream, Results.class);
+    }
+
+    assertEquals(2, sidecarStore.backfill());
+    assertEquals(0, sidecarStore.backfill());
+
+    ResultsSidecar sidecar = sidecarStore.read(jsonFile);
+    assertNotNull(sidecar);
+    assertEquivalent(results, sidecar.results());
+  }
+
+  private static FileStore newFileStore(FileSystem fileSystem)
+      throws IOException {
+
+    return new FileStore(
+        FileStoreConfig.create("sidecar_test_" + UUID.randomUUID()),
+        fileSystem);
+  }
+
+  private static void assertEquivalent(Results expected, Results actual) {
+    assertEquals(expected.uuid(), actual.uuid());
+    assertEquals(expected.name(), actual.name());
+    assertEquals(expected.environmentDescription(),
+                 actual.environmentDescription());
+    assertEquals(expected.startTime(), actual.startTime());
+    assertEquals(expected.completionTime(), actual.completionTime());
+    assertEquals(expected.duration(), actual.duration());
+    assertEquals(expected.frameworks(), actual.frameworks());
+    assertEquals(expected.completed(), actual.completed());
+    assertEquals(expected.git(), actual.git());
+    assertEquals(expected.testMetadata() == null,
+                 actual.testMetadata() == null);
+
+    for (TestType testType : TestType.values()) {
+      for (String framework : expected.frameworks()) {
+        assertEquals(expected.rps(testType, framework),
+                     actual.rps(testType, framework));
+
+        assertEquals(expected.testOutcome(testType, framework),
+                     actual.testOutcome(testType, framework));
+      }
+    }
+  }
+}
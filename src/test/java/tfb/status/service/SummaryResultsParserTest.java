@@ -0,0 +1,182 @@
+package tfb.status.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import tfb.status.testlib.TestServicesInjector;
+import tfb.status.util.ZipFiles;
+import tfb.status.view.Results;
+import tfb.status.view.Results.TestType;
+
+/**
+ * Tests for {@link SummaryResultsParser}.
+ */
+@ExtendWith(TestServicesInjector.class)
+public final class SummaryResultsParserTest {
+  /**
+   * Verifies that {@link SummaryResultsParser#parse(ObjectMapper,
+   * InputStream)} agrees with the full deserialization of the results.json
+   * file in the test data.
+   */
+  @Test
+  public void testJsonFile(FileStore fileStore, ObjectMapper objectMapper)
+      throws IOException {
+
+    Path jsonFile =
+        fileStore.resultsDirectory()
+                 .resolve("results.2019-12-11-13-21-02-404.json");
+
+    byte[] bytes = Files.readAllBytes(jsonFile);
+
+    assertEquivalent(objectMapper, bytes);
+  }
+
+  /**
+   * Verifies that {@link SummaryResultsParser#parse(ObjectMapper,
+   * InputStream)} agrees with the full deserialization of the results.json
+   * file inside the results.zip file in the test data.
+   */
+  @Test
+  public void testZipFile(FileStore fileStore, ObjectMapper objectMapper)
+      throws IOException {
+
+    Path zipFile =
+        fileStore.resultsDirectory()
+                 .resolve("results.2019-12-16-03-22-48-407.zip");
+
+    byte[] bytes =
+        ZipFiles.readZipEntry(
+            /* zipFile= */ zipFile,
+            /* entryPath= */ "results.json",
+            /* entryReader= */ inputStream -> inputStream.readAllBytes());
+
+    assertNotNull(bytes);
+    assertEquivalent(objectMapper, bytes);
+  }
+
+  /**
+   * Verifies that {@link SummaryResultsParser#parse(ObjectMapper,
+   * InputStream)} handles unusual raw data the same way as the full
+   * deserialization, including frameworks that appear more than once, test
+   * type aliases, unknown keys, and executions with 5xx responses.
+   */
+  @Test
+  public void testUnusualRawData(ObjectMapper objectMapper)
+      throws IOException {
+
+    String json = """
+        {
+          "uuid": "abc",
+          "duration": 15,
+          "frameworks": [ "a", "b", "c" ],
+          "completed": { "a": "20200101000000", "b": "oops" },
+          "succeeded": {
+            "json": [ "a", "b" ],
+            "query": [ "a", "c" ],
+            "cached-query": [ "a" ]
+          },
+          "failed": { "plaintext": [ "c" ] },
+          "rawData": {
+            "slocCounts": { "a": 100 },
+            "json": {
+              "a": [ { "totalRequests": 5 }, { "totalRequests": 9 } ],
+              "b": [],
+              "a": [ { "totalRequests": 7, "5xx": 1 } ]
+            },
+            "query": {
+              "a": [ { "totalRequests": 9 }, { "totalRequests": 3 } ],
+              "c": [ { "totalRequests": 4, "5xx": 4 } ]
+            },
+            "cached-query": { "a": [ { "totalRequests": 2, "other": "x" } ] },
+            "plaintext": null,
+            "unknown": [ 1, 2, 3 ]
+          },
+          "queryIntervals": [ 1, 5, 10 ],
+          "concurrencyLevels": [ 16, 32 ],
+          "testMetadata": [],
+          "verify": { "a": { "json": "pass" } }
+        }
+        """;
+
+    assertEquivalent(objectMapper, json.getBytes(UTF_8));
+  }
+
+  /**
+   * Verifies that {@link SummaryResultsParser#parse(ObjectMapper,
+   * InputStream)} rejects results that are missing required properties.
+   */
+  @Test
+  public void testMissingRequiredProperty(ObjectMapper objectMapper) {
+    String json = """
+        {
+          "duration": 15,
+          "frameworks": [],
+          "completed": {},
+          "succeeded": {},
+          "failed": {},
+          "queryIntervals": [],
+          "concurrencyLevels": []
+        }
+        """;
+
+    byte[] bytes = json.getBytes(UTF_8);
+
+    assertThrows(
+        IOException.class,
+        () -> objectMapper.readValue(bytes, Results.class));
+
+    assertThrows(
+        IOException.class,
+        () -> SummaryResultsParser.parse(objectMapper,
+                                         new ByteArrayInputStream(bytes)));
+  }
+
+  private static void assertEquivalent(ObjectMapper objectMapper,
+                                       byte[] resultsJson)
+      throws IOException {
+
+    Results expected = objectMapper.readValue(resultsJson, Results.class);
+
+    Results actual =
+        SummaryResultsParser.parse(
+            objectMapper,
+            new ByteArrayInputStream(resultsJson));
+
+    assertEquals(expected.uuid(), actual.uuid());
+    assertEquals(expected.name(), actual.name());
+    assertEquals(expected.environmentDescription(),
+                 actual.environmentDescription());
+    assertEquals(expected.startTime(), actual.startTime());
+    assertEquals(expected.completionTime(), actual.completionTime());
+    assertEquals(expected.duration(), actual.duration());
+    assertEquals(expected.frameworks(), actual.frameworks());
+    assertEquals(expected.completed(), actual.completed());
+    assertEquals(expected.succeeded(), actual.succeeded());
+    assertEquals(expected.failed(), actual.failed());
+    assertEquals(expected.queryIntervals(), actual.queryIntervals());
+    assertEquals(expected.concurrencyLevels(), actual.concurrencyLevels());
+    assertEquals(expected.git(), actual.git());
+    assertEquals(expected.testMetadata() == null,
+                 actual.testMetadata() == null);
+
+    for (TestType testType : TestType.values()) {
+      for (String framework : expected.frameworks()) {
+        assertEquals(expected.requests(testType, framework),
+                     actual.requests(testType, framework));
+
+        assertEquals(expected.testOutcome(testType, framework),
+                     actual.testOutcome(testType, framework));
+      }
+    }
+  }
+}
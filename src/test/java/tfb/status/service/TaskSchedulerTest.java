@@ -3,11 +3,13 @@ package tfb.status.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import jakarta.inject.Named;
 import java.io.IOException;
 import java.io.Serial;
 import java.time.Duration;
@@ -15,12 +17,16 @@ import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.glassfish.hk2.api.ServiceLocator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import tfb.status.hk2.extensions.AsyncDelivery;
 import tfb.status.testlib.LogTester;
 import tfb.status.testlib.TestServicesInjector;
 
@@ -903,6 +909,109 @@ public final class TaskSchedulerTest {
             .count());
   }
 
+  /**
+   * Verifies that {@link TaskScheduler#boundedExecutor(int)} runs every task
+   * and never runs more than the specified number of tasks at once.
+   */
+  @Test
+  public void testBoundedExecutor(TaskScheduler taskScheduler)
+      throws InterruptedException {
+
+    int maxConcurrentTasks = 2;
+    int taskCount = 10;
+
+    Executor executor = taskScheduler.boundedExecutor(maxConcurrentTasks);
+
+    var running = new AtomicInteger(0);
+    var maxRunning = new AtomicInteger(0);
+    var finished = new CountDownLatch(taskCount);
+
+    for (int i = 0; i < taskCount; i++)
+      executor.execute(
+          () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+              Thread.sleep(20);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            finished.countDown();
+          });
+
+    assertTrue(finished.await(10, TimeUnit.SECONDS));
+    assertTrue(maxRunning.get() <= maxConcurrentTasks);
+
+    assertThrows(IllegalArgumentException.class,
+                 () -> taskScheduler.boundedExecutor(0));
+  }
+
+  /**
+   * Verifies that {@link TaskScheduler#boundedExecutor(int)} keeps running
+   * queued tasks after a task throws an error.
+   */
+  @Test
+  public void testBoundedExecutor_uncaughtError(TaskScheduler taskScheduler,
+                                                LogTester logs)
+      throws InterruptedException {
+
+    String message = "test error " + UUID.randomUUID();
+
+    Executor executor = taskScheduler.boundedExecutor(1);
+
+    var finished = new CountDownLatch(2);
+
+    executor.execute(
+        () -> {
+          throw new TestError(message);
+        });
+
+    executor.execute(() -> finished.countDown());
+
+    executor.execute(
+        () -> {
+          throw new TestError(message);
+        });
+
+    executor.execute(() -> finished.countDown());
+
+    assertTrue(finished.await(10, TimeUnit.SECONDS));
+
+    assertEquals(
+        2,
+        logs.getEvents()
+            .filter(
+                event ->
+                    logs.isExceptionEvent(
+                        /* event= */ event,
+                        /* exceptionType= */ TestError.class,
+                        /* exceptionMessage= */ message))
+            .count());
+  }
+
+  /**
+   * Verifies that {@link TaskScheduler#deliveryExecutor()} is the executor for
+   * {@linkplain AsyncDelivery asynchronous} topic subscribers, and that the
+   * task scheduler itself, which has no limit on its number of threads, is not
+   * registered as an executor.
+   */
+  @Test
+  public void testDeliveryExecutor(TaskScheduler taskScheduler,
+                                   ServiceLocator locator,
+                                   @Named(AsyncDelivery.EXECUTOR_NAME)
+                                   Executor deliveryExecutor)
+      throws InterruptedException {
+
+    assertNotSame(taskScheduler, deliveryExecutor);
+
+    assertFalse(
+        locator.getAllServices(Executor.class).contains(taskScheduler));
+
+    var finished = new CountDownLatch(1);
+    deliveryExecutor.execute(() -> finished.countDown());
+    assertTrue(finished.await(10, TimeUnit.SECONDS));
+  }
+
   private static final class TestUncheckedException extends RuntimeException {
     TestUncheckedException(String message) {
       super(Objects.requireNonNull(message));
@@ -912,6 +1021,15 @@ public final class TaskSchedulerTest {
     private static final long serialVersionUID = 0;
   }
 
+  private static final class TestError extends Error {
+    TestError(String message) {
+      super(Objects.requireNonNull(message));
+    }
+
+    @Serial
+    private static final long serialVersionUID = 0;
+  }
+
   private static final class TestCheckedException extends IOException {
     TestCheckedException(String message) {
       super(Objects.requireNonNull(message));
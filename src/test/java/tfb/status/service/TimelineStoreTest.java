@@ -0,0 +1,227 @@
+package tfb.status.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import tfb.status.config.FileStoreConfig;
+import tfb.status.service.TimelineStore.DataPoint;
+import tfb.status.service.TimelineStore.Timeline;
+import tfb.status.testlib.MutableTicker;
+import tfb.status.testlib.ResultsTester;
+import tfb.status.testlib.TestServicesInjector;
+import tfb.status.util.ZipFiles;
+import tfb.status.view.Results;
+import tfb.status.view.Results.TestType;
+import tfb.status.view.ResultsSidecar;
+
+/**
+ * Tests for {@link TimelineStore}.
+ */
+@ExtendWith(TestServicesInjector.class)
+public final class TimelineStoreTest {
+  /**
+   * Verifies that {@link TimelineStore#timeline(String, TestType)} agrees
+   * with the results.zip files in the results directory.
+   */
+  @Test
+  public void testTimeline(FileSystem fileSystem,
+                           ObjectMapper objectMapper,
+                           TaskScheduler taskScheduler,
+                           MutableTicker ticker,
+                           FileStore defaultFileStore)
+      throws IOException {
+
+    var fileStore = newFileStore(fileSystem);
+    var sidecarStore = new ResultsSidecarStore(fileStore, objectMapper);
+    var timelineStore =
+        new TimelineStore(fileStore, sidecarStore, taskScheduler, ticker);
+
+    Path zipFile = copyZipFile(defaultFileStore, fileStore);
+    Results results = readZipFile(zipFile, objectMapper);
+
+    Timeline timeline = timelineStore.timeline("gemini", TestType.JSON);
+    assertNotNull(timeline);
+
+    assertEquals(
+        ImmutableList.of(
+            new DataPoint(
+                /* startTime= */ results.startTime(),
+                /* rps= */ results.rps(TestType.JSON, "gemini"),
+                /* commitId= */ results.git().commitId())),
+        timeline.dataPoints());
+
+    Set<TestType> presentTestTypes = EnumSet.noneOf(TestType.class);
+    for (TestType testType : TestType.values())
+      if (results.rps(testType, "gemini") != 0)
+        presentTestTypes.add(testType);
+
+    assertEquals(presentTestTypes, timeline.presentTestTypes());
+
+    assertEquals(
+        results.frameworks()
+               .stream()
+               .sorted(String.CASE_INSENSITIVE_ORDER)
+               .collect(ImmutableList.toImmutableList()),
+        timeline.allFrameworks());
+
+    assertNull(timelineStore.timeline("notarealframeworkname",
+                                      TestType.JSON));
+  }
+
+  /**
+   * Verifies that {@link TimelineStore} persists its contents in the cache
+   * directory, and that a new store reads those contents.
+   */
+  @Test
+  public void testPersistence(FileSystem fileSystem,
+                              ObjectMapper objectMapper,
+                              TaskScheduler taskScheduler,
+                              MutableTicker ticker,
+                              FileStore defaultFileStore)
+      throws IOException {
+
+    var fileStore = newFileStore(fileSystem);
+    var sidecarStore = new ResultsSidecarStore(fileStore, objectMapper);
+    var timelineStore =
+        new TimelineStore(fileStore, sidecarStore, taskScheduler, ticker);
+
+    copyZipFile(defaultFileStore, fileStore);
+
+    timelineStore.backfill();
+
+    assertTrue(
+        Files.isRegularFile(
+            fileStore.cacheDirectory()
+                     .resolve(TimelineStore.TIMELINE_FILE_NAME)));
+
+    var newTimelineStore =
+        new TimelineStore(fileStore, sidecarStore, taskScheduler, ticker);
+
+    for (TestType testType : TestType.values())
+      assertEquals(timelineStore.timeline("gemini", testType),
+                   newTimelineStore.timeline("gemini", testType));
+  }
+
+  /**
+   * Verifies that {@link TimelineStore#add(Path, ResultsSidecar)} adds the
+   * results of a new results.zip file to the timeline, and that results.zip
+   * files deleted from the results directory are eventually removed from the
+   * timeline.
+   */
+  @Test
+  public void testAddAndRescan(FileSystem fileSystem,
+                               ObjectMapper objectMapper,
+                               TaskScheduler taskScheduler,
+                               MutableTicker ticker,
+                               ResultsTester resultsTester)
+      throws IOException {
+
+    var fileStore = newFileStore(fileSystem);
+    var sidecarStore = new ResultsSidecarStore(fileStore, objectMapper);
+    var timelineStore =
+        new TimelineStore(fileStore, sidecarStore, taskScheduler, ticker);
+
+    assertNull(timelineStore.timeline("gemini", TestType.JSON));
+
+    Results results = resultsTester.newResults();
+    Path zipFile = fileStore.resultsDirectory().resolve("results.zip");
+    resultsTester.saveZipToFile(results, zipFile);
+
+    ResultsSidecar sidecar = sidecarStore.write(zipFile, results);
+    timelineStore.add(zipFile, sidecar);
+
+    Timeline timeline = timelineStore.timeline("gemini", TestType.JSON);
+    assertNotNull(timeline);
+    assertEquals(1, timeline.dataPoints().size());
+    assertEquals(results.rps(TestType.JSON, "gemini"),
+                 timeline.dataPoints().get(0).rps());
+
+    Files.delete(zipFile);
+
+    // The deletion is not noticed until the results directory is rescanned.
+    assertNotNull(timelineStore.timeline("gemini", TestType.JSON));
+
+    timelineStore.rescan();
+
+    assertNull(timelineStore.timeline("gemini", TestType.JSON));
+  }
+
+  /**
+   * Verifies that {@link TimelineStore#backfill()} reads every results.zip
+   * file in the results directory when there are many of them.
+   */
+  @Test
+  public void testBackfillManyFiles(FileSystem fileSystem,
+                                    ObjectMapper objectMapper,
+                                    TaskScheduler taskScheduler,
+                                    MutableTicker ticker,
+                                    FileStore defaultFileStore)
+      throws IOException {
+
+    var fileStore = newFileStore(fileSystem);
+    var sidecarStore = new ResultsSidecarStore(fileStore, objectMapper);
+    var timelineStore =
+        new TimelineStore(fileStore, sidecarStore, taskScheduler, ticker);
+
+    Path zipFile = copyZipFile(defaultFileStore, fileStore);
+    Results results = readZipFile(zipFile, objectMapper);
+
+    int fileCount = 20;
+    for (int i = 1; i < fileCount; i++)
+      Files.copy(zipFile,
+                 zipFile.resolveSibling("results.copy-" + i + ".zip"));
+
+    timelineStore.backfill();
+
+    Timeline timeline = timelineStore.timeline("gemini", TestType.JSON);
+    assertNotNull(timeline);
+    assertEquals(fileCount, timeline.dataPoints().size());
+
+    for (DataPoint dataPoint : timeline.dataPoints())
+      assertEquals(results.rps(TestType.JSON, "gemini"), dataPoint.rps());
+  }
+
+  private static FileStore newFileStore(FileSystem fileSystem)
+      throws IOException {
+
+    return new FileStore(
+        FileStoreConfig.create("timeline_test_" + UUID.randomUUID()),
+        fileSystem);
+  }
+
+  private static Path copyZipFile(FileStore source, FileStore target)
+      throws IOException {
+
+    String fileName = "results.2019-12-16-03-22-48-407.zip";
+    Path zipFile = target.resultsDirectory().resolve(fileName);
+    Files.copy(source.resultsDirectory().resolve(fileName), zipFile);
+    return zipFile;
+  }
+
+  private static Results readZipFile(Path zipFile, ObjectMapper objectMapper)
+      throws IOException {
+
+    Results results =
+        ZipFiles.readZipEntry(
+            /* zipFile= */ zipFile,
+            /* entryPath= */ "results.json",
+            /* entryReader= */
+            inputStream -> objectMapper.readValue(inputStream, Results.class));
+
+    assertNotNull(results);
+    return results;
+  }
+}
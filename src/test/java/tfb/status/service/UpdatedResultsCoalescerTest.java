@@ -0,0 +1,136 @@
+package tfb.status.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.glassfish.hk2.api.messaging.Topic;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import tfb.status.config.UpdatedResultsConfig;
+import tfb.status.testlib.TestServicesInjector;
+import tfb.status.view.UpdatedResultsEvent;
+
+/**
+ * Tests for {@link UpdatedResultsCoalescer}.
+ */
+@ExtendWith(TestServicesInjector.class)
+public final class UpdatedResultsCoalescerTest {
+  /**
+   * Verifies that {@link UpdatedResultsCoalescer#publish(UpdatedResultsEvent)}
+   * publishes each event immediately when the debounce window is zero.
+   */
+  @Test
+  public void testNoDebounce(TaskScheduler taskScheduler) {
+    var topic = new RecordingTopic();
+
+    var coalescer =
+        new UpdatedResultsCoalescer(
+            new UpdatedResultsConfig(/* debounceMillis= */ 0),
+            topic,
+            taskScheduler);
+
+    String uuid = UUID.randomUUID().toString();
+    coalescer.publish(new UpdatedResultsEvent(uuid));
+    coalescer.publish(new UpdatedResultsEvent(uuid));
+
+    assertEquals(2, topic.messages.size());
+    assertEquals(0, coalescer.collapsedEventCount());
+  }
+
+  /**
+   * Verifies that {@link UpdatedResultsCoalescer#publish(UpdatedResultsEvent)}
+   * publishes one event per uuid for a burst of events within the debounce
+   * window, and that it counts the events that were collapsed.
+   */
+  @Test
+  public void testDebounce(TaskScheduler taskScheduler)
+      throws InterruptedException {
+
+    var topic = new RecordingTopic();
+
+    var coalescer =
+        new UpdatedResultsCoalescer(
+            new UpdatedResultsConfig(DEBOUNCE.toMillis()),
+            topic,
+            taskScheduler);
+
+    String uuid1 = UUID.randomUUID().toString();
+    String uuid2 = UUID.randomUUID().toString();
+
+    coalescer.publish(new UpdatedResultsEvent(uuid1));
+    coalescer.publish(new UpdatedResultsEvent(uuid2));
+    coalescer.publish(new UpdatedResultsEvent(uuid1));
+    coalescer.publish(new UpdatedResultsEvent(uuid1));
+
+    assertEquals(List.of(), topic.messages);
+    assertEquals(2, coalescer.collapsedEventCount());
+
+    Instant deadline = Instant.now().plus(DEBOUNCE.multipliedBy(20));
+    while (topic.messages.size() < 2 && Instant.now().isBefore(deadline))
+      Thread.sleep(DEBOUNCE.toMillis());
+
+    assertEquals(
+        Set.of(new UpdatedResultsEvent(uuid1), new UpdatedResultsEvent(uuid2)),
+        Set.copyOf(topic.messages));
+
+    assertEquals(2, topic.messages.size());
+
+    // A new burst after the window has elapsed is published again.
+    coalescer.publish(new UpdatedResultsEvent(uuid1));
+
+    deadline = Instant.now().plus(DEBOUNCE.multipliedBy(20));
+    while (topic.messages.size() < 3 && Instant.now().isBefore(deadline))
+      Thread.sleep(DEBOUNCE.toMillis());
+
+    assertEquals(3, topic.messages.size());
+    assertEquals(2, coalescer.collapsedEventCount());
+  }
+
+  /**
+   * A topic that records the messages published to it.
+   */
+  private static final class RecordingTopic
+      implements Topic<UpdatedResultsEvent> {
+
+    final List<UpdatedResultsEvent> messages = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(UpdatedResultsEvent message) {
+      messages.add(message);
+    }
+
+    @Override
+    public Topic<UpdatedResultsEvent> named(String name) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <U> Topic<U> ofType(Type type) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Topic<UpdatedResultsEvent> qualifiedWith(Annotation... qualifiers) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Type getTopicType() {
+      return UpdatedResultsEvent.class;
+    }
+
+    @Override
+    public Set<Annotation> getTopicQualifiers() {
+      return Set.of();
+    }
+  }
+
+  private static final Duration DEBOUNCE = Duration.ofMillis(100);
+}
@@ -22,6 +22,7 @@ import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Flow;
 import tfb.status.config.HttpServerConfig;
+import tfb.status.handler.routing.NonBlocking;
 import tfb.status.service.Authenticator;
 import tfb.status.service.HttpServer;
 
@@ -58,6 +59,19 @@ public final class HttpTester {
     return testHandler.addHandler(handler);
   }
 
+  /**
+   * Adds the specified HTTP handler at a new and distinct path, where requests
+   * are not made blocking before they reach the handler.
+   *
+   * @param handler the HTTP handler to be assigned a path
+   * @return the path assigned to the HTTP handler
+   * @see NonBlocking
+   */
+  public String addNonBlockingHandler(HttpHandler handler) {
+    TestHandler testHandler = testHandlerProvider.get();
+    return testHandler.addNonBlockingHandler(handler);
+  }
+
   /**
    * The {@linkplain HttpClient HTTP client} that should be used for making
    * requests to the local {@linkplain HttpServer HTTP server} running this
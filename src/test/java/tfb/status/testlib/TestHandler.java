@@ -5,6 +5,7 @@ import io.undertow.server.handlers.PathHandler;
 import jakarta.inject.Singleton;
 import java.util.Objects;
 import java.util.UUID;
+import tfb.status.handler.routing.NonBlocking;
 import tfb.status.handler.routing.Route;
 import org.glassfish.hk2.extras.provides.Provides;
 
@@ -15,6 +16,7 @@ import org.glassfish.hk2.extras.provides.Provides;
 @Singleton
 public final class TestHandler {
   private final PathHandler pathHandler = new PathHandler();
+  private final PathHandler nonBlockingPathHandler = new PathHandler();
 
   @Provides
   @Singleton
@@ -27,6 +29,14 @@ public final class TestHandler {
     return pathHandler;
   }
 
+  @Provides
+  @Singleton
+  @Route(method = "POST", path = "/nonblocking-test/{anyPath:.+}")
+  @NonBlocking
+  public HttpHandler getNonBlockingHandler() {
+    return nonBlockingPathHandler;
+  }
+
   /**
    * Adds the specified HTTP handler at a new and distinct path.
    *
@@ -39,4 +49,19 @@ public final class TestHandler {
     pathHandler.addPrefixPath(path, handler);
     return path;
   }
+
+  /**
+   * Adds the specified HTTP handler at a new and distinct path, where requests
+   * are not made blocking before they reach the handler.
+   *
+   * @param handler the HTTP handler to be assigned a path
+   * @return the path assigned to the HTTP handler
+   * @see NonBlocking
+   */
+  public String addNonBlockingHandler(HttpHandler handler) {
+    Objects.requireNonNull(handler);
+    String path = "/nonblocking-test/" + UUID.randomUUID().toString();
+    nonBlockingPathHandler.addPrefixPath(path, handler);
+    return path;
+  }
 }
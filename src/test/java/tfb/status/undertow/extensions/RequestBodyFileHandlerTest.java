@@ -0,0 +1,258 @@
+package tfb.status.undertow.extensions;
+
+import static io.undertow.util.StatusCodes.OK;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.Uninterruptibles;
+import io.undertow.server.HttpHandler;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import tfb.status.testlib.HttpTester;
+import tfb.status.testlib.TestServicesInjector;
+import tfb.status.undertow.extensions.RequestBodyFileHandler.ReceivedFile;
+
+/**
+ * Tests for {@link RequestBodyFileHandler}.
+ */
+@ExtendWith(TestServicesInjector.class)
+public final class RequestBodyFileHandlerTest {
+  /**
+   * Verifies that {@link RequestBodyFileHandler} saves the request body to a
+   * file, invokes the next handler on a worker thread, and deletes the file
+   * once the exchange is complete.
+   */
+  @Test
+  public void testReceiveFile(HttpTester http, FileSystem fileSystem)
+      throws IOException, InterruptedException {
+
+    String requestBody = Strings.repeat("0123456789", 100_000);
+    AtomicReference<Path> savedFile = new AtomicReference<>();
+
+    HttpHandler handler =
+        new RequestBodyFileHandler(
+            /* fileFactory= */
+            () -> Files.createTempFile(fileSystem.getPath(""), "body", ".tmp"),
+            /* maxBytes= */ Long.MAX_VALUE,
+            /* next= */
+            exchange -> {
+              assertFalse(exchange.isInIoThread());
+              ReceivedFile receivedFile =
+                  exchange.getAttachment(RequestBodyFileHandler.RECEIVED_FILE);
+              savedFile.set(receivedFile.file());
+              assertFalse(receivedFile.isTruncated());
+              assertEquals(requestBody.length(), receivedFile.size());
+              exchange.getResponseSender().send(
+                  Files.readString(receivedFile.file()));
+            });
+
+    String path = http.addHandler(handler);
+
+    HttpResponse<String> response =
+        http.client().send(
+            http.newRequestBuilder(path)
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .build(),
+            HttpResponse.BodyHandlers.ofString(UTF_8));
+
+    assertEquals(OK, response.statusCode());
+    assertEquals(requestBody, response.body());
+    assertFalse(Files.exists(savedFile.get()));
+  }
+
+  /**
+   * Verifies that {@link RequestBodyFileHandler} stops writing to the file
+   * once the maximum size has been reached.
+   */
+  @Test
+  public void testTruncated(HttpTester http, FileSystem fileSystem)
+      throws IOException, InterruptedException {
+
+    HttpHandler handler =
+        new RequestBodyFileHandler(
+            /* fileFactory= */
+            () -> Files.createTempFile(fileSystem.getPath(""), "body", ".tmp"),
+            /* maxBytes= */ 5,
+            /* next= */
+            exchange -> {
+              ReceivedFile receivedFile =
+                  exchange.getAttachment(RequestBodyFileHandler.RECEIVED_FILE);
+              exchange.getResponseSender().send(
+                  receivedFile.isTruncated()
+                      + " "
+                      + Files.readString(receivedFile.file()));
+            });
+
+    String path = http.addHandler(handler);
+
+    HttpResponse<String> response =
+        http.client().send(
+            http.newRequestBuilder(path)
+                .POST(HttpRequest.BodyPublishers.ofString("hello, world"))
+                .build(),
+            HttpResponse.BodyHandlers.ofString(UTF_8));
+
+    assertEquals(OK, response.statusCode());
+    assertEquals("true hello", response.body());
+  }
+
+  /**
+   * Verifies that {@link RequestBodyFileHandler} returns the worker thread
+   * while the request body is still being received when the request is not
+   * blocking, and that the next handler is invoked in blocking mode.
+   */
+  @Test
+  public void testWorkerNotOccupied(HttpTester http, FileSystem fileSystem)
+      throws Exception {
+
+    var handlerReturned = new CountDownLatch(1);
+    var sendRemainder = new CountDownLatch(1);
+
+    HttpHandler bodyReceiver =
+        new RequestBodyFileHandler(
+            /* fileFactory= */
+            () -> Files.createTempFile(fileSystem.getPath(""), "body", ".tmp"),
+            /* maxBytes= */ Long.MAX_VALUE,
+            /* next= */
+            exchange -> {
+              ReceivedFile receivedFile =
+                  exchange.getAttachment(RequestBodyFileHandler.RECEIVED_FILE);
+              exchange.getOutputStream().write(
+                  (exchange.isBlocking()
+                       + " "
+                       + Files.readString(receivedFile.file()))
+                      .getBytes(UTF_8));
+            });
+
+    String path =
+        http.addNonBlockingHandler(
+            exchange -> {
+              bodyReceiver.handleRequest(exchange);
+              handlerReturned.countDown();
+            });
+
+    // The client stops sending the body after the first part, until the
+    // handler has returned.
+    InputStream remainder =
+        new FilterInputStream(
+            new ByteArrayInputStream("world".getBytes(UTF_8))) {
+          @Override
+          public int read(byte[] b, int off, int len) throws IOException {
+            Uninterruptibles.awaitUninterruptibly(sendRemainder);
+            return super.read(b, off, len);
+          }
+        };
+
+    HttpRequest request =
+        http.newRequestBuilder(path)
+            .POST(
+                HttpRequest.BodyPublishers.ofInputStream(
+                    () -> new SequenceInputStream(
+                        new ByteArrayInputStream("hello, ".getBytes(UTF_8)),
+                        remainder)))
+            .build();
+
+    CompletableFuture<HttpResponse<String>> responseFuture =
+        http.client().sendAsync(
+            request,
+            HttpResponse.BodyHandlers.ofString(UTF_8));
+
+    try {
+      assertTrue(handlerReturned.await(10, TimeUnit.SECONDS));
+    } finally {
+      sendRemainder.countDown();
+    }
+
+    HttpResponse<String> response = responseFuture.get(10, TimeUnit.SECONDS);
+
+    assertEquals(OK, response.statusCode());
+    assertEquals("true hello, world", response.body());
+  }
+
+  /**
+   * Verifies that {@link RequestBodyFileHandler} passes the request body to a
+   * {@link BodyInputStream} as it is received, and that the stream delivers
+   * the whole body even when it holds much less than the body in memory.
+   */
+  @Test
+  public void testBodyInputStream(HttpTester http, FileSystem fileSystem)
+      throws IOException, InterruptedException {
+
+    String requestBody = Strings.repeat("0123456789", 100_000);
+    var streamedBody = new AtomicReference<CompletableFuture<String>>();
+
+    HttpHandler bodyReceiver =
+        new RequestBodyFileHandler(
+            /* fileFactory= */
+            () -> Files.createTempFile(fileSystem.getPath(""), "body", ".tmp"),
+            /* observerFactory= */
+            exchange -> {
+              var body = new BodyInputStream(exchange, 1024);
+              streamedBody.set(
+                  CompletableFuture.supplyAsync(
+                      () -> {
+                        try (body) {
+                          return new String(body.readAllBytes(), UTF_8);
+                        } catch (IOException e) {
+                          throw new UncheckedIOException(e);
+                        }
+                      }));
+              return body;
+            },
+            /* maxBytes= */ Long.MAX_VALUE,
+            /* next= */
+            exchange -> {
+              ReceivedFile receivedFile =
+                  exchange.getAttachment(RequestBodyFileHandler.RECEIVED_FILE);
+              exchange.getResponseSender().send(
+                  streamedBody.get().join().equals(requestBody)
+                      + " "
+                      + receivedFile.size());
+            });
+
+    String path = http.addNonBlockingHandler(bodyReceiver);
+
+    HttpResponse<String> response =
+        http.client().send(
+            http.newRequestBuilder(path)
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .build(),
+            HttpResponse.BodyHandlers.ofString(UTF_8));
+
+    assertEquals(OK, response.statusCode());
+    assertEquals("true " + requestBody.length(), response.body());
+  }
+
+  /**
+   * Verifies that a {@link RequestBodyFileHandler} cannot be created with a
+   * negative maximum size.
+   */
+  @Test
+  public void testNegativeMaxBytes() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new RequestBodyFileHandler(
+            /* fileFactory= */ () -> { throw new IOException(); },
+            /* maxBytes= */ -1,
+            /* next= */ exchange -> {}));
+  }
+}
@@ -1,7 +1,10 @@
 package tfb.status.undertow.extensions;
 
+import static io.undertow.util.Headers.ACCEPT_ENCODING;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.PathTemplateHandler;
@@ -239,4 +242,31 @@ public final class RequestValuesTest {
         Optional.empty(),
         RequestValues.pathParameter(exchange, "undeclared"));
   }
+
+  /**
+   * Verifies that {@link
+   * RequestValues#acceptsContentCoding(HttpServerExchange, String)} reads the
+   * {@code Accept-Encoding} header, including quality values and wildcards.
+   */
+  @Test
+  public void testAcceptsContentCoding() {
+    assertFalse(acceptsGzip());
+    assertTrue(acceptsGzip("gzip"));
+    assertTrue(acceptsGzip("deflate, GZIP;q=0.5"));
+    assertTrue(acceptsGzip("br", "gzip"));
+    assertTrue(acceptsGzip("*"));
+    assertFalse(acceptsGzip("deflate, br"));
+    assertFalse(acceptsGzip("gzip;q=0"));
+    assertFalse(acceptsGzip("*, gzip;q=0"));
+    assertFalse(acceptsGzip("gzip;q=0.0, *"));
+    assertFalse(acceptsGzip("*;q=0"));
+    assertFalse(acceptsGzip("identity"));
+  }
+
+  private static boolean acceptsGzip(String... acceptEncoding) {
+    var exchange = new HttpServerExchange(null);
+    for (String value : acceptEncoding)
+      exchange.getRequestHeaders().add(ACCEPT_ENCODING, value);
+    return RequestValues.acceptsContentCoding(exchange, "gzip");
+  }
 }
@@ -2,26 +2,46 @@ package tfb.status.util;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import com.google.common.jimfs.Configuration;
 import com.google.common.jimfs.Jimfs;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.ProviderNotFoundException;
 import java.nio.file.spi.FileSystemProvider;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import tfb.status.util.ZipFiles.ZipEntryBufferConsumer;
+import tfb.status.util.ZipFiles.ZipEntryInfo;
 import tfb.status.util.ZipFiles.ZipEntryReader;
+import tfb.status.util.ZipFiles.ZipSession;
 
 /**
  * Tests for {@link ZipFiles}.
@@ -31,6 +51,8 @@ public final class ZipFilesTest {
   private static final String PRESENT_ENTRY_ABSOLUTE_PATH = "/" + PRESENT_ENTRY_PATH;
   private static final String PRESENT_ENTRY_CONTENTS = "Hello!";
   private static final String DIRECTORY_ENTRY_PATH = "directory_inside_zip/";
+  private static final String NESTED_ENTRY_PATH = "directory_inside_zip/nested_file.txt";
+  private static final String NESTED_ENTRY_CONTENTS = "Hello from a directory!";
 
   private static FileSystem inMemoryFs;
   private static Path zipFile;
@@ -65,6 +87,11 @@ public final class ZipFilesTest {
 
       Files.createDirectory(
           zipFs.getPath(DIRECTORY_ENTRY_PATH));
+
+      Files.writeString(
+          zipFs.getPath(NESTED_ENTRY_PATH),
+          NESTED_ENTRY_CONTENTS,
+          CREATE_NEW);
     }
 
     textFile = inMemoryFs.getPath("/file_outside_zip.txt");
@@ -247,4 +274,307 @@ public final class ZipFilesTest {
 
     assertSame(e1, e2);
   }
+
+  /**
+   * Verifies that a {@link ZipSession} returned by {@link
+   * ZipFiles#openZipFile(Path)} is able to read several entries from the same
+   * zip file.
+   */
+  @Test
+  public void testOpenZipFile_readSeveralEntries() throws IOException {
+    try (ZipSession session = ZipFiles.openZipFile(zipFile)) {
+      assertEquals(
+          PRESENT_ENTRY_CONTENTS,
+          session.readEntry(
+              PRESENT_ENTRY_PATH,
+              entry -> new String(entry.readAllBytes(), UTF_8)));
+
+      assertEquals(
+          PRESENT_ENTRY_CONTENTS,
+          session.readEntry(
+              PRESENT_ENTRY_ABSOLUTE_PATH,
+              entry -> new String(entry.readAllBytes(), UTF_8)));
+
+      assertEquals(
+          NESTED_ENTRY_CONTENTS,
+          session.readEntry(
+              NESTED_ENTRY_PATH,
+              entry -> new String(entry.readAllBytes(), UTF_8)));
+
+      assertEquals(
+          NESTED_ENTRY_CONTENTS,
+          session.readEntry(
+              "nested_file.txt",
+              entry -> new String(entry.readAllBytes(), UTF_8)));
+    }
+  }
+
+  /**
+   * Verifies that {@link ZipSession#findEntry(String)} finds files, directories,
+   * and the root directory, and that it returns {@code null} for entries that
+   * are not present.
+   */
+  @Test
+  public void testOpenZipFile_findEntry() throws IOException {
+    try (ZipSession session = ZipFiles.openZipFile(zipFile)) {
+      Path directoryEntry = session.findEntry(DIRECTORY_ENTRY_PATH);
+      assertNotNull(directoryEntry);
+      assertTrue(Files.isDirectory(directoryEntry));
+
+      Path rootEntry = session.findEntry("");
+      assertNotNull(rootEntry);
+      assertTrue(Files.isDirectory(rootEntry));
+      assertEquals(0, rootEntry.getNameCount());
+
+      assertNull(session.findEntry("no_entry_here.txt"));
+      assertNull(session.findEntry("/nested_file.txt"));
+      assertNull(session.findEntry("zip/nested_file.txt"));
+
+      assertNull(
+          session.readEntry(
+              "no_entry_here.txt",
+              entry -> fail("This reader should not have been used")));
+
+      assertNull(
+          session.readEntry(
+              DIRECTORY_ENTRY_PATH,
+              entry -> fail("This reader should not have been used")));
+    }
+  }
+
+  /**
+   * Verifies that {@link ZipSession#lookupEntry(String)} and {@link
+   * ZipSession#listDirectory(ZipEntryInfo)} describe files, directories, and
+   * the root directory from the index of the zip file.
+   */
+  @Test
+  public void testOpenZipFile_lookupEntry() throws IOException {
+    try (ZipSession session = ZipFiles.openZipFile(zipFile)) {
+      ZipEntryInfo fileEntry = session.lookupEntry("nested_file.txt");
+      assertNotNull(fileEntry);
+      assertEquals(NESTED_ENTRY_PATH, fileEntry.path());
+      assertEquals("nested_file.txt", fileEntry.fileName());
+      assertFalse(fileEntry.isDirectory());
+      assertEquals(
+          NESTED_ENTRY_CONTENTS.getBytes(UTF_8).length,
+          fileEntry.size());
+
+      ZipEntryInfo rootEntry = session.lookupEntry("");
+      assertNotNull(rootEntry);
+      assertTrue(rootEntry.isDirectory());
+
+      assertEquals(
+          Set.of(PRESENT_ENTRY_PATH, "directory_inside_zip"),
+          session.listDirectory(rootEntry)
+                 .stream()
+                 .map(child -> child.path())
+                 .collect(toSet()));
+
+      assertNotNull(session.lookupEntry(PRESENT_ENTRY_ABSOLUTE_PATH));
+      assertNull(session.lookupEntry("no_entry_here.txt"));
+      assertNull(session.lookupEntry("/nested_file.txt"));
+      assertNull(session.lookupEntry("zip/nested_file.txt"));
+
+      var transferred = new ByteArrayOutputStream();
+      session.transferEntry(
+          fileEntry,
+          buffer -> {
+            byte[] part = new byte[buffer.remaining()];
+            buffer.get(part);
+            transferred.write(part);
+          });
+
+      assertEquals(NESTED_ENTRY_CONTENTS, transferred.toString(UTF_8));
+    }
+  }
+
+  /**
+   * Verifies that {@link ZipFiles#openZipFile(Path)} rejects a zip file that
+   * is not actually in zip format.
+   */
+  @Test
+  public void testOpenZipFile_rejectWrongFileFormat() {
+    assertThrows(
+        IOException.class,
+        () -> ZipFiles.openZipFile(textFile));
+  }
+
+  /**
+   * Verifies that {@link ZipFiles#openZipFile(Path)} notices when a zip file
+   * has been modified since the last time its entries were indexed.
+   */
+  @Test
+  public void testOpenZipFile_modifiedZipFile() throws IOException {
+    Path modifiedZipFile = inMemoryFs.getPath("/modified_zip_file.zip");
+
+    try (FileSystem zipFs =
+             FileSystems.newFileSystem(
+                 modifiedZipFile,
+                 Map.of("create", "true"))) {
+
+      Files.writeString(zipFs.getPath("before.txt"), "before", CREATE_NEW);
+    }
+
+    try (ZipSession session = ZipFiles.openZipFile(modifiedZipFile)) {
+      assertNotNull(session.findEntry("before.txt"));
+      assertNull(session.findEntry("after.txt"));
+    }
+
+    try (FileSystem zipFs = FileSystems.newFileSystem(modifiedZipFile)) {
+      Files.createDirectory(zipFs.getPath("directory"));
+      Files.writeString(
+          zipFs.getPath("directory/after.txt"),
+          "after",
+          CREATE_NEW);
+    }
+
+    try (ZipSession session = ZipFiles.openZipFile(modifiedZipFile)) {
+      assertNotNull(session.findEntry("before.txt"));
+      assertEquals(
+          "after",
+          session.readEntry(
+              "after.txt",
+              entry -> new String(entry.readAllBytes(), UTF_8)));
+    }
+  }
+
+  /**
+   * Verifies that {@link ZipSession#transferEntry(Path,
+   * ZipEntryBufferConsumer)} and {@link ZipSession#readEntry(String,
+   * ZipEntryReader)} produce the contents of stored and deflated entries, both
+   * from a zip file that can be memory-mapped and from a zip file that cannot.
+   */
+  @Test
+  public void testTransferEntry() throws IOException {
+    byte[] smallContents = "Hello!".getBytes(UTF_8);
+
+    // Large enough to span several buffers.
+    byte[] largeContents = new byte[1_000_000];
+    new Random(0).nextBytes(largeContents);
+    Arrays.fill(largeContents, 0, largeContents.length / 2, (byte) 'a');
+
+    var bytes = new ByteArrayOutputStream();
+    try (var zipOutputStream = new ZipOutputStream(bytes)) {
+      for (byte[] contents : List.of(smallContents, largeContents)) {
+        var crc = new CRC32();
+        crc.update(contents);
+
+        var storedEntry = new ZipEntry("stored/" + contents.length);
+        storedEntry.setMethod(ZipEntry.STORED);
+        storedEntry.setSize(contents.length);
+        storedEntry.setCrc(crc.getValue());
+        zipOutputStream.putNextEntry(storedEntry);
+        zipOutputStream.write(contents);
+        zipOutputStream.closeEntry();
+
+        var deflatedEntry = new ZipEntry("deflated/" + contents.length);
+        deflatedEntry.setMethod(ZipEntry.DEFLATED);
+        zipOutputStream.putNextEntry(deflatedEntry);
+        zipOutputStream.write(contents);
+        zipOutputStream.closeEntry();
+      }
+    }
+
+    Path inMemoryZipFile = inMemoryFs.getPath("/transfer_zip_file.zip");
+    Files.write(inMemoryZipFile, bytes.toByteArray());
+
+    Path mappableZipFile = Files.createTempFile("transfer_zip_file", ".zip");
+    try {
+      Files.write(mappableZipFile, bytes.toByteArray());
+
+      for (Path zipFile : List.of(inMemoryZipFile, mappableZipFile)) {
+        try (ZipSession session = ZipFiles.openZipFile(zipFile)) {
+          for (byte[] contents : List.of(smallContents, largeContents)) {
+            for (String method : List.of("stored", "deflated")) {
+              Path zipEntry =
+                  session.findEntry(method + "/" + contents.length);
+
+              assertNotNull(zipEntry);
+
+              var transferred = new ByteArrayOutputStream();
+              session.transferEntry(
+                  zipEntry,
+                  buffer -> {
+                    byte[] part = new byte[buffer.remaining()];
+                    buffer.get(part);
+                    transferred.write(part);
+                  });
+
+              assertArrayEquals(contents, transferred.toByteArray());
+
+              assertArrayEquals(
+                  contents,
+                  session.readEntry(
+                      method + "/" + contents.length,
+                      entry -> entry.readAllBytes()));
+            }
+          }
+        }
+      }
+    } finally {
+      Files.delete(mappableZipFile);
+    }
+  }
+
+  /**
+   * Verifies that {@link ZipSession#transferEntry(ZipEntryInfo,
+   * ZipEntryBufferConsumer)} and {@link ZipSession#readEntry(String,
+   * ZipEntryReader)} reject a deflated entry whose contents are larger than
+   * the size recorded in the zip file's central directory.
+   */
+  @Test
+  public void testTransferEntry_inflatedBeyondExpectedSize()
+      throws IOException {
+
+    byte[] contents = new byte[100_000];
+    Arrays.fill(contents, (byte) 'a');
+
+    var bytes = new ByteArrayOutputStream();
+    try (var zipOutputStream = new ZipOutputStream(bytes)) {
+      var deflatedEntry = new ZipEntry("deflated");
+      deflatedEntry.setMethod(ZipEntry.DEFLATED);
+      zipOutputStream.putNextEntry(deflatedEntry);
+      zipOutputStream.write(contents);
+      zipOutputStream.closeEntry();
+    }
+
+    // Understate the uncompressed size in the central directory.
+    ByteBuffer zipBytes =
+        ByteBuffer.wrap(bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+
+    for (int i = zipBytes.limit() - 4; i >= 0; i--) {
+      if (zipBytes.getInt(i) == 0x02014b50) {
+        zipBytes.putInt(i + 24, 10);
+        break;
+      }
+    }
+
+    Path understatedZipFile = inMemoryFs.getPath("/understated_zip_file.zip");
+    Files.write(understatedZipFile, zipBytes.array());
+
+    try (ZipSession session = ZipFiles.openZipFile(understatedZipFile)) {
+      ZipEntryInfo zipEntry = session.lookupEntry("deflated");
+      assertNotNull(zipEntry);
+      assertEquals(10, zipEntry.size());
+
+      var transferred = new ByteArrayOutputStream();
+      assertThrows(
+          ZipException.class,
+          () -> session.transferEntry(
+              zipEntry,
+              buffer -> {
+                byte[] part = new byte[buffer.remaining()];
+                buffer.get(part);
+                transferred.write(part);
+              }));
+
+      assertEquals(0, transferred.size());
+
+      assertThrows(
+          ZipException.class,
+          () -> session.readEntry(
+              "deflated",
+              entry -> entry.readAllBytes()));
+    }
+  }
 }
@@ -0,0 +1,91 @@
+package tfb.status.view;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import tfb.status.service.FileStore;
+import tfb.status.testlib.TestServicesInjector;
+
+/**
+ * Tests for {@link FrameworkDictionary}.
+ */
+@ExtendWith(TestServicesInjector.class)
+public final class FrameworkDictionaryTest {
+  /**
+   * Verifies that {@link FrameworkDictionary#id(String)} assigns one id to
+   * each distinct name, and that {@link FrameworkDictionary#name(int)} and
+   * {@link FrameworkDictionary#intern(String)} return the canonical instance
+   * of that name.
+   */
+  @Test
+  public void testIdsAndNames() {
+    String name = "framework_" + UUID.randomUUID();
+    String copy = new String(name);
+    assertNotSame(name, copy);
+
+    int id = FrameworkDictionary.id(name);
+    assertEquals(id, FrameworkDictionary.id(copy));
+    assertSame(name, FrameworkDictionary.name(id));
+    assertSame(name, FrameworkDictionary.intern(copy));
+
+    assertNotEquals(id, FrameworkDictionary.id(name + "_other"));
+
+    assertThrows(IndexOutOfBoundsException.class,
+                 () -> FrameworkDictionary.name(-1));
+
+    assertThrows(IndexOutOfBoundsException.class,
+                 () -> FrameworkDictionary.name(Integer.MAX_VALUE));
+  }
+
+  /**
+   * Verifies that the framework names in separately deserialized {@link
+   * Results} are the same instances.
+   */
+  @Test
+  public void testResultsShareFrameworkNames(FileStore fileStore,
+                                             ObjectMapper objectMapper)
+      throws IOException {
+
+    Path jsonFile =
+        fileStore.resultsDirectory()
+                 .resolve("results.2019-12-11-13-21-02-404.json");
+
+    Results results1 = readResults(jsonFile, objectMapper);
+    Results results2 = readResults(jsonFile, objectMapper);
+
+    String framework = results1.frameworks().iterator().next();
+    assertSame(framework, FrameworkDictionary.intern(framework));
+    assertSame(framework, results2.frameworks().iterator().next());
+
+    for (String name : results2.completed().keySet())
+      assertSame(FrameworkDictionary.intern(name), name);
+
+    assertNotNull(results2.rawData().json());
+    for (String name : results2.rawData().json().keySet())
+      assertSame(FrameworkDictionary.intern(name), name);
+
+    assertNotNull(results2.succeeded().json());
+    for (String name : results2.succeeded().json())
+      assertSame(FrameworkDictionary.intern(name), name);
+  }
+
+  private static Results readResults(Path jsonFile, ObjectMapper objectMapper)
+      throws IOException {
+
+    try (InputStream inputStream = Files.newInputStream(jsonFile)) {
+      return objectMapper.readValue(inputStream, Results.class);
+    }
+  }
+}
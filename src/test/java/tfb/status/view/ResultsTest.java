@@ -4,16 +4,20 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static tfb.status.testlib.MoreAssertions.assertContains;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import tfb.status.service.FileStore;
 import tfb.status.testlib.TestServicesInjector;
+import tfb.status.view.Results.RequestsMatrix;
 
 /**
  * Tests for {@link Results}.
@@ -57,4 +61,47 @@ public final class ResultsTest {
     assertNotNull(newResults.rawData().cachedQuery());
     assertFalse(newResults.rawData().cachedQuery().isEmpty());
   }
+
+  /**
+   * Verifies that {@link Results#requestsMatrix()} agrees with {@link
+   * Results#requests(Results.TestType, String)} for every framework and test
+   * type.
+   */
+  @Test
+  public void testRequestsMatrix(FileStore fileStore,
+                                 ObjectMapper objectMapper)
+      throws IOException {
+
+    Path jsonFile =
+        fileStore.resultsDirectory()
+                 .resolve("results.2019-12-11-13-21-02-404.json");
+
+    Results results;
+    try (InputStream inputStream = Files.newInputStream(jsonFile)) {
+      results = objectMapper.readValue(inputStream, Results.class);
+    }
+
+    RequestsMatrix matrix = results.requestsMatrix();
+
+    assertEquals(List.copyOf(results.frameworks()),
+                 matrix.frameworks().subList(0, results.frameworks().size()));
+
+    boolean foundNonzero = false;
+    for (Results.TestType testType : Results.TestType.values()) {
+      for (String framework : results.frameworks()) {
+        long requests = results.requests(testType, framework);
+        int index = matrix.frameworkIndex(framework);
+        assertEquals(requests, matrix.requests(testType, framework));
+        assertEquals(requests, matrix.requests(testType, index));
+        assertEquals(results.rps(testType, framework),
+                     matrix.rps(testType, index));
+        foundNonzero |= requests != 0;
+      }
+    }
+
+    assertTrue(foundNonzero);
+    assertEquals(-1, matrix.frameworkIndex("notarealframeworkname"));
+    assertEquals(0, matrix.requests(Results.TestType.JSON,
+                                    "notarealframeworkname"));
+  }
 }